@@ -20,6 +20,7 @@
 #include <boost/asio/io_service.hpp>
 
 #include <string>
+#include <sstream>
 #include <vector>
 #include <queue>
 #include <map>
@@ -50,6 +51,7 @@
 #include <core/ProgramStatus.hpp>
 #include <core/system/System.hpp>
 #include <core/FileSerializer.hpp>
+#include <core/Hash.hpp>
 #include <core/http/URL.hpp>
 #include <core/http/Request.hpp>
 #include <core/http/Response.hpp>
@@ -409,6 +411,34 @@ std::string switchToProject(const http::Request& request)
 }
 
 
+// add a section of the session info which rarely changes. if the client
+// already has a cached copy with the same hash we omit it from the payload
+// (and list it in cached_sections so the client knows to restore it)
+void addCacheableSection(const std::string& name,
+                         const json::Value& value,
+                         const json::Object& clientHashes,
+                         json::Object* pSessionInfo,
+                         json::Object* pSectionHashes,
+                         json::Array* pCachedSections)
+{
+   std::ostringstream ostr;
+   json::write(value, ostr);
+   std::string hash = core::hash::crc32HexHash(ostr.str());
+   (*pSectionHashes)[name] = hash;
+
+   json::Object::const_iterator it = clientHashes.find(name);
+   if (it != clientHashes.end() &&
+       json::isType<std::string>(it->second) &&
+       it->second.get_str() == hash)
+   {
+      pCachedSections->push_back(name);
+   }
+   else
+   {
+      (*pSessionInfo)[name] = value;
+   }
+}
+
 void handleClientInit(const boost::function<void()>& initFunction,
                       boost::shared_ptr<HttpConnection> ptrConnection)
 {
@@ -440,6 +470,20 @@ void handleClientInit(const boost::function<void()>& initFunction,
       core::system::setenv("RSTUDIO_HTTP_REFERER", referer);
    }
 
+   // read the hashes of any sections the client has cached (older clients
+   // don't send this so tolerate its absence)
+   json::Object clientSectionHashes;
+   json::JsonRpcRequest request;
+   Error error = json::parseJsonRpcRequest(ptrConnection->request().body(),
+                                           &request);
+   if (!error && request.params.size() > 0 &&
+       json::isType<json::Object>(request.params[0]))
+   {
+      clientSectionHashes = request.params[0].get_obj();
+   }
+   json::Object sectionHashes;
+   json::Array cachedSections;
+
    // prepare session info 
    json::Object sessionInfo ;
    sessionInfo["clientId"] = clientId;
@@ -456,7 +500,7 @@ void handleClientInit(const boost::function<void()>& initFunction,
 
    // temp dir
    FilePath tempDir = rstudio::r::session::utils::tempDir();
-   Error error = tempDir.ensureDirectory();
+   error = tempDir.ensureDirectory();
    if (error)
       LOG_ERROR(error);
    sessionInfo["temp_dir"] = tempDir.absolutePath();
@@ -472,13 +516,6 @@ void handleClientInit(const boost::function<void()>& initFunction,
    rstudio::r::session::clientState().currentState(&clientStateObject);
    sessionInfo["client_state"] = clientStateObject;
    
-   // source documents
-   json::Array jsonDocs;
-   error = modules::source::clientInitDocuments(&jsonDocs);
-   if (error)
-      LOG_ERROR(error);
-   sessionInfo["source_documents"] = jsonDocs;
-   
    // agreement
    sessionInfo["hasAgreement"] = modules::agreement::hasAgreement();
    sessionInfo["pendingAgreement"] = modules::agreement::pendingAgreement();
@@ -500,12 +537,24 @@ void handleClientInit(const boost::function<void()>& initFunction,
       sessionInfo["console_actions"] = actionsObject;
    }
 
-   sessionInfo["rnw_weave_types"] = modules::authoring::supportedRnwWeaveTypes();
-   sessionInfo["latex_program_types"] = modules::authoring::supportedLatexProgramTypes();
-   sessionInfo["tex_capabilities"] = modules::authoring::texCapabilitiesAsJson();
+   addCacheableSection("rnw_weave_types",
+                       modules::authoring::supportedRnwWeaveTypes(),
+                       clientSectionHashes,
+                       &sessionInfo, &sectionHashes, &cachedSections);
+   addCacheableSection("latex_program_types",
+                       modules::authoring::supportedLatexProgramTypes(),
+                       clientSectionHashes,
+                       &sessionInfo, &sectionHashes, &cachedSections);
+   addCacheableSection("tex_capabilities",
+                       modules::authoring::texCapabilitiesAsJson(),
+                       clientSectionHashes,
+                       &sessionInfo, &sectionHashes, &cachedSections);
    sessionInfo["compile_pdf_state"] = modules::authoring::compilePdfStateAsJson();
 
-   sessionInfo["html_capabilities"] = modules::html_preview::capabilitiesAsJson();
+   addCacheableSection("html_capabilities",
+                       modules::html_preview::capabilitiesAsJson(),
+                       clientSectionHashes,
+                       &sessionInfo, &sectionHashes, &cachedSections);
 
    sessionInfo["find_in_files_state"] = modules::find::findInFilesStateAsJson();
 
@@ -551,9 +600,6 @@ void handleClientInit(const boost::function<void()>& initFunction,
                               modules::source_control::defaultSshKeyDir());
    sessionInfo["is_github_repo"] = modules::git::isGithubRepository();
 
-   // contents of all lists
-   sessionInfo["lists"] = modules::lists::allListsAsJson();
-
    sessionInfo["console_processes"] =
          rsession::console_process::processesAsJson();
 
@@ -605,11 +651,7 @@ void handleClientInit(const boost::function<void()>& initFunction,
    sessionInfo["have_srcref_attribute"] =
          modules::breakpoints::haveSrcrefAttribute();
 
-   // console history -- we do this at the end because
-   // restoreBuildRestartContext may have reset it
-   json::Array historyArray;
-   rstudio::r::session::consoleHistory().asJson(&historyArray);
-   sessionInfo["console_history"] = historyArray;
+   // console history is sent in the deferred init (see clientInitDeferred)
    sessionInfo["console_history_capacity"] =
                               rstudio::r::session::consoleHistory().capacity();
 
@@ -656,6 +698,9 @@ void handleClientInit(const boost::function<void()>& initFunction,
 
    sessionInfo["show_help_home"] = options.showHelpHome();
 
+   sessionInfo["section_hashes"] = sectionHashes;
+   sessionInfo["cached_sections"] = cachedSections;
+
    // send response  (we always set kEventsPending to false so that the client
    // won't poll for events until it is ready)
    json::JsonRpcResponse jsonRpcResponse ;
@@ -1453,6 +1498,32 @@ Error suspendForRestart(const core::json::JsonRpcRequest& request,
 }
 
 
+// sections of the session info which aren't required to paint the
+// workbench; the client requests these once the workbench is up
+Error clientInitDeferred(const core::json::JsonRpcRequest& request,
+                         json::JsonRpcResponse* pResponse)
+{
+   json::Object deferredInfo;
+
+   // contents of all lists
+   deferredInfo["lists"] = modules::lists::allListsAsJson();
+
+   // console history
+   json::Array historyArray;
+   rstudio::r::session::consoleHistory().asJson(&historyArray);
+   deferredInfo["console_history"] = historyArray;
+
+   // source documents (including their contents, so they're deferred too)
+   json::Array jsonDocs;
+   Error error = modules::source::clientInitDocuments(&jsonDocs);
+   if (error)
+      LOG_ERROR(error);
+   deferredInfo["source_documents"] = jsonDocs;
+
+   pResponse->setResult(deferredInfo);
+   return Success();
+}
+
 Error ping(const core::json::JsonRpcRequest& request,
            json::JsonRpcResponse* pResponse)
 {
@@ -1585,6 +1656,7 @@ Error rInit(const rstudio::r::session::RInitInfo& rInitInfo)
       (bind(registerRpcMethod, kConsoleInput, bufferConsoleInput))
       (bind(registerRpcMethod, "suspend_for_restart", suspendForRestart))
       (bind(registerRpcMethod, "ping", ping))
+      (bind(registerRpcMethod, "client_init_deferred", clientInitDeferred))
 
       // signal handlers
       (registerSignalHandlers)
@@ -16,6 +16,7 @@
 #include "environment/EnvironmentUtils.hpp"
 
 #include <algorithm>
+#include <set>
 
 #include <boost/bind.hpp>
 #include <boost/format.hpp>
@@ -36,6 +37,7 @@
 #include <r/session/RSession.hpp>
 #include <r/session/RClientState.hpp>
 #include <r/RInternal.hpp>
+#include <r/RJson.hpp>
 
 #include <session/SessionModuleContext.hpp>
 #include <session/SessionUserSettings.hpp>
@@ -294,20 +296,14 @@ bool setBreakpoint(const std::string& functionName,
 // 3. The copy of the function on the global search path
 //
 // Note that this is not guaranteed to find ALL copies of the function in ANY
-// environment--at most, three breakpoints are set.
-Error setBreakpoints(const json::JsonRpcRequest& request,
-                     json::JsonRpcResponse* pResponse)
+// environment--at most, three breakpoints are set. Returns true if at least
+// one copy of the function was found.
+bool setFunctionBreakpoints(const std::string& functionName,
+                            const std::string& fileName,
+                            const std::string& packageName,
+                            const json::Array& steps)
 {
-   std::string functionName, fileName, packageName, projPackageName;
-   json::Array steps;
    bool set = false;
-   Error error = json::readParams(request.params,
-            &functionName,
-            &fileName,
-            &packageName,
-            &steps);
-   if (error)
-      return error;
 
    // Always search the global namespace (and attached namespaces)
    // first. Manipulating the source references for the copy in a searchable
@@ -317,6 +313,7 @@ Error setBreakpoints(const json::JsonRpcRequest& request,
 
    // If we're in package development mode, try to set a breakpoint in the
    // package's namespace.
+   std::string projPackageName;
    const projects::ProjectContext& projectContext = projects::projectContext();
    if (projectContext.config().buildType == r_util::kBuildTypePackage)
    {
@@ -333,8 +330,24 @@ Error setBreakpoints(const json::JsonRpcRequest& request,
       set |= setBreakpoint(functionName, fileName, packageName, steps);
    }
 
+   return set;
+}
+
+Error setBreakpoints(const json::JsonRpcRequest& request,
+                     json::JsonRpcResponse* pResponse)
+{
+   std::string functionName, fileName, packageName;
+   json::Array steps;
+   Error error = json::readParams(request.params,
+            &functionName,
+            &fileName,
+            &packageName,
+            &steps);
+   if (error)
+      return error;
+
    // Couldn't find a function to set a breakpoint on--maybe a bad parameter?
-   if (!set)
+   if (!setFunctionBreakpoints(functionName, fileName, packageName, steps))
    {
       return Error(json::errc::ParamInvalid, ERROR_LOCATION);
    }
@@ -342,6 +355,160 @@ Error setBreakpoints(const json::JsonRpcRequest& request,
    return Success();
 }
 
+// Sets the breakpoints on several functions in a single request. Each element
+// of the request array describes one function; the result is an array of
+// the same length indicating whether the breakpoints on each function were
+// set.
+Error setBreakpointsBatch(const json::JsonRpcRequest& request,
+                          json::JsonRpcResponse* pResponse)
+{
+   json::Array functions;
+   Error error = json::readParams(request.params, &functions);
+   if (error)
+      return error;
+
+   json::Array results;
+   BOOST_FOREACH(const json::Value& function, functions)
+   {
+      if (!json::isType<json::Object>(function))
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+
+      std::string functionName, fileName, packageName;
+      json::Array steps;
+      error = json::readObject(function.get_obj(),
+                               "function_name", &functionName,
+                               "file_name", &fileName,
+                               "package_name", &packageName,
+                               "steps", &steps);
+      if (error)
+         return error;
+
+      results.push_back(
+               setFunctionBreakpoints(functionName, fileName, packageName,
+                                      steps));
+   }
+
+   pResponse->setResult(results);
+   return Success();
+}
+
+// Resolves the steps for the given breakpoint lines in a function; returns
+// an array with the steps for each line (see .rs.getFunctionSteps), which is
+// empty if the function couldn't be found.
+json::Array getFunctionSteps(const std::string& functionName,
+                             const std::string& fileName,
+                             const std::string& packageName,
+                             const std::vector<int>& lineNumbers)
+{
+   SEXP stepsSEXP = R_NilValue;
+   Protect protect;
+   Error error = r::exec::RFunction(".rs.getSteps",
+                                    functionName,
+                                    fileName,
+                                    packageName,
+                                    lineNumbers)
+                                    .call(&stepsSEXP, &protect);
+   if (error)
+   {
+      LOG_ERROR(error);
+      return json::Array();
+   }
+
+   json::Value steps;
+   error = r::json::jsonValueFromObject(stepsSEXP, &steps);
+   if (error)
+   {
+      LOG_ERROR(error);
+      return json::Array();
+   }
+   if (!json::isType<json::Array>(steps))
+      return json::Array();
+
+   return steps.get_array();
+}
+
+// Resolves the steps for the breakpoints on several functions and sets the
+// breakpoints on those functions, all in a single request. Each element of
+// the request array describes one function: the steps of its breakpoints
+// which are already known, and the line numbers of those which need their
+// steps resolved. The result is an array of the same length; each element
+// contains the steps resolved for each line number and whether the
+// breakpoints on the function were set.
+Error resolveAndSetBreakpointsBatch(const json::JsonRpcRequest& request,
+                                    json::JsonRpcResponse* pResponse)
+{
+   json::Array functions;
+   Error error = json::readParams(request.params, &functions);
+   if (error)
+      return error;
+
+   json::Array results;
+   BOOST_FOREACH(const json::Value& function, functions)
+   {
+      if (!json::isType<json::Object>(function))
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+
+      std::string functionName, fileName, packageName;
+      json::Array steps, lineNumbers;
+      error = json::readObject(function.get_obj(),
+                               "function_name", &functionName,
+                               "file_name", &fileName,
+                               "package_name", &packageName,
+                               "steps", &steps,
+                               "line_numbers", &lineNumbers);
+      if (error)
+         return error;
+
+      json::Object result;
+      json::Array resolvedSteps;
+      bool set = false;
+      if (!lineNumbers.empty())
+      {
+         std::vector<int> lines;
+         json::fillVectorInt(lineNumbers, &lines);
+         resolvedSteps = getFunctionSteps(functionName, fileName,
+                                          packageName, lines);
+      }
+
+      // if the function couldn't be found, there's nothing to set
+      if (lineNumbers.empty() || !resolvedSteps.empty())
+      {
+         // include the steps just resolved, skipping any already being set
+         // (e.g. two breakpoints which resolved to the same line)
+         std::set<std::string> allSteps;
+         json::Array stepsToSet;
+         BOOST_FOREACH(const json::Value& step, steps)
+         {
+            if (json::isType<std::string>(step) &&
+                allSteps.insert(step.get_str()).second)
+               stepsToSet.push_back(step);
+         }
+         BOOST_FOREACH(const json::Value& resolved, resolvedSteps)
+         {
+            if (!json::isType<json::Object>(resolved))
+               continue;
+            json::Object::const_iterator it = resolved.get_obj().find("at");
+            if (it == resolved.get_obj().end() ||
+                !json::isType<std::string>(it->second))
+               continue;
+            std::string at = it->second.get_str();
+            if (!at.empty() && allSteps.insert(at).second)
+               stepsToSet.push_back(at);
+         }
+
+         set = setFunctionBreakpoints(functionName, fileName, packageName,
+                                      stepsToSet);
+      }
+
+      result["steps"] = resolvedSteps;
+      result["set"] = set;
+      results.push_back(result);
+   }
+
+   pResponse->setResult(results);
+   return Success();
+}
+
 std::vector<boost::shared_ptr<Breakpoint> >::iterator posOfBreakpointId(int id)
 {
    std::vector<boost::shared_ptr<Breakpoint> >::iterator psbi;
@@ -612,6 +779,9 @@ Error initialize()
    initBlock.addFunctions()
       (bind(registerRpcMethod, "get_function_state", getFunctionState))
       (bind(registerRpcMethod, "set_function_breakpoints", setBreakpoints))
+      (bind(registerRpcMethod, "set_functions_breakpoints", setBreakpointsBatch))
+      (bind(registerRpcMethod, "resolve_and_set_functions_breakpoints",
+            resolveAndSetBreakpointsBatch))
       (bind(registerRpcMethod, "remove_all_breakpoints", removeAllBreakpoints))
       (bind(registerRpcMethod, "update_breakpoints", updateBreakpoints))
       (bind(sourceModuleRFile, "SessionBreakpoints.R"))
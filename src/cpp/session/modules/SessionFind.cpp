@@ -14,14 +14,18 @@
  */
 
 #include "SessionFind.hpp"
+#include "SessionFindIndex.hpp"
 
 #include <algorithm>
 
 #include <boost/algorithm/string.hpp>
 #include <boost/bind.hpp>
+#include <boost/date_time/posix_time/posix_time.hpp>
 #include <boost/enable_shared_from_this.hpp>
+#include <boost/regex.hpp>
 
 #include <core/Exec.hpp>
+#include <core/FileSerializer.hpp>
 #include <core/StringUtils.hpp>
 #include <core/system/Environment.hpp>
 #include <core/system/Process.hpp>
@@ -42,8 +46,12 @@ namespace find {
 
 namespace {
 
-// This must be the same as MAX_COUNT in FindOutputPane.java
-const size_t MAX_COUNT = 1000;
+// results are sent to the client in batches of (at most) this many
+const std::size_t kResultBatchSize = 250;
+
+// at most this many results are included in the state sent at client_init
+// (the client fetches the rest a page at a time) and saved on suspend
+const std::size_t kMaxStateResults = 1000;
 
 // Reflects the current set of Find results that are being
 // displayed, in case they need to be re-fetched (i.e. browser
@@ -52,7 +60,7 @@ class FindInFilesState : public boost::noncopyable
 {
 public:
 
-   explicit FindInFilesState() : running_(false)
+   explicit FindInFilesState() : truncated_(false), running_(false)
    {
    }
 
@@ -112,6 +120,7 @@ public:
    void clear()
    {
       handle_ = std::string();
+      truncated_ = false;
       files_.clear();
       lineNums_.clear();
       contents_.clear();
@@ -148,35 +157,64 @@ public:
          contents_.clear();
       }
 
+      // (not present in state saved by earlier versions)
+      json::Object::const_iterator it = asJson.find("truncated");
+      truncated_ = it != asJson.end() &&
+                   it->second.type() == json::BooleanType &&
+                   it->second.get_bool();
+
       return Success();
    }
 
-   json::Object asJson()
+   // includes at most maxResults results; when saving the state, those
+   // beyond them are dropped (and the state is marked as truncated)
+   json::Object asJson(std::size_t maxResults, bool save = false)
    {
       json::Object obj;
       obj["handle"] = handle_;
       obj["input"] = input_;
       obj["path"] = path_;
       obj["regex"] = regex_;
-
-      json::Object results;
-      results["file"] = files_;
-      results["line"] = lineNums_;
-      results["lineValue"] = contents_;
-      results["matchOn"] = matchOns_;
-      results["matchOff"] = matchOffs_;
-      obj["results"] = results;
-
+      obj["results"] = resultsAsJson(0, maxResults);
+      obj["total"] = static_cast<int>(save ? std::min(maxResults,
+                                                      files_.size())
+                                           : files_.size());
+      obj["truncated"] = truncated_ || (save && files_.size() > maxResults);
       obj["running"] = running_;
 
       return obj;
    }
 
+   json::Object resultsAsJson(std::size_t offset, std::size_t count)
+   {
+      offset = std::min(offset, files_.size());
+      count = std::min(count, files_.size() - offset);
+
+      json::Object results;
+      results["file"] = slice(files_, offset, count);
+      results["line"] = slice(lineNums_, offset, count);
+      results["lineValue"] = slice(contents_, offset, count);
+      results["matchOn"] = slice(matchOns_, offset, count);
+      results["matchOff"] = slice(matchOffs_, offset, count);
+      return results;
+   }
+
 private:
+   static json::Array slice(const json::Array& array,
+                            std::size_t offset,
+                            std::size_t count)
+   {
+      offset = std::min(offset, array.size());
+      count = std::min(count, array.size() - offset);
+      return json::Array(array.begin() + offset,
+                         array.begin() + offset + count);
+   }
+
    std::string handle_;
    std::string input_;
    std::string path_;
    bool regex_;
+   bool truncated_;
    json::Array files_;
    json::Array lineNums_;
    json::Array contents_;
@@ -193,6 +231,34 @@ FindInFilesState& findResults()
    return *s_pFindResults;
 }
 
+void sendResults(const std::string& handle,
+                 const json::Array& files,
+                 const json::Array& lineNums,
+                 const json::Array& contents,
+                 const json::Array& matchOns,
+                 const json::Array& matchOffs)
+{
+   json::Object result;
+   result["handle"] = handle;
+   json::Object results;
+   results["file"] = files;
+   results["line"] = lineNums;
+   results["lineValue"] = contents;
+   results["matchOn"] = matchOns;
+   results["matchOff"] = matchOffs;
+   result["results"] = results;
+
+   findResults().addResult(handle,
+                           files,
+                           lineNums,
+                           contents,
+                           matchOns,
+                           matchOffs);
+
+   module_context::enqueClientEvent(
+            ClientEvent(client_events::kFindResult, result));
+}
+
 class GrepOperation : public boost::enable_shared_from_this<GrepOperation>
 {
 public:
@@ -313,15 +379,10 @@ private:
       json::Array matchOns;
       json::Array matchOffs;
 
-      int recordsToProcess = MAX_COUNT + 1 - findResults().resultCount();
-      if (recordsToProcess < 0)
-         recordsToProcess = 0;
-
       stdOutBuf_.append(data);
       size_t nextLineStart = 0;
       size_t pos = -1;
-      while (recordsToProcess &&
-             std::string::npos != (pos = stdOutBuf_.find('\n', pos + 1)))
+      while (std::string::npos != (pos = stdOutBuf_.find('\n', pos + 1)))
       {
          std::string line = stdOutBuf_.substr(nextLineStart, pos - nextLineStart);
          nextLineStart = pos + 1;
@@ -354,8 +415,6 @@ private:
             contents.push_back(lineContents);
             matchOns.push_back(matchOn);
             matchOffs.push_back(matchOff);
-
-            recordsToProcess--;
          }
       }
 
@@ -365,30 +424,7 @@ private:
       }
 
       if (files.size() > 0)
-      {
-         json::Object result;
-         result["handle"] = handle();
-         json::Object results;
-         results["file"] = files;
-         results["line"] = lineNums;
-         results["lineValue"] = contents;
-         results["matchOn"] = matchOns;
-         results["matchOff"] = matchOffs;
-         result["results"] = results;
-
-         findResults().addResult(handle(),
-                                 files,
-                                 lineNums,
-                                 contents,
-                                 matchOns,
-                                 matchOffs);
-
-         module_context::enqueClientEvent(
-                  ClientEvent(client_events::kFindResult, result));
-      }
-
-      if (recordsToProcess <= 0)
-         findResults().onFindEnd(handle());
+         sendResults(handle(), files, lineNums, contents, matchOns, matchOffs);
    }
 
    void onStderr(const core::system::ProcessOperations& ops, const std::string& data)
@@ -412,6 +448,246 @@ private:
    std::string handle_;
 };
 
+// Searches the candidate files returned by the project index in process
+// (rather than running grep over the whole directory). The files are
+// searched one at a time as incremental work, and the results are sent to
+// the client in batches.
+class IndexedFindOperation
+      : public boost::enable_shared_from_this<IndexedFindOperation>
+{
+public:
+   static boost::shared_ptr<IndexedFindOperation> create(
+                                       const std::string& encoding,
+                                       const boost::regex& regex,
+                                       const std::vector<FilePath>& files)
+   {
+      return boost::shared_ptr<IndexedFindOperation>(
+                        new IndexedFindOperation(encoding, regex, files));
+   }
+
+private:
+   IndexedFindOperation(const std::string& encoding,
+                        const boost::regex& regex,
+                        const std::vector<FilePath>& files)
+      : firstDecodeError_(true), encoding_(encoding), regex_(regex),
+        candidates_(files), nextFile_(0)
+   {
+      handle_ = core::system::generateUuid(false);
+   }
+
+public:
+   std::string handle() const
+   {
+      return handle_;
+   }
+
+   void start()
+   {
+      lastSent_ = boost::posix_time::microsec_clock::universal_time();
+      module_context::scheduleIncrementalWork(
+               boost::posix_time::milliseconds(50),
+               boost::bind(&IndexedFindOperation::searchNextFile,
+                           shared_from_this()),
+               false /* search even when not idle */);
+   }
+
+private:
+   bool searchNextFile()
+   {
+      bool running = findResults().isRunning() &&
+                     findResults().handle() == handle();
+
+      if (running && nextFile_ < candidates_.size())
+         searchFile(candidates_[nextFile_++]);
+
+      using namespace boost::posix_time;
+      bool done = !running || nextFile_ >= candidates_.size();
+      if (!files_.empty() &&
+          (done || files_.size() >= kResultBatchSize ||
+           microsec_clock::universal_time() - lastSent_ > milliseconds(200)))
+      {
+         if (running)
+         {
+            sendResults(handle(), files_, lineNums_, contents_,
+                        matchOns_, matchOffs_);
+         }
+         files_.clear();
+         lineNums_.clear();
+         contents_.clear();
+         matchOns_.clear();
+         matchOffs_.clear();
+         lastSent_ = microsec_clock::universal_time();
+      }
+
+      if (done)
+      {
+         findResults().onFindEnd(handle());
+         module_context::enqueClientEvent(
+               ClientEvent(client_events::kFindOperationEnded, handle()));
+      }
+
+      return !done;
+   }
+
+   void searchFile(const FilePath& filePath)
+   {
+      std::string contents;
+      Error error = readStringFromFile(filePath, &contents);
+      if (error)
+      {
+         // the file may have been removed since it was indexed
+         if (!core::isPathNotFoundError(error))
+            LOG_ERROR(error);
+         return;
+      }
+
+      // skip binary files (as grep does with --binary-files=without-match)
+      if (contents.find('\0') != std::string::npos)
+         return;
+
+      std::string file = module_context::createAliasedPath(filePath);
+
+      int lineNum = 0;
+      std::size_t lineStart = 0;
+      while (lineStart < contents.size())
+      {
+         std::size_t lineEnd = contents.find('\n', lineStart);
+         if (lineEnd == std::string::npos)
+            lineEnd = contents.size();
+         lineNum++;
+
+         std::string line = contents.substr(lineStart, lineEnd - lineStart);
+         lineStart = lineEnd + 1;
+         if (!line.empty() && line[line.size() - 1] == '\r')
+            line.erase(line.size() - 1);
+
+         searchLine(file, lineNum, line);
+      }
+   }
+
+   void searchLine(const std::string& file,
+                   int lineNum,
+                   const std::string& line)
+   {
+      boost::sregex_iterator it(line.begin(), line.end(), regex_);
+      boost::sregex_iterator end;
+      if (it == end)
+         return;
+
+      // offsets are reported as characters within the trimmed line (see
+      // GrepOperation::processContents)
+      std::size_t trimStart = line.find_first_not_of(" \t\n\v\f\r");
+      if (trimStart == std::string::npos)
+         trimStart = line.size();
+
+      json::Array matchOn, matchOff;
+      for ( ; it != end; ++it)
+      {
+         const boost::smatch& match = *it;
+         if (match.length() == 0)
+            continue;
+
+         std::size_t on = match.position();
+         std::size_t off = on + match.length();
+         matchOn.push_back(charOffset(line, trimStart, on));
+         matchOff.push_back(charOffset(line, trimStart, off));
+      }
+
+      std::string lineContents = decode(line);
+      boost::algorithm::trim(lineContents);
+      if (lineContents.size() > 300)
+      {
+         lineContents = lineContents.erase(300);
+         lineContents.append("...");
+      }
+
+      files_.push_back(file);
+      lineNums_.push_back(lineNum);
+      contents_.push_back(lineContents);
+      matchOns_.push_back(matchOn);
+      matchOffs_.push_back(matchOff);
+   }
+
+   int charOffset(const std::string& line,
+                  std::size_t trimStart,
+                  std::size_t pos)
+   {
+      if (pos <= trimStart)
+         return 0;
+
+      std::string decoded = decode(line.substr(trimStart, pos - trimStart));
+      size_t charSize;
+      Error error = string_utils::utf8Distance(decoded.begin(),
+                                               decoded.end(),
+                                               &charSize);
+      if (error)
+         charSize = decoded.size();
+      return static_cast<int>(charSize);
+   }
+
+   std::string decode(const std::string& encoded)
+   {
+      if (encoded.empty())
+         return encoded;
+
+      std::string decoded;
+      Error error = r::util::iconvstr(encoded, encoding_, "UTF-8", true,
+                                      &decoded);
+
+      // Log error, but only once per find operation
+      if (error && firstDecodeError_)
+      {
+         firstDecodeError_ = false;
+         LOG_ERROR(error);
+      }
+
+      return decoded;
+   }
+
+   bool firstDecodeError_;
+   std::string encoding_;
+   boost::regex regex_;
+   std::vector<FilePath> candidates_;
+   std::size_t nextFile_;
+   std::string handle_;
+
+   json::Array files_;
+   json::Array lineNums_;
+   json::Array contents_;
+   json::Array matchOns_;
+   json::Array matchOffs_;
+   boost::posix_time::ptime lastSent_;
+};
+
+// Runs the find using the project index, if it can answer the query
+bool beginIndexedFind(const std::string& encodedString,
+                      bool asRegex,
+                      bool ignoreCase,
+                      const std::string& encoding,
+                      const FilePath& directory,
+                      const std::vector<std::string>& filePatterns,
+                      std::string* pHandle)
+{
+   boost::regex regex;
+   if (!compileSearchRegex(encodedString, asRegex, ignoreCase, &regex))
+      return false;
+
+   std::vector<FilePath> files;
+   if (!findCandidateFiles(encodedString, asRegex, ignoreCase, directory,
+                           filePatterns, &files))
+   {
+      return false;
+   }
+
+   boost::shared_ptr<IndexedFindOperation> ptrFindOp =
+                  IndexedFindOperation::create(encoding, regex, files);
+   *pHandle = ptrFindOp->handle();
+
+   findResults().clear();
+   ptrFindOp->start();
+   return true;
+}
+
 } // namespace
 
 core::Error beginFind(const json::JsonRpcRequest& request,
@@ -431,6 +707,43 @@ core::Error beginFind(const json::JsonRpcRequest& request,
    if (error)
       return error;
 
+   std::string encoding = projects::projectContext().hasProject() ?
+                          projects::projectContext().defaultEncoding() :
+                          userSettings().defaultEncoding();
+   std::string encodedString;
+   error = r::util::iconvstr(searchString,
+                             "UTF-8",
+                             encoding,
+                             false,
+                             &encodedString);
+   if (error)
+   {
+      LOG_ERROR(error);
+      encodedString = searchString;
+   }
+
+   // search the files which the project index says may contain matches
+   // (if the search is within the project and the index is ready)
+   std::vector<std::string> patterns;
+   BOOST_FOREACH(json::Value filePattern, filePatterns)
+   {
+      patterns.push_back(filePattern.get_str());
+   }
+
+   std::string handle;
+   if (beginIndexedFind(encodedString,
+                        asRegex,
+                        ignoreCase,
+                        encoding,
+                        module_context::resolveAliasedPath(directory),
+                        patterns,
+                        &handle))
+   {
+      findResults().onFindBegin(handle, searchString, directory, asRegex);
+      pResponse->setResult(handle);
+      return Success();
+   }
+
    core::system::ProcessOptions options;
 
    core::system::Options childEnv;
@@ -451,21 +764,6 @@ core::Error beginFind(const json::JsonRpcRequest& request,
    error = tempFile.open_w(&pStream);
    if (error)
       return error;
-   std::string encoding = projects::projectContext().hasProject() ?
-                          projects::projectContext().defaultEncoding() :
-                          userSettings().defaultEncoding();
-   std::string encodedString;
-   error = r::util::iconvstr(searchString,
-                             "UTF-8",
-                             encoding,
-                             false,
-                             &encodedString);
-   if (error)
-   {
-      LOG_ERROR(error);
-      encodedString = searchString;
-   }
-
    *pStream << encodedString << std::endl;
    pStream.reset(); // release file handle
 
@@ -494,9 +792,9 @@ core::Error beginFind(const json::JsonRpcRequest& request,
    if (!asRegex)
       cmd << "-F";
 
-   BOOST_FOREACH(json::Value filePattern, filePatterns)
+   BOOST_FOREACH(const std::string& filePattern, patterns)
    {
-      cmd << "--include=" + filePattern.get_str();
+      cmd << "--include=" + filePattern;
    }
 
    cmd << shell_utils::EscapeFilesOnly << "--" << shell_utils::EscapeAll;
@@ -533,6 +831,32 @@ core::Error stopFind(const json::JsonRpcRequest& request,
    return Success();
 }
 
+core::Error getFindResults(const json::JsonRpcRequest& request,
+                           json::JsonRpcResponse* pResponse)
+{
+   std::string handle;
+   int offset, count;
+   Error error = json::readParams(request.params, &handle, &offset, &count);
+   if (error)
+      return error;
+
+   // the results of another search are never returned
+   json::Object result;
+   result["handle"] = handle;
+   if (handle == findResults().handle())
+   {
+      result["results"] = findResults().resultsAsJson(std::max(offset, 0),
+                                                      std::max(count, 0));
+   }
+   else
+   {
+      result["results"] = findResults().resultsAsJson(0, 0);
+   }
+   pResponse->setResult(result);
+
+   return Success();
+}
+
 core::Error clearFindResults(const json::JsonRpcRequest& request,
                              json::JsonRpcResponse* pResponse)
 {
@@ -543,7 +867,7 @@ core::Error clearFindResults(const json::JsonRpcRequest& request,
 void onSuspend(core::Settings* pSettings)
 {
    std::ostringstream os;
-   json::write(findResults().asJson(), os);
+   json::write(findResults().asJson(kMaxStateResults, true), os);
    pSettings->set("find-in-files-state", os.str());
 }
 
@@ -567,7 +891,7 @@ void onResume(const core::Settings& settings)
 
 json::Object findInFilesStateAsJson()
 {
-   return findResults().asJson();
+   return findResults().asJson(kMaxStateResults);
 }
 
 core::Error initialize()
@@ -583,7 +907,9 @@ core::Error initialize()
    initBlock.addFunctions()
       (bind(registerRpcMethod, "begin_find", beginFind))
       (bind(registerRpcMethod, "stop_find", stopFind))
-      (bind(registerRpcMethod, "clear_find_results", clearFindResults));
+      (bind(registerRpcMethod, "get_find_results", getFindResults))
+      (bind(registerRpcMethod, "clear_find_results", clearFindResults))
+      (initializeIndex);
    return initBlock.execute();
 }
 
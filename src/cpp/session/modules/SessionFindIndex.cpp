@@ -0,0 +1,758 @@
+/*
+ * SessionFindIndex.cpp
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+#include "SessionFindIndex.hpp"
+
+#include <algorithm>
+#include <map>
+#include <queue>
+#include <set>
+
+#include <boost/bind.hpp>
+#include <boost/cstdint.hpp>
+#include <boost/foreach.hpp>
+#include <boost/regex.hpp>
+#include <boost/unordered_map.hpp>
+
+#include <core/FileInfo.hpp>
+#include <core/FilePath.hpp>
+#include <core/FileSerializer.hpp>
+#include <core/RegexUtils.hpp>
+#include <core/system/FileChangeEvent.hpp>
+
+#include <session/SessionModuleContext.hpp>
+#include <session/projects/SessionProjects.hpp>
+
+using namespace rstudio::core;
+
+namespace rstudio {
+namespace session {
+namespace modules {
+namespace find {
+
+namespace {
+
+// files larger than this aren't indexed (they're always searched)
+const std::size_t kMaxIndexedFileSize = 4 * 1024 * 1024;
+
+// grep treats files with a NUL in them as binary (and we search using
+// --binary-files=without-match); only the start of the file is checked
+const std::size_t kBinaryCheckSize = 32 * 1024;
+
+typedef boost::uint32_t Trigram;
+
+// these are never searched (see GrepOperation in SessionFind.cpp)
+bool isExcludedPath(const std::string& path)
+{
+   return path.find("/.Rproj.user/") != std::string::npos ||
+          path.find("/.git/") != std::string::npos ||
+          path.find("/.svn/") != std::string::npos ||
+          path.find("/packrat/lib/") != std::string::npos ||
+          path.find("/packrat/src/") != std::string::npos;
+}
+
+inline unsigned char asciiLower(char ch)
+{
+   return (ch >= 'A' && ch <= 'Z') ? ch - 'A' + 'a' : ch;
+}
+
+// Appends the (lower cased) trigrams in text. Searches are line by line,
+// so trigrams spanning line breaks are skipped. Trigrams with non-ASCII
+// bytes are skipped if requested (case insensitive searches can match
+// differently cased non-ASCII characters, which we can't lower case here).
+void addTrigrams(const std::string& text,
+                 bool asciiOnly,
+                 std::vector<Trigram>* pTrigrams)
+{
+   for (std::size_t i = 0; i + 2 < text.size(); i++)
+   {
+      unsigned char c0 = asciiLower(text[i]);
+      unsigned char c1 = asciiLower(text[i + 1]);
+      unsigned char c2 = asciiLower(text[i + 2]);
+      if (c0 == '\n' || c1 == '\n' || c2 == '\n' ||
+          c0 == '\r' || c1 == '\r' || c2 == '\r')
+         continue;
+      if (asciiOnly && (c0 >= 0x80 || c1 >= 0x80 || c2 >= 0x80))
+         continue;
+      pTrigrams->push_back((c0 << 16) | (c1 << 8) | c2);
+   }
+}
+
+// Returns the position of the ']' which ends the bracket expression starting
+// at pos (or the size of the pattern if it isn't terminated)
+std::size_t bracketExpressionEnd(const std::string& pattern, std::size_t pos)
+{
+   // a leading ']' is part of the set
+   std::size_t j = pos + 1;
+   if (j < pattern.size() && pattern[j] == '^')
+      j++;
+   if (j < pattern.size() && pattern[j] == ']')
+      j++;
+   for (; j < pattern.size() && pattern[j] != ']'; j++)
+   {
+      // character classes like [:alpha:]
+      if (pattern[j] == '[' && j + 1 < pattern.size() &&
+          (pattern[j + 1] == ':' || pattern[j + 1] == '=' ||
+           pattern[j + 1] == '.'))
+      {
+         std::size_t end = pattern.find(pattern[j + 1] + std::string("]"),
+                                        j + 2);
+         if (end == std::string::npos)
+            return pattern.size();
+         j = end + 1;
+      }
+   }
+   return j;
+}
+
+// Returns true if the grep basic regular expression only uses escapes which
+// boost::regex (in POSIX basic mode with the GNU \+, \? and \| operators)
+// interprets as grep does. GNU grep's other escapes (\w, \s, \b, \<, ...)
+// either aren't supported by boost in this mode or mean something else.
+bool hasPortableEscapes(const std::string& pattern)
+{
+   for (std::size_t i = 0; i < pattern.size(); i++)
+   {
+      if (pattern[i] == '[')
+      {
+         // backslashes are ordinary characters in bracket expressions
+         i = bracketExpressionEnd(pattern, i);
+      }
+      else if (pattern[i] == '\\')
+      {
+         if (i + 1 == pattern.size())
+            return false;
+         if (std::string("(){}|+?.*[]^$\\123456789").find(pattern[++i]) ==
+                                                         std::string::npos)
+            return false;
+      }
+   }
+   return true;
+}
+
+// Returns literal strings which any line matching the grep basic regular
+// expression must contain. This is conservative: anything which isn't
+// understood (alternation, groups, character classes, etc.) just ends the
+// current literal, and a pattern with alternation has no required
+// literals at all.
+std::vector<std::string> requiredLiterals(const std::string& pattern,
+                                          bool asRegex)
+{
+   std::vector<std::string> literals;
+   if (!asRegex)
+   {
+      literals.push_back(pattern);
+      return literals;
+   }
+
+   if (pattern.find("\\|") != std::string::npos)
+      return literals;
+
+   std::string run;
+   int depth = 0;
+   for (std::size_t i = 0; i < pattern.size(); i++)
+   {
+      char ch = pattern[i];
+      bool literal = false;
+      bool optional = false;
+
+      if (ch == '\\' && i + 1 < pattern.size())
+      {
+         ch = pattern[++i];
+         if (ch == '(')
+         {
+            depth++;
+         }
+         else if (ch == ')')
+         {
+            depth = std::max(0, depth - 1);
+         }
+         else if (ch == '?')
+         {
+            optional = true;
+         }
+         else if (ch == '{')
+         {
+            // interval; the preceding atom may be optional
+            optional = true;
+            std::size_t end = pattern.find("\\}", i);
+            i = (end == std::string::npos) ? pattern.size() : end + 1;
+         }
+         else if (std::string(".*[]^$\\/").find(ch) != std::string::npos)
+         {
+            literal = true;
+         }
+         // anything else (\+, \w, \<, back references, ...) ends the run
+      }
+      else if (ch == '*')
+      {
+         optional = true;
+      }
+      else if (ch == '[')
+      {
+         i = bracketExpressionEnd(pattern, i);
+      }
+      else if (ch != '.' && ch != '^' && ch != '$')
+      {
+         literal = true;
+      }
+
+      if (literal && depth == 0)
+      {
+         run.push_back(ch);
+         continue;
+      }
+
+      // a quantifier makes the last character of the run optional
+      if (optional && !run.empty())
+         run.erase(run.size() - 1);
+      if (run.size() >= 3)
+         literals.push_back(run);
+      run.clear();
+   }
+
+   if (run.size() >= 3)
+      literals.push_back(run);
+
+   return literals;
+}
+
+// An inverted index from trigrams to the project files which contain them.
+// Each version of a file gets a new id; ids are handed out in increasing
+// order so that the posting lists stay sorted, and the ids of removed (or
+// replaced) files stay in the posting lists until there are enough of them
+// to make compacting the index worthwhile.
+class TrigramIndex : boost::noncopyable
+{
+public:
+   TrigramIndex()
+      : indexing_(false), monitoring_(false), ready_(false), deadCount_(0)
+   {
+   }
+
+   template <typename ForwardIterator>
+   void enqueFiles(ForwardIterator begin, ForwardIterator end)
+   {
+      using namespace rstudio::core::system;
+      monitoring_ = true;
+      for ( ; begin != end; ++begin)
+      {
+         FileChangeEvent addEvent(FileChangeEvent::FileAdded, *begin);
+         indexingQueue_.push(addEvent);
+      }
+
+      // the whole project needs to be read, so only do a little of the
+      // work immediately and the rest in small chunks
+      if (!indexingQueue_.empty() && !indexing_)
+      {
+         indexing_ = true;
+         module_context::scheduleIncrementalWork(
+                           boost::posix_time::milliseconds(100),
+                           boost::posix_time::milliseconds(20),
+                           boost::bind(&TrigramIndex::dequeAndIndex, this),
+                           false /* allow indexing even when non-idle */);
+      }
+      else if (indexingQueue_.empty())
+      {
+         ready_ = true;
+      }
+   }
+
+   void enqueFileChange(const core::system::FileChangeEvent& event)
+   {
+      indexingQueue_.push(event);
+      if (!indexing_)
+      {
+         indexing_ = true;
+         module_context::scheduleIncrementalWork(
+                           boost::posix_time::milliseconds(20),
+                           boost::bind(&TrigramIndex::dequeAndIndex, this),
+                           false /* allow indexing even when non-idle */);
+      }
+   }
+
+   void clear()
+   {
+      indexingQueue_ = std::queue<core::system::FileChangeEvent>();
+      entries_.clear();
+      ids_.clear();
+      dirs_.clear();
+      postings_.clear();
+      unindexed_.clear();
+      deadCount_ = 0;
+      monitoring_ = false;
+      ready_ = false;
+   }
+
+   // answers are only given once the initial indexing has completed; later
+   // changes are picked up quickly enough that a search which races them
+   // is no different from one which races a change to a file grep already
+   // read
+   bool isReady() const
+   {
+      return ready_;
+   }
+
+   void candidateFiles(const std::vector<std::string>& literals,
+                       bool ignoreCase,
+                       const std::string& directory,
+                       const std::vector<boost::regex>& filePatterns,
+                       std::vector<FilePath>* pFiles) const
+   {
+      std::vector<Trigram> required;
+      BOOST_FOREACH(const std::string& literal, literals)
+      {
+         addTrigrams(literal, ignoreCase, &required);
+      }
+      std::sort(required.begin(), required.end());
+      required.erase(std::unique(required.begin(), required.end()),
+                     required.end());
+
+      std::vector<std::size_t> ids;
+      if (required.empty())
+      {
+         for (std::size_t id = 0; id < entries_.size(); id++)
+            ids.push_back(id);
+      }
+      else
+      {
+         // intersect the posting lists, shortest first
+         std::vector<const std::vector<std::size_t>*> lists;
+         BOOST_FOREACH(Trigram trigram, required)
+         {
+            Postings::const_iterator it = postings_.find(trigram);
+            if (it == postings_.end())
+            {
+               lists.clear();
+               break;
+            }
+            lists.push_back(&it->second);
+         }
+         std::sort(lists.begin(), lists.end(), shorterList);
+
+         if (!lists.empty())
+         {
+            ids = *lists[0];
+            std::vector<std::size_t> intersection;
+            for (std::size_t i = 1; i < lists.size() && !ids.empty(); i++)
+            {
+               intersection.clear();
+               std::set_intersection(ids.begin(), ids.end(),
+                                     lists[i]->begin(), lists[i]->end(),
+                                     std::back_inserter(intersection));
+               ids.swap(intersection);
+            }
+         }
+
+         // files too large to index could contain anything
+         ids.insert(ids.end(), unindexed_.begin(), unindexed_.end());
+      }
+
+      std::vector<std::string> candidates;
+      BOOST_FOREACH(std::size_t id, ids)
+      {
+         const Entry& entry = entries_[id];
+         if (entry.alive)
+            candidates.push_back(entry.path);
+      }
+      addUnmonitoredFiles(directory, &candidates);
+
+      std::vector<std::string> paths;
+      BOOST_FOREACH(const std::string& path, candidates)
+      {
+         if (path.compare(0, directory.size(), directory))
+            continue;
+
+         if (!filePatterns.empty())
+         {
+            std::string name = FilePath(path).filename();
+            bool matches = false;
+            BOOST_FOREACH(const boost::regex& pattern, filePatterns)
+            {
+               if (boost::regex_match(name, pattern))
+               {
+                  matches = true;
+                  break;
+               }
+            }
+            if (!matches)
+               continue;
+         }
+
+         paths.push_back(path);
+      }
+
+      std::sort(paths.begin(), paths.end());
+      paths.erase(std::unique(paths.begin(), paths.end()), paths.end());
+      BOOST_FOREACH(const std::string& path, paths)
+      {
+         pFiles->push_back(FilePath(path));
+      }
+   }
+
+private:
+   struct Entry
+   {
+      std::string path;
+      std::vector<Trigram> trigrams;
+      bool indexed;
+      bool alive;
+   };
+
+   typedef boost::unordered_map<Trigram, std::vector<std::size_t> > Postings;
+
+   static bool shorterList(const std::vector<std::size_t>* a,
+                           const std::vector<std::size_t>* b)
+   {
+      return a->size() < b->size();
+   }
+
+   // The file monitor doesn't report the files the Files pane hides (e.g.
+   // .lintr or the contents of .github/), but grep searches them. They're
+   // listed (from the directories the monitor does report) when searching
+   // rather than indexed, and are always searched.
+   void addUnmonitoredFiles(const std::string& directory,
+                            std::vector<std::string>* pPaths) const
+   {
+      std::vector<std::string> dirs;
+      dirs.push_back(directory.substr(0, directory.size() - 1));
+      for (std::set<std::string>::const_iterator it =
+                                             dirs_.lower_bound(directory);
+           it != dirs_.end() &&
+           it->compare(0, directory.size(), directory) == 0;
+           ++it)
+      {
+         dirs.push_back(*it);
+      }
+
+      BOOST_FOREACH(const std::string& dir, dirs)
+      {
+         if (isExcludedPath(dir + "/"))
+            continue;
+
+         std::vector<FilePath> children;
+         Error error = FilePath(dir).children(&children);
+         if (error)
+         {
+            if (!core::isPathNotFoundError(error))
+               LOG_ERROR(error);
+            continue;
+         }
+
+         BOOST_FOREACH(const FilePath& child, children)
+         {
+            if (module_context::fileListingFilter(FileInfo(child)))
+               continue;
+
+            if (child.isDirectory())
+            {
+               if (isExcludedPath(child.absolutePath() + "/"))
+                  continue;
+
+               error = child.childrenRecursive(
+                     boost::bind(&TrigramIndex::addUnmonitoredFile,
+                                 _1, _2, pPaths));
+               if (error)
+                  LOG_ERROR(error);
+            }
+            else
+            {
+               addUnmonitoredFile(0, child, pPaths);
+            }
+         }
+      }
+   }
+
+   static bool addUnmonitoredFile(int depth,
+                                  const FilePath& filePath,
+                                  std::vector<std::string>* pPaths)
+   {
+      std::string path = filePath.absolutePath();
+      if (!filePath.isDirectory() && !isExcludedPath(path))
+         pPaths->push_back(path);
+      return true;
+   }
+
+   bool dequeAndIndex()
+   {
+      using namespace rstudio::core::system;
+
+      if (!indexingQueue_.empty())
+      {
+         FileChangeEvent event = indexingQueue_.front();
+         indexingQueue_.pop();
+
+         const FileInfo& fileInfo = event.fileInfo();
+         switch(event.type())
+         {
+            case FileChangeEvent::FileAdded:
+            case FileChangeEvent::FileModified:
+            {
+               updateFile(fileInfo);
+               break;
+            }
+
+            case FileChangeEvent::FileRemoved:
+            {
+               removeFile(fileInfo.absolutePath());
+               break;
+            }
+
+            case FileChangeEvent::None:
+               break;
+         }
+      }
+
+      indexing_ = !indexingQueue_.empty();
+      if (!indexing_)
+      {
+         ready_ = monitoring_;
+         if (deadCount_ > 1000 && deadCount_ > entries_.size() / 2)
+            compact();
+      }
+      return indexing_;
+   }
+
+   void updateFile(const FileInfo& fileInfo)
+   {
+      std::string path = fileInfo.absolutePath();
+      if (fileInfo.isDirectory())
+      {
+         // remembered so we can list the files the monitor doesn't report
+         if (!isExcludedPath(path + "/"))
+            dirs_.insert(path);
+         return;
+      }
+
+      removeFile(path);
+      if (isExcludedPath(path))
+         return;
+
+      Entry entry;
+      entry.path = path;
+      entry.alive = true;
+      entry.indexed = fileInfo.size() <= kMaxIndexedFileSize;
+      if (entry.indexed)
+      {
+         std::string contents;
+         Error error = readStringFromFile(FilePath(path), &contents);
+         if (error)
+         {
+            // the file may have been removed since it was queued
+            if (!core::isPathNotFoundError(error))
+               LOG_ERROR(error);
+            return;
+         }
+
+         // binary files never match
+         if (contents.find('\0') < kBinaryCheckSize)
+            return;
+
+         addTrigrams(contents, false, &entry.trigrams);
+         std::sort(entry.trigrams.begin(), entry.trigrams.end());
+         entry.trigrams.erase(std::unique(entry.trigrams.begin(),
+                                          entry.trigrams.end()),
+                              entry.trigrams.end());
+      }
+
+      std::size_t id = entries_.size();
+      entries_.push_back(entry);
+      ids_[path] = id;
+      if (entry.indexed)
+      {
+         BOOST_FOREACH(Trigram trigram, entry.trigrams)
+         {
+            postings_[trigram].push_back(id);
+         }
+      }
+      else
+      {
+         unindexed_.insert(id);
+      }
+   }
+
+   void removeFile(const std::string& path)
+   {
+      // a removed directory takes the files under it with it
+      std::string dirPrefix = path + "/";
+      std::map<std::string, std::size_t>::iterator it = ids_.lower_bound(path);
+      while (it != ids_.end() &&
+             (it->first == path ||
+              it->first.compare(0, dirPrefix.size(), dirPrefix) == 0))
+      {
+         Entry& entry = entries_[it->second];
+         entry.alive = false;
+         std::vector<Trigram>().swap(entry.trigrams);
+         unindexed_.erase(it->second);
+         deadCount_++;
+         ids_.erase(it++);
+      }
+
+      std::set<std::string>::iterator dirIt = dirs_.lower_bound(path);
+      while (dirIt != dirs_.end() &&
+             (*dirIt == path ||
+              dirIt->compare(0, dirPrefix.size(), dirPrefix) == 0))
+      {
+         dirs_.erase(dirIt++);
+      }
+   }
+
+   // drops the entries for removed files, renumbering the rest
+   void compact()
+   {
+      std::vector<Entry> entries;
+      entries.swap(entries_);
+      ids_.clear();
+      postings_.clear();
+      unindexed_.clear();
+      deadCount_ = 0;
+
+      BOOST_FOREACH(const Entry& entry, entries)
+      {
+         if (!entry.alive)
+            continue;
+
+         std::size_t id = entries_.size();
+         entries_.push_back(entry);
+         ids_[entry.path] = id;
+         if (!entry.indexed)
+            unindexed_.insert(id);
+         BOOST_FOREACH(Trigram trigram, entry.trigrams)
+         {
+            postings_[trigram].push_back(id);
+         }
+      }
+   }
+
+   std::queue<core::system::FileChangeEvent> indexingQueue_;
+   bool indexing_;
+   bool monitoring_;
+   bool ready_;
+
+   std::vector<Entry> entries_;
+   std::map<std::string, std::size_t> ids_;
+   std::set<std::string> dirs_;
+   Postings postings_;
+   std::set<std::size_t> unindexed_;
+   std::size_t deadCount_;
+};
+
+TrigramIndex s_projectIndex;
+
+void onFileMonitorEnabled(const tree<core::FileInfo>& files)
+{
+   // directories are included (see TrigramIndex::addUnmonitoredFiles)
+   s_projectIndex.enqueFiles(files.begin(), files.end());
+}
+
+void onFilesChanged(const std::vector<core::system::FileChangeEvent>& events)
+{
+   std::for_each(
+         events.begin(),
+         events.end(),
+         boost::bind(&TrigramIndex::enqueFileChange, &s_projectIndex, _1));
+}
+
+void onFileMonitorDisabled()
+{
+   // clear the index so we don't ever get stale results
+   s_projectIndex.clear();
+}
+
+} // anonymous namespace
+
+bool findCandidateFiles(const std::string& searchString,
+                        bool asRegex,
+                        bool ignoreCase,
+                        const FilePath& directory,
+                        const std::vector<std::string>& filePatterns,
+                        std::vector<FilePath>* pFiles)
+{
+   if (!s_projectIndex.isReady() ||
+       !projects::projectContext().isMonitoringDirectory(directory))
+   {
+      return false;
+   }
+
+   // only '*' wildcards are supported in file patterns
+   std::vector<boost::regex> patterns;
+   BOOST_FOREACH(const std::string& pattern, filePatterns)
+   {
+      if (pattern.find_first_of("?[") != std::string::npos)
+         return false;
+      patterns.push_back(regex_utils::wildcardPatternToRegex(pattern));
+   }
+
+   std::string dir = directory.absolutePath();
+   if (dir.empty() || dir[dir.size() - 1] != '/')
+      dir.append("/");
+
+   s_projectIndex.candidateFiles(requiredLiterals(searchString, asRegex),
+                                 ignoreCase,
+                                 dir,
+                                 patterns,
+                                 pFiles);
+   return true;
+}
+
+bool compileSearchRegex(const std::string& searchString,
+                        bool asRegex,
+                        bool ignoreCase,
+                        boost::regex* pRegex)
+{
+   // grep treats each line of the pattern as a separate pattern
+   if (searchString.find_first_of("\r\n") != std::string::npos)
+      return false;
+
+   if (asRegex && !hasPortableEscapes(searchString))
+      return false;
+
+   // grep's basic regular expressions (with the GNU extensions)
+   boost::regex_constants::syntax_option_type flags = asRegex ?
+         boost::regex::basic | boost::regex::bk_plus_qm | boost::regex::bk_vbar :
+         boost::regex::literal;
+   if (ignoreCase)
+      flags |= boost::regex::icase;
+
+   try
+   {
+      pRegex->assign(searchString, flags);
+   }
+   catch(const boost::regex_error&)
+   {
+      // let grep report on (or cope with) the expression
+      return false;
+   }
+
+   return true;
+}
+
+Error initializeIndex()
+{
+   // subscribe to project context file monitoring state changes
+   // (note that if there is no project this will no-op)
+   session::projects::FileMonitorCallbacks cb;
+   cb.onMonitoringEnabled = onFileMonitorEnabled;
+   cb.onFilesChanged = onFilesChanged;
+   cb.onMonitoringDisabled = onFileMonitorDisabled;
+   projects::projectContext().subscribeToFileMonitor("Find in files index",
+                                                     cb);
+   return Success();
+}
+
+} // namespace find
+} // namespace modules
+} // namespace session
+} // namespace rstudio
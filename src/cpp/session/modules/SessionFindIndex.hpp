@@ -0,0 +1,64 @@
+/*
+ * SessionFindIndex.hpp
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+#ifndef SESSION_FIND_INDEX_HPP
+#define SESSION_FIND_INDEX_HPP
+
+#include <string>
+#include <vector>
+
+#include <boost/regex.hpp>
+
+#include <core/Error.hpp>
+#include <core/FilePath.hpp>
+
+namespace rstudio {
+namespace session {
+namespace modules {
+namespace find {
+
+// Finds the project files under directory which may contain a match for
+// the search (searchString is in the project's encoding, and is a grep
+// basic regular expression if asRegex is true). Files which can't contain
+// a match are excluded using a trigram index of the project, which is
+// maintained from the project's file monitor (files the monitor doesn't
+// report, e.g. hidden files, are always included). Returns false if the index
+// can't answer the query (e.g. the directory isn't in the project, or the
+// initial indexing of the project hasn't finished yet).
+bool findCandidateFiles(const std::string& searchString,
+                        bool asRegex,
+                        bool ignoreCase,
+                        const core::FilePath& directory,
+                        const std::vector<std::string>& filePatterns,
+                        std::vector<core::FilePath>* pFiles);
+
+// Compiles the search into a regex which selects the same lines grep does
+// (searchString is a grep basic regular expression if asRegex is true).
+// Returns false if the search uses syntax which can't be interpreted the
+// same way in process (e.g. GNU escapes like \w and \<), in which case it
+// should be run with grep.
+bool compileSearchRegex(const std::string& searchString,
+                        bool asRegex,
+                        bool ignoreCase,
+                        boost::regex* pRegex);
+
+core::Error initializeIndex();
+
+} // namespace find
+} // namespace modules
+} // namesapce session
+} // namespace rstudio
+
+#endif // SESSION_FIND_INDEX_HPP
@@ -0,0 +1,195 @@
+/*
+ * SessionFindTests.cpp
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+#include <tests/TestThat.hpp>
+
+#include <sstream>
+
+#include <boost/foreach.hpp>
+#include <boost/lexical_cast.hpp>
+#include <boost/regex.hpp>
+
+#include <core/FilePath.hpp>
+#include <core/FileSerializer.hpp>
+#include <core/system/Process.hpp>
+#include <core/system/ShellUtils.hpp>
+
+#include "SessionFindIndex.hpp"
+
+namespace rstudio {
+namespace session {
+namespace modules {
+namespace find {
+
+using namespace rstudio::core;
+
+namespace {
+
+const char* const kLines[] = {
+   "foo",
+   "foobar",
+   "a foo b bar",
+   "  bar",
+   "FOO BAR",
+   "colour color",
+   "abab",
+   "xx xxx",
+   "123 4567",
+   "a.b axb",
+   "[x]",
+   "*star",
+   "cost c$",
+   "back\\n slash",
+   "]",
+   "word_with_underscores"
+};
+
+// searched both literally and as grep basic regular expressions
+const char* const kPatterns[] = {
+   "foo",
+   "foo.*bar",
+   "^foo",
+   "bar$",
+   "fo\\+",
+   "colou\\?r",
+   "foo\\|bar",
+   "\\(ab\\)\\1",
+   "x\\{2,3\\}",
+   "[[:digit:]]\\{4\\}",
+   "[^a-z ]",
+   "a\\.b",
+   "\\[x\\]",
+   "[]a]",
+   "*star",
+   "c\\$",
+   "[\\]n",
+   "o*r"
+};
+
+std::string matchingLines(const boost::regex& regex,
+                          const std::vector<std::string>& lines)
+{
+   std::string matching;
+   for (std::size_t i = 0; i < lines.size(); i++)
+   {
+      if (boost::regex_search(lines[i], regex))
+         matching += boost::lexical_cast<std::string>(i + 1) + ",";
+   }
+   return matching;
+}
+
+std::string grepMatchingLines(const std::string& pattern,
+                              bool asRegex,
+                              bool ignoreCase,
+                              const FilePath& linesFile)
+{
+   FilePath patternFile;
+   Error error = FilePath::tempFilePath(&patternFile);
+   if (!error)
+      error = writeStringToFile(patternFile, pattern + "\n");
+   if (error)
+   {
+      LOG_ERROR(error);
+      return std::string();
+   }
+
+   shell_utils::ShellCommand cmd("grep");
+   cmd << "-n";
+   if (ignoreCase)
+      cmd << "-i";
+   if (!asRegex)
+      cmd << "-F";
+   cmd << "-f" << patternFile << linesFile;
+
+   core::system::ProcessResult result;
+   error = core::system::runCommand(cmd, core::system::ProcessOptions(),
+                                    &result);
+   patternFile.removeIfExists();
+   if (error)
+   {
+      LOG_ERROR(error);
+      return std::string();
+   }
+
+   // lines are reported as <line number>:<contents>
+   std::string matching;
+   std::istringstream output(result.stdOut);
+   std::string line;
+   while (std::getline(output, line))
+      matching += line.substr(0, line.find(':')) + ",";
+   return matching;
+}
+
+} // anonymous namespace
+
+context("find")
+{
+   test_that("GNU escapes are left to grep")
+   {
+      boost::regex regex;
+      expect_false(compileSearchRegex("foo\\w*", true, false, &regex));
+      expect_false(compileSearchRegex("\\<foo\\>", true, false, &regex));
+      expect_false(compileSearchRegex("\\sbar", true, false, &regex));
+      expect_false(compileSearchRegex("foo\\", true, false, &regex));
+      expect_true(compileSearchRegex("foo\\w*", false, false, &regex));
+      expect_true(compileSearchRegex("[\\w]", true, false, &regex));
+   }
+
+#ifndef _WIN32
+   test_that("in process searches match the same lines as grep")
+   {
+      std::vector<std::string> lines(
+               kLines, kLines + sizeof(kLines) / sizeof(kLines[0]));
+      std::string contents;
+      BOOST_FOREACH(const std::string& line, lines)
+      {
+         contents += line + "\n";
+      }
+
+      FilePath linesFile;
+      Error error = FilePath::tempFilePath(&linesFile);
+      if (!error)
+         error = writeStringToFile(linesFile, contents);
+      expect_true(!error);
+
+      for (std::size_t i = 0; i < sizeof(kPatterns) / sizeof(kPatterns[0]); i++)
+      {
+         for (int asRegex = 0; asRegex < 2; asRegex++)
+         {
+            for (int ignoreCase = 0; ignoreCase < 2; ignoreCase++)
+            {
+               boost::regex regex;
+               expect_true(compileSearchRegex(kPatterns[i],
+                                              asRegex,
+                                              ignoreCase,
+                                              &regex));
+               expect_true(matchingLines(regex, lines) ==
+                           grepMatchingLines(kPatterns[i],
+                                             asRegex,
+                                             ignoreCase,
+                                             linesFile));
+            }
+         }
+      }
+
+      linesFile.removeIfExists();
+   }
+#endif
+}
+
+} // namespace find
+} // namespace modules
+} // namespace session
+} // namespace rstudio
@@ -347,16 +347,26 @@ Error searchHistoryArchiveByPrefix(const json::JsonRpcRequest& request,
 void onHistoryAdd(const std::string& command)
 {   
    // add command to history archive
-   Error error = historyArchive().add(command);
+   HistoryEntry archiveEntry;
+   Error error = historyArchive().add(command, &archiveEntry);
    if (error)
       LOG_ERROR(error);
 
-   // fire event
+   // fire event (the index is the console history index; the archive
+   // index lets clients keep a copy of the archive in sync)
    int entryIndex = r::session::consoleHistory().size() - 1;
    std::vector<HistoryEntry> entries;
-   entries.push_back(HistoryEntry(entryIndex, 0, command));
+   entries.push_back(HistoryEntry(entryIndex,
+                                  archiveEntry.timestamp,
+                                  command));
    json::Object entriesJson;
    historyEntriesAsJson(entries, &entriesJson);
+   json::Array archiveIndexArray;
+   if (!error)
+      archiveIndexArray.push_back(archiveEntry.index);
+   else
+      archiveIndexArray.push_back(-1);
+   entriesJson["archive_index"] = archiveIndexArray;
    ClientEvent event(client_events::kHistoryEntriesAdded, entriesJson);
    module_context::enqueClientEvent(event);
 }
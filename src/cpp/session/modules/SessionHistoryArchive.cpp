@@ -50,7 +50,7 @@ FilePath historyDatabaseRotatedFilePath()
    return module_context::userScratchPath().complete(kHistoryDatabase ".1");
 }
 
-void rotateHistoryDatabase()
+bool rotateHistoryDatabase()
 {
    FilePath historyDB = historyDatabaseFilePath();
    if (historyDB.exists() && (historyDB.size() > kHistoryMaxBytes))
@@ -62,7 +62,9 @@ void rotateHistoryDatabase()
 
       // now rotate the file
       historyDB.move(rotatedHistoryDB);
+      return true;
    }
+   return false;
 }
 
 void writeEntry(double timestamp, const std::string& command, std::ostream* pOS)
@@ -126,22 +128,55 @@ HistoryArchive& historyArchive()
    return instance;
 }
 
-Error HistoryArchive::add(const std::string& command)
+Error HistoryArchive::add(const std::string& command, HistoryEntry* pEntry)
 {
-   // reset the cache (since this write will invalidate the current one,
-   // no sense in keeping our cache around in memory)
-   entries_.clear();
-   entryCacheLastWriteTime_ = -1;
+   // our cache survives this write if it's current and the write doesn't
+   // rotate the database (rotation drops entries and renumbers the rest)
+   FilePath historyDBPath = historyDatabaseFilePath();
+   bool cacheCurrent = entryCacheLastWriteTime_ != -1 &&
+                       historyDBPath.exists() &&
+                       historyDBPath.lastWriteTime() == entryCacheLastWriteTime_;
 
    // rotate if necessary
-   rotateHistoryDatabase();
+   if (rotateHistoryDatabase())
+      cacheCurrent = false;
 
    // write the entry to the file
    std::ostringstream ostrEntry ;
    double currentTime = core::date_time::millisecondsSinceEpoch();
    writeEntry(currentTime, command, &ostrEntry);
    ostrEntry << std::endl;
-   return appendToFile(historyDatabaseFilePath(), ostrEntry.str());
+   Error error = appendToFile(historyDBPath, ostrEntry.str());
+   if (error)
+      cacheCurrent = false;
+
+   if (cacheCurrent)
+   {
+      entries_.push_back(HistoryEntry(static_cast<int>(entries_.size()),
+                                      currentTime,
+                                      command));
+      entryCacheLastWriteTime_ = historyDBPath.lastWriteTime();
+   }
+   else
+   {
+      // reset the cache (no sense keeping a stale one around in memory)
+      entries_.clear();
+      entryCacheLastWriteTime_ = -1;
+   }
+
+   if (error)
+      return error;
+
+   if (pEntry)
+   {
+      const std::vector<HistoryEntry>& allEntries = entries();
+      if (!allEntries.empty())
+         *pEntry = allEntries.back();
+      else
+         *pEntry = HistoryEntry(0, currentTime, command);
+   }
+
+   return Success();
 }
 
 const std::vector<HistoryEntry>& HistoryArchive::entries() const
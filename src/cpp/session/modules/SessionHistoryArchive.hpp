@@ -58,7 +58,9 @@ public:
    static void migrateRhistoryIfNecessary();
 
 public:
-   core::Error add(const std::string& command);
+   // adds the command to the archive; if pEntry is provided it receives
+   // the archive's entry for the command (its archive index and timestamp)
+   core::Error add(const std::string& command, HistoryEntry* pEntry = NULL);
    const std::vector<HistoryEntry>& entries() const;
 
 private:
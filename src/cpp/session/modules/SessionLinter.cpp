@@ -19,6 +19,7 @@
 
 #include <core/Exec.hpp>
 #include <core/Error.hpp>
+#include <core/json/JsonRpc.hpp>
 
 #include <session/SessionModuleContext.hpp>
 
@@ -860,11 +861,9 @@ typedef std::pair<
    boost::shared_ptr<ParseNode>,
    LintItems> LintResults;
 
-LintResults parseAndLintRFile(const FilePath& filePath)
+LintResults parseAndLintRCode(const std::wstring& code)
 {
-   std::string contents = file_utils::readFile(filePath);
-   
-   RTokens tokens(string_utils::utf8ToWide(contents));
+   RTokens tokens(code);
    AnnotatedRTokens rTokens(tokens);
    
    // Create an empty tree to populate
@@ -992,6 +991,12 @@ LintResults parseAndLintRFile(const FilePath& filePath)
    return std::make_pair(root, lintItems);
 }
 
+LintResults parseAndLintRFile(const FilePath& filePath)
+{
+   std::string contents = file_utils::readFile(filePath);
+   return parseAndLintRCode(string_utils::utf8ToWide(contents));
+}
+
 SEXP rs_parseAndLintRFile(SEXP pathSEXP)
 {
    std::string path = r::sexp::asString(pathSEXP);
@@ -1024,6 +1029,47 @@ SEXP rs_parseAndLintRFile(SEXP pathSEXP)
    return result;
 }
 
+// lints each of a list of R expressions (typically the top-level expressions
+// of a document which have changed since they were last linted); the rows and
+// columns of the lint returned for each expression are relative to it
+Error lintRExpressions(const json::JsonRpcRequest& request,
+                       json::JsonRpcResponse* pResponse)
+{
+   json::Array expressionsJson;
+   Error error = json::readParams(request.params, &expressionsJson);
+   if (error)
+      return error;
+
+   json::Array resultJson;
+   for (json::Array::const_iterator it = expressionsJson.begin();
+        it != expressionsJson.end(); ++it)
+   {
+      json::Array lintJson;
+      if (it->type() == json::StringType)
+      {
+         LintResults lintResults = parseAndLintRCode(
+                  string_utils::utf8ToWide(it->get_str()));
+         const std::vector<LintItem>& lintItems = lintResults.second.get();
+         for (std::size_t i = 0; i < lintItems.size(); ++i)
+         {
+            const LintItem& item = lintItems[i];
+            json::Object itemJson;
+            itemJson["start_row"] = item.startRow;
+            itemJson["start_column"] = item.startColumn;
+            itemJson["end_row"] = item.endRow;
+            itemJson["end_column"] = item.endColumn;
+            itemJson["type"] = asString(item.type);
+            itemJson["message"] = item.message;
+            lintJson.push_back(itemJson);
+         }
+      }
+      resultJson.push_back(lintJson);
+   }
+
+   pResponse->setResult(resultJson);
+   return Success();
+}
+
 core::Error initialize()
 {
    using namespace rstudio::core;
@@ -1034,7 +1080,8 @@ core::Error initialize()
    
    ExecBlock initBlock;
    initBlock.addFunctions()
-         (bind(sourceModuleRFile, "SessionLinter.R"));
+         (bind(sourceModuleRFile, "SessionLinter.R"))
+         (bind(registerRpcMethod, "lint_r_expressions", lintRExpressions));
 
    return initBlock.execute();
 
@@ -146,6 +146,34 @@ void onSourceDocUpdated(boost::shared_ptr<IdToFile> pIdToFile,
    }
 }
 
+// build the translation unit for a file ahead of the first completion or
+// navigation request for it (done as idle work since it can take several
+// seconds for files which include large headers, e.g. Rcpp)
+Error primeCppTranslationUnit(const json::JsonRpcRequest& request,
+                              json::JsonRpcResponse* pResponse)
+{
+   std::string docPath;
+   Error error = json::readParams(request.params, &docPath);
+   if (error)
+      return error;
+
+   if (!isAvailable())
+      return Success();
+
+   FilePath filePath = module_context::resolveAliasedPath(docPath);
+   std::string filename = filePath.absolutePath();
+   if (SourceIndex::isSourceFile(filename))
+   {
+      module_context::scheduleDelayedWork(
+            boost::posix_time::milliseconds(100),
+            boost::bind(&SourceIndex::primeEditorTranslationUnit,
+                        &(rSourceIndex()), filename),
+            true); // require idle
+   }
+
+   return Success();
+}
+
 void onSourceDocRemoved(boost::shared_ptr<IdToFile> pIdToFile,
                         const std::string& id)
 {
@@ -244,6 +272,8 @@ Error initialize()
       (bind(registerRpcMethod, "get_cpp_diagnostics", getCppDiagnostics))
       (bind(registerRpcMethod, "go_to_cpp_definition", goToCppDefinition))
       (bind(registerRpcMethod, "get_cpp_completions", getCppCompletions))
+      (bind(registerRpcMethod, "prime_cpp_translation_unit",
+                                          primeCppTranslationUnit))
       (bind(registerRpcMethod, "find_cpp_usages", findUsages));
    Error error = initBlock.execute();
    if (error)
@@ -18,6 +18,9 @@
 #include <string>
 #include <vector>
 #include <sstream>
+#include <cstring>
+#include <iterator>
+#include <boost/cstdint.hpp>
 
 #include <boost/bind.hpp>
 #include <boost/format.hpp>
@@ -447,25 +450,22 @@ json::Value getCols(SEXP dataSEXP)
    return result;
 }
 
-// given an object from which to return data, and a description of the data to
-// return via URL-encoded paramters supplied by the DataTables API, returns the
-// data requested by the parameters. 
-//
-// the shape of the API is described here:
-// http://datatables.net/manual/server-side
+// given an object from which to return data, and the ordering, filtering and
+// searching parameters supplied by the DataTables API (see getData), applies
+// those parameters to the object, reusing the working copy when possible.
 // 
 // NB: may throw exceptions! these are expected to be handled by the handlers
 // in getGridData, where they will be marshaled to JSON and displayed on the
 // client.
-json::Value getData(SEXP dataSEXP, const http::Fields& fields)
+//
+// returns the data to pull rows from, and its row count after transformation.
+SEXP transformData(SEXP dataSEXP, const http::Fields& fields,
+                   int nrow, int ncol,
+                   r::sexp::Protect* pProtect, int* pFilteredNRow)
 {
    Error error;
-   r::sexp::Protect protect;
+   r::sexp::Protect& protect = *pProtect;
 
-   // read draw parameters from DataTables
-   int draw = http::util::fieldValue<int>(fields, "draw", 0);
-   int start = http::util::fieldValue<int>(fields, "start", 0);
-   int length = http::util::fieldValue<int>(fields, "length", 0);
    int ordercol = http::util::fieldValue<int>(fields, "order[0][column]", 
          -1);
    std::string orderdir = http::util::fieldValue<std::string>(fields, 
@@ -476,11 +476,6 @@ json::Value getData(SEXP dataSEXP, const http::Fields& fields)
          http::util::fieldValue<std::string>(fields, "cache_key", ""), 
          true);
 
-   int nrow = safeDim(dataSEXP, DIM_ROWS);
-   int ncol = safeDim(dataSEXP, DIM_COLS);
-   int filteredNRow = 0;
-   ncol = std::min(ncol, MAX_COLS);
-
    // extract filters
    std::vector<std::string> filters;
    bool hasFilter = false;
@@ -570,10 +565,39 @@ json::Value getData(SEXP dataSEXP, const http::Fields& fields)
    }
 
    // apply new row count if we've tansformed the data (or need to)
-   filteredNRow = needsTransform || hasTransform ?
+   *pFilteredNRow = needsTransform || hasTransform ?
       safeDim(dataSEXP, DIM_ROWS) : 
       nrow;
 
+   return dataSEXP;
+}
+
+// given an object from which to return data, and a description of the data to
+// return via URL-encoded paramters supplied by the DataTables API, returns the
+// data requested by the parameters. 
+//
+// the shape of the API is described here:
+// http://datatables.net/manual/server-side
+// 
+// NB: may throw exceptions! (see transformData)
+json::Value getData(SEXP dataSEXP, const http::Fields& fields)
+{
+   Error error;
+   r::sexp::Protect protect;
+
+   // read draw parameters from DataTables
+   int draw = http::util::fieldValue<int>(fields, "draw", 0);
+   int start = http::util::fieldValue<int>(fields, "start", 0);
+   int length = http::util::fieldValue<int>(fields, "length", 0);
+
+   int nrow = safeDim(dataSEXP, DIM_ROWS);
+   int ncol = safeDim(dataSEXP, DIM_COLS);
+   int filteredNRow = 0;
+   ncol = std::min(ncol, MAX_COLS);
+
+   dataSEXP = transformData(dataSEXP, fields, nrow, ncol, &protect,
+                            &filteredNRow);
+
    // return the lesser of the rows available and rows requested
    length = std::min(length, filteredNRow - start);
 
@@ -669,10 +693,155 @@ json::Value getData(SEXP dataSEXP, const http::Fields& fields)
    return result;
 }
 
+// appends values to a block in little-endian byte order (see getBlock)
+void appendInt32(std::string* pBlock, int value)
+{
+   boost::uint32_t bits = static_cast<boost::uint32_t>(value);
+   for (int i = 0; i < 4; i++)
+      pBlock->push_back(static_cast<char>((bits >> (8 * i)) & 0xFF));
+}
+
+void appendFloat64(std::string* pBlock, double value)
+{
+   boost::uint64_t bits;
+   std::memcpy(&bits, &value, sizeof(bits));
+   for (int i = 0; i < 8; i++)
+      pBlock->push_back(static_cast<char>((bits >> (8 * i)) & 0xFF));
+}
+
+// appends one column of a block, as encoded by .rs.encodeDataColumn, to the
+// block's payload; returns the column's description for the block header
+json::Object appendBlockColumn(SEXP encodedSEXP, int length,
+                               std::string* pPayload)
+{
+   std::string type;
+   Error error = r::sexp::getNamedListElement(encodedSEXP, "type", &type);
+   if (error)
+      throw r::exec::RErrorException(error.summary());
+
+   json::Object column;
+   column["type"] = type;
+   if (type == "numeric")
+   {
+      // the values, then a flag byte per value which is set for NA (which
+      // can't reliably be told apart from NaN once it's on the client)
+      SEXP valuesSEXP = R_NilValue;
+      r::sexp::getNamedListSEXP(encodedSEXP, "values", &valuesSEXP);
+      if (TYPEOF(valuesSEXP) != REALSXP || Rf_length(valuesSEXP) < length)
+         throw r::exec::RErrorException("Unexpected column encoding");
+      double* values = REAL(valuesSEXP);
+      for (int i = 0; i < length; i++)
+         appendFloat64(pPayload, values[i]);
+      for (int i = 0; i < length; i++)
+         pPayload->push_back(R_IsNA(values[i]) ? 1 : 0);
+   }
+   else if (type == "factor" || type == "string")
+   {
+      // 1-based codes into the levels/dictionary; 0 for NA
+      SEXP codesSEXP = R_NilValue;
+      r::sexp::getNamedListSEXP(encodedSEXP, "codes", &codesSEXP);
+      if (TYPEOF(codesSEXP) != INTSXP || Rf_length(codesSEXP) < length)
+         throw r::exec::RErrorException("Unexpected column encoding");
+      int* codes = INTEGER(codesSEXP);
+      for (int i = 0; i < length; i++)
+         appendInt32(pPayload, codes[i] == NA_INTEGER ? 0 : codes[i]);
+
+      std::string valuesName = type == "factor" ? "levels" : "dictionary";
+      std::vector<std::string> values;
+      error = r::sexp::getNamedListElement(encodedSEXP, valuesName, &values);
+      if (error)
+         throw r::exec::RErrorException(error.summary());
+      json::Array valuesJson;
+      std::copy(values.begin(), values.end(), 
+                std::back_inserter(valuesJson));
+      column[valuesName] = valuesJson;
+   }
+   // columns of type "index" (automatic row names) have no payload
+
+   return column;
+}
+
+// returns a block of rows from the given object in a compact, column-oriented
+// binary form, for the grid's paging mode. the rows are selected by the
+// "start" and "length" fields (ordering, filtering and searching are as for
+// getData). the block is laid out as follows (all values little-endian):
+//
+//    int32    length of the header
+//    utf-8    header: a JSON object describing the block and its columns
+//    ...      the payload of each column, row names first:
+//               numeric: length float64 values, then length NA flag bytes
+//               factor:  length int32 codes into the column's levels
+//               string:  length int32 codes into the column's dictionary
+//               index:   nothing (the row names are the row numbers)
+//
+// NB: may throw exceptions! (see transformData)
+std::string getBlock(SEXP dataSEXP, const http::Fields& fields)
+{
+   r::sexp::Protect protect;
+
+   int start = http::util::fieldValue<int>(fields, "start", 0);
+   int length = http::util::fieldValue<int>(fields, "length", 0);
+
+   int nrow = safeDim(dataSEXP, DIM_ROWS);
+   int ncol = safeDim(dataSEXP, DIM_COLS);
+   int filteredNRow = 0;
+   ncol = std::min(ncol, MAX_COLS);
+
+   dataSEXP = transformData(dataSEXP, fields, nrow, ncol, &protect,
+                            &filteredNRow);
+
+   length = std::max(0, std::min(length, filteredNRow - start));
+
+   json::Array columns;
+   std::string payload;
+
+   SEXP encodedSEXP = R_NilValue;
+   Error error = r::exec::RFunction(".rs.encodeRowNames", dataSEXP, 
+         start + 1, length).call(&encodedSEXP, &protect);
+   if (error)
+      throw r::exec::RErrorException(error.summary());
+   columns.push_back(appendBlockColumn(encodedSEXP, length, &payload));
+
+   for (int i = 0; i < ncol; i++)
+   {
+      SEXP columnSEXP = VECTOR_ELT(dataSEXP, i);
+      if (columnSEXP == NULL || TYPEOF(columnSEXP) == NILSXP || 
+          Rf_isNull(columnSEXP))
+      {
+         throw r::exec::RErrorException("No data in column " + 
+               boost::lexical_cast<std::string>(i));
+      }
+      error = r::exec::RFunction(".rs.encodeDataColumn", columnSEXP, 
+            start + 1, length).call(&encodedSEXP, &protect);
+      if (error)
+         throw r::exec::RErrorException(error.summary());
+      columns.push_back(appendBlockColumn(encodedSEXP, length, &payload));
+   }
+
+   json::Object header;
+   header["start"] = start;
+   header["length"] = length;
+   header["recordsTotal"] = nrow;
+   header["recordsFiltered"] = filteredNRow;
+   header["columns"] = columns;
+   std::ostringstream ostr;
+   json::write(header, ostr);
+   std::string headerJson = ostr.str();
+
+   std::string block;
+   block.reserve(4 + headerJson.length() + payload.length());
+   appendInt32(&block, static_cast<int>(headerJson.length()));
+   block.append(headerJson);
+   block.append(payload);
+   return block;
+}
+
 Error getGridData(const http::Request& request,
                   http::Response* pResponse)
 {
    json::Value result;
+   std::string block;
+   bool isBlock = false;
    http::status::Code status = http::status::Ok;
 
    try
@@ -750,6 +919,11 @@ Error getGridData(const http::Request& request,
          {
             result = getData(dataSEXP, fields);
          }
+         else if (show == "block")
+         {
+            block = getBlock(dataSEXP, fields);
+            isBlock = true;
+         }
       }
 
    }
@@ -764,11 +938,19 @@ Error getGridData(const http::Request& request,
    }
    CATCH_UNEXPECTED_EXCEPTION
 
-   std::ostringstream ostr;
-   json::write(result, ostr);
    pResponse->setNoCacheHeaders();    // don't cache data/grid shape
    pResponse->setStatusCode(status);
-   pResponse->setBody(ostr.str());
+   if (isBlock && status == http::status::Ok)
+   {
+      pResponse->setContentType("application/octet-stream");
+      pResponse->setBody(block);
+   }
+   else
+   {
+      std::ostringstream ostr;
+      json::write(result, ostr);
+      pResponse->setBody(ostr.str());
+   }
 
    return Success();
 }
@@ -77,6 +77,8 @@ EnvironmentMonitor::EnvironmentMonitor() :
 
 void EnvironmentMonitor::enqueRemovedEvent(const r::sexp::Variable& variable)
 {
+   recordObjectRemoved(getMonitoredEnvironment(), variable.first);
+
    ClientEvent removedEvent(client_events::kEnvironmentRemoved, variable.first);
    module_context::enqueClientEvent(removedEvent);
 }
@@ -85,6 +87,7 @@ void EnvironmentMonitor::enqueAssignedEvent(const r::sexp::Variable& variable)
 {
    // get object info
    json::Value objInfo = varToJson(getMonitoredEnvironment(), variable);
+   recordObjectAssigned(getMonitoredEnvironment(), objInfo);
 
    // enque event
    ClientEvent assignedEvent(client_events::kEnvironmentAssigned, objInfo);
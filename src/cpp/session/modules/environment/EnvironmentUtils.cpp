@@ -16,10 +16,15 @@
 #include "EnvironmentUtils.hpp"
 
 #include <algorithm>
+#include <deque>
+#include <map>
+#include <set>
+#include <sstream>
 
 #include <r/RExec.hpp>
 #include <r/RJson.hpp>
 #include <core/FileSerializer.hpp>
+#include <core/Hash.hpp>
 #include <session/SessionModuleContext.hpp>
 
 
@@ -35,6 +40,42 @@ namespace {
 // of a variable
 const char UNKNOWN_VALUE[] = "<unknown>";
 
+// hashes of the object descriptions last sent to the client, by object name,
+// for each environment (keyed by environmentKey); the most recently sent
+// environments are at the back of s_sentOrder
+typedef std::map<std::string, std::string> ObjectHashes;
+std::map<std::string, ObjectHashes> s_sentObjects;
+std::deque<std::string> s_sentOrder;
+
+// the number of environments to keep records for; this should be no larger
+// than the number the client keeps copies of
+const std::size_t kMaxSentEnvironments = 20;
+
+std::string objectName(const json::Value& object)
+{
+   if (object.type() != json::ObjectType)
+      return std::string();
+   const json::Object& obj = object.get_obj();
+   json::Object::const_iterator it = obj.find("name");
+   if (it == obj.end() || it->second.type() != json::StringType)
+      return std::string();
+   return it->second.get_str();
+}
+
+std::string objectHash(const json::Value& object)
+{
+   std::ostringstream ostr;
+   json::write(object, ostr);
+   return hash::crc32HexHash(ostr.str());
+}
+
+ObjectHashes* sentObjects(SEXP env)
+{
+   std::map<std::string, ObjectHashes>::iterator it =
+                                    s_sentObjects.find(environmentKey(env));
+   return it != s_sentObjects.end() ? &it->second : NULL;
+}
+
 json::Value descriptionOfVar(SEXP var)
 {
    std::string value;
@@ -219,6 +260,91 @@ void sourceRefToJson(const SEXP srcref, json::Object* pObject)
    }
 }
 
+std::string environmentKey(SEXP env)
+{
+   // environments are identified by address; if an environment is collected
+   // and its address reused then the records for the old environment serve
+   // as a (stale, but consistent with the client's copy) baseline for the
+   // new one
+   std::ostringstream ostr;
+   ostr << static_cast<void*>(env);
+   return ostr.str();
+}
+
+void recordObjectsSent(SEXP env, const json::Array& objects)
+{
+   std::string key = environmentKey(env);
+
+   ObjectHashes hashes;
+   for (json::Array::const_iterator it = objects.begin();
+        it != objects.end(); ++it)
+   {
+      hashes[objectName(*it)] = objectHash(*it);
+   }
+   s_sentObjects[key] = hashes;
+
+   // move this environment to the back of the queue, and forget about the
+   // least recently sent ones if there are too many
+   s_sentOrder.erase(std::remove(s_sentOrder.begin(), s_sentOrder.end(), key),
+                     s_sentOrder.end());
+   s_sentOrder.push_back(key);
+   while (s_sentOrder.size() > kMaxSentEnvironments)
+   {
+      s_sentObjects.erase(s_sentOrder.front());
+      s_sentOrder.pop_front();
+   }
+}
+
+void recordObjectAssigned(SEXP env, const json::Value& object)
+{
+   ObjectHashes* pHashes = sentObjects(env);
+   if (pHashes)
+      (*pHashes)[objectName(object)] = objectHash(object);
+}
+
+void recordObjectRemoved(SEXP env, const std::string& name)
+{
+   ObjectHashes* pHashes = sentObjects(env);
+   if (pHashes)
+      pHashes->erase(name);
+}
+
+// compares the given objects (the current contents of the environment) with
+// those last sent to the client; returns false if nothing was previously sent
+// for the environment (in which case the full list needs to be sent)
+bool environmentChangesAsJson(SEXP env,
+                              const json::Array& objects,
+                              json::Object* pChanges)
+{
+   ObjectHashes* pHashes = sentObjects(env);
+   if (pHashes == NULL)
+      return false;
+
+   json::Array assigned;
+   std::set<std::string> current;
+   for (json::Array::const_iterator it = objects.begin();
+        it != objects.end(); ++it)
+   {
+      std::string name = objectName(*it);
+      current.insert(name);
+      ObjectHashes::const_iterator sent = pHashes->find(name);
+      if (sent == pHashes->end() || sent->second != objectHash(*it))
+         assigned.push_back(*it);
+   }
+
+   json::Array removed;
+   for (ObjectHashes::const_iterator it = pHashes->begin();
+        it != pHashes->end(); ++it)
+   {
+      if (current.find(it->first) == current.end())
+         removed.push_back(it->first);
+   }
+
+   (*pChanges)["assigned"] = assigned;
+   (*pChanges)["removed"] = removed;
+   return true;
+}
+
 } // namespace environment
 } // namespace modules
 } // namespace session
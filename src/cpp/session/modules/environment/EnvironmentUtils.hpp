@@ -26,6 +26,18 @@ bool isUnevaluatedPromise(SEXP var);
 bool functionDiffersFromSource(SEXP srcRef, const std::string& functionCode);
 void sourceRefToJson(const SEXP srcref, core::json::Object* pObject);
 
+// Bookkeeping for the objects last sent to the client for each environment,
+// so that environment contents can be sent as a set of changes rather than
+// in full. The client keeps a copy of each environment's contents under the
+// same key.
+std::string environmentKey(SEXP env);
+void recordObjectsSent(SEXP env, const core::json::Array& objects);
+void recordObjectAssigned(SEXP env, const core::json::Value& object);
+void recordObjectRemoved(SEXP env, const std::string& name);
+bool environmentChangesAsJson(SEXP env,
+                              const core::json::Array& objects,
+                              core::json::Object* pChanges);
+
 } // namespace environment
 } // namespace modules
 } // namespace session
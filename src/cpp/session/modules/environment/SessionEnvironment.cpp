@@ -672,10 +672,13 @@ json::Value environmentNames(SEXP env)
 
 // create a JSON object that contains information about the current environment;
 // used both to initialize the environment state on first load and to send
-// information about the new environment on a context change
+// information about the new environment on a context change. if sendChanges
+// is true and the client already has a copy of the environment's contents
+// then only the objects that changed since it was sent are included.
 json::Object commonEnvironmentStateData(
    int depth,
-   LineDebugState* pLineDebugState)
+   LineDebugState* pLineDebugState,
+   bool sendChanges = false)
 {
    json::Object varJson;
    bool useProvidedSource = false;
@@ -683,7 +686,24 @@ json::Object commonEnvironmentStateData(
    bool inFunctionEnvironment = false;
 
    varJson["context_depth"] = depth;
-   varJson["environment_list"] = environmentListAsJson();
+
+   json::Array environmentList = environmentListAsJson();
+   SEXP monitoredEnv = s_pEnvironmentMonitor->getMonitoredEnvironment();
+   json::Object environmentChanges;
+   if (sendChanges &&
+       environmentChangesAsJson(monitoredEnv,
+                                environmentList,
+                                &environmentChanges))
+   {
+      varJson["environment_changes"] = environmentChanges;
+   }
+   else
+   {
+      varJson["environment_list"] = environmentList;
+   }
+   varJson["environment_key"] = environmentKey(monitoredEnv);
+   recordObjectsSent(monitoredEnv, environmentList);
+
    varJson["call_frames"] = callFramesAsJson(pLineDebugState);
 
    // if we're in a debug context, add information about the function currently
@@ -763,7 +783,9 @@ void enqueContextDepthChangedEvent(int depth,
    // emit an event to the client indicating the new call frame and the
    // current state of the environment
    ClientEvent event (client_events::kContextDepthChanged,
-                      commonEnvironmentStateData(depth, pLineDebugState));
+                      commonEnvironmentStateData(depth,
+                                                 pLineDebugState,
+                                                 true));
    module_context::enqueClientEvent(event);
 }
 
@@ -21,6 +21,7 @@
 #include <boost/utility.hpp>
 #include <boost/foreach.hpp>
 #include <boost/format.hpp>
+#include <boost/algorithm/string/join.hpp>
 #include <boost/algorithm/string/split.hpp>
 #include <boost/algorithm/string/predicate.hpp>
 #include <boost/algorithm/string/trim.hpp>
@@ -256,6 +257,157 @@ std::string extractKnitrError(const std::string& stdError)
 
 }
 
+// Knitting a presentation runs every chunk in the deck, which can take
+// several seconds. Most saves during editing only change the text of slides
+// though, so after each knit we remember the knitted markdown of each slide
+// which contains R code (keyed by the slide's source). If a later version of
+// the source contains exactly the same code slides in the same order then
+// the code would produce the same output, so the markdown is assembled from
+// the remembered output and the (unknitted) text of the other slides.
+struct KnitCache
+{
+   void clear()
+   {
+      rmdPath.clear();
+      codeSignature.clear();
+      outputs.clear();
+   }
+
+   std::string rmdPath;
+   std::string codeSignature;
+   std::map<std::string,std::string> outputs;
+};
+
+KnitCache s_knitCache;
+
+// split a presentation into its preamble and slides (each slide starts with
+// the title line before a line of ===)
+std::vector<std::string> splitSlideSources(const std::string& contents)
+{
+   std::vector<std::string> lines;
+   boost::algorithm::split(lines, contents, boost::algorithm::is_any_of("\n"));
+
+   boost::regex re("^\\={3,}\\s*$");
+   std::vector<std::size_t> starts;
+   starts.push_back(0);
+   for (std::size_t i = 1; i<lines.size(); i++)
+   {
+      if (boost::regex_match(lines[i], re) && (i - 1) > starts.back())
+         starts.push_back(i - 1);
+   }
+   starts.push_back(lines.size());
+
+   std::vector<std::string> slides;
+   for (std::size_t i = 0; i < starts.size() - 1; i++)
+   {
+      std::vector<std::string> slideLines(lines.begin() + starts[i],
+                                          lines.begin() + starts[i+1]);
+      slides.push_back(boost::algorithm::join(slideLines, "\n"));
+   }
+   return slides;
+}
+
+bool hasRCode(const std::string& slide)
+{
+   boost::regex chunkRe("^\\s*```+\\s*\\{r");
+   return boost::regex_search(slide, chunkRe) ||
+          slide.find("`r ") != std::string::npos;
+}
+
+std::string codeSignature(const std::vector<std::string>& slides)
+{
+   std::string signature;
+   BOOST_FOREACH(const std::string& slide, slides)
+   {
+      if (hasRCode(slide))
+         signature.append(slide).append("\x1e");
+   }
+   return signature;
+}
+
+Error readPosixFile(const FilePath& filePath, std::string* pContents)
+{
+   return core::readStringFromFile(filePath,
+                                   pContents,
+                                   string_utils::LineEndingPosix);
+}
+
+// remember the knitted output of each code slide (only done if the knitted
+// markdown lines up with the source, i.e. every slide without code is
+// identical in both)
+void updateKnitCache(const FilePath& rmdPath, const FilePath& mdPath)
+{
+   s_knitCache.clear();
+
+   std::string rmd, md;
+   Error error = readPosixFile(rmdPath, &rmd);
+   if (!error)
+      error = readPosixFile(mdPath, &md);
+   if (error)
+   {
+      LOG_ERROR(error);
+      return;
+   }
+
+   std::vector<std::string> rmdSlides = splitSlideSources(rmd);
+   std::vector<std::string> mdSlides = splitSlideSources(md);
+   if (rmdSlides.size() != mdSlides.size())
+      return;
+
+   std::map<std::string,std::string> outputs;
+   for (std::size_t i = 0; i<rmdSlides.size(); i++)
+   {
+      if (hasRCode(rmdSlides[i]))
+         outputs[rmdSlides[i]] = mdSlides[i];
+      else if (rmdSlides[i] != mdSlides[i])
+         return;
+   }
+
+   s_knitCache.rmdPath = rmdPath.absolutePath();
+   s_knitCache.codeSignature = codeSignature(rmdSlides);
+   s_knitCache.outputs = outputs;
+}
+
+// write the markdown for the presentation from the knit cache; returns
+// false if the code in the presentation has changed since it was cached
+bool writeMarkdownFromKnitCache(const FilePath& rmdPath,
+                                const FilePath& mdPath)
+{
+   if (s_knitCache.rmdPath != rmdPath.absolutePath())
+      return false;
+
+   std::string rmd;
+   Error error = readPosixFile(rmdPath, &rmd);
+   if (error)
+   {
+      LOG_ERROR(error);
+      return false;
+   }
+
+   std::vector<std::string> slides = splitSlideSources(rmd);
+   if (codeSignature(slides) != s_knitCache.codeSignature)
+      return false;
+
+   std::vector<std::string> mdSlides;
+   BOOST_FOREACH(const std::string& slide, slides)
+   {
+      if (hasRCode(slide))
+         mdSlides.push_back(s_knitCache.outputs[slide]);
+      else
+         mdSlides.push_back(slide);
+   }
+
+   error = core::writeStringToFile(mdPath,
+                                   boost::algorithm::join(mdSlides, "\n"));
+   if (error)
+   {
+      LOG_ERROR(error);
+      return false;
+   }
+
+   return true;
+}
+
 bool performKnit(const FilePath& rmdPath,
                  bool clearCache,
                  ErrorResponse* pErrorResponse)
@@ -273,7 +425,18 @@ bool performKnit(const FilePath& rmdPath,
 
    // Now detect whether we even need to knit -- if there is an .md
    // file with timestamp the same as or later than the .Rmd then skip it
+   // (priming the knit cache from it if we haven't knit in this session)
    if (mdPath.exists() && (mdPath.lastWriteTime() > rmdPath.lastWriteTime()))
+   {
+      if (s_knitCache.rmdPath != rmdPath.absolutePath())
+         updateKnitCache(rmdPath, mdPath);
+      return true;
+   }
+
+   // if only the text of the slides changed we don't need to knit
+   if (clearCache)
+      s_knitCache.clear();
+   else if (writeMarkdownFromKnitCache(rmdPath, mdPath))
       return true;
 
    // R binary
@@ -353,6 +516,9 @@ bool performKnit(const FilePath& rmdPath,
    }
    else if (result.exitStatus != EXIT_SUCCESS)
    {
+      // don't reuse output from a failed knit
+      s_knitCache.clear();
+
       // if the markdown file doesn't exist then create one to
       // play the error text back into
       if (!mdPath.exists())
@@ -379,6 +545,7 @@ bool performKnit(const FilePath& rmdPath,
    }
    else
    {
+      updateKnitCache(rmdPath, mdPath);
       return true;
    }
 }
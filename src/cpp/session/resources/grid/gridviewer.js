@@ -486,6 +486,256 @@ var createHeader = function(idx, col) {
   return th;
 };
 
+// Block paging ---------------------------------------------------------------
+//
+// Rather than asking the server for each range of rows DataTables wants as
+// rows of formatted text, we fetch fixed-size blocks of rows in a compact,
+// column-oriented binary form (see getBlock in DataViewer.cpp) and build the
+// rows from those. Blocks are kept in an LRU cache keyed by the version of
+// the object and the current order/search/filter state, and the blocks on
+// either side of the visible rows are prefetched, so scrolling seldom has to
+// wait on the server.
+
+// the number of rows in a block, and the number of blocks to keep
+var blockSize = 500;
+var maxCachedBlocks = 40;
+
+// incremented whenever the object being viewed changes
+var dataVersion = 0;
+
+// decoded blocks by key, and their keys, least recently used first
+var blockCache = {};
+var blockCacheOrder = [];
+
+// callbacks waiting on blocks which are being fetched, by key
+var pendingBlocks = {};
+
+// block paging needs typed binary data from XHR; if it's not available we
+// fall back on asking for rows of text
+var blockPagingSupported = function() {
+  return typeof(ArrayBuffer) !== "undefined" && 
+         typeof(DataView) !== "undefined" &&
+         typeof(Uint8Array) !== "undefined";
+};
+
+var clearBlockCache = function() {
+  dataVersion++;
+  blockCache = {};
+  blockCacheOrder = [];
+};
+
+var cacheBlock = function(key, block) {
+  var idx = blockCacheOrder.indexOf(key);
+  if (idx >= 0) {
+    blockCacheOrder.splice(idx, 1);
+  }
+  blockCacheOrder.push(key);
+  blockCache[key] = block;
+  while (blockCacheOrder.length > maxCachedBlocks) {
+    delete blockCache[blockCacheOrder.shift()];
+  }
+};
+
+var decodeUtf8 = function(bytes) {
+  var chars = "";
+  for (var i = 0; i < bytes.length; i += 4096) {
+    chars += String.fromCharCode.apply(null, 
+        bytes.subarray(i, Math.min(i + 4096, bytes.length)));
+  }
+  return decodeURIComponent(escape(chars));
+};
+
+// decodes a block from the server into its header, with each column's
+// values or codes attached
+var decodeBlock = function(buffer) {
+  var view = new DataView(buffer);
+  var headerLength = view.getInt32(0, true);
+  var block = JSON.parse(decodeUtf8(new Uint8Array(buffer, 4, headerLength)));
+  var offset = 4 + headerLength;
+  var n = block.length;
+  for (var c = 0; c < block.columns.length; c++) {
+    var col = block.columns[c];
+    var i;
+    if (col.type === "numeric") {
+      col.values = new Array(n);
+      for (i = 0; i < n; i++) {
+        col.values[i] = view.getUint8(offset + 8 * n + i) ? 
+          null : view.getFloat64(offset + 8 * i, true);
+      }
+      offset += 9 * n;
+    } else if (col.type === "factor" || col.type === "string") {
+      col.codes = new Array(n);
+      for (i = 0; i < n; i++) {
+        col.codes[i] = view.getInt32(offset + 4 * i, true);
+      }
+      offset += 4 * n;
+    }
+  }
+  return block;
+};
+
+// formats a number for display (R's default of 7 significant digits)
+var formatNumber = function(val) {
+  if (val === null) 
+    return "NA";
+  if (isNaN(val))
+    return "NaN";
+  if (!isFinite(val))
+    return val > 0 ? "Inf" : "-Inf";
+  // R doesn't round away digits of the integer part unless it switches to
+  // scientific notation
+  if (Math.abs(val) >= 1e7 && Math.abs(val) < 1e15)
+    return String(Math.round(val));
+  return String(parseFloat(val.toPrecision(7)))
+           .replace(/e([+-])(\d)$/, "e$10$2");
+};
+
+// returns the text of the given row (relative to the start of the block) in
+// the given column of a block
+var blockCellText = function(block, col, row) {
+  if (col.type === "index") {
+    return String(block.start + row + 1);
+  } else if (col.type === "numeric") {
+    return formatNumber(col.values[row]);
+  } else {
+    var code = col.codes[row];
+    if (code === 0)
+      return "NA";
+    return col.type === "factor" ? 
+      col.levels[code - 1] : col.dictionary[code - 1];
+  }
+};
+
+// the parameters that determine which rows are in the data, and in which
+// order (these are passed through to the server in DataTables' format)
+var blockParams = function(d) {
+  var params = {
+    search: { value: d.search.value },
+    order: d.order,
+    columns: []
+  };
+  for (var i = 0; i < d.columns.length; i++) {
+    params.columns.push({ search: { value: d.columns[i].search.value } });
+  }
+  return params;
+};
+
+// gets a block of rows from the cache or the server; onReady and onError
+// may be null (when prefetching)
+var fetchBlock = function(params, index, onReady, onError) {
+  var key = dataVersion + "|" + JSON.stringify(params) + "|" + index;
+  if (blockCache[key]) {
+    cacheBlock(key, blockCache[key]);
+    if (onReady)
+      onReady(blockCache[key]);
+    return;
+  }
+
+  var pending = pendingBlocks[key];
+  var waiting = { onReady: onReady, onError: onError };
+  if (pending) {
+    pending.push(waiting);
+    return;
+  }
+  pendingBlocks[key] = [ waiting ];
+
+  var finish = function(block, error) {
+    var callbacks = pendingBlocks[key];
+    delete pendingBlocks[key];
+    if (block) {
+      cacheBlock(key, block);
+    }
+    for (var i = 0; i < callbacks.length; i++) {
+      if (block && callbacks[i].onReady)
+        callbacks[i].onReady(block);
+      else if (!block && callbacks[i].onError)
+        callbacks[i].onError(error);
+    }
+  };
+
+  var xhr = new XMLHttpRequest();
+  xhr.open("GET", "../grid_data?show=block&" + 
+                  window.location.search.substring(1) + "&" +
+                  $.param($.extend({ 
+                    start: index * blockSize, 
+                    length: blockSize
+                  }, params)));
+  xhr.responseType = "arraybuffer";
+  xhr.onload = function() {
+    if (xhr.status === 200) {
+      finish(decodeBlock(xhr.response), null);
+      return;
+    }
+    // errors are reported as JSON (or text) rather than a block
+    var error = "The data could not be displayed.";
+    try {
+      var text = decodeUtf8(new Uint8Array(xhr.response));
+      if (text[0] !== "{") {
+        error = text;
+      } else if ($.parseJSON(text).error) {
+        error = $.parseJSON(text).error;
+      }
+    } catch(e) {}
+    finish(null, error);
+  };
+  xhr.onerror = function() {
+    finish(null, "The data could not be displayed.");
+  };
+  xhr.send();
+};
+
+// the DataTables ajax hook for block paging: assembles the requested rows
+// from blocks, then prefetches the blocks on either side
+var fetchBlockRows = function(d, callback, settings) {
+  var params = blockParams(d);
+  var first = Math.floor(d.start / blockSize);
+  var last = Math.floor((d.start + Math.max(d.length, 1) - 1) / blockSize);
+  var blocks = [];
+  var remaining = last - first + 1;
+  var failed = false;
+
+  var onReady = function(block) {
+    blocks[Math.floor(block.start / blockSize) - first] = block;
+    if (--remaining > 0) 
+      return;
+
+    var filtered = blocks[0].recordsFiltered;
+    var end = Math.min(d.start + d.length, filtered);
+    var data = [];
+    for (var row = d.start; row < end; row++) {
+      var rowBlock = blocks[Math.floor(row / blockSize) - first];
+      var offset = row - rowBlock.start;
+      var rowData = [];
+      for (var c = 0; c < rowBlock.columns.length; c++) {
+        rowData.push(blockCellText(rowBlock, rowBlock.columns[c], offset));
+      }
+      data.push(rowData);
+    }
+    callback({
+      draw: d.draw,
+      recordsTotal: blocks[0].recordsTotal,
+      recordsFiltered: filtered,
+      data: data
+    });
+
+    if ((last + 1) * blockSize < filtered)
+      fetchBlock(params, last + 1, null, null);
+    if (first > 0)
+      fetchBlock(params, first - 1, null, null);
+  };
+
+  var onError = function(error) {
+    if (!failed) {
+      failed = true;
+      showError(error);
+    }
+  };
+
+  for (var b = first; b <= last; b++) {
+    fetchBlock(params, b, onReady, onError);
+  }
+};
+
 var initDataTable = function(result) {
   // parse result
   resCols = $.parseJSON(result);
@@ -552,7 +802,7 @@ var initDataTable = function(result) {
       "targets": textCols,
       "render": renderTextCell
       }],
-    "ajax": {
+    "ajax": blockPagingSupported() ? fetchBlockRows : {
       "url": "../grid_data", 
       "data": function(d) {
         d.env = env;
@@ -613,6 +863,7 @@ var bootstrap = function() {
   cachedSearch = "";
   cachedFilterValues = [];
   lastHeight = 0;
+  clearBlockCache();
 
   // when datatables is initialized on an element, it adds a bunch of goo 
   // around the element to handle scrolling, etc.--we need to pull the whole
@@ -698,6 +949,7 @@ window.refreshData = function(structureChanged, sizeChanged) {
     bootstrap();
   } else {
     // structure didn't change, so just reload data. 
+    clearBlockCache();
     var s = table.settings();
     var pos = $(".dataTables_scrollBody").scrollTop();
     var row = s.scroller().pixelsToRow(pos);
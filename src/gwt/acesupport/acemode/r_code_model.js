@@ -46,6 +46,7 @@ var RCodeModel = function(session, tokenizer, statePattern, codeBeginPattern) {
    this.$tokenizer = tokenizer;
    this.$tokens = new Array(this.$doc.getLength());
    this.$endStates = new Array(this.$doc.getLength());
+   this.$firstInvalidRow = 0;
    this.$statePattern = statePattern;
    this.$codeBeginPattern = codeBeginPattern;
    this.$scopes = new ScopeManager(ScopeNode);
@@ -1029,6 +1030,17 @@ var RCodeModel = function(session, tokenizer, statePattern, codeBeginPattern) {
       return this.$scopes.getScopeList();
    };
 
+   // Returns all scopes in the document as a flat, pre-order array. The
+   // array is cached until the next document change, so callers that
+   // repeatedly need to walk the scope tree (outline, chunk navigation,
+   // fold restoration) don't re-walk it between edits. Callers must not
+   // modify the returned array.
+   this.getFlattenedScopeList = function()
+   {
+      this.$buildScopeTreeUpToRow(this.$doc.getLength() - 1);
+      return this.$scopes.getFlattenedScopeList();
+   };
+
    this.findFunctionDefinitionFromUsage = function(usagePos, functionName)
    {
       this.$buildScopeTreeUpToRow(this.$doc.getLength() - 1);
@@ -1593,7 +1605,9 @@ var RCodeModel = function(session, tokenizer, statePattern, codeBeginPattern) {
       // Don't let lastRow be past the end of the document
       lastRow = Math.min(lastRow, this.$endStates.length - 1);
 
-      var row = 0;
+      // All rows before $firstInvalidRow are known to be up-to-date, so
+      // there's no need to walk over them again.
+      var row = Math.min(this.$firstInvalidRow, lastRow + 1);
       var assumeGood = true;
       for ( ; row <= lastRow; row++)
       {
@@ -1631,6 +1645,9 @@ var RCodeModel = function(session, tokenizer, statePattern, codeBeginPattern) {
          if (row < this.$tokens.length)
             this.$invalidateRow(row);
       }
+
+      // Every row we walked over is now up-to-date.
+      this.$firstInvalidRow = Math.max(this.$firstInvalidRow, row);
       
       return true;
    };
@@ -1682,10 +1699,12 @@ var RCodeModel = function(session, tokenizer, statePattern, codeBeginPattern) {
    {
       this.$tokens[row] = null;
       this.$endStates[row] = null;
+      this.$firstInvalidRow = Math.min(this.$firstInvalidRow, row);
    };
    
    this.$insertNewRows = function(row, count)
    {
+      this.$firstInvalidRow = Math.min(this.$firstInvalidRow, row);
       var args = [row, 0];
       for (var i = 0; i < count; i++)
          args.push(null);
@@ -1695,6 +1714,7 @@ var RCodeModel = function(session, tokenizer, statePattern, codeBeginPattern) {
    
    this.$removeRows = function(row, count)
    {
+      this.$firstInvalidRow = Math.min(this.$firstInvalidRow, row);
       this.$tokens.splice(row, count);
       this.$endStates.splice(row, count);
    };
@@ -35,11 +35,19 @@ define('mode/r_scope_tree', function(require, exports, module) {
       this.parsePos = {row: 0, column: 0};
       this.$root = new this.$ScopeNodeFactory("(Top Level)", this.parsePos, null,
                                  ScopeNode.TYPE_ROOT);
+
+      // Flattened scope list, cached until the tree changes shape
+      this.$flattened = null;
    };
 
    (function() {
 
+      this.$onTreeChanged = function() {
+         this.$flattened = null;
+      };
+
       this.onSectionHead = function(sectionLabel, sectionPos) {
+         this.$onTreeChanged();
          var existingScopes = this.getActiveScopes(sectionPos);
          if (existingScopes.length == 2 && existingScopes[1].isSection()) {
             this.$root.closeScope(sectionPos, ScopeNode.TYPE_SECTION);
@@ -52,6 +60,7 @@ define('mode/r_scope_tree', function(require, exports, module) {
       };
 
       this.onChunkStart = function(chunkLabel, label, chunkStartPos, chunkPos) {
+         this.$onTreeChanged();
          // Starting a chunk means closing the previous chunk, if any
          var prev = this.$root.closeScope(chunkStartPos, ScopeNode.TYPE_CHUNK);
          if (prev)
@@ -66,6 +75,7 @@ define('mode/r_scope_tree', function(require, exports, module) {
       };
 
       this.onChunkEnd = function(pos) {
+         this.$onTreeChanged();
          var closed = this.$root.closeScope(pos, ScopeNode.TYPE_CHUNK);
          if (closed)
             debuglog("chunk-scope end: " + closed.label);
@@ -76,6 +86,7 @@ define('mode/r_scope_tree', function(require, exports, module) {
       };
 
       this.onFunctionScopeStart = function(label, functionStartPos, scopePos, name, args) {
+         this.$onTreeChanged();
          
          debuglog("adding function brace-scope " + label);
          this.$root.addNode(
@@ -95,6 +106,7 @@ define('mode/r_scope_tree', function(require, exports, module) {
       };
 
       this.onScopeStart = function(pos) {
+         this.$onTreeChanged();
          debuglog("adding anon brace-scope");
          this.$root.addNode(new this.$ScopeNodeFactory(null, pos, null,
                                           ScopeNode.TYPE_BRACE));
@@ -102,6 +114,7 @@ define('mode/r_scope_tree', function(require, exports, module) {
       };
 
       this.onScopeEnd = function(pos) {
+         this.$onTreeChanged();
          var closed = this.$root.closeScope(pos, ScopeNode.TYPE_BRACE);
          if (closed)
             debuglog("brace-scope end: " + closed.label);
@@ -119,6 +132,27 @@ define('mode/r_scope_tree', function(require, exports, module) {
          return this.$root.$children;
       };
 
+      // Returns every scope in the tree in document (pre-)order. The result
+      // is cached until the tree next changes.
+      this.getFlattenedScopeList = function() {
+         if (this.$flattened == null)
+         {
+            var array = [];
+            doFlattenScopes(this.$root, array);
+            this.$flattened = array;
+         }
+         return this.$flattened;
+      };
+
+      var doFlattenScopes = function(node, array) {
+         var children = node.$children;
+         for (var i = 0; i < children.length; i++)
+         {
+            array.push(children[i]);
+            doFlattenScopes(children[i], array);
+         }
+      };
+
       this.findFunctionDefinitionFromUsage = function(usagePos, functionName) {
          return this.$root.findFunctionDefinitionFromUsage(usagePos,
                                                            functionName);
@@ -132,7 +166,10 @@ define('mode/r_scope_tree', function(require, exports, module) {
          pos = {row: Math.max(0, pos.row-1), column: 0};
          debuglog("Invalidate from " + pos.row + ", " + pos.column);
          if (comparePoints(this.parsePos, pos) > 0)
+         {
             this.parsePos = this.$root.invalidateFrom(pos);
+            this.$onTreeChanged();
+         }
          this.printScopeTree();
       };
 
@@ -45,6 +45,10 @@ import com.google.inject.Provider;
  * everything up. Or, you can have your AsyncShim subclass "implement" an
  * interface but not actually provide implementations--if these methods
  * return void, they will also be automatically wired up.
+ *
+ * The generated split point is named after your AsyncShim subclass, so its
+ * code can be prefetched with RunAsyncCode.runAsyncCode(YourShim.class)
+ * (see IdlePrefetcher).
  * 
  * @param <TTarget> The type to be sequestered
  */
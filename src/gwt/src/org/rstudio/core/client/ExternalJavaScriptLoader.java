@@ -19,7 +19,10 @@ import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.ScriptElement;
+import com.google.gwt.xhr.client.ReadyStateChangeHandler;
+import com.google.gwt.xhr.client.XMLHttpRequest;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class ExternalJavaScriptLoader
@@ -32,6 +35,8 @@ public class ExternalJavaScriptLoader
    private enum State
    {
       Start,
+      Fetching,
+      Fetched,
       Loading,
       Loaded,
       Error
@@ -45,6 +50,39 @@ public class ExternalJavaScriptLoader
       for (String url : urls)
          loaders.add(new ExternalJavaScriptLoader(url));
 
+      loadInOrder(loaders, false, callback);
+   }
+
+   /**
+    * Fetches all of the scripts in parallel, but executes them in the
+    * order given (so the total wait is roughly that of the slowest
+    * download rather than the sum of all of them). The scripts must be
+    * same-origin since they are fetched with XMLHttpRequest; ClientBundle
+    * resources deployed by StaticDataResource qualify, and their URLs are
+    * already strong names derived from their content, so they're safe to
+    * cache indefinitely.
+    */
+   public static void loadInParallel(ExternalJavaScriptLoader[] loaders,
+                                     Callback callback)
+   {
+      LinkedList<ExternalJavaScriptLoader> queue =
+            new LinkedList<ExternalJavaScriptLoader>();
+      for (ExternalJavaScriptLoader loader : loaders)
+         queue.add(loader);
+      loadInOrder(queue, true, callback);
+   }
+
+   private static void loadInOrder(
+                        final LinkedList<ExternalJavaScriptLoader> loaders,
+                        boolean prefetch,
+                        final Callback callback)
+   {
+      if (prefetch)
+      {
+         for (ExternalJavaScriptLoader loader : loaders)
+            loader.prefetch();
+      }
+
       Callback innerCallback = new Callback()
       {
          public void onLoaded()
@@ -77,9 +115,14 @@ public class ExternalJavaScriptLoader
             callbacks_.add(callback);
             startLoading();
             break;
+         case Fetching:
          case Loading:
             callbacks_.add(callback);
             break;
+         case Fetched:
+            callbacks_.add(callback);
+            evaluate();
+            break;
          case Loaded:
             callback.onLoaded();
             break;
@@ -88,9 +131,90 @@ public class ExternalJavaScriptLoader
       }
    }
 
+   /**
+    * Starts downloading the script without executing it. The script is
+    * executed by the first call to addCallback (after the download
+    * completes if it's still in progress).
+    */
+   public void prefetch()
+   {
+      if (state_ != State.Start)
+         return;
+
+      state_ = State.Fetching;
+      fetchStart_ = System.currentTimeMillis();
+
+      XMLHttpRequest xhr = XMLHttpRequest.create();
+      xhr.open("GET", url_);
+      xhr.setOnReadyStateChange(new ReadyStateChangeHandler()
+      {
+         public void onReadyStateChange(XMLHttpRequest xhr)
+         {
+            if (xhr.getReadyState() != XMLHttpRequest.DONE)
+               return;
+
+            xhr.clearOnReadyStateChange();
+            fetchMillis_ = System.currentTimeMillis() - fetchStart_;
+            if (xhr.getStatus() == 200)
+            {
+               scriptText_ = xhr.getResponseText();
+               state_ = State.Fetched;
+               if (!callbacks_.isEmpty())
+                  evaluate();
+            }
+            else
+            {
+               // fall back to a script tag, which may succeed where the
+               // request didn't (e.g. if the script isn't same-origin)
+               state_ = State.Start;
+               if (!callbacks_.isEmpty())
+                  startLoading();
+            }
+         }
+      });
+      xhr.send();
+   }
+
+   public String getUrl()
+   {
+      return url_;
+   }
+
+   // milliseconds spent downloading the script (-1 if it was loaded with
+   // a script tag, which doesn't let us distinguish download from eval)
+   public long getFetchMillis()
+   {
+      return fetchMillis_;
+   }
+
+   // milliseconds spent executing the script (for script tags this
+   // includes the download)
+   public long getEvalMillis()
+   {
+      return evalMillis_;
+   }
+
+   private void evaluate()
+   {
+      assert state_ == State.Fetched;
+      state_ = State.Loading;
+
+      long evalStart = System.currentTimeMillis();
+      ScriptElement script = document_.createScriptElement(scriptText_);
+      script.setType("text/javascript");
+      Element head = document_.getElementsByTagName("head").getItem(0);
+      head.appendChild(script);
+      evalMillis_ = System.currentTimeMillis() - evalStart;
+      scriptText_ = null;
+
+      onLoaded();
+   }
+
    private void startLoading()
    {
       assert state_ == State.Start;
+      state_ = State.Loading;
+      fetchStart_ = System.currentTimeMillis();
       ScriptElement script = document_.createScriptElement();
       script.setType("text/javascript");
       script.setSrc(url_);
@@ -103,16 +227,23 @@ public class ExternalJavaScriptLoader
       var self = this;
       script.onreadystatechange = $entry(function() {
          if (this.readyState == 'complete')
-            self.@org.rstudio.core.client.ExternalJavaScriptLoader::onLoaded()();
+            self.@org.rstudio.core.client.ExternalJavaScriptLoader::onScriptLoaded()();
       });
       script.onload = $entry(function() {
-         self.@org.rstudio.core.client.ExternalJavaScriptLoader::onLoaded()();
+         self.@org.rstudio.core.client.ExternalJavaScriptLoader::onScriptLoaded()();
       });
    }-*/;
 
+   private void onScriptLoaded()
+   {
+      evalMillis_ = System.currentTimeMillis() - fetchStart_;
+      onLoaded();
+   }
+
    private void onLoaded()
    {
       state_ = State.Loaded;
+      recordTiming(this);
       Scheduler.get().scheduleIncremental(new RepeatingCommand()
       {
          public boolean execute()
@@ -125,8 +256,50 @@ public class ExternalJavaScriptLoader
       });
    }
 
+   private static void recordTiming(ExternalJavaScriptLoader loader)
+   {
+      if (loaded_ == null)
+      {
+         loaded_ = new ArrayList<ExternalJavaScriptLoader>();
+         exportTimings();
+      }
+      loaded_.add(loader);
+   }
+
+   private static String getTimings()
+   {
+      StringBuilder timings = new StringBuilder();
+      if (loaded_ != null)
+      {
+         for (ExternalJavaScriptLoader loader : loaded_)
+         {
+            timings.append(loader.getUrl())
+                   .append(": fetch ")
+                   .append(loader.getFetchMillis())
+                   .append(" ms, eval ")
+                   .append(loader.getEvalMillis())
+                   .append(" ms\n");
+         }
+      }
+      return timings.toString();
+   }
+
+   // per-script timings can be listed by calling getScriptLoadTimings()
+   // from the browser console
+   private static native void exportTimings() /*-{
+      $wnd.getScriptLoadTimings = $entry(function() {
+         return @org.rstudio.core.client.ExternalJavaScriptLoader::getTimings()();
+      });
+   }-*/;
+
    private LinkedList<Callback> callbacks_ = new LinkedList<Callback>();
    private State state_ = State.Start;
+   private String scriptText_ = null;
+   private long fetchStart_ = 0;
+   private long fetchMillis_ = -1;
+   private long evalMillis_ = -1;
    private final String url_;
    private final Document document_;
+
+   private static ArrayList<ExternalJavaScriptLoader> loaded_ = null;
 }
@@ -0,0 +1,113 @@
+/*
+ * IdlePrefetcher.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.prefetch.Prefetcher;
+import com.google.gwt.core.client.prefetch.RunAsyncCode;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Event;
+import com.google.gwt.user.client.Event.NativePreviewEvent;
+import com.google.gwt.user.client.Event.NativePreviewHandler;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Downloads the code for named split points while the user is idle, so
+ * that subsystems which are split out of the initial download are ready by
+ * the time they're needed. Split points are fetched one at a time in the
+ * order they were added (which should be the order they are most likely to
+ * be used in); a fetch is only started once there has been no keyboard or
+ * mouse input for a while.
+ *
+ * Split points are identified by RunAsyncCode.runAsyncCode(Foo.class),
+ * where Foo.class is the name passed to GWT.runAsync (or the AsyncShim
+ * subclass, for split points generated by AsyncShim).
+ */
+public class IdlePrefetcher
+{
+   public IdlePrefetcher add(RunAsyncCode code)
+   {
+      queue_.add(code);
+      return this;
+   }
+
+   public void start()
+   {
+      if (queue_.isEmpty() || previewReg_ != null)
+         return;
+
+      lastInput_ = System.currentTimeMillis();
+      previewReg_ = Event.addNativePreviewHandler(new NativePreviewHandler()
+      {
+         @Override
+         public void onPreviewNativeEvent(NativePreviewEvent event)
+         {
+            int type = event.getTypeInt();
+            if ((type & (Event.KEYEVENTS | Event.ONMOUSEDOWN |
+                         Event.ONMOUSEWHEEL)) != 0)
+            {
+               lastInput_ = System.currentTimeMillis();
+            }
+         }
+      });
+      Prefetcher.start();
+      timer_.scheduleRepeating(POLL_MILLIS);
+   }
+
+   public void stop()
+   {
+      timer_.cancel();
+      if (previewReg_ != null)
+      {
+         previewReg_.removeHandler();
+         previewReg_ = null;
+      }
+   }
+
+   private void prefetchNext()
+   {
+      if (queue_.isEmpty())
+      {
+         stop();
+         return;
+      }
+
+      if (System.currentTimeMillis() - lastInput_ < IDLE_MILLIS)
+         return;
+
+      // the fetch happens in the background; it's a no-op if the fragment
+      // has already been loaded (e.g. because the user got there first)
+      RunAsyncCode code = queue_.remove(0);
+      if (!code.isLoaded())
+         Prefetcher.prefetch(code);
+   }
+
+   private final Timer timer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         prefetchNext();
+      }
+   };
+
+   private final ArrayList<RunAsyncCode> queue_ = new ArrayList<RunAsyncCode>();
+   private HandlerRegistration previewReg_ = null;
+   private long lastInput_ = 0;
+
+   private static final int POLL_MILLIS = 1000;
+   private static final int IDLE_MILLIS = 3000;
+}
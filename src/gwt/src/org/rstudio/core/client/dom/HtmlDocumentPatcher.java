@@ -0,0 +1,334 @@
+/*
+ * HtmlDocumentPatcher.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.dom;
+
+import org.rstudio.core.client.Debug;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.Command;
+
+// Refreshes a rendered HTML document in place: the new version of the
+// document is fetched and only the sections which changed (the children of
+// a root element, e.g. the slides of a presentation) are swapped into the
+// document that's already showing, so scripts, htmlwidgets, MathJax and
+// reveal.js don't have to be reloaded and the reader keeps their place.
+// Patching is only possible when everything outside the root (including the
+// dependencies in the head) is unchanged and the showing document still has
+// the structure of the source it was loaded from; otherwise the caller's
+// fallback (a full navigation) is used.
+public class HtmlDocumentPatcher
+{
+   // rootSelector is a CSS selector for the element whose children are
+   // patched (the body is used if no element matches)
+   public HtmlDocumentPatcher(String rootSelector)
+   {
+      rootSelector_ = rootSelector;
+   }
+
+   // forget the source of the showing document (call when a different
+   // document is shown)
+   public void reset()
+   {
+      generation_++;
+      key_ = null;
+      source_ = null;
+   }
+
+   // Records the source of a document which has just been shown, so that
+   // the first refresh of it can be patched. The key identifies the document
+   // across renders (e.g. its output file), since each render may be served
+   // from a different URL.
+   public void capture(final String key, String url)
+   {
+      reset();
+      final int generation = generation_;
+      fetch(url, new RequestCallback()
+      {
+         @Override
+         public void onResponseReceived(Request request, Response response)
+         {
+            // ignore the source if another document (or version) has since
+            // been shown
+            if (generation != generation_ ||
+                response.getStatusCode() != Response.SC_OK)
+               return;
+
+            key_ = key;
+            source_ = response.getText();
+         }
+
+         @Override
+         public void onError(Request request, Throwable exception)
+         {
+         }
+      });
+   }
+
+   public void patch(Document doc, String key, String url, Command fallback)
+   {
+      patch(doc, key, url, null, fallback);
+   }
+
+   // onPatched (optional) is executed after the document has been patched
+   public void patch(final Document doc,
+                     final String key,
+                     String url,
+                     final Command onPatched,
+                     final Command fallback)
+   {
+      // the source we have is only usable if it describes this document
+      final String previous = key.equals(key_) ? source_ : null;
+      reset();
+      final int generation = generation_;
+
+      fetch(url, new RequestCallback()
+      {
+         @Override
+         public void onResponseReceived(Request request, Response response)
+         {
+            if (generation != generation_)
+               return;
+
+            if (response.getStatusCode() != Response.SC_OK)
+            {
+               fallback.execute();
+               return;
+            }
+
+            key_ = key;
+            source_ = response.getText();
+
+            boolean patched = false;
+            if (previous != null)
+            {
+               try
+               {
+                  patched = applyPatch(doc,
+                                       rootSelector_,
+                                       previous,
+                                       source_);
+               }
+               catch (Exception e)
+               {
+                  Debug.logException(e);
+               }
+            }
+
+            // when we can't patch, the fallback loads the document we
+            // just fetched (so source_ describes it for the next patch)
+            if (!patched)
+               fallback.execute();
+            else if (onPatched != null)
+               onPatched.execute();
+         }
+
+         @Override
+         public void onError(Request request, Throwable exception)
+         {
+            if (generation == generation_)
+               fallback.execute();
+         }
+      });
+   }
+
+   private void fetch(String url, RequestCallback callback)
+   {
+      // anchors don't affect the document source
+      int anchorPos = url.indexOf('#');
+      String docUrl = anchorPos >= 0 ? url.substring(0, anchorPos) : url;
+
+      RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, docUrl);
+      try
+      {
+         builder.sendRequest(null, callback);
+      }
+      catch (RequestException e)
+      {
+         callback.onError(null, e);
+      }
+   }
+
+   // Replaces the children of the root of the showing document which differ
+   // between the previous and next source. Returns false (without modifying
+   // the document) if the document can't be patched.
+   private static native boolean applyPatch(Document doc,
+                                            String rootSelector,
+                                            String previousHtml,
+                                            String nextHtml) /*-{
+      if (!doc || !doc.body || doc.readyState !== "complete" ||
+          !$wnd.DOMParser)
+         return false;
+
+      var parser = new $wnd.DOMParser();
+      var prevDoc = parser.parseFromString(previousHtml, "text/html");
+      var nextDoc = parser.parseFromString(nextHtml, "text/html");
+      if (!prevDoc || !prevDoc.body || !nextDoc || !nextDoc.body)
+         return false;
+
+      var rootOf = function(d) {
+         return d.querySelector(rootSelector) || d.body;
+      };
+      var childrenOf = function(root) {
+         var children = [];
+         for (var n = root.firstElementChild; n; n = n.nextElementSibling)
+            children.push(n);
+         return children;
+      };
+
+      var liveRoot = rootOf(doc);
+      var prevRoot = rootOf(prevDoc);
+      var nextRoot = rootOf(nextDoc);
+      if ((liveRoot === doc.body) !== (prevRoot === prevDoc.body))
+         return false;
+
+      var live = childrenOf(liveRoot);
+      var prev = childrenOf(prevRoot);
+      var next = childrenOf(nextRoot);
+
+      // everything outside the root must match (the parsed documents are
+      // scratch copies, so the roots can be emptied to compare the rest);
+      // the head is compared by its dependencies (scripts and stylesheets,
+      // inline or not) since the title can be updated in place
+      var headSignature = function(d) {
+         var parts = [];
+         var els = d.head ? d.head.querySelectorAll("script, link, style") : [];
+         for (var i = 0; i < els.length; i++) {
+            var el = els[i];
+            var ref = el.getAttribute("src") || el.getAttribute("href");
+            parts.push(el.tagName + " " + (ref ? ref : el.textContent));
+         }
+         return parts.join("\n");
+      };
+      if (headSignature(prevDoc) !== headSignature(nextDoc))
+         return false;
+      prevRoot.innerHTML = "";
+      nextRoot.innerHTML = "";
+      if (prevDoc.body.outerHTML !== nextDoc.body.outerHTML)
+         return false;
+
+      // the showing document must still line up with its source (scripts
+      // may have restructured it, in which case we can't patch it)
+      if (live.length !== prev.length)
+         return false;
+      for (var i = 0; i < live.length; i++) {
+         if (live[i].tagName !== prev[i].tagName || live[i].id !== prev[i].id)
+            return false;
+      }
+
+      // find the range of sections which changed
+      var start = 0;
+      while (start < prev.length && start < next.length &&
+             prev[start].outerHTML === next[start].outerHTML)
+         start++;
+      var prevEnd = prev.length;
+      var nextEnd = next.length;
+      while (prevEnd > start && nextEnd > start &&
+             prev[prevEnd - 1].outerHTML === next[nextEnd - 1].outerHTML) {
+         prevEnd--;
+         nextEnd--;
+      }
+
+      if (doc.title !== nextDoc.title)
+         doc.title = nextDoc.title;
+      if (start === prevEnd && start === nextEnd)
+         return true;
+
+      // remember the first visible section and where it is in the viewport
+      var anchorIndex = -1;
+      var anchorTop = 0;
+      for (var i = 0; i < live.length; i++) {
+         var rect = live[i].getBoundingClientRect();
+         if (rect.bottom > 0) {
+            anchorIndex = i;
+            anchorTop = rect.top;
+            break;
+         }
+      }
+
+      // swap in the changed sections
+      var before = prevEnd < live.length ? live[prevEnd] : null;
+      for (var i = start; i < prevEnd; i++)
+         liveRoot.removeChild(live[i]);
+      var inserted = [];
+      for (var i = start; i < nextEnd; i++) {
+         var node = doc.importNode(next[i], true);
+         liveRoot.insertBefore(node, before);
+         inserted.push(node);
+      }
+
+      // imported scripts don't run, so replace them with fresh copies
+      for (var i = 0; i < inserted.length; i++) {
+         var node = inserted[i];
+         var scripts = node.tagName === "SCRIPT" ?
+                          [node] :
+                          Array.prototype.slice.call(
+                                node.getElementsByTagName("script"));
+         for (var j = 0; j < scripts.length; j++) {
+            var script = scripts[j];
+            var fresh = doc.createElement("script");
+            for (var k = 0; k < script.attributes.length; k++) {
+               fresh.setAttribute(script.attributes[k].name,
+                                  script.attributes[k].value);
+            }
+            fresh.text = script.text;
+            script.parentNode.replaceChild(fresh, script);
+            if (script === node)
+               inserted[i] = fresh;
+         }
+      }
+
+      // render widgets and math in the new sections
+      var win = doc.defaultView;
+      if (win.HTMLWidgets && win.HTMLWidgets.staticRender)
+         win.HTMLWidgets.staticRender();
+      if (win.MathJax && win.MathJax.Hub) {
+         for (var i = 0; i < inserted.length; i++)
+            win.MathJax.Hub.Queue(["Typeset", win.MathJax.Hub, inserted[i]]);
+      }
+
+      // let reveal.js pick up new slides (and restore the state of the
+      // current slide if it was replaced)
+      if (win.Reveal && win.Reveal.sync) {
+         var indices = win.Reveal.getIndices();
+         win.Reveal.sync();
+         win.Reveal.slide(indices.h, indices.v);
+      }
+
+      // keep the first visible section where it was
+      if (anchorIndex >= 0) {
+         if (anchorIndex >= prevEnd)
+            anchorIndex += nextEnd - prevEnd;
+         var sections = childrenOf(liveRoot);
+         anchorIndex = Math.min(anchorIndex, sections.length - 1);
+         if (anchorIndex >= 0) {
+            var delta = sections[anchorIndex].getBoundingClientRect().top -
+                        anchorTop;
+            win.scrollBy(0, delta);
+         }
+      }
+
+      return true;
+   }-*/;
+
+   private final String rootSelector_;
+   private int generation_ = 0;
+   private String key_ = null;
+   private String source_ = null;
+}
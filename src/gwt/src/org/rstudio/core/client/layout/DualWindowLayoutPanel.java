@@ -315,6 +315,12 @@ public class DualWindowLayoutPanel extends SimplePanel
                new WindowStateChangeEvent(topWindowState));
       }
 
+      @Override
+      protected boolean pollForChanges()
+      {
+         return true;
+      }
+
       @Override
       protected JsObject getValue()
       {
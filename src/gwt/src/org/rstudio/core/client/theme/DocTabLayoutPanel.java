@@ -30,6 +30,8 @@ import com.google.gwt.user.client.DOM;
 import com.google.gwt.user.client.Event;
 import com.google.gwt.user.client.ui.*;
 
+import java.util.ArrayList;
+
 import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.dom.DomUtils.NodePredicate;
 import org.rstudio.core.client.events.*;
@@ -147,26 +149,12 @@ public class DocTabLayoutPanel
          currentAnimation_ = null;
       }
 
-      Element selectedTab = (Element) DomUtils.findNode(
-            getElement(),
-            true,
-            false,
-            new NodePredicate()
-            {
-               public boolean test(Node n)
-               {
-                  if (n.getNodeType() != Node.ELEMENT_NODE)
-                     return false;
-                  return ((Element) n).getClassName()
-                        .contains("gwt-TabLayoutPanelTab-selected");
-               }
-            });
-      if (selectedTab == null)
+      int selectedIndex = getSelectedIndex();
+      if (selectedIndex < 0)
       {
          return;
       }
-      selectedTab = selectedTab.getFirstChildElement()
-                               .getFirstChildElement();
+      Element selectedTab = getTabWidget(selectedIndex).getElement();
 
       Element tabBar = getTabBarElement();
 
@@ -437,26 +425,32 @@ public class DocTabLayoutPanel
          outOfBounds_ = 0;
          candidatePos_ = 0;
 
+         // measure the tabs once; while dragging, their positions are
+         // computed from these measurements rather than read from the DOM
+         // (which forces a layout for every tab on every mouse move)
+         measureDragTabs();
+
          // find the current position of this tab among its siblings--we'll use
          // this later to determine whether to shift siblings left or right
-         for (int i = 0; i < dragTabsHost_.getChildCount(); i++)
+         for (int i = 0; i < dragTabs_.size(); i++)
          {
-            Node node = dragTabsHost_.getChild(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE)
+            if (dragTabs_.get(i).element == dragElement_)
             {
-               if (Element.as(node) == dragElement_)
-               {
-                  candidatePos_ = i;
-                  destPos_ = i;
-               }
-               // the relative position of the last node determines how far we
-               // can drag--add 10px so it stretches a little
-               dragMax_ = DomUtils.leftRelativeTo(dragTabsHost_, Element.as(node)) 
-                     + (Element.as(node).getClientWidth() - dragElement_.getClientWidth())
-                     + 10;
+               candidatePos_ = i;
+               destPos_ = i;
             }
          }
          startPos_ = candidatePos_;
+         dragWidth_ = dragTabs_.get(startPos_).width;
+
+         // the relative position of the last tab determines how far we can
+         // drag--add 10px so it stretches a little
+         if (!dragTabs_.isEmpty())
+         {
+            DragTabMetrics last = dragTabs_.get(dragTabs_.size() - 1);
+            dragMax_ = last.left + 
+                  (last.width - dragWidth_) + 10;
+         }
 
          // snap the element out of the tabset
          lastElementX_ = DomUtils.leftRelativeTo(dragTabsHost_, dragElement_);
@@ -469,13 +463,65 @@ public class DocTabLayoutPanel
          // create the placeholder that shows where this tab will go when the
          // mouse is released
          dragPlaceholder_ = Document.get().createDivElement();
-         dragPlaceholder_.getStyle().setWidth(dragElement_.getClientWidth(), 
+         dragPlaceholder_.getStyle().setWidth(dragWidth_, 
                Unit.PX);
          dragPlaceholder_.getStyle().setHeight(2, Unit.PX);
          dragPlaceholder_.getStyle().setDisplay(Display.INLINE_BLOCK);
          dragPlaceholder_.getStyle().setPosition(Position.RELATIVE);
          dragPlaceholder_.getStyle().setFloat(Float.LEFT);
          dragTabsHost_.insertAfter(dragPlaceholder_, dragElement_);
+
+         // the placeholder stands in for the dragged tab, which is now out of
+         // the flow of the tabs
+         DragTabMetrics dragged = dragTabs_.get(startPos_);
+         DragTabMetrics placeholder = new DragTabMetrics(dragPlaceholder_);
+         placeholder.width = dragged.width;
+         placeholder.advance = dragged.advance;
+         dragged.advance = 0;
+         dragTabs_.add(startPos_ + 1, placeholder);
+         layoutDragTabs();
+      }
+
+      // records the position and width of each element in the tab bar, and
+      // how far along each one moves the elements that follow it
+      private void measureDragTabs()
+      {
+         dragTabs_ = new ArrayList<DragTabMetrics>();
+         for (int i = 0; i < dragTabsHost_.getChildCount(); i++)
+         {
+            Node node = dragTabsHost_.getChild(i);
+            if (node.getNodeType() != Node.ELEMENT_NODE)
+               continue;
+            DragTabMetrics tab = new DragTabMetrics(Element.as(node));
+            tab.left = DomUtils.leftRelativeTo(dragTabsHost_, tab.element);
+            tab.width = tab.element.getClientWidth();
+            dragTabs_.add(tab);
+         }
+
+         for (int i = 0; i < dragTabs_.size(); i++)
+         {
+            DragTabMetrics tab = dragTabs_.get(i);
+            if (i + 1 < dragTabs_.size())
+               tab.advance = dragTabs_.get(i + 1).left - tab.left;
+            else if (i > 0)
+               tab.advance = tab.width + (dragTabs_.get(i - 1).advance - 
+                                          dragTabs_.get(i - 1).width);
+            else
+               tab.advance = tab.width;
+         }
+      }
+
+      // recomputes the positions of the tabs after the placeholder moves
+      private void layoutDragTabs()
+      {
+         if (dragTabs_.isEmpty())
+            return;
+         int left = dragTabs_.get(0).left;
+         for (DragTabMetrics tab : dragTabs_)
+         {
+            tab.left = left;
+            left += tab.advance;
+         }
       }
       
       private void endDrag(final Event evt)
@@ -489,6 +535,7 @@ public class DocTabLayoutPanel
          dragTabsHost_.removeChild(dragElement_);
          dragTabsHost_.insertAfter(dragElement_, dragPlaceholder_);
          dragTabsHost_.removeChild(dragPlaceholder_);
+         dragTabs_ = null;
 
          // finish dragging
          DOM.releaseCapture(getElement());
@@ -569,7 +616,7 @@ public class DocTabLayoutPanel
             }
          }
          int targetLeft = lastElementX_ + offset;
-         int targetRight = targetLeft + dragElement_.getClientWidth();
+         int targetRight = targetLeft + dragWidth_;
          int scrollLeft = dragScrollHost_.getScrollLeft();
          if (targetLeft < 0)
          {
@@ -607,7 +654,7 @@ public class DocTabLayoutPanel
             outOfBounds_ = (targetRight + SCROLL_THRESHOLD) - 
                   (scrollLeft + dragScrollHost_.getClientWidth());
             targetLeft = scrollLeft + dragScrollHost_.getClientWidth() - 
-                  (dragElement_.getClientWidth() + SCROLL_THRESHOLD);
+                  (dragWidth_ + SCROLL_THRESHOLD);
             Scheduler.get().scheduleFixedPeriod(new RepeatingCommand()
             {
                @Override
@@ -628,34 +675,30 @@ public class DocTabLayoutPanel
          dragElement_.getStyle().setLeft(lastElementX_, Unit.PX);
 
          // check to see if we're overlapping with another tab 
-         for (int i = 0; i < dragTabsHost_.getChildCount(); i++)
+         for (int i = 0; i < dragTabs_.size(); i++)
          {
-            // skip non-element DOM nodes
-            Node node = dragTabsHost_.getChild(i);
-            if (node.getNodeType() != Node.ELEMENT_NODE)
-            {
-               continue;
-            }
             // skip the element we're dragging and elements that are not tabs
-            Element ele = (Element)node;
+            DragTabMetrics tab = dragTabs_.get(i);
+            Element ele = tab.element;
             if (ele == dragElement_ || 
                 ele.getClassName().indexOf("gwt-TabLayoutPanelTab") < 0)
             {
                continue;
             }
 
-            int left = DomUtils.leftRelativeTo(dragTabsHost_, ele);
-            int right = left + ele.getClientWidth();
-            int minOverlap = Math.min(dragElement_.getClientWidth() / 2, 
-                  ele.getClientWidth() / 2);
+            int left = tab.left;
+            int right = left + tab.width;
+            int minOverlap = Math.min(dragWidth_ / 2, tab.width / 2);
 
             // a little complicated: compute the number of overlapping pixels
             // with this element; if the overlap is more than half of our width
             // (or the width of the candidate), it's swapping time
-            if (Math.min(lastElementX_ + dragElement_.getClientWidth(), right) - 
+            if (Math.min(lastElementX_ + dragWidth_, right) - 
                 Math.max(lastElementX_, left) >= minOverlap)
             {
                dragTabsHost_.removeChild(dragPlaceholder_);
+               DragTabMetrics placeholder = dragTabs_.remove(
+                     indexOfDragTab(dragPlaceholder_));
                if (candidatePos_ > i)
                {
                   dragTabsHost_.insertBefore(dragPlaceholder_, ele);
@@ -664,6 +707,9 @@ public class DocTabLayoutPanel
                {
                   dragTabsHost_.insertAfter(dragPlaceholder_, ele);
                }
+               dragTabs_.add(indexOfDragTab(ele) + (candidatePos_ > i ? 0 : 1),
+                             placeholder);
+               layoutDragTabs();
                candidatePos_ = i;
 
                // account for the extra element when moving to the right of the
@@ -675,6 +721,14 @@ public class DocTabLayoutPanel
          
       }
       
+      private int indexOfDragTab(Element element)
+      {
+         for (int i = 0; i < dragTabs_.size(); i++)
+            if (dragTabs_.get(i).element == element)
+               return i;
+         return -1;
+      }
+
       private TabCloseObserver closeHandler_;
       private TabMoveObserver moveHandler_;
       private Element closeElement_;
@@ -685,17 +739,35 @@ public class DocTabLayoutPanel
       private int candidatePos_ = 0;
       private int destPos_ = 0;
       private int dragMax_ = 0;
+      private int dragWidth_ = 0;
       private int outOfBounds_ = 0;
       private Element dragElement_;
       private Element dragTabsHost_;
       private Element dragScrollHost_;
       private Element dragPlaceholder_;
+      // the elements of the tab bar while dragging, in order
+      private ArrayList<DragTabMetrics> dragTabs_;
       private final Label label_;
       private final static int SCROLL_THRESHOLD = 25;
 
       private final HorizontalPanel contentPanel_;
    }
 
+   // the position and width of an element of the tab bar while a tab is
+   // being dragged, and the distance from its left edge to the next element's
+   private static class DragTabMetrics
+   {
+      public DragTabMetrics(Element element)
+      {
+         this.element = element;
+      }
+
+      public final Element element;
+      public int left;
+      public int width;
+      public int advance;
+   }
+
    public void replaceDocName(int index,
                               ImageResource icon,
                               String title,
@@ -750,6 +822,14 @@ public class DocTabLayoutPanel
    
    
    private Element getTabBarElement()
+   {
+      // the tab bar is created along with the panel, so only look for it once
+      if (tabBar_ == null)
+         tabBar_ = findTabBarElement();
+      return tabBar_;
+   }
+
+   private Element findTabBarElement()
    {
       return (Element) DomUtils.findNode(
             getElement(),
@@ -784,4 +864,5 @@ public class DocTabLayoutPanel
    private int rightMargin_;
    private final ThemeStyles styles_;
    private Animation currentAnimation_;
+   private Element tabBar_;
 }
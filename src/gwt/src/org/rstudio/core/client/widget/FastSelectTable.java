@@ -19,10 +19,14 @@ import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.*;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style.Cursor;
+import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.dom.client.*;
+import com.google.gwt.event.logical.shared.ResizeEvent;
+import com.google.gwt.event.logical.shared.ResizeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.DOM;
 import com.google.gwt.user.client.Event;
+import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.ScrollPanel;
 import com.google.gwt.user.client.ui.Widget;
 import org.rstudio.core.client.Rectangle;
@@ -46,6 +50,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
       TItemOutput getOutputForRow(TableRowElement row);
       TItemOutput2 getOutputForRow2(TableRowElement row);
       boolean isValueRow(TableRowElement row);
+
+      // the same as the row versions, for items which may not be rendered
+      // (used in virtualized mode)
+      TItemOutput getOutputForItem(T entry);
+      TItemOutput2 getOutputForItem2(T entry);
+      boolean isValueItem(T entry);
       boolean hasNonValueRows();
 
       Integer logicalOffsetToPhysicalOffset(TableElement table, int offset);
@@ -124,6 +134,82 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
       scrollPanel_ = scrollPanel;
    }
 
+   /**
+    * Switches the table to virtualized mode, in which items are kept in an
+    * array and rows are only created for the items in (or near) the visible
+    * part of the owning scroll panel; selection is kept as ranges of item
+    * indexes. The owning scroll panel must be set first, the codec must not
+    * insert non-value rows of its own (though an item may render as a
+    * non-value row, e.g. a group header, which keyboard navigation skips),
+    * and rows should be of uniform height (the height of the first
+    * unselected row is used for all of them).
+    */
+   public void setVirtualized()
+   {
+      assert scrollPanel_ != null : "Virtualization requires a scroll panel";
+      assert !codec_.hasNonValueRows() : "Non-value rows can't be virtualized";
+
+      virtualized_ = true;
+      if (isAttached())
+         addVirtualizationHandlers();
+   }
+
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+      if (virtualized_)
+         addVirtualizationHandlers();
+   }
+
+   @Override
+   protected void onUnload()
+   {
+      removeVirtualizationHandlers();
+      super.onUnload();
+   }
+
+   // re-renders the visible rows when the scroll panel scrolls or resizes;
+   // only registered while the table is attached, so that a detached table
+   // isn't kept alive by the window
+   private void addVirtualizationHandlers()
+   {
+      removeVirtualizationHandlers();
+      scrollHandlerReg_ = scrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         public void onScroll(ScrollEvent event)
+         {
+            renderVisibleRows(false);
+         }
+      });
+      resizeHandlerReg_ = Window.addResizeHandler(new ResizeHandler()
+      {
+         public void onResize(ResizeEvent event)
+         {
+            renderVisibleRows(false);
+         }
+      });
+   }
+
+   private void removeVirtualizationHandlers()
+   {
+      if (scrollHandlerReg_ != null)
+      {
+         scrollHandlerReg_.removeHandler();
+         scrollHandlerReg_ = null;
+      }
+      if (resizeHandlerReg_ != null)
+      {
+         resizeHandlerReg_.removeHandler();
+         resizeHandlerReg_ = null;
+      }
+   }
+
+   public boolean isVirtualized()
+   {
+      return virtualized_;
+   }
+
    private void handleRowClick(MouseDownEvent event, TableRowElement row)
    {
       int modifiers = KeyboardShortcut.getModifierValue(event.getNativeEvent());
@@ -137,6 +223,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
          modifiers |= KeyboardShortcut.CTRL;
       modifiers &= ~KeyboardShortcut.META;
 
+      if (virtualized_)
+      {
+         handleVirtualRowClick(modifiers, renderStart_ + row.getRowIndex());
+         return;
+      }
+
       if (modifiers == KeyboardShortcut.NONE)
       {
          // Select only the target row
@@ -217,6 +309,10 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
             return;
       }
 
+      // ALT+UP/DOWN are left for the owner of the table to handle
+      if ((modifiers & KeyboardShortcut.ALT) != 0)
+         return;
+
       if (!allowMultiSelect_)
          modifiers = KeyboardShortcut.NONE;
 
@@ -232,6 +328,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
             return;
       }
 
+      if (virtualized_)
+      {
+         handleVirtualKeyDown(event.getNativeKeyCode(), modifiers);
+         return;
+      }
+
       sortSelectedRows();
       int min = table_.getRows().getLength();
       int max = -1;
@@ -272,6 +374,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    private void ensureRowVisible(final int row)
    {
+      if (virtualized_)
+      {
+         ensureIndexVisible(renderStart_ + row);
+         return;
+      }
+
       if (scrollPanel_ != null)
          DomUtils.ensureVisibleVert(scrollPanel_.getElement(), getRow(row), 0);
    }
@@ -288,14 +396,45 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
       return null;
    }
 
+   public void ensureSelectionVisible()
+   {
+      if (virtualized_)
+      {
+         if (!selection_.isEmpty())
+            ensureIndexVisible(selection_.getMin());
+         return;
+      }
+
+      if (scrollPanel_ == null || selectedRows_.isEmpty())
+         return;
+
+      sortSelectedRows();
+      DomUtils.ensureVisibleVert(scrollPanel_.getElement(),
+                                 selectedRows_.get(0),
+                                 0);
+   }
+
    public void clearSelection()
    {
+      if (virtualized_)
+      {
+         selection_.clear();
+         updateRenderedSelection();
+         return;
+      }
+
       while (selectedRows_.size() > 0)
          setSelected(selectedRows_.get(0), false);
    }
 
    public void addItems(Iterable<TItemInput> items, boolean top)
    {
+      if (virtualized_)
+      {
+         addVirtualItems(items, top);
+         return;
+      }
+
       TableSectionElement tbody = Document.get().createTBodyElement();
       for (TItemInput item : items)
          tbody.appendChild(codec_.getRowForItem(item));
@@ -316,6 +455,15 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
    {
       table_.setInnerText("");
       selectedRows_.clear();
+
+      if (virtualized_)
+      {
+         items_.clear();
+         selection_.clear();
+         renderStart_ = 0;
+         renderEnd_ = 0;
+         updateMargins();
+      }
    }
    
    public void focus()
@@ -326,6 +474,9 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
    
    public int getRowCount()
    {
+      if (virtualized_)
+         return items_.size();
+
       return codec_.getLogicalRowCount(table_);
    }
    
@@ -334,6 +485,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
       if (rowCount <= 0)
          return;
 
+      if (virtualized_)
+      {
+         removeVirtualTopItems(Math.min(rowCount, items_.size()));
+         return;
+      }
+
       NodeList<TableSectionElement> tBodies = table_.getTBodies();
       for (int i = 0; i < tBodies.getLength(); i++)
       {
@@ -364,6 +521,9 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    public ArrayList<Integer> getSelectedRowIndexes()
    {
+      if (virtualized_)
+         return selection_.toList();
+
       sortSelectedRows();
 
       ArrayList<Integer> results = new ArrayList<Integer>();
@@ -381,11 +541,23 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
    @Deprecated
    public void setSelected(int row, boolean selected)
    {
+      if (virtualized_)
+      {
+         setSelected(row, 1, selected);
+         return;
+      }
+
       setSelected(getRow(row), selected);
    }
 
    public void setSelected(int offset, int length, boolean selected)
    {
+      if (virtualized_)
+      {
+         setVirtualSelected(offset, length, selected);
+         return;
+      }
+
       if (codec_.hasNonValueRows())
       {
          // If the codec might have stuck in some non-value rows, we need
@@ -410,6 +582,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    private void setSelectedPhysical(int offset, int length, boolean selected)
    {
+      if (virtualized_)
+      {
+         setVirtualSelected(renderStart_ + offset, length, selected);
+         return;
+      }
+
       for (int i = 0; i < length; i++)
          setSelected(getRow(offset + i), selected);
    }
@@ -426,6 +604,12 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
          return;
       }
 
+      if (virtualized_)
+      {
+         setVirtualSelected(renderStart_ + row.getRowIndex(), 1, selected);
+         return;
+      }
+
       boolean isCurrentlySelected = isSelected(row);
       if (isCurrentlySelected == selected)
          return;
@@ -453,9 +637,20 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    public ArrayList<TItemOutput> getSelectedValues()
    {
+      ArrayList<TItemOutput> results = new ArrayList<TItemOutput>();
+      if (virtualized_)
+      {
+         for (Integer index : selection_.toList())
+         {
+            TItemInput item = items_.get(index);
+            if (codec_.isValueItem(item))
+               results.add(codec_.getOutputForItem(item));
+         }
+         return results;
+      }
+
       sortSelectedRows();
 
-      ArrayList<TItemOutput> results = new ArrayList<TItemOutput>();
       for (TableRowElement row : selectedRows_)
          results.add(codec_.getOutputForRow(row));
       return results;
@@ -474,9 +669,20 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    public ArrayList<TItemOutput2> getSelectedValues2()
    {
+      ArrayList<TItemOutput2> results = new ArrayList<TItemOutput2>();
+      if (virtualized_)
+      {
+         for (Integer index : selection_.toList())
+         {
+            TItemInput item = items_.get(index);
+            if (codec_.isValueItem(item))
+               results.add(codec_.getOutputForItem2(item));
+         }
+         return results;
+      }
+
       sortSelectedRows();
 
-      ArrayList<TItemOutput2> results = new ArrayList<TItemOutput2>();
       for (TableRowElement row : selectedRows_)
          results.add(codec_.getOutputForRow2(row));
       return results;
@@ -484,6 +690,9 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    public boolean moveSelectionUp()
    {
+      if (virtualized_)
+         return moveVirtualSelection(true);
+
       if (selectedRows_.size() == 0)
          return false;
 
@@ -511,6 +720,9 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    public boolean moveSelectionDown()
    {
+      if (virtualized_)
+         return moveVirtualSelection(false);
+
       if (selectedRows_.size() == 0)
          return false;
 
@@ -556,6 +768,15 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
 
    public Rectangle getSelectionRect()
    {
+      if (virtualized_)
+      {
+         if (selection_.isEmpty())
+            return null;
+         int top = selection_.getMin() * rowHeight_;
+         int bottom = (selection_.getMax() + 1) * rowHeight_;
+         return new Rectangle(0, top, table_.getOffsetWidth(), bottom - top);
+      }
+
       if (selectedRows_.size() == 0)
          return null;
 
@@ -570,6 +791,263 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
       return new Rectangle(left, top, width, bottom - top);
    }
 
+   // Virtualized mode ------------------------------------------------------
+
+   private void handleVirtualRowClick(int modifiers, int target)
+   {
+      if (modifiers == KeyboardShortcut.NONE)
+      {
+         selection_.clear();
+         setVirtualSelected(target, 1, true);
+         return;
+      }
+      else if (modifiers == KeyboardShortcut.CTRL)
+      {
+         setVirtualSelected(target, 1, !selection_.contains(target));
+         return;
+      }
+
+      // SHIFT or CTRL+SHIFT; same rules as for physical rows
+      int offset = target;
+      int end = target + 1;
+      if (!selection_.isEmpty())
+      {
+         int min = selection_.getMin();
+         int max = selection_.getMax();
+         if (target < min)
+            end = max + 1;
+         else if (target > max)
+            offset = min;
+         else if (modifiers == (KeyboardShortcut.CTRL | KeyboardShortcut.SHIFT))
+            offset = min;
+      }
+
+      selection_.clear();
+      setVirtualSelected(offset, end - offset, true);
+   }
+
+   private void handleVirtualKeyDown(int keyCode, int modifiers)
+   {
+      int index = -1;
+      if (keyCode == KeyCodes.KEY_UP)
+         index = (selection_.isEmpty() ? items_.size() : selection_.getMin()) - 1;
+      else if (keyCode == KeyCodes.KEY_DOWN)
+         index = selection_.isEmpty() ? 0 : selection_.getMax() + 1;
+
+      index = findValueIndex(index, keyCode == KeyCodes.KEY_UP);
+      if (index == -1)
+         return;
+
+      if (modifiers != KeyboardShortcut.SHIFT)
+         selection_.clear();
+      setVirtualSelected(index, 1, true);
+      ensureIndexVisible(index);
+   }
+
+   private boolean moveVirtualSelection(boolean up)
+   {
+      if (selection_.isEmpty())
+         return false;
+
+      int index = findValueIndex(
+            up ? selection_.getMin() - 1 : selection_.getMax() + 1, up);
+      if (index == -1)
+         return false;
+
+      selection_.clear();
+      setVirtualSelected(index, 1, true);
+      ensureIndexVisible(index);
+      return true;
+   }
+
+   // the nearest item (starting at index, in the given direction) which
+   // renders as a value row, or -1 if there is none
+   private int findValueIndex(int index, boolean up)
+   {
+      int increment = up ? -1 : 1;
+      for (; index >= 0 && index < items_.size(); index += increment)
+      {
+         if (codec_.isValueItem(items_.get(index)))
+            return index;
+      }
+      return -1;
+   }
+
+   private void setVirtualSelected(int offset, int length, boolean selected)
+   {
+      offset = Math.max(0, offset);
+      int end = Math.min(items_.size(), offset + length);
+      if (offset >= end)
+         return;
+
+      selection_.set(offset, end, selected);
+      updateRenderedSelection();
+
+      if (selected && !allowMultiSelect_)
+      {
+         Scheduler.get().scheduleDeferred(new ScheduledCommand()
+         {
+            public void execute()
+            {
+               fireEvent(new SelectionChangedEvent());
+            }
+         });
+      }
+   }
+
+   private void updateRenderedSelection()
+   {
+      for (int i = renderStart_; i < renderEnd_; i++)
+         setStyleName(getRow(i - renderStart_),
+                      selectedClassName_,
+                      selection_.contains(i));
+   }
+
+   private void addVirtualItems(Iterable<TItemInput> items, boolean top)
+   {
+      ArrayList<TItemInput> added = new ArrayList<TItemInput>();
+      for (TItemInput item : items)
+         added.add(item);
+      int count = added.size();
+
+      if (top && renderEnd_ > renderStart_)
+      {
+         // the rendered rows stay where they are; only the indexes (and
+         // the space above them) change
+         int offset = getScrollOffset();
+         items_.addAll(0, added);
+         selection_.shift(count);
+         renderStart_ += count;
+         renderEnd_ += count;
+         updateMargins();
+         setScrollOffset(offset + count * rowHeight_);
+      }
+      else
+      {
+         if (top)
+         {
+            items_.addAll(0, added);
+            selection_.shift(count);
+         }
+         else
+         {
+            items_.addAll(added);
+         }
+         updateMargins();
+      }
+
+      renderVisibleRows(false);
+   }
+
+   private void removeVirtualTopItems(int count)
+   {
+      int offset = getScrollOffset();
+      items_.subList(0, count).clear();
+      selection_.shift(-count);
+
+      // the top of the rendered range may have been removed; start over
+      renderStart_ = 0;
+      renderEnd_ = 0;
+      updateMargins();
+      setScrollOffset(Math.max(0, offset - count * rowHeight_));
+      renderVisibleRows(true);
+   }
+
+   private void ensureIndexVisible(int index)
+   {
+      int offset = getScrollOffset();
+      int viewport = scrollPanel_.getOffsetHeight();
+      int top = index * rowHeight_;
+      int bottom = top + rowHeight_;
+      if (top < offset)
+         setScrollOffset(top);
+      else if (bottom > offset + viewport)
+         setScrollOffset(bottom - viewport);
+      renderVisibleRows(false);
+   }
+
+   private void renderVisibleRows(boolean force)
+   {
+      int count = items_.size();
+      int viewport = scrollPanel_.getOffsetHeight();
+      int visibleRows = viewport > 0 ?
+            viewport / rowHeight_ + 1 : MIN_RENDERED_ROWS;
+      int first = Math.max(0, Math.min(count - visibleRows,
+                                       getScrollOffset() / rowHeight_));
+      int last = Math.min(count, first + visibleRows);
+
+      if (!force && first >= renderStart_ && last <= renderEnd_ &&
+          renderEnd_ - renderStart_ <= visibleRows + 4 * OVERSCAN_ROWS)
+      {
+         return;
+      }
+
+      renderRows(Math.max(0, first - OVERSCAN_ROWS),
+                 Math.min(count, last + OVERSCAN_ROWS));
+   }
+
+   private void renderRows(int start, int end)
+   {
+      NodeList<TableSectionElement> tbodies = table_.getTBodies();
+      while (tbodies.getLength() > 0)
+         tbodies.getItem(0).removeFromParent();
+
+      TableSectionElement tbody = Document.get().createTBodyElement();
+      for (int i = start; i < end; i++)
+      {
+         TableRowElement row = codec_.getRowForItem(items_.get(i));
+         if (selection_.contains(i))
+            setStyleName(row, selectedClassName_, true);
+         tbody.appendChild(row);
+      }
+      table_.appendChild(tbody);
+      codec_.onRowsChanged(tbody);
+
+      renderStart_ = start;
+      renderEnd_ = end;
+
+      if (!rowHeightMeasured_)
+      {
+         for (int i = start; i < end; i++)
+         {
+            TableRowElement row = getRow(i - start);
+            int height = row.getOffsetHeight();
+            if (height > 0 && !selection_.contains(i))
+            {
+               rowHeight_ = height;
+               rowHeightMeasured_ = true;
+               break;
+            }
+         }
+      }
+
+      updateMargins();
+   }
+
+   // the space above and below the rendered rows stands in for the rows
+   // that aren't rendered
+   private void updateMargins()
+   {
+      marginTop_ = renderStart_ * rowHeight_;
+      table_.getStyle().setMarginTop(marginTop_, Unit.PX);
+      table_.getStyle().setMarginBottom(
+            (items_.size() - renderEnd_) * rowHeight_, Unit.PX);
+   }
+
+   // the scroll position relative to the top of the first (virtual) row
+   private int getScrollOffset()
+   {
+      return scrollPanel_.getElement().getAbsoluteTop() -
+             (table_.getAbsoluteTop() - marginTop_);
+   }
+
+   private void setScrollOffset(int offset)
+   {
+      scrollPanel_.setVerticalScrollPosition(
+            scrollPanel_.getVerticalScrollPosition() +
+            offset - getScrollOffset());
+   }
+
    protected Element getEventTargetCell(Event event) {
      Element td = DOM.eventGetTarget(event);
      for (; td != null; td = DOM.getParent(td)) {
@@ -652,6 +1130,21 @@ public class FastSelectTable<TItemInput, TItemOutput, TItemOutput2> extends Widg
    }
 
    private final ArrayList<TableRowElement> selectedRows_ = new ArrayList<TableRowElement>();
+
+   private boolean virtualized_ = false;
+   private HandlerRegistration scrollHandlerReg_;
+   private HandlerRegistration resizeHandlerReg_;
+   private final ArrayList<TItemInput> items_ = new ArrayList<TItemInput>();
+   private final SelectionRanges selection_ = new SelectionRanges();
+   private int renderStart_ = 0;
+   private int renderEnd_ = 0;
+   private int marginTop_ = 0;
+   private int rowHeight_ = DEFAULT_ROW_HEIGHT;
+   private boolean rowHeightMeasured_ = false;
+
+   private static final int DEFAULT_ROW_HEIGHT = 16;
+   private static final int MIN_RENDERED_ROWS = 50;
+   private static final int OVERSCAN_ROWS = 20;
    private final ItemCodec<TItemInput, TItemOutput, TItemOutput2> codec_;
    private final TableElement table_;
    private final String selectedClassName_;
@@ -0,0 +1,153 @@
+/*
+ * SelectionRanges.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.widget;
+
+import java.util.ArrayList;
+
+// A set of non-negative integers stored as sorted, disjoint, non-adjacent
+// half-open ranges, so that selecting (or shift-selecting) any number of
+// consecutive rows costs the same as selecting one.
+class SelectionRanges
+{
+   public boolean isEmpty()
+   {
+      return ranges_.isEmpty();
+   }
+
+   public void clear()
+   {
+      ranges_.clear();
+   }
+
+   public int getMin()
+   {
+      assert !isEmpty();
+      return ranges_.get(0)[0];
+   }
+
+   // inclusive
+   public int getMax()
+   {
+      assert !isEmpty();
+      return ranges_.get(ranges_.size() - 1)[1] - 1;
+   }
+
+   public boolean contains(int index)
+   {
+      int lo = 0;
+      int hi = ranges_.size() - 1;
+      while (lo <= hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         int[] range = ranges_.get(mid);
+         if (index < range[0])
+            hi = mid - 1;
+         else if (index >= range[1])
+            lo = mid + 1;
+         else
+            return true;
+      }
+      return false;
+   }
+
+   public void set(int start, int end, boolean selected)
+   {
+      if (selected)
+         add(start, end);
+      else
+         remove(start, end);
+   }
+
+   public void add(int start, int end)
+   {
+      if (start >= end)
+         return;
+
+      ArrayList<int[]> result = new ArrayList<int[]>(ranges_.size() + 1);
+      boolean placed = false;
+      for (int[] range : ranges_)
+      {
+         if (range[1] < start)
+         {
+            result.add(range);
+         }
+         else if (range[0] > end)
+         {
+            if (!placed)
+            {
+               result.add(new int[] {start, end});
+               placed = true;
+            }
+            result.add(range);
+         }
+         else
+         {
+            // overlapping or adjacent; absorb it
+            start = Math.min(start, range[0]);
+            end = Math.max(end, range[1]);
+         }
+      }
+      if (!placed)
+         result.add(new int[] {start, end});
+
+      ranges_ = result;
+   }
+
+   public void remove(int start, int end)
+   {
+      if (start >= end)
+         return;
+
+      ArrayList<int[]> result = new ArrayList<int[]>(ranges_.size() + 1);
+      for (int[] range : ranges_)
+      {
+         if (range[1] <= start || range[0] >= end)
+         {
+            result.add(range);
+            continue;
+         }
+         if (range[0] < start)
+            result.add(new int[] {range[0], start});
+         if (range[1] > end)
+            result.add(new int[] {end, range[1]});
+      }
+      ranges_ = result;
+   }
+
+   // adds delta to every index, discarding any that become negative
+   public void shift(int delta)
+   {
+      ArrayList<int[]> result = new ArrayList<int[]>(ranges_.size());
+      for (int[] range : ranges_)
+      {
+         int start = Math.max(0, range[0] + delta);
+         int end = range[1] + delta;
+         if (start < end)
+            result.add(new int[] {start, end});
+      }
+      ranges_ = result;
+   }
+
+   public ArrayList<Integer> toList()
+   {
+      ArrayList<Integer> result = new ArrayList<Integer>();
+      for (int[] range : ranges_)
+         for (int i = range[0]; i < range[1]; i++)
+            result.add(i);
+      return result;
+   }
+
+   private ArrayList<int[]> ranges_ = new ArrayList<int[]>();
+}
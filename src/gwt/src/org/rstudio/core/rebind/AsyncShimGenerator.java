@@ -180,7 +180,10 @@ public class AsyncShimGenerator extends Generator
 
          w.println("private void load(final int method, final Object[] args) {");
          w.indent();
-         w.println("GWT.runAsync(new RunAsyncCallback() {");
+         // name the split point after the shim type so that its fragment
+         // can be prefetched (see IdlePrefetcher)
+         w.println("GWT.runAsync(" + baseType_.getQualifiedSourceName() +
+                   ".class, new RunAsyncCallback() {");
          w.indent();
          w.println("public void onFailure(Throwable reason) {");
          w.indent();
@@ -67,6 +67,7 @@ import org.rstudio.studio.client.projects.ui.newproject.NewProjectResources;
 import org.rstudio.studio.client.projects.ui.prefs.ProjectPreferencesDialogResources;
 import org.rstudio.studio.client.rmarkdown.RmdOutputSatellite;
 import org.rstudio.studio.client.shiny.ShinyApplicationSatellite;
+import org.rstudio.studio.client.vcs.VCSApplication;
 import org.rstudio.studio.client.workbench.codesearch.ui.CodeSearchResources;
 import org.rstudio.studio.client.workbench.exportplot.ExportPlotResources;
 import org.rstudio.studio.client.workbench.prefs.views.PreferencesDialog;
@@ -162,36 +163,28 @@ public class RStudio implements EntryPoint
                {
                   ensureStylesInjected();
                   
+                  // each satellite window type is in its own fragment so
+                  // the main window doesn't download them up front
                   String view = Window.Location.getParameter("view");
                   if ("review_changes".equals(view))
                   {
-                     RStudioGinjector.INSTANCE.getVCSApplication().go(
-                           RootLayoutPanel.get(),
-                           dismissProgressAnimation);
+                     loadVCSApplication(dismissProgressAnimation);
                   }
                   else if (HTMLPreviewApplication.NAME.equals(view))
                   {
-                     RStudioGinjector.INSTANCE.getHTMLPreviewApplication().go(
-                           RootLayoutPanel.get(),
-                           dismissProgressAnimation);
+                     loadHTMLPreviewApplication(dismissProgressAnimation);
                   }
                   else if (ShinyApplicationSatellite.NAME.equals(view))
                   {
-                     RStudioGinjector.INSTANCE.getShinyApplicationSatellite().go(
-                           RootLayoutPanel.get(),
-                           dismissProgressAnimation);
+                     loadShinyApplicationSatellite(dismissProgressAnimation);
                   }
                   else if (RmdOutputSatellite.NAME.equals(view))
                   {
-                     RStudioGinjector.INSTANCE.getRmdOutputSatellite().go(
-                           RootLayoutPanel.get(), 
-                           dismissProgressAnimation);
+                     loadRmdOutputSatellite(dismissProgressAnimation);
                   }
                   else if (DataViewerSatellite.NAME.equals(view))
                   {
-                     RStudioGinjector.INSTANCE.getDataViewerSatellite().go(
-                           RootLayoutPanel.get(), 
-                           dismissProgressAnimation);
+                     loadDataViewerSatellite(dismissProgressAnimation);
                   }
                   else
                   {
@@ -205,6 +198,105 @@ public class RStudio implements EntryPoint
       });
    }
    
+   private void loadVCSApplication(final Command dismissProgressAnimation)
+   {
+      GWT.runAsync(VCSApplication.class, new RunAsyncCallback()
+      {
+         public void onFailure(Throwable reason)
+         {
+            onSatelliteLoadFailure(reason, dismissProgressAnimation);
+         }
+
+         public void onSuccess()
+         {
+            RStudioGinjector.INSTANCE.getVCSApplication().go(
+                  RootLayoutPanel.get(),
+                  dismissProgressAnimation);
+         }
+      });
+   }
+
+   private void loadHTMLPreviewApplication(
+                                    final Command dismissProgressAnimation)
+   {
+      GWT.runAsync(HTMLPreviewApplication.class, new RunAsyncCallback()
+      {
+         public void onFailure(Throwable reason)
+         {
+            onSatelliteLoadFailure(reason, dismissProgressAnimation);
+         }
+
+         public void onSuccess()
+         {
+            RStudioGinjector.INSTANCE.getHTMLPreviewApplication().go(
+                  RootLayoutPanel.get(),
+                  dismissProgressAnimation);
+         }
+      });
+   }
+
+   private void loadShinyApplicationSatellite(
+                                    final Command dismissProgressAnimation)
+   {
+      GWT.runAsync(ShinyApplicationSatellite.class, new RunAsyncCallback()
+      {
+         public void onFailure(Throwable reason)
+         {
+            onSatelliteLoadFailure(reason, dismissProgressAnimation);
+         }
+
+         public void onSuccess()
+         {
+            RStudioGinjector.INSTANCE.getShinyApplicationSatellite().go(
+                  RootLayoutPanel.get(),
+                  dismissProgressAnimation);
+         }
+      });
+   }
+
+   private void loadRmdOutputSatellite(final Command dismissProgressAnimation)
+   {
+      GWT.runAsync(RmdOutputSatellite.class, new RunAsyncCallback()
+      {
+         public void onFailure(Throwable reason)
+         {
+            onSatelliteLoadFailure(reason, dismissProgressAnimation);
+         }
+
+         public void onSuccess()
+         {
+            RStudioGinjector.INSTANCE.getRmdOutputSatellite().go(
+                  RootLayoutPanel.get(),
+                  dismissProgressAnimation);
+         }
+      });
+   }
+
+   private void loadDataViewerSatellite(final Command dismissProgressAnimation)
+   {
+      GWT.runAsync(DataViewerSatellite.class, new RunAsyncCallback()
+      {
+         public void onFailure(Throwable reason)
+         {
+            onSatelliteLoadFailure(reason, dismissProgressAnimation);
+         }
+
+         public void onSuccess()
+         {
+            RStudioGinjector.INSTANCE.getDataViewerSatellite().go(
+                  RootLayoutPanel.get(),
+                  dismissProgressAnimation);
+         }
+      });
+   }
+
+   private void onSatelliteLoadFailure(Throwable reason,
+                                       Command dismissProgressAnimation)
+   {
+      dismissProgressAnimation.execute();
+      Window.alert("Error: " + reason.getMessage());
+   }
+   
    private void ensureStylesInjected()
    {
       ThemeResources.INSTANCE.themeStyles().ensureInjected();
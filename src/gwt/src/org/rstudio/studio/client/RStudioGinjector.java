@@ -54,6 +54,7 @@ import org.rstudio.studio.client.shiny.ShinyApplication;
 import org.rstudio.studio.client.shiny.ShinyApplicationSatellite;
 import org.rstudio.studio.client.shiny.ui.ShinyViewerTypePopupMenu;
 import org.rstudio.studio.client.vcs.VCSApplication;
+import org.rstudio.studio.client.workbench.ClientStateUpdater;
 import org.rstudio.studio.client.workbench.commands.Commands;
 import org.rstudio.studio.client.workbench.model.RemoteFileSystemContext;
 import org.rstudio.studio.client.workbench.model.Session;
@@ -121,6 +122,7 @@ public interface RStudioGinjector extends Ginjector
    RmdOutputFrameSatellite getRmdOutputFrameSatellite();
    DataViewerSatellite getDataViewerSatellite();
    EventBus getEventBus();
+   ClientStateUpdater getClientStateUpdater();
    GlobalDisplay getGlobalDisplay();
    RemoteFileSystemContext getRemoteFileSystemContext();
    FileDialogs getFileDialogs();
@@ -17,6 +17,7 @@ package org.rstudio.studio.client.application;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.RunAsyncCallback;
+import com.google.gwt.core.client.prefetch.RunAsyncCode;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style;
 import com.google.gwt.dom.client.Style.Unit;
@@ -37,6 +38,7 @@ import com.google.inject.Singleton;
 import org.rstudio.core.client.Barrier;
 import org.rstudio.core.client.BrowseCap;
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.IdlePrefetcher;
 import org.rstudio.core.client.Barrier.Token;
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.core.client.command.Handler;
@@ -55,12 +57,30 @@ import org.rstudio.studio.client.common.SuperDevMode;
 import org.rstudio.studio.client.common.satellite.SatelliteManager;
 import org.rstudio.studio.client.projects.Projects;
 import org.rstudio.studio.client.server.*;
+import org.rstudio.studio.client.packrat.ui.PackratActionDialog;
+import org.rstudio.studio.client.packrat.ui.PackratResolveConflictDialog;
+import org.rstudio.studio.client.rsconnect.ui.RSConnectDeployDialog;
+import org.rstudio.studio.client.workbench.ui.OptionsLoader;
+import org.rstudio.studio.client.workbench.views.buildtools.BuildTab;
+import org.rstudio.studio.client.workbench.views.environment.EnvironmentTab;
+import org.rstudio.studio.client.workbench.views.files.FilesTab;
+import org.rstudio.studio.client.workbench.views.help.HelpTab;
+import org.rstudio.studio.client.workbench.views.history.HistoryTab;
+import org.rstudio.studio.client.workbench.views.packages.PackagesTab;
+import org.rstudio.studio.client.workbench.views.plots.PlotsTab;
+import org.rstudio.studio.client.workbench.views.presentation.PresentationTab;
+import org.rstudio.studio.client.workbench.views.source.SourceShim;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ui.NewRMarkdownDialog;
+import org.rstudio.studio.client.workbench.views.vcs.VCSTab;
+import org.rstudio.studio.client.workbench.views.viewer.ViewerTab;
 import org.rstudio.studio.client.workbench.ClientStateUpdater;
 import org.rstudio.studio.client.workbench.Workbench;
 import org.rstudio.studio.client.workbench.commands.Commands;
+import org.rstudio.studio.client.workbench.events.DeferredSessionInfoEvent;
 import org.rstudio.studio.client.workbench.events.LastChanceSaveEvent;
 import org.rstudio.studio.client.workbench.events.SessionInitEvent;
 import org.rstudio.studio.client.workbench.model.Agreement;
+import org.rstudio.studio.client.workbench.model.DeferredSessionInfo;
 import org.rstudio.studio.client.workbench.model.Session;
 import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.model.SessionUtils;
@@ -151,6 +171,7 @@ public class Application implements ApplicationEventHandlers
                {
                   dismissLoadingProgress.execute();
 
+                  StartupTimings.mark("agreement_verified");
                   session_.setSessionInfo(sessionInfo);
                   
                   // hide the workbench if we have a project parameter 
@@ -653,6 +674,53 @@ public class Application implements ApplicationEventHandlers
       });
       
       clientStateUpdaterInstance_ = clientStateUpdater_.get();
+
+      StartupTimings.mark("workbench_initialized");
+
+      // now that the workbench is showing request the remainder of the
+      // session info (console history, lists, etc.)
+      server_.clientInitDeferred(
+                     new ServerRequestCallback<DeferredSessionInfo>() {
+         @Override
+         public void onResponseReceived(DeferredSessionInfo info)
+         {
+            StartupTimings.mark("deferred_init_received");
+            session_.setDeferredSessionInfo(info);
+            events_.fireEvent(new DeferredSessionInfoEvent(info));
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            Debug.logError(error);
+         }
+      });
+
+      prefetchSplitPoints();
+   }
+
+   private void prefetchSplitPoints()
+   {
+      // download the code for split out subsystems while the user is idle,
+      // roughly in the order they are likely to be used
+      new IdlePrefetcher()
+         .add(RunAsyncCode.runAsyncCode(SourceShim.AsyncSource.class))
+         .add(RunAsyncCode.runAsyncCode(EnvironmentTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(FilesTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(PlotsTab.PlotsShim.class))
+         .add(RunAsyncCode.runAsyncCode(PackagesTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(HelpTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(HistoryTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(ViewerTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(OptionsLoader.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(NewRMarkdownDialog.class))
+         .add(RunAsyncCode.runAsyncCode(VCSTab.VCSShim.class))
+         .add(RunAsyncCode.runAsyncCode(BuildTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(PresentationTab.Shim.class))
+         .add(RunAsyncCode.runAsyncCode(RSConnectDeployDialog.class))
+         .add(RunAsyncCode.runAsyncCode(PackratActionDialog.class))
+         .add(RunAsyncCode.runAsyncCode(PackratResolveConflictDialog.class))
+         .start();
    }
    
    private void setToolbarPref(boolean showToolbar)
@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.application;
 
+import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
 import com.google.inject.Inject;
@@ -41,31 +42,11 @@ public class ApplicationClientInit
       timedOut_ = false;
       timeoutTimer_ = null;
       
-      // send the request
-      final ServerRequestCallback<SessionInfo> rpcRequestCallback = 
-                                 new ServerRequestCallback<SessionInfo>() {
-         @Override
-         public void onResponseReceived(SessionInfo sessionInfo)
-         {
-            if (!timedOut_)
-            {
-               cancelTimeoutTimer();
-               requestCallback.onResponseReceived(sessionInfo);
-            }
-         }
-         @Override
-         public void onError(ServerError error)
-         {
-            if (!timedOut_)
-            {
-               cancelTimeoutTimer();
-               requestCallback.onError(error);
-            }
-         }                                    
-      };
-      server_.clientInit(rpcRequestCallback);
+      // send the request (including the hashes of the sections of session
+      // info we have cached)
+      StartupTimings.mark("client_init_sent");
+      sendClientInit(cache_.getSectionHashes(), requestCallback);
                                     
-      
       // wait for 60 seconds then ask the user if they want to issue an 
       // interrupt to the server
       int timeoutMs = 60000;
@@ -76,7 +57,7 @@ public class ApplicationClientInit
             timedOut_ = true;
             
             // cancel our request
-            rpcRequestCallback.cancel();
+            rpcRequestCallback_.cancel();
             
             // ask the user if they want to attempt to interrupt the server
             globalDisplay_.showYesNoMessage(GlobalDisplay.MSG_QUESTION, 
@@ -140,6 +121,46 @@ public class ApplicationClientInit
       timeoutTimer_.schedule(timeoutMs); 
    }
    
+   private void sendClientInit(
+                  final JavaScriptObject cachedSectionHashes,
+                  final ServerRequestCallback<SessionInfo> requestCallback)
+   {
+      rpcRequestCallback_ = new ServerRequestCallback<SessionInfo>() {
+         @Override
+         public void onResponseReceived(SessionInfo sessionInfo)
+         {
+            if (!timedOut_)
+            {
+               StartupTimings.mark("client_init_received");
+
+               // restore sections the server omitted because our cached
+               // copy is current; if the cache has been lost in the
+               // meantime then ask again for the full session info
+               if (!cache_.restore(sessionInfo))
+               {
+                  cache_.clear();
+                  sendClientInit(null, requestCallback);
+                  return;
+               }
+               cache_.update(sessionInfo);
+
+               cancelTimeoutTimer();
+               requestCallback.onResponseReceived(sessionInfo);
+            }
+         }
+         @Override
+         public void onError(ServerError error)
+         {
+            if (!timedOut_)
+            {
+               cancelTimeoutTimer();
+               requestCallback.onError(error);
+            }
+         }                                    
+      };
+      server_.clientInit(cachedSectionHashes, rpcRequestCallback_);
+   }
+   
    private void reloadWithDelay(int delayMs)
    {
       // need a delay so the server has time to fully process the
@@ -164,6 +185,8 @@ public class ApplicationClientInit
    
    private final ApplicationServerOperations server_;
    private final GlobalDisplay globalDisplay_ ;
+   private final ClientInitCache cache_ = new ClientInitCache();
+   private ServerRequestCallback<SessionInfo> rpcRequestCallback_;
    private Timer timeoutTimer_ = null;
    private boolean timedOut_ = false;
 }
@@ -0,0 +1,143 @@
+/*
+ * ClientInitCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application;
+
+import org.rstudio.studio.client.workbench.model.SessionInfo;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+// Caches the rarely changing sections of the session info (TeX and HTML
+// capabilities, Rnw weave and LaTeX program types) in browser local
+// storage. The hashes of the cached sections are sent with client_init;
+// the server omits any section whose hash is unchanged and we restore
+// it from the cache. If local storage isn't available this degrades to
+// always receiving the full session info.
+public class ClientInitCache
+{
+   public JavaScriptObject getSectionHashes()
+   {
+      return getSectionHashes(read());
+   }
+
+   // restore sections the server omitted; returns false if any of them
+   // are missing from the cache (in which case the session info is
+   // incomplete and should be requested again without hashes)
+   public boolean restore(SessionInfo sessionInfo)
+   {
+      JavaScriptObject cache = read();
+      JsArrayString cachedSections = sessionInfo.getCachedSections();
+      for (int i = 0; i < cachedSections.length(); i++)
+      {
+         String name = cachedSections.get(i);
+         JavaScriptObject value = getCachedValue(cache, name);
+         if (value == null)
+            return false;
+         sessionInfo.setSection(name, value);
+      }
+      return true;
+   }
+
+   // store any cacheable sections which the server sent in full
+   public void update(SessionInfo sessionInfo)
+   {
+      JavaScriptObject cache = read();
+      JavaScriptObject hashes = sessionInfo.getSectionHashes();
+      JsArrayString names = keys(hashes);
+      boolean changed = false;
+      for (int i = 0; i < names.length(); i++)
+      {
+         String name = names.get(i);
+         if (sessionInfo.hasSection(name))
+         {
+            setCachedValue(cache,
+                           name,
+                           getString(hashes, name),
+                           sessionInfo.getSection(name));
+            changed = true;
+         }
+      }
+      if (changed)
+         write(cache);
+   }
+
+   public void clear()
+   {
+      write(JavaScriptObject.createObject());
+   }
+
+   private static native JavaScriptObject read() /*-{
+      try
+      {
+         var value = $wnd.localStorage.getItem(@org.rstudio.studio.client.application.ClientInitCache::STORAGE_KEY);
+         if (value)
+            return JSON.parse(value);
+      }
+      catch(e)
+      {
+      }
+      return {};
+   }-*/;
+
+   private static native void write(JavaScriptObject cache) /*-{
+      try
+      {
+         $wnd.localStorage.setItem(
+            @org.rstudio.studio.client.application.ClientInitCache::STORAGE_KEY,
+            JSON.stringify(cache));
+      }
+      catch(e)
+      {
+      }
+   }-*/;
+
+   private static native JavaScriptObject getSectionHashes(
+                                             JavaScriptObject cache) /*-{
+      var hashes = {};
+      for (var name in cache)
+         if (cache.hasOwnProperty(name))
+            hashes[name] = cache[name].hash;
+      return hashes;
+   }-*/;
+
+   private static native JavaScriptObject getCachedValue(
+                                             JavaScriptObject cache,
+                                             String name) /*-{
+      var entry = cache[name];
+      return entry && entry.hasOwnProperty("value") ? entry.value : null;
+   }-*/;
+
+   private static native void setCachedValue(JavaScriptObject cache,
+                                             String name,
+                                             String hash,
+                                             JavaScriptObject value) /*-{
+      cache[name] = { hash: hash, value: value };
+   }-*/;
+
+   private static native JsArrayString keys(JavaScriptObject object) /*-{
+      var keys = [];
+      for (var name in object)
+         if (object.hasOwnProperty(name))
+            keys.push(name);
+      return keys;
+   }-*/;
+
+   private static native String getString(JavaScriptObject object,
+                                          String name) /*-{
+      return object[name];
+   }-*/;
+
+   private static final String STORAGE_KEY = "rstudio.clientInitCache";
+}
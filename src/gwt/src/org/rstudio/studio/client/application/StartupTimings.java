@@ -0,0 +1,66 @@
+/*
+ * StartupTimings.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.Pair;
+
+// Records timing marks for the phases of application startup. Marks are
+// also forwarded to the browser's performance timeline (when available)
+// and can be listed by calling getStartupTimings() from the console.
+public class StartupTimings
+{
+   public static void mark(String label)
+   {
+      if (marks_ == null)
+      {
+         marks_ = new ArrayList<Pair<String, Long>>();
+         export();
+      }
+      marks_.add(new Pair<String, Long>(label, System.currentTimeMillis()));
+      performanceMark("rstudio-" + label);
+   }
+
+   private static String getTimings()
+   {
+      if (marks_ == null || marks_.isEmpty())
+         return "";
+
+      StringBuilder timings = new StringBuilder();
+      long start = marks_.get(0).second;
+      for (Pair<String, Long> mark : marks_)
+      {
+         timings.append(mark.first)
+                .append(": ")
+                .append(mark.second - start)
+                .append(" ms\n");
+      }
+      return timings.toString();
+   }
+
+   private static native void performanceMark(String name) /*-{
+      if ($wnd.performance && $wnd.performance.mark)
+         $wnd.performance.mark(name);
+   }-*/;
+
+   private static native void export() /*-{
+      $wnd.getStartupTimings = $entry(function() {
+         return @org.rstudio.studio.client.application.StartupTimings::getTimings()();
+      });
+   }-*/;
+
+   private static ArrayList<Pair<String, Long>> marks_ = null;
+}
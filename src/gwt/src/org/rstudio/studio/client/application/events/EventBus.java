@@ -14,10 +14,13 @@
  */
 package org.rstudio.studio.client.application.events;
 
+import java.util.HashMap;
+
 import com.google.gwt.event.logical.shared.AttachEvent;
 import com.google.gwt.event.logical.shared.AttachEvent.Handler;
 import com.google.gwt.event.logical.shared.HasAttachHandlers;
 import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.GwtEvent.Type;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -29,8 +32,102 @@ public class EventBus extends HandlerManager
    public EventBus()
    {
       super(null) ;
+      exportProfiling();
+   }
+
+   @Override
+   public <H extends EventHandler> HandlerRegistration addHandler(
+         Type<H> type, H handler)
+   {
+      if (profiler_ != null)
+         profiler_.onHandlerAdded(type);
+      return super.addHandler(type, handler);
+   }
+
+   @Override
+   public void fireEvent(GwtEvent<?> event)
+   {
+      if (profiler_ == null)
+      {
+         super.fireEvent(event);
+         return;
+      }
+
+      double started = profiler_.onFiring();
+      try
+      {
+         super.fireEvent(event);
+      }
+      finally
+      {
+         // profiling may have been stopped by a handler
+         if (profiler_ != null)
+            profiler_.onFired(event, started);
+      }
+   }
+
+   /**
+    * Notes the current state of the application (e.g. "3 documents open")
+    * while profiling; handler counts that grow each time the same state is
+    * revisited are reported as possible leaks. 
+    */
+   public void checkpoint(String state)
+   {
+      if (profiler_ != null)
+         profiler_.checkpoint(state);
    }
 
+   /**
+    * Names an event type in profiling reports (class names aren't available
+    * in production builds, so types which aren't named are only numbered).
+    * The first name given to a type is kept.
+    */
+   public void setTypeName(Type<?> type, String name)
+   {
+      if (!typeNames_.containsKey(type))
+         typeNames_.put(type, name);
+   }
+
+   String getTypeName(Type<?> type)
+   {
+      return typeNames_.get(type);
+   }
+
+   // Profiling is opt-in: call startEventBusProfiling() from the browser
+   // console, reproduce the problem, then call getEventBusProfile() to get a
+   // report suitable for attaching to a bug report.
+
+   private void startProfiling()
+   {
+      profiler_ = new EventBusProfiler(this);
+   }
+
+   private void stopProfiling()
+   {
+      profiler_ = null;
+   }
+
+   private String getProfile()
+   {
+      if (profiler_ == null)
+         return "Event bus profiling is not enabled " +
+                "(call startEventBusProfiling() to enable it).";
+      return profiler_.getReport();
+   }
+
+   private native void exportProfiling() /*-{
+      var thiz = this;
+      $wnd.startEventBusProfiling = $entry(function() {
+         thiz.@org.rstudio.studio.client.application.events.EventBus::startProfiling()();
+      });
+      $wnd.stopEventBusProfiling = $entry(function() {
+         thiz.@org.rstudio.studio.client.application.events.EventBus::stopProfiling()();
+      });
+      $wnd.getEventBusProfile = $entry(function() {
+         return thiz.@org.rstudio.studio.client.application.events.EventBus::getProfile()();
+      });
+   }-*/;
+
    /**
     * Similar to 2-arg form of addHandler, but automatically removes handler
     * when the HasAttachHandlers object detaches.
@@ -52,4 +149,8 @@ public class EventBus extends HandlerManager
          }
       });
    }
+
+   private EventBusProfiler profiler_ = null;
+   private final HashMap<Type<?>, String> typeNames_ =
+         new HashMap<Type<?>, String>();
 }
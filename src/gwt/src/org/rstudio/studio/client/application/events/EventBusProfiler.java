@@ -0,0 +1,207 @@
+/*
+ * EventBusProfiler.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.application.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.GwtEvent.Type;
+
+// Collects dispatch statistics for the EventBus while profiling is enabled
+// (see EventBus.startProfiling): how often each event type is fired, how
+// long its handlers take, and how many handlers it has. 
+//
+// To find handlers that are never removed, the handler counts are also
+// recorded at checkpoints that describe the state of the application (e.g.
+// the number of open documents). Returning to the same state should mean
+// returning to the same handler counts; types whose counts keep growing
+// each time a state is revisited are reported as possible leaks.
+class EventBusProfiler
+{
+   EventBusProfiler(EventBus events)
+   {
+      events_ = events;
+   }
+
+   void onHandlerAdded(Type<?> type)
+   {
+      statsFor(type);
+   }
+
+   // returns a token to pass to onFired when the dispatch completes
+   double onFiring()
+   {
+      return now();
+   }
+
+   void onFired(GwtEvent<?> event, double started)
+   {
+      // nested dispatches are included in the time of the outer event
+      double elapsed = now() - started;
+      TypeStats stats = statsFor(event.getAssociatedType());
+      stats.fireCount++;
+      stats.totalMillis += elapsed;
+      stats.maxMillis = Math.max(stats.maxMillis, elapsed);
+   }
+
+   void checkpoint(final String state)
+   {
+      // handlers removed while an event is being dispatched are only removed
+      // once the dispatch completes, so wait for things to settle
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         @Override
+         public void execute()
+         {
+            recordCheckpoint(state);
+         }
+      });
+   }
+
+   private void recordCheckpoint(String state)
+   {
+      for (TypeStats stats : stats_.values())
+      {
+         int count = events_.getHandlerCount(stats.type);
+         Integer last = stats.checkpointCounts.get(state);
+         if (last != null)
+         {
+            if (count > last)
+            {
+               stats.growthStreak++;
+               stats.leakState = state;
+            }
+            else
+            {
+               stats.growthStreak = 0;
+            }
+         }
+         stats.checkpointCounts.put(state, count);
+      }
+   }
+
+   String getReport()
+   {
+      ArrayList<TypeStats> stats = new ArrayList<TypeStats>(stats_.values());
+      Collections.sort(stats, new Comparator<TypeStats>()
+      {
+         @Override
+         public int compare(TypeStats a, TypeStats b)
+         {
+            return Double.compare(b.totalMillis, a.totalMillis);
+         }
+      });
+
+      StringBuilder report = new StringBuilder();
+      report.append("Event dispatch (")
+            .append(Math.round(now() - started_))
+            .append(" ms profiled):\n");
+      for (TypeStats type : stats)
+      {
+         report.append("  ")
+               .append(nameOf(type))
+               .append(": fired ").append(type.fireCount)
+               .append(", total ").append(formatMillis(type.totalMillis))
+               .append(" ms, max ").append(formatMillis(type.maxMillis))
+               .append(" ms, handlers ")
+               .append(events_.getHandlerCount(type.type))
+               .append("\n");
+      }
+
+      StringBuilder leaks = new StringBuilder();
+      for (TypeStats type : stats)
+      {
+         if (type.growthStreak >= LEAK_STREAK)
+         {
+            leaks.append("  ")
+                 .append(nameOf(type))
+                 .append(": handlers grew on ")
+                 .append(type.growthStreak)
+                 .append(" consecutive returns to '")
+                 .append(type.leakState)
+                 .append("'\n");
+         }
+      }
+      if (leaks.length() > 0)
+         report.append("Possible handler leaks:\n").append(leaks);
+
+      return report.toString();
+   }
+
+   private TypeStats statsFor(Type<?> type)
+   {
+      TypeStats stats = stats_.get(type);
+      if (stats == null)
+      {
+         stats = new TypeStats(type, stats_.size() + 1);
+         stats_.put(type, stats);
+      }
+      return stats;
+   }
+
+   // types are named explicitly (see EventBus.setTypeName) since class
+   // names aren't available in production builds; others are numbered in
+   // the order they were first seen
+   private String nameOf(TypeStats stats)
+   {
+      String name = events_.getTypeName(stats.type);
+      return name != null ? name : "type #" + stats.id;
+   }
+
+   private static String formatMillis(double millis)
+   {
+      return String.valueOf(Math.round(millis * 10) / 10.0);
+   }
+
+   private static native double now() /*-{
+      if ($wnd.performance && $wnd.performance.now)
+         return $wnd.performance.now();
+      return new Date().getTime();
+   }-*/;
+
+   private static class TypeStats
+   {
+      TypeStats(Type<?> type, int id)
+      {
+         this.type = type;
+         this.id = id;
+      }
+
+      final Type<?> type;
+      final int id;
+      int fireCount;
+      double totalMillis;
+      double maxMillis;
+
+      // handler counts at each checkpoint state, and how many times in a row
+      // the count has grown on returning to a state
+      final HashMap<String, Integer> checkpointCounts =
+            new HashMap<String, Integer>();
+      int growthStreak;
+      String leakState;
+   }
+
+   private final EventBus events_;
+   private final double started_ = now();
+   private final HashMap<Type<?>, TypeStats> stats_ =
+         new HashMap<Type<?>, TypeStats>();
+
+   private static final int LEAK_STREAK = 2;
+}
@@ -14,17 +14,27 @@
  */
 package org.rstudio.studio.client.application.model;
 
+import com.google.gwt.core.client.JavaScriptObject;
+
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
 import org.rstudio.studio.client.workbench.model.Agreement;
+import org.rstudio.studio.client.workbench.model.DeferredSessionInfo;
 import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.prefs.model.PrefsServerOperations;
 
 public interface ApplicationServerOperations extends PrefsServerOperations
 {   
-   // establish new session for this client
-   void clientInit(ServerRequestCallback<SessionInfo> requestCallback);
+   // establish new session for this client (cachedSectionHashes maps the
+   // names of session info sections cached by the client to their hashes)
+   void clientInit(JavaScriptObject cachedSectionHashes,
+                   ServerRequestCallback<SessionInfo> requestCallback);
+
+   // get the session info sections which aren't needed for the initial
+   // display of the workbench
+   void clientInitDeferred(
+               ServerRequestCallback<DeferredSessionInfo> requestCallback);
 
    // interrupt the current session
    void interrupt(ServerRequestCallback<Void> requestCallback);
@@ -113,7 +113,7 @@ public class DesktopApplicationHeader implements ApplicationHeader
             
             toolbar_.completeInitialization(sessionInfo);
             
-            new JSObjectStateValue(
+            ignoredUpdatesStateValue_ = new JSObjectStateValue(
                   "updates",
                   "ignoredUpdates",
                   ClientState.PERSISTENT,
@@ -337,6 +337,7 @@ public class DesktopApplicationHeader implements ApplicationHeader
                {
                   ignoredUpdates_.addIgnoredUpdate(result.getUpdateVersion());
                   ignoredUpdatesDirty_ = true;
+                  ignoredUpdatesStateValue_.markDirty();
                }
             });
          }
@@ -363,5 +364,6 @@ public class DesktopApplicationHeader implements ApplicationHeader
    private ApplicationServerOperations server_;
    private IgnoredUpdates ignoredUpdates_;
    private boolean ignoredUpdatesDirty_ = false;
+   private JSObjectStateValue ignoredUpdatesStateValue_;
    private ApplicationQuit appQuit_; 
 }
@@ -34,6 +34,32 @@ public class CommandLineHistory
       resetPosition();
    }
 
+   // Puts earlier entries in front of the current ones (e.g. when the saved
+   // history arrives after commands have already been entered). Current
+   // entries which the earlier history already ends with aren't repeated.
+   public void prependHistory(ArrayList<String> history)
+   {
+      ArrayList<String> current = new ArrayList<String>(history_);
+      int fromEnd = history_.size() - historyPos_;
+
+      int overlap = Math.min(history.size(), current.size());
+      while (overlap > 0 &&
+             !history.subList(history.size() - overlap, history.size())
+                     .equals(current.subList(0, overlap)))
+      {
+         overlap--;
+      }
+
+      history_.clear();
+      for (String entry : history)
+         addToHistory(entry);
+      for (String entry : current.subList(overlap, current.size()))
+         addToHistory(entry);
+
+      // keep the position of any history navigation in progress
+      historyPos_ = Math.max(0, history_.size() - fromEnd);
+   }
+
    public void addToHistory(String command)
    {
       if (StringUtil.isNullOrEmpty(command))
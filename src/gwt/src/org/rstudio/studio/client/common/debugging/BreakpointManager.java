@@ -16,6 +16,9 @@
 package org.rstudio.studio.client.common.debugging;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -33,6 +36,8 @@ import org.rstudio.studio.client.common.debugging.events.PackageLoadedEvent;
 import org.rstudio.studio.client.common.debugging.events.PackageUnloadedEvent;
 import org.rstudio.studio.client.common.debugging.model.Breakpoint;
 import org.rstudio.studio.client.common.debugging.model.BreakpointState;
+import org.rstudio.studio.client.common.debugging.model.FunctionBreakpoints;
+import org.rstudio.studio.client.common.debugging.model.FunctionBreakpointsResult;
 import org.rstudio.studio.client.common.debugging.model.FunctionState;
 import org.rstudio.studio.client.common.debugging.model.FunctionSteps;
 import org.rstudio.studio.client.server.ServerError;
@@ -54,6 +59,9 @@ import org.rstudio.studio.client.workbench.views.environment.events.DebugSourceC
 import org.rstudio.studio.client.workbench.views.environment.model.CallFrame;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.core.client.JsArrayBoolean;
 import com.google.gwt.regexp.shared.MatchResult;
 import com.google.gwt.regexp.shared.RegExp;
 import com.google.inject.Inject;
@@ -71,12 +79,14 @@ import com.google.inject.Singleton;
 //    function on disk is identical to the source code for the function as
 //    it exists in the R session (get_function_sync_state). If it isn't, 
 //    it defers setting the breakpoint.
-// 4) The breakpoint manager fetches the steps and substeps of the function in 
-//    which the breakpoint occurs from the server, and updates the breakpoint
-//    with this information (get_function_steps) 
-// 5) The breakpoint manager combines the breakpoint with all of the other 
-//    breakpoints for the function, and makes a single call to the server to
-//    update the function's breakpoints (set_function_breakpoints)
+// 4) The breakpoint manager combines the breakpoint with all of the other 
+//    breakpoints for the function, and makes a single call to the server, 
+//    which fetches the steps and substeps of the function in which the 
+//    breakpoint occurs and updates the function's breakpoints 
+//    (resolve_and_set_functions_breakpoints). Requests for several functions
+//    (e.g. when a package is rebuilt) are combined into one call.
+// 5) The breakpoint manager updates the breakpoint with the steps returned
+//    by the server
 // 6) If successful, the breakpoint manager emits a BreakpointsSavedEvent, which
 //    is picked up by the editing target, which updates the display to show that
 //    the breakpoint is now enabled.
@@ -190,9 +200,15 @@ public class BreakpointManager
             @Override
             public void onResponseReceived(FunctionState state)
             {
+               // the breakpoint may have been removed while we were waiting
+               if (!isIndexed(breakpoint))
+                  return;
+               
                if (state.isPackageFunction())
                {
                   breakpoint.markAsPackageBreakpoint(state.getPackageName());
+                  breakpointsByPackage_.add(state.getPackageName(), 
+                                            breakpoint);
                }
                // If the breakpoint is not to be set immediately, 
                // stop processing now
@@ -218,6 +234,9 @@ public class BreakpointManager
             @Override
             public void onError(ServerError error)
             {
+               if (!isIndexed(breakpoint))
+                  return;
+               
                // if we can't figure out whether the function is in sync, 
                // leave it inactive for now
                markInactiveBreakpoint(breakpoint);
@@ -225,7 +244,7 @@ public class BreakpointManager
          });
       }
       
-      breakpointStateDirty_ = true;
+      markBreakpointStateDirty();
       return breakpoint;
    }
    
@@ -234,7 +253,7 @@ public class BreakpointManager
       Breakpoint breakpoint = getBreakpoint(breakpointId);
       if (breakpoint != null)
       {
-         breakpoints_.remove(breakpoint);
+         unindexBreakpoint(breakpoint);
          if (breakpoint.getState() == Breakpoint.STATE_ACTIVE &&
              breakpoint.getType() == Breakpoint.TYPE_FUNCTION)
          {
@@ -251,7 +270,7 @@ public class BreakpointManager
       // because of Java(Script)'s reference semantics, the editor's instance
       // of the breakpoint object is the same one we have here, so we don't
       // need to update the line number--we just need to persist the new state.
-      breakpointStateDirty_ = true;
+      markBreakpointStateDirty();
       
       // the breakpoint knows its position in the function, which needs to be
       // recalculated; do that the next time we set breakpoints on this function
@@ -265,15 +284,8 @@ public class BreakpointManager
    
    public ArrayList<Breakpoint> getBreakpointsInFile(String fileName)
    {
-      ArrayList<Breakpoint> breakpoints = new ArrayList<Breakpoint>();
-      for (Breakpoint breakpoint: breakpoints_)
-      {
-         if (breakpoint.isInFile(fileName))
-         {
-            breakpoints.add(breakpoint);
-         }
-      }
-      return breakpoints;
+      return new ArrayList<Breakpoint>(
+            breakpointsByPath_.get(fileName));
    }
    
    // Event handlers ----------------------------------------------------------
@@ -284,7 +296,7 @@ public class BreakpointManager
       // Establish a persistent object for the breakpoints. Note that this 
       // object is read by the server on init, so the scope/name pair here 
       // needs to match the pair on the server. 
-      new JSObjectStateValue(
+      breakpointStateValue_ = new JSObjectStateValue(
             "debug-breakpoints",
             "debugBreakpointsState",
             ClientState.PROJECT_PERSISTENT,
@@ -319,7 +331,7 @@ public class BreakpointManager
                 // breakpoints. as new source windows are opened, they will
                 // call getBreakpointsInFile to populate themselves.
                 events_.fireEvent(
-                      new BreakpointsSavedEvent(breakpoints_, true));
+                      new BreakpointsSavedEvent(getAllBreakpoints(), true));
              }
           }
    
@@ -328,7 +340,7 @@ public class BreakpointManager
           {
              BreakpointState state = 
                    BreakpointState.create();
-             for (Breakpoint breakpoint: breakpoints_)
+             for (Breakpoint breakpoint: breakpoints_.values())
              {
                 state.addPersistedBreakpoint(breakpoint);
              }
@@ -411,7 +423,8 @@ public class BreakpointManager
       {
          if (!activeFunctions.contains(function))
          {
-            for (Breakpoint breakpoint: breakpoints_)
+            for (Breakpoint breakpoint: 
+                 breakpointsByFunction_.get(function.functionName))
             {
                if (breakpoint.isPendingDebugCompletion() &&
                    breakpoint.getState() == Breakpoint.STATE_INACTIVE &&
@@ -423,10 +436,7 @@ public class BreakpointManager
          }
       }
       
-      for (FileFunction function: enableFunctions)
-      {
-         prepareAndSetFunctionBreakpoints(function);
-      }
+      prepareAndSetFunctionBreakpoints(enableFunctions);
       
       // Record the new frame list.
       activeFunctions_ = activeFunctions;
@@ -478,9 +488,10 @@ public class BreakpointManager
          // Restarting R unloads all the packages, so mark all active package
          // breakpoints as inactive when this happens.
          ArrayList<Breakpoint> breakpoints = new ArrayList<Breakpoint>();
-         for (Breakpoint breakpoint: breakpoints_)
+         for (String packageName: breakpointsByPackage_.keySet())
          {
-            if (breakpoint.isPackageBreakpoint())
+            for (Breakpoint breakpoint: 
+                 breakpointsByPackage_.get(packageName))
             {
                breakpoint.setState(Breakpoint.STATE_INACTIVE);
                breakpoints.add(breakpoint);
@@ -494,100 +505,224 @@ public class BreakpointManager
 
    private void setFunctionBreakpoints(FileFunction function)
    {
-      ArrayList<String> steps = new ArrayList<String>();
-      final ArrayList<Breakpoint> breakpoints = new ArrayList<Breakpoint>();
-      for (Breakpoint breakpoint: breakpoints_)
+      Set<FileFunction> functions = new TreeSet<FileFunction>();
+      functions.add(function);
+      setFunctionBreakpoints(functions);
+   }
+   
+   // Sets the breakpoints on all the given functions with a single request
+   private void setFunctionBreakpoints(Collection<FileFunction> functions)
+   {
+      if (functions.isEmpty())
+         return;
+      
+      final ArrayList<FunctionBreakpoints> request = 
+            new ArrayList<FunctionBreakpoints>();
+      final ArrayList<ArrayList<Breakpoint>> functionBreakpoints = 
+            new ArrayList<ArrayList<Breakpoint>>();
+      for (FileFunction function: functions)
       {
-         if (function.containsBreakpoint(breakpoint))
+         FunctionBreakpoints fb = FunctionBreakpoints.create(
+               function.functionName,
+               function.fileName,
+               function.packageName);
+         ArrayList<Breakpoint> breakpoints = getBreakpointsInFunction(function);
+         for (Breakpoint breakpoint: breakpoints)
          {
-            steps.add(breakpoint.getFunctionSteps());
-            breakpoints.add(breakpoint);
+            fb.addSteps(breakpoint.getFunctionSteps());
          }
+         request.add(fb);
+         functionBreakpoints.add(breakpoints);
       }
-      server_.setFunctionBreakpoints(
-            function.functionName,
-            function.fileName,
-            function.packageName,
-            steps,
-            new ServerRequestCallback<Void>()
+      
+      server_.setFunctionsBreakpoints(request, 
+            new ServerRequestCallback<JsArrayBoolean>()
             {
                @Override
-               public void onResponseReceived(Void v)
+               public void onResponseReceived(JsArrayBoolean results)
                {
-                  for (Breakpoint breakpoint: breakpoints)
+                  ArrayList<Breakpoint> set = new ArrayList<Breakpoint>();
+                  ArrayList<Breakpoint> unset = new ArrayList<Breakpoint>();
+                  for (int i = 0; i < functionBreakpoints.size(); i++)
                   {
-                     breakpoint.setState(Breakpoint.STATE_ACTIVE);
+                     boolean succeeded = i < results.length() && results.get(i);
+                     for (Breakpoint breakpoint: functionBreakpoints.get(i))
+                     {
+                        if (succeeded)
+                        {
+                           breakpoint.setState(Breakpoint.STATE_ACTIVE);
+                           set.add(breakpoint);
+                        }
+                        else
+                        {
+                           unset.add(breakpoint);
+                        }
+                     }
                   }
-                  notifyBreakpointsSaved(breakpoints, true);
+                  if (set.size() > 0)
+                     notifyBreakpointsSaved(set, true);
+                  discardUnsettableBreakpoints(unset);
                }
                
                @Override
                public void onError(ServerError error)
                {
-                  discardUnsettableBreakpoints(breakpoints);
+                  ArrayList<Breakpoint> unset = new ArrayList<Breakpoint>();
+                  for (ArrayList<Breakpoint> breakpoints: functionBreakpoints)
+                     unset.addAll(breakpoints);
+                  discardUnsettableBreakpoints(unset);
                }
             });
    }
       
-   private void prepareAndSetFunctionBreakpoints(final FileFunction function)
+   private void prepareAndSetFunctionBreakpoints(FileFunction function)
    {
-      // look over the list of breakpoints in this function and see if any are
-      // marked inactive, or if they need their steps refreshed (necessary
-      // when a function has had steps added or removed in the editor)
-      final ArrayList<Breakpoint> inactiveBreakpoints = 
-            new ArrayList<Breakpoint>();
-      int[] inactiveLines = new int[]{};
-      int numLines = 0;
-      for (Breakpoint breakpoint: breakpoints_)
+      Set<FileFunction> functions = new TreeSet<FileFunction>();
+      functions.add(function);
+      prepareAndSetFunctionBreakpoints(functions);
+   }
+   
+   // Queues the functions to have their breakpoints resolved and set. 
+   // Requests made in the same event loop (e.g. for every function in a 
+   // package which was just rebuilt) are combined into a single request.
+   private void prepareAndSetFunctionBreakpoints(
+         Collection<FileFunction> functions)
+   {
+      if (functions.isEmpty())
+         return;
+      
+      boolean scheduled = !pendingFunctions_.isEmpty();
+      pendingFunctions_.addAll(functions);
+      if (scheduled)
+         return;
+      
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
       {
-         if (function.containsBreakpoint(breakpoint) &&
-             (breakpoint.getState() != Breakpoint.STATE_ACTIVE ||
-              breakpoint.needsUpdatedSteps()))
+         @Override
+         public void execute()
          {
-            inactiveBreakpoints.add(breakpoint);
-            inactiveLines[numLines++] = breakpoint.getLineNumber();
+            Set<FileFunction> functions = pendingFunctions_;
+            pendingFunctions_ = new TreeSet<FileFunction>();
+            resolveAndSetFunctionBreakpoints(functions);
          }
-      }
+      });
+   }
+   
+   // Resolves the steps of the breakpoints that need them and sets the 
+   // breakpoints on all the given functions with a single request
+   private void resolveAndSetFunctionBreakpoints(
+         Collection<FileFunction> functions)
+   {
+      final ArrayList<FunctionBreakpoints> request = 
+            new ArrayList<FunctionBreakpoints>();
+      final ArrayList<ArrayList<Breakpoint>> activeBreakpoints = 
+            new ArrayList<ArrayList<Breakpoint>>();
+      final ArrayList<ArrayList<Breakpoint>> inactiveBreakpoints = 
+            new ArrayList<ArrayList<Breakpoint>>();
       
-      // if we found breakpoints that aren't yet active, try to get the 
-      // corresponding steps from the function 
-      if (inactiveBreakpoints.size() > 0)
+      for (FileFunction function: functions)
       {
-         server_.getFunctionSteps(
+         FunctionBreakpoints fb = FunctionBreakpoints.create(
                function.functionName,
                function.fileName,
-               function.packageName,
-               inactiveLines, 
-               new ServerRequestCallback<JsArray<FunctionSteps>> () {
-                  @Override
-                  public void onResponseReceived
-                         (JsArray<FunctionSteps> response)
+               function.packageName);
+         
+         // breakpoints which are marked inactive, or which need their steps
+         // refreshed (necessary when a function has had steps added or 
+         // removed in the editor), are resolved on the server; the steps of 
+         // the others are sent as they are 
+         ArrayList<Breakpoint> active = new ArrayList<Breakpoint>();
+         ArrayList<Breakpoint> inactive = new ArrayList<Breakpoint>();
+         for (Breakpoint breakpoint: getBreakpointsInFunction(function))
+         {
+            if (breakpoint.getState() != Breakpoint.STATE_ACTIVE ||
+                breakpoint.needsUpdatedSteps())
+            {
+               fb.addLineNumber(breakpoint.getLineNumber());
+               inactive.add(breakpoint);
+            }
+            else
+            {
+               fb.addSteps(breakpoint.getFunctionSteps());
+               active.add(breakpoint);
+            }
+         }
+         request.add(fb);
+         activeBreakpoints.add(active);
+         inactiveBreakpoints.add(inactive);
+      }
+      
+      server_.resolveAndSetFunctionsBreakpoints(request, 
+            new ServerRequestCallback<JsArray<FunctionBreakpointsResult>>()
+            {
+               @Override
+               public void onResponseReceived(
+                     JsArray<FunctionBreakpointsResult> results)
+               {
+                  ArrayList<Breakpoint> set = new ArrayList<Breakpoint>();
+                  ArrayList<Breakpoint> unset = new ArrayList<Breakpoint>();
+                  for (int i = 0; i < request.size(); i++)
                   {
-                     // found the function and the steps in the function; next, 
-                     // ask the server to set the breakpoint
-                     if (response.length() > 0)
+                     ArrayList<Breakpoint> active = activeBreakpoints.get(i);
+                     ArrayList<Breakpoint> inactive = 
+                           inactiveBreakpoints.get(i);
+                     FunctionBreakpointsResult result = 
+                           i < results.length() ? results.get(i) : null;
+                     
+                     // the function couldn't be found: discard the 
+                     // breakpoints which needed steps, and leave the rest 
+                     // as they are
+                     if (inactive.size() > 0 &&
+                         (result == null || result.getSteps().length() == 0))
                      {
-                        processFunctionSteps(inactiveBreakpoints, response);
-                        setFunctionBreakpoints(function);
-                      }
-                     // no results: discard the breakpoints
-                     else
+                        unset.addAll(inactive);
+                        continue;
+                     }
+                     
+                     // populate the breakpoints with their steps (this 
+                     // discards those whose steps couldn't be found)
+                     if (inactive.size() > 0)
+                        processFunctionSteps(inactive, result.getSteps());
+                     
+                     ArrayList<Breakpoint> breakpoints = 
+                           new ArrayList<Breakpoint>(active);
+                     for (Breakpoint breakpoint: inactive)
                      {
-                        discardUnsettableBreakpoints(inactiveBreakpoints);
+                        if (breakpoints_.containsKey(
+                              breakpoint.getBreakpointId()))
+                           breakpoints.add(breakpoint);
+                     }
+                     
+                     for (Breakpoint breakpoint: breakpoints)
+                     {
+                        if (result != null && result.isSet())
+                        {
+                           breakpoint.setState(Breakpoint.STATE_ACTIVE);
+                           set.add(breakpoint);
+                        }
+                        else
+                        {
+                           unset.add(breakpoint);
+                        }
                      }
                   }
-                  
-                  @Override
-                  public void onError(ServerError error)
+                  if (set.size() > 0)
+                     notifyBreakpointsSaved(set, true);
+                  discardUnsettableBreakpoints(unset);
+               }
+               
+               @Override
+               public void onError(ServerError error)
+               {
+                  ArrayList<Breakpoint> unset = new ArrayList<Breakpoint>();
+                  for (int i = 0; i < request.size(); i++)
                   {
-                     discardUnsettableBreakpoints(inactiveBreakpoints);
+                     unset.addAll(activeBreakpoints.get(i));
+                     unset.addAll(inactiveBreakpoints.get(i));
                   }
-         });
-      }
-      else
-      {
-         setFunctionBreakpoints(function);
-      }
+                  discardUnsettableBreakpoints(unset);
+               }
+            });
    }
    
    private void discardUnsettableBreakpoints(ArrayList<Breakpoint> breakpoints)
@@ -598,7 +733,7 @@ public class BreakpointManager
       }
       for (Breakpoint breakpoint: breakpoints)
       {
-         breakpoints_.remove(breakpoint);
+         unindexBreakpoint(breakpoint);
       }
       onBreakpointAddOrRemove();
       notifyBreakpointsSaved(breakpoints, false);
@@ -606,25 +741,31 @@ public class BreakpointManager
    
    private void resetBreakpointsInPath(String path, boolean isFile)
    {
-      Set<FileFunction> functionsToBreak = new TreeSet<FileFunction>();
-      for (Breakpoint breakpoint: breakpoints_)
-      {
-         // set this breakpoint if it's a function breakpoint in the file 
-         // (or path) given
-         boolean processBreakpoint = 
-               (breakpoint.getType() == Breakpoint.TYPE_FUNCTION) && 
-               (isFile ?
-                  breakpoint.isInFile(path) :
-                  breakpoint.isInPath(path));
-         if (processBreakpoint)
+      // collect the breakpoints in the file (or path) given
+      ArrayList<Breakpoint> breakpoints = new ArrayList<Breakpoint>();
+      if (isFile)
+      {
+         breakpoints.addAll(breakpointsByPath_.get(path));
+      }
+      else
+      {
+         for (String file: breakpointsByPath_.keySet())
          {
-            functionsToBreak.add(new FileFunction(breakpoint));
+            if (file.indexOf(path) == 0)
+               breakpoints.addAll(breakpointsByPath_.get(file));
          }
       }
-      for (FileFunction function: functionsToBreak)
+      
+      // set the function breakpoints among them
+      Set<FileFunction> functionsToBreak = new TreeSet<FileFunction>();
+      for (Breakpoint breakpoint: breakpoints)
       {
-         prepareAndSetFunctionBreakpoints(function);
+         if (breakpoint.getType() == Breakpoint.TYPE_FUNCTION)
+         {
+            functionsToBreak.add(new FileFunction(breakpoint));
+         }
       }
+      prepareAndSetFunctionBreakpoints(functionsToBreak);
    }
    
    private void markInactiveBreakpoint(Breakpoint breakpoint)
@@ -657,11 +798,10 @@ public class BreakpointManager
             // line; if there is, discard this one.
             if (breakpoint.getLineNumber() != steps.getLineNumber())
             {
-               for (Breakpoint possibleDupe: breakpoints_)
+               for (Breakpoint possibleDupe: 
+                    breakpointsByPath_.get(breakpoint.getPath()))
                {
-                  if (breakpoint.getPath().equals(
-                         possibleDupe.getPath()) &&
-                      steps.getLineNumber() == 
+                  if (steps.getLineNumber() == 
                          possibleDupe.getLineNumber() &&
                       breakpoint.getBreakpointId() != 
                          possibleDupe.getBreakpointId())
@@ -671,9 +811,19 @@ public class BreakpointManager
                   }
                }
             }
+            // the steps may resolve to a differently named function; keep 
+            // the function index in sync
+            boolean renamed = 
+                  !breakpoint.getFunctionName().equals(steps.getName());
+            if (renamed)
+               breakpointsByFunction_.remove(
+                     breakpoint.getFunctionName(), breakpoint);
             breakpoint.addFunctionSteps(steps.getName(),
                   steps.getLineNumber(),
                   steps.getSteps());
+            if (renamed)
+               breakpointsByFunction_.add(
+                     breakpoint.getFunctionName(), breakpoint);
          }
          else
          {
@@ -687,56 +837,83 @@ public class BreakpointManager
          ArrayList<Breakpoint> breakpoints, 
          boolean saved)
    {
-      breakpointStateDirty_ = true;
+      markBreakpointStateDirty();
       events_.fireEvent(
             new BreakpointsSavedEvent(breakpoints, saved));
    }
    
    private Breakpoint getBreakpoint (int breakpointId)
    {
-      for (Breakpoint breakpoint: breakpoints_)
+      return breakpoints_.get(breakpointId);
+   }
+   
+   private ArrayList<Breakpoint> getAllBreakpoints()
+   {
+      return new ArrayList<Breakpoint>(breakpoints_.values());
+   }
+   
+   private ArrayList<Breakpoint> getBreakpointsInFunction(
+         FileFunction function)
+   {
+      ArrayList<Breakpoint> breakpoints = new ArrayList<Breakpoint>();
+      for (Breakpoint breakpoint: 
+           breakpointsByFunction_.get(function.functionName))
       {
-         if (breakpoint.getBreakpointId() == breakpointId)
-         {
-            return breakpoint;
-         }
+         if (function.containsBreakpoint(breakpoint))
+            breakpoints.add(breakpoint);
       }
-      return null;
+      return breakpoints;
    }
    
    private Breakpoint addBreakpoint (Breakpoint breakpoint)
    {
-      breakpoints_.add(breakpoint);
+      indexBreakpoint(breakpoint);
       onBreakpointAddOrRemove();
       return breakpoint;
    }
    
+   private void indexBreakpoint(Breakpoint breakpoint)
+   {
+      breakpoints_.put(breakpoint.getBreakpointId(), breakpoint);
+      breakpointsByPath_.add(breakpoint.getPath(), breakpoint);
+      breakpointsByFunction_.add(breakpoint.getFunctionName(), breakpoint);
+      if (breakpoint.isPackageBreakpoint())
+         breakpointsByPackage_.add(breakpoint.getPackageName(), breakpoint);
+   }
+   
+   private boolean isIndexed(Breakpoint breakpoint)
+   {
+      return breakpoints_.get(breakpoint.getBreakpointId()) == breakpoint;
+   }
+   
+   private void unindexBreakpoint(Breakpoint breakpoint)
+   {
+      breakpoints_.remove(breakpoint.getBreakpointId());
+      breakpointsByPath_.remove(breakpoint.getPath(), breakpoint);
+      breakpointsByFunction_.remove(breakpoint.getFunctionName(), breakpoint);
+      if (breakpoint.isPackageBreakpoint())
+         breakpointsByPackage_.remove(breakpoint.getPackageName(), breakpoint);
+   }
+   
    private void updatePackageBreakpoints(String packageName, boolean enable)
    {
       Set<FileFunction> functionsToBreak = new TreeSet<FileFunction>();
       ArrayList<Breakpoint> breakpointsToDisable = new ArrayList<Breakpoint>();
-      for (Breakpoint breakpoint: breakpoints_)
+      for (Breakpoint breakpoint: breakpointsByPackage_.get(packageName))
       {
-         if (breakpoint.isPackageBreakpoint() &&
-             breakpoint.getPackageName().equals(packageName))
+         if (enable)
          {
-            if (enable)
-            {
-               functionsToBreak.add(new FileFunction(breakpoint));
-            }
-            else
-            {
-               breakpoint.setState(Breakpoint.STATE_INACTIVE);
-               breakpointsToDisable.add(breakpoint);
-            }
+            functionsToBreak.add(new FileFunction(breakpoint));
+         }
+         else
+         {
+            breakpoint.setState(Breakpoint.STATE_INACTIVE);
+            breakpointsToDisable.add(breakpoint);
          }
       }
       if (enable)
       {
-         for (FileFunction function: functionsToBreak)
-         {
-            prepareAndSetFunctionBreakpoints(function);
-         }
+         prepareAndSetFunctionBreakpoints(functionsToBreak);
       }
       else
       {
@@ -747,7 +924,7 @@ public class BreakpointManager
    private void clearAllBreakpoints()
    {
       Set<FileFunction> functions = new TreeSet<FileFunction>();
-      for (Breakpoint breakpoint: breakpoints_)
+      for (Breakpoint breakpoint: breakpoints_.values())
       {
          breakpoint.setState(Breakpoint.STATE_REMOVING);
          if (breakpoint.getType () == Breakpoint.TYPE_FUNCTION)
@@ -755,14 +932,19 @@ public class BreakpointManager
       }
       // Remove the breakpoints from each unique function that had breakpoints
       // set previously
-      for (FileFunction function: functions)
+      if (functions.size() > 0)
       {
-         server_.setFunctionBreakpoints(
-               function.functionName, 
-               function.fileName, 
-               function.packageName,
-               new ArrayList<String>(),
-               new ServerRequestCallback<Void>()
+         ArrayList<FunctionBreakpoints> request = 
+               new ArrayList<FunctionBreakpoints>();
+         for (FileFunction function: functions)
+         {
+            request.add(FunctionBreakpoints.create(
+                  function.functionName, 
+                  function.fileName, 
+                  function.packageName));
+         }
+         server_.setFunctionsBreakpoints(request,
+               new ServerRequestCallback<JsArrayBoolean>()
                {
                   @Override
                   public void onError(ServerError error)
@@ -776,14 +958,26 @@ public class BreakpointManager
       }
 
       server_.removeAllBreakpoints(new VoidServerRequestCallback());
-      notifyBreakpointsSaved(new ArrayList<Breakpoint>(breakpoints_), false);
+      notifyBreakpointsSaved(getAllBreakpoints(), false);
       breakpoints_.clear();
+      breakpointsByPath_.clear();
+      breakpointsByFunction_.clear();
+      breakpointsByPackage_.clear();
       onBreakpointAddOrRemove();
    }
    
-   private void onBreakpointAddOrRemove()
+   private void markBreakpointStateDirty()
    {
       breakpointStateDirty_ = true;
+      
+      // null while the state value is restoring breakpoints
+      if (breakpointStateValue_ != null)
+         breakpointStateValue_.markDirty();
+   }
+   
+   private void onBreakpointAddOrRemove()
+   {
+      markBreakpointStateDirty();
       commands_.debugClearBreakpoints().setEnabled(breakpoints_.size() > 0);
    }
    
@@ -797,14 +991,13 @@ public class BreakpointManager
    
    private void activateTopLevelBreakpoints(String path)
    {
-      for (Breakpoint breakpoint: breakpoints_)
+      for (Breakpoint breakpoint: breakpointsByPath_.get(path))
       {
          ArrayList<Breakpoint> activatedBreakpoints = 
                new ArrayList<Breakpoint>();
          if (breakpoint.isPendingDebugCompletion() &&
              breakpoint.getState() == Breakpoint.STATE_INACTIVE &&
-             breakpoint.getType() == Breakpoint.TYPE_TOPLEVEL &&
-             breakpoint.getPath().equals(path))
+             breakpoint.getType() == Breakpoint.TYPE_TOPLEVEL)
          {
             // If this is a top-level breakpoint in the file that we 
             // just finished sourcing, activate the breakpoint.
@@ -819,6 +1012,52 @@ public class BreakpointManager
    
    // Private classes ---------------------------------------------------------
    
+   // Maps a key (path, function name, etc.) to the breakpoints it contains
+   class BreakpointIndex
+   {
+      public ArrayList<Breakpoint> get(String key)
+      {
+         ArrayList<Breakpoint> breakpoints = index_.get(key);
+         if (breakpoints == null)
+            return new ArrayList<Breakpoint>();
+         return breakpoints;
+      }
+      
+      public Set<String> keySet()
+      {
+         return index_.keySet();
+      }
+      
+      public void add(String key, Breakpoint breakpoint)
+      {
+         ArrayList<Breakpoint> breakpoints = index_.get(key);
+         if (breakpoints == null)
+         {
+            breakpoints = new ArrayList<Breakpoint>();
+            index_.put(key, breakpoints);
+         }
+         breakpoints.add(breakpoint);
+      }
+      
+      public void remove(String key, Breakpoint breakpoint)
+      {
+         ArrayList<Breakpoint> breakpoints = index_.get(key);
+         if (breakpoints == null)
+            return;
+         breakpoints.remove(breakpoint);
+         if (breakpoints.isEmpty())
+            index_.remove(key);
+      }
+      
+      public void clear()
+      {
+         index_.clear();
+      }
+      
+      private final HashMap<String, ArrayList<Breakpoint>> index_ = 
+            new HashMap<String, ArrayList<Breakpoint>>();
+   }
+   
    class FileFunction implements Comparable<FileFunction>
    {
       public String functionName;
@@ -889,10 +1128,21 @@ public class BreakpointManager
    private final GlobalDisplay globalDisplay_;
    private final Commands commands_;
 
-   private ArrayList<Breakpoint> breakpoints_ = new ArrayList<Breakpoint>();
+   // all breakpoints, in the order they were added, keyed by ID; the 
+   // additional indices below let us find the breakpoints in a file, 
+   // function, or package without walking every breakpoint
+   private final LinkedHashMap<Integer, Breakpoint> breakpoints_ = 
+         new LinkedHashMap<Integer, Breakpoint>();
+   private final BreakpointIndex breakpointsByPath_ = new BreakpointIndex();
+   private final BreakpointIndex breakpointsByFunction_ = 
+         new BreakpointIndex();
+   private final BreakpointIndex breakpointsByPackage_ = 
+         new BreakpointIndex();
    private Set<FileFunction> activeFunctions_ = new TreeSet<FileFunction>();
+   private Set<FileFunction> pendingFunctions_ = new TreeSet<FileFunction>();
    private String activeSource_;
 
    private boolean breakpointStateDirty_ = false;
+   private JSObjectStateValue breakpointStateValue_;
    private int currentBreakpointId_ = 0;
 }
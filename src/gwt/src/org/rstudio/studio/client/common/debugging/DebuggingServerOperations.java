@@ -18,8 +18,11 @@ package org.rstudio.studio.client.common.debugging;
 import java.util.ArrayList;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayBoolean;
 
 import org.rstudio.studio.client.common.debugging.model.Breakpoint;
+import org.rstudio.studio.client.common.debugging.model.FunctionBreakpoints;
+import org.rstudio.studio.client.common.debugging.model.FunctionBreakpointsResult;
 import org.rstudio.studio.client.common.debugging.model.FunctionState;
 import org.rstudio.studio.client.common.debugging.model.FunctionSteps;
 import org.rstudio.studio.client.server.ServerRequestCallback;
@@ -41,6 +44,19 @@ public interface DebuggingServerOperations
          ArrayList<String> steps,
          ServerRequestCallback<Void> requestCallback);
    
+   // sets the breakpoints on each of the given functions; the result
+   // indicates, for each function, whether its breakpoints could be set
+   public void setFunctionsBreakpoints(
+         ArrayList<FunctionBreakpoints> functions,
+         ServerRequestCallback<JsArrayBoolean> requestCallback);
+   
+   // resolves the steps for the line numbers given for each function, then
+   // sets the breakpoints on each function (resolved steps included)
+   public void resolveAndSetFunctionsBreakpoints(
+         ArrayList<FunctionBreakpoints> functions,
+         ServerRequestCallback<JsArray<FunctionBreakpointsResult>> 
+                                                         requestCallback);
+   
    public void getFunctionState(
          String functionName,
          String fileName,
@@ -0,0 +1,52 @@
+/*
+ * FunctionBreakpoints.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.debugging.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+// The full set of breakpoint steps to apply to a single function; used to
+// set breakpoints on several functions in one request 
+// (set_functions_breakpoints). The line numbers are those of breakpoints
+// whose steps haven't been resolved yet; they're resolved on the server and
+// set along with the steps (resolve_and_set_functions_breakpoints).
+public class FunctionBreakpoints extends JavaScriptObject
+{
+   protected FunctionBreakpoints() {}
+   
+   public static final native FunctionBreakpoints create(
+         String functionName,
+         String fileName,
+         String packageName) /*-{
+      return {
+         function_name: functionName,
+         file_name: fileName,
+         package_name: packageName,
+         steps: [],
+         line_numbers: []
+      };
+   }-*/;
+   
+   public final native void addSteps(String steps) /*-{
+      this.steps.push(steps);
+   }-*/;
+   
+   public final native void addLineNumber(int lineNumber) /*-{
+      this.line_numbers.push(lineNumber);
+   }-*/;
+   
+   public final native String getFunctionName() /*-{
+      return this.function_name;
+   }-*/;
+}
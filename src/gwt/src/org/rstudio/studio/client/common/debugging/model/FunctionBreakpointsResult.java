@@ -0,0 +1,35 @@
+/*
+ * FunctionBreakpointsResult.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.common.debugging.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+// The outcome of resolving and setting the breakpoints on a single function
+// (resolve_and_set_functions_breakpoints): the steps resolved for each
+// requested line number, in order, and whether the breakpoints were set.
+public class FunctionBreakpointsResult extends JavaScriptObject
+{
+   protected FunctionBreakpointsResult() {}
+   
+   public final native boolean isSet() /*-{
+      return this.set;
+   }-*/;
+   
+   public final native JsArray<FunctionSteps> getSteps() /*-{
+      return this.steps;
+   }-*/;
+}
@@ -36,6 +36,25 @@ public class SourceMarker extends JavaScriptObject
    protected SourceMarker()
    {
    }
+
+   // a placeholder marker which SourceMarkerList uses to show the header
+   // for a group of markers from the same file
+   static final native SourceMarker createFileHeader(String path) /*-{
+      return {
+         type: -1,
+         path: path,
+         line: -1,
+         column: -1,
+         message: "",
+         log_path: "",
+         log_line: -1,
+         file_header: true
+      };
+   }-*/;
+
+   final native boolean isFileHeader() /*-{
+      return !!this.file_header;
+   }-*/;
    
    public final native int getType() /*-{
       return this.type;
@@ -48,9 +48,19 @@ public class SourceMarkerItemCodec
       fileHeaderBasePath_ = basePath;
    }
 
+   // when messages are truncated to a single line, the full message is
+   // shown as a tooltip
+   public void setMessageTooltips(boolean show)
+   {
+      messageTooltips_ = show;
+   }
+
    @Override
    public TableRowElement getRowForItem(SourceMarker entry)
    {
+      if (entry.isFileHeader())
+         return createHeaderRow(entry.getPath());
+
       TableRowElement tr = Document.get().createTRElement();
       tr.addClassName(ThemeResources.INSTANCE.themeStyles().fixedWidthFont());
       FontSizer.applyNormalFontSize(tr);
@@ -90,6 +100,8 @@ public class SourceMarkerItemCodec
       TableCellElement tdMsg = Document.get().createTDElement();
       tdMsg.setClassName(resources_.styles().messageCell());
       tdMsg.setInnerHTML(entry.getMessage());
+      if (messageTooltips_)
+         tdMsg.setTitle(tdMsg.getInnerText());
       tr.appendChild(tdMsg);
       
       TableCellElement tdDiscButton = maybeCreateDisclosureButton(entry);
@@ -138,6 +150,13 @@ public class SourceMarkerItemCodec
 
    @Override
    protected int addBreak(TableRowElement row)
+   {
+      TableRowElement headerRow = createHeaderRow(row.getAttribute(DATA_PATH));
+      row.getParentElement().insertBefore(headerRow, row);
+      return 1;
+   }
+
+   private TableRowElement createHeaderRow(String path)
    {
       TableRowElement headerRow = Document.get().createTRElement();
       headerRow.setClassName(resources_.styles().headerRow());
@@ -145,7 +164,6 @@ public class SourceMarkerItemCodec
       TableCellElement cell = Document.get().createTDElement();
       cell.setColSpan(3);
       
-      String path = row.getAttribute(DATA_PATH);
       if (!StringUtil.isNullOrEmpty(fileHeaderBasePath_))
       {
          if (path.startsWith(fileHeaderBasePath_))
@@ -154,10 +172,7 @@ public class SourceMarkerItemCodec
       cell.setInnerText(path);
 
       headerRow.appendChild(cell);
-
-      row.getParentElement().insertBefore(headerRow, row);
-
-      return 1;
+      return headerRow;
    }
 
    @Override
@@ -192,6 +207,36 @@ public class SourceMarkerItemCodec
       return row.hasAttribute(DATA_LINE);
    }
 
+   @Override
+   public CodeNavigationTarget getOutputForItem(SourceMarker entry)
+   {
+      int line = entry.getLine();
+      if (line < 0) // If we couldn't figure out the line
+         line = 1;
+      int column = entry.getColumn();
+      if (column < 0) // If we couldn't figure out the column
+         column = 1;
+      
+      return new CodeNavigationTarget(entry.getPath(),
+                                      FilePosition.create(line, column));
+   }
+
+   @Override
+   public CodeNavigationTarget getOutputForItem2(SourceMarker entry)
+   {
+      int line = entry.getLogLine();
+      if (line < 0) // If we couldn't figure out the line
+         line = 1;
+      return new CodeNavigationTarget(entry.getLogPath(),
+                                      FilePosition.create(line, 1));
+   }
+
+   @Override
+   public boolean isValueItem(SourceMarker entry)
+   {
+      return !entry.isFileHeader();
+   }
+
    @Override
    public boolean hasNonValueRows()
    {
@@ -201,6 +246,7 @@ public class SourceMarkerItemCodec
    private final SourceMarkerListResources resources_;
    private boolean showFileHeaders_;
    private String fileHeaderBasePath_ = null;
+   private boolean messageTooltips_ = false;
 
    private static final String DATA_PATH = "data-path";
    private static final String DATA_LINE = "data-line";
@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.common.sourcemarkers;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import org.rstudio.core.client.CodeNavigationTarget;
 import org.rstudio.core.client.events.HasSelectionCommitHandlers;
@@ -27,6 +28,7 @@ import com.google.gwt.core.client.JsArray;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.TableColElement;
 import com.google.gwt.dom.client.TableElement;
+import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.dom.client.Element;
@@ -52,15 +54,157 @@ public class SourceMarkerList extends Composite
    {
       codec_ = new SourceMarkerItemCodec(res_, false);
       
-      errorTable_ = new FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget>(
+      scrollPanel_ = new ScrollPanel();
+      scrollPanel_.setSize("100%", "100%");
+      showTable(false);
+      initWidget(scrollPanel_);
+   }
+   
+   @Override
+   public HandlerRegistration addSelectionCommitHandler(
+                     SelectionCommitHandler<CodeNavigationTarget> handler)
+   {
+      return addHandler(handler, SelectionCommitEvent.getType());
+   }
+ 
+   public void showMarkers(String targetFile, 
+                           String basePath,
+                           JsArray<SourceMarker> errors,
+                           int autoSelect)
+   {
+      targetFile_ = targetFile;
+      codec_.setFileHeaderBasePath(basePath);
+
+      int start = markers_.size();
+      appendMarkers(errors);
+      
+      if (autoSelect == AUTO_SELECT_FIRST)
+      {
+         selectFirstItem();
+      }
+      else if (autoSelect == AUTO_SELECT_FIRST_ERROR)
+      {
+         for (int i = start; i < markers_.size(); i++)
+         {
+            if (markers_.get(i).getType() == SourceMarker.ERROR)
+            {
+               errorTable_.setSelected(getTableIndex(i), 1, true);
+               break;
+            }
+         }
+      }
+   }
+
+   // Adds markers to the end of the list (e.g. as they're produced by a
+   // build or check). Once the list gets large it switches to a virtualized
+   // table, so that only the visible rows are in the DOM.
+   public void appendMarkers(JsArray<SourceMarker> markers)
+   {
+      int start = markers_.size();
+      boolean showFileHeaders = showFileHeaders_;
+      for (int i = 0; i < markers.length(); i++)
+      {
+         SourceMarker marker = markers.get(i);
+         if (!marker.getPath().equals(targetFile_))
+            showFileHeaders = true;
+         indexMarker(marker);
+      }
+
+      if (!virtualized_ && markers_.size() > VIRTUALIZE_THRESHOLD)
+      {
+         showFileHeaders_ = showFileHeaders;
+         showTable(true);
+         addToTable(0, markers_.size());
+      }
+      else if (showFileHeaders != showFileHeaders_)
+      {
+         // the markers already shown need file headers too
+         showFileHeaders_ = showFileHeaders;
+         codec_.setShowFileHeaders(showFileHeaders_ && !virtualized_);
+         errorTable_.clear();
+         setWidths();
+         addToTable(0, markers_.size());
+      }
+      else
+      {
+         addToTable(start, markers_.size());
+      }
+   }
+   
+   public void selectFirstItem()
+   {
+      if (!markers_.isEmpty())
+         errorTable_.setSelected(getTableIndex(0), 1, true);
+   }
+   
+   public void focus()
+   {
+      errorTable_.focus();
+   }
+   
+   public void clear()
+   {
+      markers_.clear();
+      markerRuns_.clear();
+      runStarts_.clear();
+      previousInFile_.clear();
+      nextInFile_.clear();
+      lastInFile_.clear();
+      showFileHeaders_ = false;
+
+      showTable(false);
+   }
+
+   // Shows the (empty) plain or virtualized table. Each is created the first
+   // time it's needed and reused after that, as the list switches to the
+   // virtualized table when it grows and back when it's cleared.
+   private void showTable(boolean virtualized)
+   {
+      virtualized_ = virtualized;
+
+      // the virtualized table shows file headers as items of their own
+      codec_.setShowFileHeaders(showFileHeaders_ && !virtualized_);
+      codec_.setMessageTooltips(virtualized_);
+
+      if (virtualized_)
+      {
+         if (virtualizedTable_ == null)
+            virtualizedTable_ = createTable(true);
+         errorTable_ = virtualizedTable_;
+      }
+      else
+      {
+         if (plainTable_ == null)
+            plainTable_ = createTable(false);
+         errorTable_ = plainTable_;
+      }
+
+      errorTable_.clear();
+      setWidths();
+      if (scrollPanel_.getWidget() != errorTable_)
+         scrollPanel_.setWidget(errorTable_);
+   }
+
+   private FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget>
+                                             createTable(boolean virtualized)
+   {
+      final FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget> table =
+         new FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget>(
             codec_,
             res_.styles().selectedRow(),
             true,
             false);
-      setWidths();
-      errorTable_.setStyleName(res_.styles().table());
-      errorTable_.setSize("100%", "100%");
-      errorTable_.addClickHandler(new ClickHandler()
+      table.setStyleName(res_.styles().table());
+      if (virtualized)
+      {
+         table.addStyleName(res_.styles().virtualized());
+         table.setWidth("100%");
+      }
+      else
+      {
+         table.setSize("100%", "100%");
+      }
+      table.addClickHandler(new ClickHandler()
       {
          @Override
          public void onClick(ClickEvent event)
@@ -72,17 +216,26 @@ public class SourceMarkerList extends Composite
          }
          private final DoubleClickState doubleClick_ = new DoubleClickState();
       });
-      errorTable_.addKeyDownHandler(new KeyDownHandler()
+      table.addKeyDownHandler(new KeyDownHandler()
       {
          @Override
          public void onKeyDown(KeyDownEvent event)
          {
-            if (event.getNativeKeyCode() == KeyCodes.KEY_ENTER)
+            int keyCode = event.getNativeKeyCode();
+            if (keyCode == KeyCodes.KEY_ENTER)
+            {
                fireSelectionCommittedEvent();
+            }
+            else if (event.isAltKeyDown() &&
+                     (keyCode == KeyCodes.KEY_UP || keyCode == KeyCodes.KEY_DOWN))
+            {
+               event.preventDefault();
+               selectAdjacentInFile(keyCode == KeyCodes.KEY_UP);
+            }
          }
       });
       
-      errorTable_.addMouseDownHandler(new MouseDownHandler()
+      table.addMouseDownHandler(new MouseDownHandler()
       {
          public void onMouseDown(MouseDownEvent event)
          {
@@ -98,72 +251,124 @@ public class SourceMarkerList extends Composite
                   fireSelectionCommitedEvent(values.get(0));
                }
             }
+            else
+            {
+               // clicking a file header selects the first marker below it
+               TableRowElement header = getHeaderRow(el);
+               if (header != null && header.getNextSiblingElement() != null)
+               {
+                  errorTable_.clearSelection();
+                  errorTable_.setSelected(
+                    header.getNextSiblingElement().<TableRowElement>cast(),
+                    true);
+               }
+            }
          }
       });
       
-      
-      ScrollPanel scrollPanel = new ScrollPanel(errorTable_);
-      scrollPanel.setSize("100%", "100%");
-      initWidget(scrollPanel);
+      table.setOwningScrollPanel(scrollPanel_);
+      if (virtualized)
+         table.setVirtualized();
+      return table;
    }
-   
-   @Override
-   public HandlerRegistration addSelectionCommitHandler(
-                     SelectionCommitHandler<CodeNavigationTarget> handler)
-   {
-      return addHandler(handler, SelectionCommitEvent.getType());
-   }
- 
-   public void showMarkers(String targetFile, 
-                           String basePath,
-                           JsArray<SourceMarker> errors,
-                           int autoSelect)
+
+   private void indexMarker(SourceMarker marker)
    {
-      boolean showFileHeaders = false;
-      ArrayList<SourceMarker> errorList = new ArrayList<SourceMarker>();
-      int firstErrorIndex = -1;
-      for (int i=0; i<errors.length(); i++)
-      {
-         SourceMarker error = errors.get(i);
-         if (firstErrorIndex == -1 && error.getType() == SourceMarker.ERROR)
-            firstErrorIndex = i;
-         
-         if (!error.getPath().equals(targetFile))
-            showFileHeaders = true;
-         
-         errorList.add(error);
-      }
+      int index = markers_.size();
+      String path = marker.getPath();
+      markers_.add(marker);
 
-      codec_.setShowFileHeaders(showFileHeaders);
-      codec_.setFileHeaderBasePath(basePath);
-      errorTable_.addItems(errorList, false);
-      
-      if (autoSelect == AUTO_SELECT_FIRST)
+      // consecutive markers for the same file share a file header
+      if (runStarts_.isEmpty() ||
+          !markers_.get(index - 1).getPath().equals(path))
       {
-         selectFirstItem();
+         runStarts_.add(index);
       }
-      else if (autoSelect == AUTO_SELECT_FIRST_ERROR)
+      markerRuns_.add(runStarts_.size() - 1);
+
+      // link the marker to the previous marker for the same file
+      Integer previous = lastInFile_.get(path);
+      previousInFile_.add(previous == null ? -1 : previous);
+      nextInFile_.add(-1);
+      if (previous != null)
+         nextInFile_.set(previous, index);
+      lastInFile_.put(path, index);
+   }
+
+   private void addToTable(int start, int end)
+   {
+      boolean headerItems = virtualized_ && showFileHeaders_;
+      ArrayList<SourceMarker> items = new ArrayList<SourceMarker>();
+      for (int i = start; i < end; i++)
       {
-         if (firstErrorIndex != -1)
-            errorTable_.setSelected(firstErrorIndex, 1, true);
+         SourceMarker marker = markers_.get(i);
+         if (headerItems && runStarts_.get(markerRuns_.get(i)) == i)
+            items.add(SourceMarker.createFileHeader(marker.getPath()));
+         items.add(marker);
       }
+      errorTable_.addItems(items, false);
    }
-   
-   public void selectFirstItem()
+
+   // index of the marker's row in the table (which, when the table is
+   // virtualized, includes a row for each file header)
+   private int getTableIndex(int markerIndex)
    {
-      if (errorTable_.getRowCount() > 0)
-         errorTable_.setSelected(0, 1, true);
+      if (virtualized_ && showFileHeaders_)
+         return markerIndex + markerRuns_.get(markerIndex) + 1;
+      return markerIndex;
    }
-   
-   public void focus()
+
+   private int getMarkerIndex(int tableIndex)
    {
-      errorTable_.focus();
+      if (!(virtualized_ && showFileHeaders_))
+         return tableIndex;
+
+      // find the last run whose header is at or before the row
+      int lo = 0;
+      int hi = runStarts_.size() - 1;
+      while (lo < hi)
+      {
+         int mid = (lo + hi + 1) >>> 1;
+         if (runStarts_.get(mid) + mid <= tableIndex)
+            lo = mid;
+         else
+            hi = mid - 1;
+      }
+      return Math.max(runStarts_.get(lo), tableIndex - lo - 1);
    }
-   
-   public void clear()
+
+   private void selectAdjacentInFile(boolean previous)
    {
-      errorTable_.clear();
-      setWidths();
+      ArrayList<Integer> selected = errorTable_.getSelectedRowIndexes();
+      if (selected.isEmpty())
+         return;
+
+      int marker = getMarkerIndex(selected.get(0));
+      if (marker < 0 || marker >= markers_.size())
+         return;
+
+      int target = previous ? previousInFile_.get(marker)
+                            : nextInFile_.get(marker);
+      if (target == -1)
+         return;
+
+      errorTable_.clearSelection();
+      errorTable_.setSelected(getTableIndex(target), 1, true);
+      errorTable_.ensureSelectionVisible();
+   }
+
+   private TableRowElement getHeaderRow(Element el)
+   {
+      for (; el != null && el != errorTable_.getElement();
+           el = el.getParentElement())
+      {
+         if (el.getTagName().equalsIgnoreCase("tr"))
+         {
+            return el.getClassName().contains(res_.styles().headerRow()) ?
+                  el.<TableRowElement>cast() : null;
+         }
+      }
+      return null;
    }
  
    private void setWidths()
@@ -200,6 +405,27 @@ public class SourceMarkerList extends Composite
    }
 
    private final SourceMarkerItemCodec codec_;
-   private final FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget> errorTable_;
+   private final ScrollPanel scrollPanel_;
+   private FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget> errorTable_;
+   private FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget> plainTable_;
+   private FastSelectTable<SourceMarker, CodeNavigationTarget, CodeNavigationTarget> virtualizedTable_;
+   private boolean virtualized_ = false;
    private final SourceMarkerListResources res_ = SourceMarkerListResources.INSTANCE;  
+
+   private String targetFile_ = null;
+   private boolean showFileHeaders_ = false;
+
+   // the markers in the list, the run of markers for the same file (i.e.
+   // file header) each belongs to, and the start of each run
+   private final ArrayList<SourceMarker> markers_ = new ArrayList<SourceMarker>();
+   private final ArrayList<Integer> markerRuns_ = new ArrayList<Integer>();
+   private final ArrayList<Integer> runStarts_ = new ArrayList<Integer>();
+
+   // links between markers for the same file, for jumping between them
+   private final ArrayList<Integer> previousInFile_ = new ArrayList<Integer>();
+   private final ArrayList<Integer> nextInFile_ = new ArrayList<Integer>();
+   private final HashMap<String, Integer> lastInFile_ =
+                                          new HashMap<String, Integer>();
+
+   private static final int VIRTUALIZE_THRESHOLD = 1000;
 }
@@ -25,6 +25,7 @@ public interface SourceMarkerListResources extends ClientBundle
    public static interface Styles extends CssResource
    {
       String table();
+      String virtualized();
       String headerRow();
       String selectedRow();
       String iconCell();
@@ -247,7 +247,7 @@ public class HTMLPreviewPresenter implements IsWidget, RPubsPresenter.Context
          }
       });
       
-      new StringStateValue(
+      savePreviewDirStateValue_ = new StringStateValue(
             MODULE_HTML_PREVIEW,
             KEY_SAVEAS_DIR,
             ClientState.PERSISTENT,
@@ -353,6 +353,7 @@ public class HTMLPreviewPresenter implements IsWidget, RPubsPresenter.Context
                                    new VoidServerRequestCallback(indicator));
                   
                   savePreviewDir_ = targetFile.getParentPathString();
+                  savePreviewDirStateValue_.markDirty();
                   session_.persistClientState();
                }
          });
@@ -428,6 +429,7 @@ public class HTMLPreviewPresenter implements IsWidget, RPubsPresenter.Context
    private StringBuilder lastPreviewOutput_ = new StringBuilder();
    
    private String savePreviewDir_;
+   private StringStateValue savePreviewDirStateValue_;
    private boolean isPublished_;
    private static final String MODULE_HTML_PREVIEW = "html_preview";
    private static final String KEY_SAVEAS_DIR = "saveAsDir";
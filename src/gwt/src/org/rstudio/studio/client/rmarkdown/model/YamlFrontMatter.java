@@ -16,6 +16,22 @@ package org.rstudio.studio.client.rmarkdown.model;
 
 public class YamlFrontMatter
 {
+   // A replacement of the text between two offsets
+   public static class Edit
+   {
+      public Edit(int start, int end, String text)
+      {
+         this.start = start;
+         this.end = end;
+         this.text = text;
+      }
+
+      public final int start;
+      public final int end;
+      public final String text;
+   }
+
+
    public static int[] getFrontMatterRange(String code)
    {
       String separator = RmdFrontMatter.FRONTMATTER_SEPARATOR;
@@ -30,7 +46,12 @@ public class YamlFrontMatter
    
    public static String getFrontMatter(String code)
    {
-      int[] range = getFrontMatterRange(code);
+      return getFrontMatter(code, getFrontMatterRange(code));
+   }
+   
+   // As above, given the front matter range already found in the code
+   public static String getFrontMatter(String code, int[] range)
+   {
       if (range == null)
       {
          return "output: html_document\n";
@@ -41,6 +62,51 @@ public class YamlFrontMatter
       }
    }
    
+   // Returns the smallest edit that applies the given front matter to the
+   // code (equivalent to applyFrontMatter), or null if it's unchanged. Only
+   // the text between the first and last differing characters is replaced,
+   // so the rest of the document (and its undo history, markers, etc.) is
+   // left alone.
+   public static Edit getFrontMatterEdit(String code, String yaml)
+   {
+      if (yaml == null || yaml.isEmpty())
+         return null;
+
+      int[] range = getFrontMatterRange(code);
+      if (range == null)
+      {
+         return new Edit(0, 0, RmdFrontMatter.FRONTMATTER_SEPARATOR +
+                               yaml +
+                               RmdFrontMatter.FRONTMATTER_SEPARATOR);
+      }
+
+      int oldLength = range[1] - range[0];
+      int newLength = yaml.length();
+      int prefix = 0;
+      int maxPrefix = Math.min(oldLength, newLength);
+      while (prefix < maxPrefix &&
+             code.charAt(range[0] + prefix) == yaml.charAt(prefix))
+      {
+         prefix++;
+      }
+
+      if (prefix == oldLength && prefix == newLength)
+         return null;
+
+      int suffix = 0;
+      int maxSuffix = maxPrefix - prefix;
+      while (suffix < maxSuffix &&
+             code.charAt(range[1] - suffix - 1) ==
+             yaml.charAt(newLength - suffix - 1))
+      {
+         suffix++;
+      }
+
+      return new Edit(range[0] + prefix,
+                      range[1] - suffix,
+                      yaml.substring(prefix, newLength - suffix));
+   }
+   
    public static String applyFrontMatter(String code, String yaml) 
    {
       if (yaml == null || yaml.isEmpty())
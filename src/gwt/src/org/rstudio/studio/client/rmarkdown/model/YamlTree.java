@@ -38,7 +38,8 @@ public class YamlTree
          }
          yamlLine = line;
          key = getKey(line);
-         indentLevel = getIndentLevel();
+         indent = computeIndent(line);
+         indentLevel = indent.length();
       }
       
       // add a child node; returns true iff the node was added (we may choose
@@ -60,15 +61,7 @@ public class YamlTree
       
       public String getIndent()
       {
-         // consider the list element indicator (-) to be part of the node's
-         // indentation, to prevent list continuations from being treated as
-         // sibling nodes
-         RegExp whitespace = RegExp.compile("^\\s*-?\\s*");
-         MatchResult result = whitespace.exec(yamlLine);
-         if (result == null)
-            return "";
-         else
-            return result.getGroup(0);
+         return indent;
       }
       
       public String getValue()
@@ -92,21 +85,29 @@ public class YamlTree
       public int indentLevel = 0;
       public YamlTreeNode parent = null;
       public List<YamlTreeNode> children = new ArrayList<YamlTreeNode>();
-      
-      private String getKey(String line)
-      {
-         RegExp keyReg = RegExp.compile("^\\s*([^:]+):");
-         MatchResult result = keyReg.exec(line);
-         if (result == null)
-            return "";
-          else
-            return result.getGroup(1);
-      }
 
-      private int getIndentLevel()
-      {
-         return getIndent().length();
-      }
+      private final String indent;
+   }
+
+   private static String getKey(String line)
+   {
+      MatchResult result = KEY_PATTERN.exec(line);
+      if (result == null)
+         return "";
+       else
+         return result.getGroup(1);
+   }
+
+   // consider the list element indicator (-) to be part of the node's
+   // indentation, to prevent list continuations from being treated as
+   // sibling nodes
+   private static String computeIndent(String line)
+   {
+      MatchResult result = INDENT_PATTERN.exec(line);
+      if (result == null)
+         return "";
+      else
+         return result.getGroup(0);
    }
    
    public YamlTree(String yaml)
@@ -198,17 +199,31 @@ public class YamlTree
          keyMap_.get(key).setValue(value);
    }
 
+   // builds the tree in a single pass over the lines of the YAML
    private YamlTreeNode createYamlTree(String yaml)
    {
-      String[] lines = yaml.split("\n");
       YamlTreeNode root = new YamlTreeNode("");
       root.indentLevel = -2;
       YamlTreeNode currentParent = root;
       YamlTreeNode lastNode = root;
       int currentIndentLevel = 0;
-      for (String line: lines)
+      int lineStart = 0;
+      int length = yaml.length();
+
+      // trailing empty lines are ignored
+      while (length > 0 && yaml.charAt(length - 1) == '\n')
+         length--;
+
+      while (lineStart < length)
       {
-         YamlTreeNode child = new YamlTreeNode(line);
+         int lineEnd = yaml.indexOf('\n', lineStart);
+         if (lineEnd < 0)
+            lineEnd = length;
+
+         YamlTreeNode child = new YamlTreeNode(
+               yaml.substring(lineStart, lineEnd));
+         lineStart = lineEnd + 1;
+
          if (child.indentLevel > currentIndentLevel)
          {
             // Descending: we're recording children of the previous line
@@ -239,13 +254,18 @@ public class YamlTree
    
    private static String yamlFromTree(YamlTreeNode root)
    {
-      String yaml = "";
+      StringBuilder yaml = new StringBuilder();
+      appendYaml(root, yaml);
+      return yaml.toString();
+   }
+
+   private static void appendYaml(YamlTreeNode root, StringBuilder yaml)
+   {
       for (YamlTreeNode child: root.children)
       {
-         yaml += (child.yamlLine + '\n');
-         yaml += yamlFromTree(child);
+         yaml.append(child.yamlLine).append('\n');
+         appendYaml(child, yaml);
       }
-      return yaml;
    }
    
    private static void createKeyMap(YamlTreeNode root, 
@@ -270,4 +290,7 @@ public class YamlTree
    // case where multiple keys exist, the key closest to the root is stored.
    private final Map<String, YamlTreeNode> keyMap_;
    private final YamlTreeNode root_;
+
+   private static final RegExp KEY_PATTERN = RegExp.compile("^\\s*([^:]+):");
+   private static final RegExp INDENT_PATTERN = RegExp.compile("^\\s*-?\\s*");
 }
@@ -26,6 +26,7 @@ import com.google.gwt.event.dom.client.KeyDownEvent;
 import com.google.gwt.event.dom.client.KeyDownHandler;
 import com.google.gwt.event.shared.HandlerManager;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.Label;
 import com.google.gwt.user.client.ui.Widget;
@@ -34,6 +35,7 @@ import com.google.inject.Inject;
 import org.rstudio.core.client.FilePosition;
 import org.rstudio.core.client.ScrollUtil;
 import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.dom.HtmlDocumentPatcher;
 import org.rstudio.core.client.dom.IFrameElementEx;
 import org.rstudio.core.client.dom.WindowEx;
 import org.rstudio.core.client.files.FileSystemItem;
@@ -159,7 +161,12 @@ public class RmdOutputPanel extends SatelliteFramePanel<AnchorableFrame>
       if (anchor.length() > 0)
          url += "#" + anchor;
       
-      showUrl(url);
+      // when re-rendering, patch the changes into the showing document
+      // rather than reloading it
+      if (refresh)
+         refreshUrl(url);
+      else
+         showNewUrl(url);
    }
    
    @Override
@@ -355,7 +362,7 @@ public class RmdOutputPanel extends SatelliteFramePanel<AnchorableFrame>
       if (isShiny_)
          shinyFrame_.initialize(url, null);
 
-      showUrl(url);
+      refreshUrl(url);
    }
 
    @Override
@@ -459,6 +466,59 @@ public class RmdOutputPanel extends SatelliteFramePanel<AnchorableFrame>
       return url;
    }
   
+   private void showNewUrl(String url)
+   {
+      showUrl(url);
+      
+      // remember the source of the document so its first refresh can be
+      // patched
+      if (isPatchable())
+         patcher_.capture(outputParms_.getOutputFile(), url);
+      else
+         patcher_.reset();
+   }
+   
+   private void refreshUrl(final String url)
+   {
+      // only plain HTML documents which are already showing can be patched
+      Document doc = null;
+      if (isPatchable())
+      {
+         try
+         {
+            doc = getFrame().getIFrame().getContentDocument();
+         }
+         catch (Exception ex)
+         {
+         }
+      }
+      
+      if (doc == null)
+      {
+         showNewUrl(url);
+         return;
+      }
+      
+      // each render is served from a different URL, so the document is
+      // identified by its output file
+      patcher_.patch(doc, outputParms_.getOutputFile(), url, new Command()
+      {
+         @Override
+         public void execute()
+         {
+            showUrl(url);
+         }
+      });
+   }
+   
+   private boolean isPatchable()
+   {
+      return !isShiny_ && 
+             outputParms_.getResult().isHtml() &&
+             !outputParms_.getResult().isHtmlPresentation() &&
+             getFrame() != null;
+   }
+   
    private void fireSlideIndexChanged()
    {
       handlerManager_.fireEvent(new SlideIndexChangedEvent(
@@ -525,5 +585,8 @@ public class RmdOutputPanel extends SatelliteFramePanel<AnchorableFrame>
    private String shinyUrl_;
    private ShinyFrameHelper shinyFrame_;
    
+   private final HtmlDocumentPatcher patcher_ = 
+         new HtmlDocumentPatcher("body > .main-container");
+   
    private HandlerManager handlerManager_ = new HandlerManager(this);
 }
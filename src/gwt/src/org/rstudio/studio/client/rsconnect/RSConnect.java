@@ -52,9 +52,12 @@ import org.rstudio.studio.client.workbench.model.SessionUtils;
 import org.rstudio.studio.client.workbench.model.helper.JSObjectStateValue;
 import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.RunAsyncCallback;
 import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Window;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
@@ -142,12 +145,27 @@ public class RSConnect implements SessionInitHandler,
             file = FilePathUtils.friendlyFileName(event.getPath());
          }
 
-         RSConnectDeployDialog dialog = 
-               new RSConnectDeployDialog(
-                         server_, connector_, display_, session_, events_, 
-                         dir, file, lastAccount, lastAppName,
-                         satellite_.isCurrentWindowSatellite());
-         dialog.showModal();
+         // the deploy UI is in its own fragment
+         final String deployFile = file;
+         GWT.runAsync(RSConnectDeployDialog.class, new RunAsyncCallback()
+         {
+            @Override
+            public void onFailure(Throwable reason)
+            {
+               Window.alert("Error: " + reason.getMessage());
+            }
+
+            @Override
+            public void onSuccess()
+            {
+               RSConnectDeployDialog dialog = 
+                     new RSConnectDeployDialog(
+                               server_, connector_, display_, session_, events_, 
+                               dir, deployFile, lastAccount, lastAppName,
+                               satellite_.isCurrentWindowSatellite());
+               dialog.showModal();
+            }
+         });
       }
       else if (event.getAction() == RSConnectActionEvent.ACTION_TYPE_CONFIGURE)
       {
@@ -263,7 +281,7 @@ public class RSConnect implements SessionInitHandler,
       // This object keeps track of the most recent deployment we made of each
       // directory, and is used to default directory deployments to last-used
       // settings.
-      new JSObjectStateValue(
+      dirStateValue_ = new JSObjectStateValue(
             "rsconnect",
             "rsconnectDirectories",
             ClientState.PERSISTENT,
@@ -323,6 +341,7 @@ public class RSConnect implements SessionInitHandler,
             {
                dirState_.addDeployment(event.getPath(), event.getRecord());
                dirStateDirty_ = true;
+               dirStateValue_.markDirty();
                launchBrowser_ = event.getLaunchBrowser();
                events_.fireEvent(new RSConnectDeploymentStartedEvent(
                      event.getPath()));
@@ -484,6 +503,7 @@ public class RSConnect implements SessionInitHandler,
    
    private RSConnectDirectoryState dirState_;
    private boolean dirStateDirty_ = false;
+   private JSObjectStateValue dirStateValue_;
    
    public final static String CLOUD_SERVICE_NAME = "ShinyApps.io";
 }
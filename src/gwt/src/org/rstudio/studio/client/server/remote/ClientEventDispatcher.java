@@ -20,6 +20,7 @@ import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.event.shared.GwtEvent;
 
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.js.JsObject;
@@ -172,314 +173,314 @@ public class ClientEventDispatcher
          if (type.equals(ClientEvent.Busy))
          {
             boolean busy = event.<Bool>getData().getValue();
-            eventBus_.fireEvent(new BusyEvent(busy));
+            fireEvent(type, new BusyEvent(busy));
          }
          else if (type.equals(ClientEvent.ConsoleOutput))
          {
             String output = event.getData();
-            eventBus_.fireEvent(new ConsoleWriteOutputEvent(output));
+            fireEvent(type, new ConsoleWriteOutputEvent(output));
          }
          else if (type.equals(ClientEvent.ConsoleError))
          {
             String error = event.getData();
-            eventBus_.fireEvent(new ConsoleWriteErrorEvent(error));
+            fireEvent(type, new ConsoleWriteErrorEvent(error));
          }
          else if (type.equals(ClientEvent.ConsoleWritePrompt))
          {
             String prompt = event.getData();
-            eventBus_.fireEvent(new ConsoleWritePromptEvent(prompt));
+            fireEvent(type, new ConsoleWritePromptEvent(prompt));
          }
          else if (type.equals(ClientEvent.ConsoleWriteInput))
          {
             String input = event.getData();
-            eventBus_.fireEvent(new ConsoleWriteInputEvent(input));
+            fireEvent(type, new ConsoleWriteInputEvent(input));
          }
          else if (type.equals(ClientEvent.ConsolePrompt))
          {
             ConsolePrompt prompt = event.getData();
-            eventBus_.fireEvent(new ConsolePromptEvent(prompt));
+            fireEvent(type, new ConsolePromptEvent(prompt));
          }
          else if (type.equals(ClientEvent.ShowEditor))
          {
             ShowEditorData data = event.getData();
-            eventBus_.fireEvent(new ShowEditorEvent(data));
+            fireEvent(type, new ShowEditorEvent(data));
          }
          else if (type.equals(ClientEvent.FileChanged))
          {
             FileChange fileChange = event.getData();
-            eventBus_.fireEvent(new FileChangeEvent(fileChange));
+            fireEvent(type, new FileChangeEvent(fileChange));
          }
          else if (type.equals(ClientEvent.WorkingDirChanged))
          {
             String path = event.getData();
-            eventBus_.fireEvent(new WorkingDirChangedEvent(path));
+            fireEvent(type, new WorkingDirChangedEvent(path));
          }
          else if (type.equals(ClientEvent.ShowHelp))
          {
             String helpUrl = event.getData();
-            eventBus_.fireEvent(new ShowHelpEvent(helpUrl));
+            fireEvent(type, new ShowHelpEvent(helpUrl));
          }
          else if (type.equals(ClientEvent.ShowErrorMessage))
          {
             ErrorMessage errorMessage = event.getData();
-            eventBus_.fireEvent(new ShowErrorMessageEvent(errorMessage));
+            fireEvent(type, new ShowErrorMessageEvent(errorMessage));
          }
          else if (type.equals(ClientEvent.ChooseFile))
          {
             boolean newFile = event.<Bool>getData().getValue();
-            eventBus_.fireEvent(new ChooseFileEvent(newFile));
+            fireEvent(type, new ChooseFileEvent(newFile));
          }
          else if (type.equals(ClientEvent.BrowseUrl))
          {
             BrowseUrlInfo urlInfo = event.getData();
-            eventBus_.fireEvent(new BrowseUrlEvent(urlInfo));
+            fireEvent(type, new BrowseUrlEvent(urlInfo));
          }
          else if (type.equals(ClientEvent.PlotsStateChanged))
          {
             PlotsState plotsState = event.getData();
-            eventBus_.fireEvent(new PlotsChangedEvent(plotsState));
+            fireEvent(type, new PlotsChangedEvent(plotsState));
          }
          else if (type.equals(ClientEvent.ViewData))
          {
             DataView dataView = event.getData();
-            eventBus_.fireEvent(new ViewDataEvent(dataView));
+            fireEvent(type, new ViewDataEvent(dataView));
          }
          else if (type.equals(ClientEvent.PackageStateChanged))
          {
             PackageState newState = event.getData();
-            eventBus_.fireEvent(new PackageStateChangedEvent(newState));
+            fireEvent(type, new PackageStateChangedEvent(newState));
          }
          else if (type.equals(ClientEvent.PackageStatusChanged))
          {
             PackageStatus status = event.getData();
-            eventBus_.fireEvent(new PackageStatusChangedEvent(status));
+            fireEvent(type, new PackageStatusChangedEvent(status));
          }
          else if (type.equals(ClientEvent.Locator))
          {
-            eventBus_.fireEvent(new LocatorEvent());
+            fireEvent(type, new LocatorEvent());
          }
          else if (type.equals(ClientEvent.ConsoleResetHistory))
          {
             ConsoleResetHistory reset = event.getData();
-            eventBus_.fireEvent(new ConsoleResetHistoryEvent(reset));
+            fireEvent(type, new ConsoleResetHistoryEvent(reset));
          }
          else if (type.equals(ClientEvent.SessionSerialization))
          {
             SessionSerializationAction action = event.getData();
-            eventBus_.fireEvent(new SessionSerializationEvent(action));
+            fireEvent(type, new SessionSerializationEvent(action));
          }
          else if (type.equals(ClientEvent.HistoryEntriesAdded))
          {
             RpcObjectList<HistoryEntry> entries = event.getData();
-            eventBus_.fireEvent(new HistoryEntriesAddedEvent(entries));
+            fireEvent(type, new HistoryEntriesAddedEvent(entries));
          }
          else if (type.equals(ClientEvent.QuotaStatus))
          {
             QuotaStatus quotaStatus = event.getData();
-            eventBus_.fireEvent(new QuotaStatusEvent(quotaStatus));
+            fireEvent(type, new QuotaStatusEvent(quotaStatus));
          }
          else if (type.equals(ClientEvent.FileEdit))
          {
             FileSystemItem file = event.getData();
-            eventBus_.fireEvent(new FileEditEvent(file));
+            fireEvent(type, new FileEditEvent(file));
          }
          else if (type.equals(ClientEvent.ShowContent))
          {
             ContentItem content = event.getData();
-            eventBus_.fireEvent(new ShowContentEvent(content));
+            fireEvent(type, new ShowContentEvent(content));
          }
          else if (type.equals(ClientEvent.ShowData))
          {
             DataItem data = event.getData();
-            eventBus_.fireEvent(new ShowDataEvent(data));
+            fireEvent(type, new ShowDataEvent(data));
          }
          else if (type.equals(ClientEvent.AbendWarning))
          {            
-            eventBus_.fireEvent(new SessionAbendWarningEvent());
+            fireEvent(type, new SessionAbendWarningEvent());
          }
          else if (type.equals(ClientEvent.ShowWarningBar))
          {
             WarningBarMessage message = event.getData();
-            eventBus_.fireEvent(new ShowWarningBarEvent(message));
+            fireEvent(type, new ShowWarningBarEvent(message));
          }
          else if (type.equals(ClientEvent.OpenProjectError))
          {
             OpenProjectError error = event.getData();
-            eventBus_.fireEvent(new OpenProjectErrorEvent(error));
+            fireEvent(type, new OpenProjectErrorEvent(error));
          }
          else if (type.equals(ClientEvent.VcsRefresh))
          {
             JsObject data = event.getData();
-            eventBus_.fireEvent(new VcsRefreshEvent(Reason.NA,
+            fireEvent(type, new VcsRefreshEvent(Reason.NA,
                                                     data.getInteger("delay")));
          }
          else if (type.equals(ClientEvent.AskPass))
          {
             AskPassEvent.Data data = event.getData();
-            eventBus_.fireEvent(new AskPassEvent(data));
+            fireEvent(type, new AskPassEvent(data));
          }
          else if (type.equals(ClientEvent.ConsoleProcessOutput))
          {
             ServerConsoleOutputEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ServerConsoleOutputEvent(data.getHandle(),
+            fireEvent(type, new ServerConsoleOutputEvent(data.getHandle(),
                                                             data.getOutput(),
                                                             data.isError()));
          }
          else if (type.equals(ClientEvent.ConsoleProcessPrompt))
          {
             ServerConsolePromptEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ServerConsolePromptEvent(data.getHandle(),
+            fireEvent(type, new ServerConsolePromptEvent(data.getHandle(),
                                                              data.getPrompt()));
          }
          else if (type.equals(ClientEvent.ConsoleProcessCreated))
          {
             ConsoleProcessCreatedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ConsoleProcessCreatedEvent(data));
+            fireEvent(type, new ConsoleProcessCreatedEvent(data));
          }
          else if (type.equals(ClientEvent.ConsoleProcessExit))
          {
             ServerProcessExitEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ServerProcessExitEvent(data.getHandle(),
+            fireEvent(type, new ServerProcessExitEvent(data.getHandle(),
                                                           data.getExitCode()));
          }
          else if (type.equals(ClientEvent.HTMLPreviewStartedEvent))
          {
             HTMLPreviewStartedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new HTMLPreviewStartedEvent(data));
+            fireEvent(type, new HTMLPreviewStartedEvent(data));
          }
          else if (type.equals(ClientEvent.HTMLPreviewOutputEvent))
          {
             String output = event.getData();
-            eventBus_.fireEvent(new HTMLPreviewOutputEvent(output));
+            fireEvent(type, new HTMLPreviewOutputEvent(output));
          }
          else if (type.equals(ClientEvent.HTMLPreviewCompletedEvent))
          {
             HTMLPreviewResult result = event.getData();
-            eventBus_.fireEvent(new HTMLPreviewCompletedEvent(result));
+            fireEvent(type, new HTMLPreviewCompletedEvent(result));
          }
          else if (type.equals(ClientEvent.CompilePdfStartedEvent))
          {
             CompilePdfStartedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new CompilePdfStartedEvent(data));
+            fireEvent(type, new CompilePdfStartedEvent(data));
          }
          else if (type.equals(ClientEvent.CompilePdfOutputEvent))
          {
             CompileOutput output = event.getData();
-            eventBus_.fireEvent(new CompilePdfOutputEvent(output));
+            fireEvent(type, new CompilePdfOutputEvent(output));
          }
          else if (type.equals(ClientEvent.CompilePdfErrorsEvent))
          {
             JsArray<SourceMarker> data = event.getData();
-            eventBus_.fireEvent(new CompilePdfErrorsEvent(data));
+            fireEvent(type, new CompilePdfErrorsEvent(data));
          }
          else if (type.equals(ClientEvent.CompilePdfCompletedEvent))
          {
             CompilePdfResult result = event.getData();
-            eventBus_.fireEvent(new CompilePdfCompletedEvent(result));
+            fireEvent(type, new CompilePdfCompletedEvent(result));
          }
          else if (type.equals(ClientEvent.SynctexEditFile))
          {
             SourceLocation sourceLocation = event.getData();
-            eventBus_.fireEvent(new SynctexEditFileEvent(sourceLocation));
+            fireEvent(type, new SynctexEditFileEvent(sourceLocation));
          }
          else if (type.equals(ClientEvent.FindResult))
          {
             FindResultEvent.Data data = event.getData();
-            eventBus_.fireEvent(new FindResultEvent(
+            fireEvent(type, new FindResultEvent(
                   data.getHandle(), data.getResults().toArrayList()));
          }
          else if (type.equals(ClientEvent.FindOperationEnded))
          {
             String data = event.getData();
-            eventBus_.fireEvent(new FindOperationEndedEvent(data));
+            fireEvent(type, new FindOperationEndedEvent(data));
          }
          else if (type.equals(ClientEvent.RPubsUploadStatus))
          {
             RPubsUploadStatusEvent.Status status = event.getData();
-            eventBus_.fireEvent(new RPubsUploadStatusEvent(status));
+            fireEvent(type, new RPubsUploadStatusEvent(status));
          }
          else if (type.equals(ClientEvent.BuildStarted))
          {
-            eventBus_.fireEvent(new BuildStartedEvent());
+            fireEvent(type, new BuildStartedEvent());
          }
          else if (type.equals(ClientEvent.BuildOutput))
          {
             CompileOutput data = event.getData();
-            eventBus_.fireEvent(new BuildOutputEvent(data));
+            fireEvent(type, new BuildOutputEvent(data));
          }
          else if (type.equals(ClientEvent.BuildCompleted))
          {
             BuildCompletedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new BuildCompletedEvent(data));
+            fireEvent(type, new BuildCompletedEvent(data));
          }
          else if (type.equals(ClientEvent.BuildErrors))
          {
             BuildErrorsEvent.Data data = event.getData();
-            eventBus_.fireEvent(new BuildErrorsEvent(data));
+            fireEvent(type, new BuildErrorsEvent(data));
          }
          else if (type.equals(ClientEvent.DirectoryNavigate))
          {
             DirectoryNavigateEvent.Data data = event.getData();
-            eventBus_.fireEvent(new DirectoryNavigateEvent(data));
+            fireEvent(type, new DirectoryNavigateEvent(data));
          }
          else if (type.equals(ClientEvent.DeferredInitCompleted))
          {
-            eventBus_.fireEvent(new DeferredInitCompletedEvent());
+            fireEvent(type, new DeferredInitCompletedEvent());
          }
          else if (type.equals(ClientEvent.PlotsZoomSizeChanged))
          {
             PlotsZoomSizeChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new PlotsZoomSizeChangedEvent(data));
+            fireEvent(type, new PlotsZoomSizeChangedEvent(data));
          }
          else if (type.equals(ClientEvent.SourceCppStarted))
          {
-            eventBus_.fireEvent(new SourceCppStartedEvent());
+            fireEvent(type, new SourceCppStartedEvent());
          }
          else if (type.equals(ClientEvent.SourceCppCompleted))
          {
             SourceCppState state = event.getData();
-            eventBus_.fireEvent(new SourceCppCompletedEvent(state));
+            fireEvent(type, new SourceCppCompletedEvent(state));
          }
          else if (type.equals(ClientEvent.LoadedPackageUpdates))
          {
             String installCmd = event.getData();
-            eventBus_.fireEvent(new LoadedPackageUpdatesEvent(installCmd));
+            fireEvent(type, new LoadedPackageUpdatesEvent(installCmd));
          }
          else if (type.equals(ClientEvent.ActivatePane))
          {
             String pane = event.getData();
-            eventBus_.fireEvent(new ActivatePaneEvent(pane));
+            fireEvent(type, new ActivatePaneEvent(pane));
          }
          else if (type.equals(ClientEvent.ShowPresentationPane))
          {
             PresentationState state = event.getData();
-            eventBus_.fireEvent(new ShowPresentationPaneEvent(state));
+            fireEvent(type, new ShowPresentationPaneEvent(state));
          }
          else if (type.equals(ClientEvent.EnvironmentRefresh))
          {
-            eventBus_.fireEvent(new EnvironmentRefreshEvent());
+            fireEvent(type, new EnvironmentRefreshEvent());
          }
          else if (type.equals(ClientEvent.ListChanged))
          {
-            eventBus_.fireEvent(new ListChangedEvent(event.<JsObject>getData()));
+            fireEvent(type, new ListChangedEvent(event.<JsObject>getData()));
          }
          else if (type.equals(ClientEvent.UiPrefsChanged))
          {
             UiPrefsChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new UiPrefsChangedEvent(data));
+            fireEvent(type, new UiPrefsChangedEvent(data));
          }
          else if (type.equals(ClientEvent.ContextDepthChanged)) {
             EnvironmentContextData data = event.getData();
-            eventBus_.fireEvent(new ContextDepthChangedEvent(data, true));
+            fireEvent(type, new ContextDepthChangedEvent(data, true));
          }
          else if (type.equals(ClientEvent.HandleUnsavedChanges))
          {
-            eventBus_.fireEvent(new HandleUnsavedChangesEvent());
+            fireEvent(type, new HandleUnsavedChangesEvent());
          }
          else if (type.equals(ClientEvent.Quit))
          {
             boolean switchProjects = event.<Bool>getData().getValue();
-            eventBus_.fireEvent(new QuitEvent(switchProjects));
+            fireEvent(type, new QuitEvent(switchProjects));
          }
          else if (type.equals(ClientEvent.Suicide))
          {
@@ -488,150 +489,150 @@ public class ClientEventDispatcher
             
             // fire event
             String message = event.getData();
-            eventBus_.fireEvent(new SuicideEvent(message));
+            fireEvent(type, new SuicideEvent(message));
          }
          else if (type.equals(ClientEvent.SaveActionChanged))
          {
             SaveAction action = event.getData();
-            eventBus_.fireEvent(new SaveActionChangedEvent(action));
+            fireEvent(type, new SaveActionChangedEvent(action));
          }
          else if (type.equals(ClientEvent.EnvironmentAssigned))
          {
             RObject objectInfo = event.getData();
-            eventBus_.fireEvent(new EnvironmentObjectAssignedEvent(objectInfo));
+            fireEvent(type, new EnvironmentObjectAssignedEvent(objectInfo));
          }
          else if (type.equals(ClientEvent.EnvironmentRemoved))
          {
             String objectName = event.getData();
-            eventBus_.fireEvent(new EnvironmentObjectRemovedEvent(objectName));
+            fireEvent(type, new EnvironmentObjectRemovedEvent(objectName));
          }
          else if (type.equals(ClientEvent.BrowserLineChanged))
          {
             LineData lineData = event.getData();
-            eventBus_.fireEvent(new BrowserLineChangedEvent(lineData));
+            fireEvent(type, new BrowserLineChangedEvent(lineData));
          }
          else if (type.equals(ClientEvent.PackageLoaded))
          {
-            eventBus_.fireEvent(new PackageLoadedEvent(
+            fireEvent(type, new PackageLoadedEvent(
                   (String)event.getData()));
          }
          else if (type.equals(ClientEvent.PackageUnloaded))
          {
-            eventBus_.fireEvent(new PackageUnloadedEvent(
+            fireEvent(type, new PackageUnloadedEvent(
                   (String)event.getData()));
          }
          else if (type.equals(ClientEvent.PresentationPaneRequestCompleted))
          {
-            eventBus_.fireEvent(new PresentationPaneRequestCompletedEvent());
+            fireEvent(type, new PresentationPaneRequestCompletedEvent());
          }
          else if (type.equals(ClientEvent.UnhandledError))
          {
             UnhandledError err = event.getData();
-            eventBus_.fireEvent(new UnhandledErrorEvent(err));
+            fireEvent(type, new UnhandledErrorEvent(err));
          }
          else if (type.equals(ClientEvent.ErrorHandlerChanged))
          {
             ErrorHandlerType handlerType = event.getData();
-            eventBus_.fireEvent(new ErrorHandlerChangedEvent(handlerType));
+            fireEvent(type, new ErrorHandlerChangedEvent(handlerType));
          }
          else if (type.equals(ClientEvent.ViewerNavigate))
          {
             ViewerNavigateEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ViewerNavigateEvent(data));
+            fireEvent(type, new ViewerNavigateEvent(data));
          }
          else if (type.equals(ClientEvent.SourceExtendedTypeDetected))
          {
             SourceExtendedTypeDetectedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SourceExtendedTypeDetectedEvent(data));
+            fireEvent(type, new SourceExtendedTypeDetectedEvent(data));
          }
          else if (type.equals(ClientEvent.ShinyViewer))
          {
             ShinyApplicationParams data = event.getData();
-            eventBus_.fireEvent(new ShinyApplicationStatusEvent(data));
+            fireEvent(type, new ShinyApplicationStatusEvent(data));
          }
          else if (type.equals(ClientEvent.DebugSourceCompleted))
          {
             DebugSourceResult result = (DebugSourceResult)event.getData();
-            eventBus_.fireEvent(new DebugSourceCompletedEvent(result));
+            fireEvent(type, new DebugSourceCompletedEvent(result));
          }
          else if (type.equals(ClientEvent.RmdRenderStarted))
          {
             RmdRenderStartedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new RmdRenderStartedEvent(data));
+            fireEvent(type, new RmdRenderStartedEvent(data));
          }
          else if (type.equals(ClientEvent.RmdRenderOutput))
          {
             CompileOutput data = event.getData();
-            eventBus_.fireEvent(new RmdRenderOutputEvent(data));
+            fireEvent(type, new RmdRenderOutputEvent(data));
          }
          else if (type.equals(ClientEvent.RmdRenderCompleted))
          {
             RmdRenderResult result = event.getData();
-            eventBus_.fireEvent(new RmdRenderCompletedEvent(result));
+            fireEvent(type, new RmdRenderCompletedEvent(result));
          }
          else if (type.equals(ClientEvent.RmdTemplateDiscovered))
          {
             RmdDiscoveredTemplate template = event.getData();
-            eventBus_.fireEvent(new RmdTemplateDiscoveredEvent(template));
+            fireEvent(type, new RmdTemplateDiscoveredEvent(template));
          }
          else if (type.equals(ClientEvent.RmdTemplateDiscoveryCompleted))
          {
-            eventBus_.fireEvent(new RmdTemplateDiscoveryCompletedEvent());
+            fireEvent(type, new RmdTemplateDiscoveryCompletedEvent());
          }
          else if (type.equals(ClientEvent.RmdShinyDocStarted))
          {
             RmdShinyDocInfo docInfo = event.getData();
-            eventBus_.fireEvent(new RmdShinyDocStartedEvent(docInfo));
+            fireEvent(type, new RmdShinyDocStartedEvent(docInfo));
          }
          else if (type.equals(ClientEvent.RSConnectDeploymentOutput))
          {
             CompileOutput output = event.getData();
-            eventBus_.fireEvent(new RSConnectDeploymentOutputEvent(output));
+            fireEvent(type, new RSConnectDeploymentOutputEvent(output));
          }
          else if (type.equals(ClientEvent.RSConnectDeploymentCompleted))
          {
             String url = event.getData();
-            eventBus_.fireEvent(new RSConnectDeploymentCompletedEvent(url));
+            fireEvent(type, new RSConnectDeploymentCompletedEvent(url));
          }
          else if (type.equals(ClientEvent.UserPrompt))
          {
             UserPrompt prompt = event.getData();
-            eventBus_.fireEvent(new UserPromptEvent(prompt));
+            fireEvent(type, new UserPromptEvent(prompt));
          }
          else if (type.equals(ClientEvent.InstallRtools))
          {
             InstallRtoolsEvent.Data data = event.getData();
-            eventBus_.fireEvent(new InstallRtoolsEvent(data));
+            fireEvent(type, new InstallRtoolsEvent(data));
          }
          else if (type.equals(ClientEvent.InstallShiny))
          {
             String userAction = event.getData();
-            eventBus_.fireEvent(new InstallShinyEvent(userAction));
+            fireEvent(type, new InstallShinyEvent(userAction));
          }
          else if (type.equals(ClientEvent.SuspendAndRestart))
          {
             SuspendAndRestartEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SuspendAndRestartEvent(data));
+            fireEvent(type, new SuspendAndRestartEvent(data));
          }
          else if (type.equals(ClientEvent.DataViewChanged))
          {
             DataViewChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new DataViewChangedEvent(data));
+            fireEvent(type, new DataViewChangedEvent(data));
          }
          else if (type.equals(ClientEvent.ViewFunction))
          {
             SearchPathFunctionDefinition data = event.getData();
-            eventBus_.fireEvent(new CodeBrowserNavigationEvent(data, null, false));
+            fireEvent(type, new CodeBrowserNavigationEvent(data, null, false));
          }
          else if (type.equals(ClientEvent.MarkersChanged))
          {
             MarkersChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new MarkersChangedEvent(data));
+            fireEvent(type, new MarkersChangedEvent(data));
          }
          else if (type.equals(ClientEvent.EnableRStudioConnect))
          {
             EnableRStudioConnectUIEvent.Data data = event.getData();
-            eventBus_.fireEvent(new EnableRStudioConnectUIEvent(data));
+            fireEvent(type, new EnableRStudioConnectUIEvent(data));
          }
          else
          {
@@ -643,6 +644,14 @@ public class ClientEventDispatcher
          GWT.log("WARNING: Exception occured dispatching event: " + type, e);
       }
    }
+
+   // names the event's type after the server event (for the event bus
+   // profiler, since class names aren't available in production builds)
+   private void fireEvent(String type, GwtEvent<?> event)
+   {
+      eventBus_.setTypeName(event.getAssociatedType(), type);
+      eventBus_.fireEvent(event);
+   }
    
 
    private final EventBus eventBus_;
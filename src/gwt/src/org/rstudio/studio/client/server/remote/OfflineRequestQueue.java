@@ -0,0 +1,478 @@
+/*
+ * OfflineRequestQueue.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcRequest;
+import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
+import org.rstudio.core.client.jsonrpc.RpcResponse;
+import org.rstudio.core.client.jsonrpc.RpcResponseHandler;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.event.logical.shared.CloseEvent;
+import com.google.gwt.event.logical.shared.CloseHandler;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Random;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.Window;
+
+// Holds requests which couldn't be sent because the session couldn't be
+// reached, and replays them (in order) once it can be. Only requests which
+// write state are queued: each has a key identifying the state it writes
+// (e.g. the contents of a document), and a request with the same key as one
+// already in the queue supersedes it. Mergeable requests (client state) are
+// merged with the request they supersede; others (document diffs, which are
+// computed against the last contents the server acknowledged, or the full
+// set of prefs) simply replace it.
+//
+// The queue is kept in browser local storage so that it survives a reload
+// of the page. Each page keeps its own queue, under a key scoped to the
+// session's URL, and only ever writes that key. When a page is loaded it
+// takes over the queues of pages for the same session which have been
+// closed (or haven't been touched for a while, e.g. after a crash), and
+// replays them before client_init (see RemoteServer.clientInit), using the
+// client id they were made with. The server rejects those if another client
+// has connected to the session since, and rejects document diffs whose base
+// hash no longer matches the document, so a replayed request can't
+// overwrite newer state.
+class OfflineRequestQueue
+{
+   public OfflineRequestQueue(RemoteServer remoteServer)
+   {
+      remoteServer_ = remoteServer;
+      storagePrefix_ = STORAGE_KEY + ":" + GWT.getHostPageBaseURL() + ":";
+      storageKey_ = storagePrefix_ + Integer.toString(
+                                    Math.abs(Random.nextInt()), 36);
+      entries_ = JavaScriptObject.createArray().cast();
+      
+      // mark our queue as orphaned when the page goes away, so that the
+      // next page for this session replays it
+      Window.addCloseHandler(new CloseHandler<Window>()
+      {
+         @Override
+         public void onClose(CloseEvent<Window> event)
+         {
+            if (entries_.length() > 0)
+               write(storageKey_, entries_, true);
+         }
+      });
+   }
+   
+   // takes over the requests queued by pages for this session which are
+   // no longer open (called by the main window before client_init)
+   public void restore()
+   {
+      JsArray<Entry> entries = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < entries_.length(); i++)
+         entries.push(entries_.get(i));
+      
+      boolean restored = takeOrphanedEntries(storagePrefix_,
+                                             storageKey_,
+                                             STALE_MILLIS,
+                                             entries);
+      if (!restored)
+         return;
+      
+      // renumber so that our sequence numbers stay unique
+      for (int i = 0; i < entries.length(); i++)
+         entries.get(i).setSeq(nextSeq_++);
+      entries_ = entries;
+      write(storageKey_, entries_, false);
+   }
+
+   // errors which indicate that the request never reached the session
+   public static boolean isConnectionError(RpcError error)
+   {
+      return error.getCode() == RpcError.CONNECTION_ERROR ||
+             error.getCode() == RpcError.UNAVAILABLE;
+   }
+
+   public boolean hasPendingRequests()
+   {
+      return entries_.length() > 0;
+   }
+
+   public void enqueue(String key,
+                       String method,
+                       JSONArray params,
+                       boolean mergeable,
+                       String clientId,
+                       double clientVersion,
+                       RpcResponseHandler responseHandler)
+   {
+      Entry entry = Entry.create(nextSeq_++,
+                                 key,
+                                 method,
+                                 params.toString(),
+                                 clientId,
+                                 clientVersion);
+
+      // supersede any request for the same state
+      JsArray<Entry> entries = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < entries_.length(); i++)
+      {
+         Entry queued = entries_.get(i);
+         if (queued.getKey().equals(key))
+         {
+            if (mergeable)
+               entry.setParams(mergeParams(queued.getParams(),
+                                           entry.getParams()));
+            
+            // the superseded request's caller gets the result of the
+            // request which superseded it
+            RpcResponseHandler superseded = handlers_.remove(queued.getSeq());
+            if (superseded != null)
+               responseHandler = chain(superseded, responseHandler);
+         }
+         else
+         {
+            entries.push(queued);
+         }
+      }
+      entries.push(entry);
+      entries_ = entries;
+      write(storageKey_, entries_, false);
+
+      // once a mergeable request is queued it's as good as written (a later
+      // request can't be made redundant by it); others wait for the result
+      if (mergeable)
+         responseHandler.onResponseReceived(RpcResponse.parse(ACCEPTED));
+      else
+         handlers_.put(entry.getSeq(), responseHandler);
+
+      scheduleReplay(RETRY_MILLIS);
+   }
+
+   // replays the queued requests, then executes onCompleted (once the queue
+   // is empty, or as soon as the session can't be reached)
+   public void replay(Command onCompleted)
+   {
+      if (onCompleted != null)
+         onCompleted_.add(onCompleted);
+      replay();
+   }
+
+   public void replay()
+   {
+      if (replaying_)
+         return;
+
+      if (entries_.length() == 0 || remoteServer_.isDisconnected())
+      {
+         onReplayCompleted();
+         return;
+      }
+
+      if (retryTimer_ != null)
+      {
+         retryTimer_.cancel();
+         retryTimer_ = null;
+      }
+
+      replaying_ = true;
+      final Entry entry = entries_.get(0);
+      RpcRequest request = new RpcRequest(
+            remoteServer_.getRpcUrl(entry.getMethod()),
+            entry.getMethod(),
+            JSONParser.parseStrict(entry.getParams()).isArray(),
+            null,
+            false,
+            null,
+            entry.getClientId(),
+            entry.getClientVersion());
+
+      request.send(new RpcRequestCallback()
+      {
+         public void onError(RpcRequest request, RpcError error)
+         {
+            onReplayFailed();
+         }
+
+         public void onResponseReceived(RpcRequest request,
+                                        RpcResponse response)
+         {
+            RpcError error = response.getError();
+            if (error != null && isConnectionError(error))
+            {
+               onReplayFailed();
+               return;
+            }
+
+            // any other result (including errors) is final
+            replaying_ = false;
+            retryMillis_ = RETRY_MILLIS;
+            remove(entry);
+
+            if (error != null)
+               Debug.log("Replaying " + entry.getMethod() + " failed: " +
+                         error.getMessage());
+
+            RpcResponseHandler handler = handlers_.remove(entry.getSeq());
+            if (handler != null)
+               handler.onResponseReceived(response);
+
+            replay();
+         }
+      });
+   }
+
+   private void onReplayFailed()
+   {
+      replaying_ = false;
+      
+      // touch the queue so other pages don't take it over while we're open
+      write(storageKey_, entries_, false);
+      
+      retryMillis_ = Math.min(retryMillis_ * 2, MAX_RETRY_MILLIS);
+      scheduleReplay(retryMillis_);
+      onReplayCompleted();
+   }
+
+   private void onReplayCompleted()
+   {
+      ArrayList<Command> commands = onCompleted_;
+      onCompleted_ = new ArrayList<Command>();
+      for (Command command : commands)
+         command.execute();
+   }
+
+   private void scheduleReplay(int delayMillis)
+   {
+      if (replaying_ || retryTimer_ != null)
+         return;
+
+      retryTimer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            retryTimer_ = null;
+            replay();
+         }
+      };
+      retryTimer_.schedule(delayMillis);
+   }
+
+   private void remove(Entry entry)
+   {
+      JsArray<Entry> entries = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < entries_.length(); i++)
+      {
+         if (entries_.get(i).getSeq() != entry.getSeq())
+            entries.push(entries_.get(i));
+      }
+      entries_ = entries;
+      write(storageKey_, entries_, false);
+   }
+   
+   // the superseding request's handler runs last, so that the state it
+   // applies (e.g. the document contents saved) is the one left in place
+   private static RpcResponseHandler chain(final RpcResponseHandler first,
+                                           final RpcResponseHandler second)
+   {
+      return new RpcResponseHandler()
+      {
+         @Override
+         public void onResponseReceived(RpcResponse response)
+         {
+            first.onResponseReceived(response);
+            second.onResponseReceived(response);
+         }
+      };
+   }
+
+   private static class Entry extends JavaScriptObject
+   {
+      protected Entry()
+      {
+      }
+
+      public static final native Entry create(int seq,
+                                              String key,
+                                              String method,
+                                              String params,
+                                              String clientId,
+                                              double clientVersion) /*-{
+         return {
+            seq: seq,
+            key: key,
+            method: method,
+            params: params,
+            clientId: clientId,
+            clientVersion: clientVersion
+         };
+      }-*/;
+
+      public final native int getSeq() /*-{
+         return this.seq;
+      }-*/;
+
+      public final native void setSeq(int seq) /*-{
+         this.seq = seq;
+      }-*/;
+
+      public final native String getKey() /*-{
+         return this.key;
+      }-*/;
+
+      public final native String getMethod() /*-{
+         return this.method;
+      }-*/;
+
+      public final native String getParams() /*-{
+         return this.params;
+      }-*/;
+
+      public final native void setParams(String params) /*-{
+         this.params = params;
+      }-*/;
+
+      public final native String getClientId() /*-{
+         return this.clientId;
+      }-*/;
+
+      public final native double getClientVersion() /*-{
+         return this.clientVersion || 0;
+      }-*/;
+   }
+
+   // merges the (JSON encoded) parameters of two requests made with objects
+   // of named groups of values (as client state is); values in the later
+   // request take precedence
+   private static native String mergeParams(String earlier,
+                                            String later) /*-{
+      var merged = JSON.parse(earlier);
+      var params = JSON.parse(later);
+      for (var i = 0; i < params.length; i++)
+      {
+         if (!merged[i] || typeof(merged[i]) !== "object")
+            merged[i] = {};
+         for (var group in params[i])
+         {
+            if (!params[i].hasOwnProperty(group))
+               continue;
+            var values = params[i][group];
+            if (!merged[i][group] || typeof(merged[i][group]) !== "object" ||
+                !values || typeof(values) !== "object")
+            {
+               merged[i][group] = values;
+               continue;
+            }
+            for (var name in values)
+               if (values.hasOwnProperty(name))
+                  merged[i][group][name] = values[name];
+         }
+      }
+      return JSON.stringify(merged);
+   }-*/;
+
+   // moves the entries of other pages' queues (under prefix) which were
+   // closed or are stale into entries, removing those queues from storage;
+   // returns true if any were found
+   private static native boolean takeOrphanedEntries(
+                                             String prefix,
+                                             String ownKey,
+                                             int staleMillis,
+                                             JsArray<Entry> entries) /*-{
+      var found = false;
+      try
+      {
+         var storage = $wnd.localStorage;
+         var keys = [];
+         for (var i = 0; i < storage.length; i++)
+         {
+            var key = storage.key(i);
+            if (key && key !== ownKey && key.indexOf(prefix) === 0)
+               keys.push(key);
+         }
+         
+         var now = new Date().getTime();
+         for (var i = 0; i < keys.length; i++)
+         {
+            var queue = null;
+            try
+            {
+               queue = JSON.parse(storage.getItem(keys[i]));
+            }
+            catch(e)
+            {
+            }
+            
+            // leave the queues of pages which are still open alone
+            if (queue && !queue.closed && now - queue.touched < staleMillis)
+               continue;
+            
+            storage.removeItem(keys[i]);
+            if (queue && queue.entries instanceof Array)
+            {
+               for (var j = 0; j < queue.entries.length; j++)
+               {
+                  entries.push(queue.entries[j]);
+                  found = true;
+               }
+            }
+         }
+      }
+      catch(e)
+      {
+      }
+      return found;
+   }-*/;
+
+   private static native void write(String key,
+                                    JsArray<Entry> entries,
+                                    boolean closed) /*-{
+      try
+      {
+         if (entries.length == 0)
+            $wnd.localStorage.removeItem(key);
+         else
+            $wnd.localStorage.setItem(key, JSON.stringify({
+               touched: new Date().getTime(),
+               closed: closed,
+               entries: entries
+            }));
+      }
+      catch(e)
+      {
+      }
+   }-*/;
+
+   private final RemoteServer remoteServer_;
+   private final String storagePrefix_;
+   private final String storageKey_;
+   private JsArray<Entry> entries_;
+   private final HashMap<Integer, RpcResponseHandler> handlers_ =
+         new HashMap<Integer, RpcResponseHandler>();
+   private ArrayList<Command> onCompleted_ = new ArrayList<Command>();
+   private Timer retryTimer_ = null;
+   private int retryMillis_ = RETRY_MILLIS;
+   private boolean replaying_ = false;
+   private int nextSeq_ = 0;
+
+   private static final String STORAGE_KEY = "rstudio.offlineRequestQueue";
+   private static final String ACCEPTED = "{\"result\":null}";
+   private static final int RETRY_MILLIS = 2000;
+   private static final int MAX_RETRY_MILLIS = 60000;
+   private static final int STALE_MILLIS = 5 * 60000;
+}
@@ -48,6 +48,8 @@ import org.rstudio.studio.client.common.console.ConsoleProcess.ConsoleProcessFac
 import org.rstudio.studio.client.common.console.ConsoleProcessInfo;
 import org.rstudio.studio.client.common.crypto.PublicKeyInfo;
 import org.rstudio.studio.client.common.debugging.model.Breakpoint;
+import org.rstudio.studio.client.common.debugging.model.FunctionBreakpoints;
+import org.rstudio.studio.client.common.debugging.model.FunctionBreakpointsResult;
 import org.rstudio.studio.client.common.debugging.model.FunctionState;
 import org.rstudio.studio.client.common.debugging.model.FunctionSteps;
 import org.rstudio.studio.client.common.debugging.model.TopLevelLineData;
@@ -108,6 +110,7 @@ import org.rstudio.studio.client.workbench.exportplot.model.SavePlotAsImageConte
 import org.rstudio.studio.client.workbench.model.Agreement;
 import org.rstudio.studio.client.workbench.model.HTMLCapabilities;
 import org.rstudio.studio.client.workbench.model.Session;
+import org.rstudio.studio.client.workbench.model.DeferredSessionInfo;
 import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.model.TerminalOptions;
 import org.rstudio.studio.client.workbench.model.TexCapabilities;
@@ -122,7 +125,9 @@ import org.rstudio.studio.client.workbench.views.environment.model.ObjectContent
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 import org.rstudio.studio.client.workbench.views.files.model.FileUploadToken;
 import org.rstudio.studio.client.workbench.views.help.model.HelpInfo;
+import org.rstudio.studio.client.workbench.views.help.model.HelpTopicIndexInfo;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
+import org.rstudio.studio.client.workbench.views.output.find.model.FindInFilesState;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallContext;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageState;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageUpdate;
@@ -135,6 +140,7 @@ import org.rstudio.studio.client.workbench.views.source.model.CppCompletionResul
 import org.rstudio.studio.client.workbench.views.source.model.CppDiagnostic;
 import org.rstudio.studio.client.workbench.views.source.model.CppSourceLocation;
 import org.rstudio.studio.client.workbench.views.source.model.DataItem;
+import org.rstudio.studio.client.workbench.views.source.model.LintItem;
 import org.rstudio.studio.client.workbench.views.source.model.RdShellResult;
 import org.rstudio.studio.client.workbench.views.source.model.RnwChunkOptions;
 import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
@@ -144,6 +150,7 @@ import org.rstudio.studio.client.workbench.views.vcs.dialog.CommitInfo;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayBoolean;
 import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
@@ -155,6 +162,7 @@ import com.google.gwt.json.client.JSONNumber;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONParser;
 import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Random;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -178,6 +186,7 @@ public class RemoteServer implements Server
       eventBus_ = eventBus;
       satellite_ = satellite;
       serverAuth_ = new RemoteServerAuth(this);
+      offlineQueue_ = new OfflineRequestQueue(this);
       
       // define external event listener if we are the main window
       // (so we can forward to the satellites)
@@ -245,11 +254,38 @@ public class RemoteServer implements Server
    }
     
    public void clientInit(
+                     final JavaScriptObject cachedSectionHashes,
+                     final ServerRequestCallback<SessionInfo> requestCallback)
+   {
+      // replay any requests left queued by a previous instance of the page
+      // first (they're made with that instance's client id, so this must
+      // happen before we connect), so the session info includes them
+      if (!satellite_.isCurrentWindowSatellite())
+         offlineQueue_.restore();
+      
+      if (offlineQueue_.hasPendingRequests())
+      {
+         offlineQueue_.replay(new Command() {
+            @Override
+            public void execute()
+            {
+               sendClientInit(cachedSectionHashes, requestCallback);
+            }
+         });
+         return;
+      }
+      
+      sendClientInit(cachedSectionHashes, requestCallback);
+   }
+   
+   private void sendClientInit(
+                     JavaScriptObject cachedSectionHashes,
                      final ServerRequestCallback<SessionInfo> requestCallback)
    {      
       // send init request (record clientId and version contained in response)
       sendRequest(RPC_SCOPE, 
                   CLIENT_INIT, 
+                  cachedSectionHashes,
                   new ServerRequestCallback<SessionInfo>() {
 
          public void onResponseReceived(SessionInfo sessionInfo)
@@ -265,6 +301,12 @@ public class RemoteServer implements Server
          }
       });
    }
+
+   public void clientInitDeferred(
+               ServerRequestCallback<DeferredSessionInfo> requestCallback)
+   {
+      sendRequest(RPC_SCOPE, CLIENT_INIT_DEFERRED, requestCallback);
+   }
    
    private void setArrayString(JSONArray params, int index, List<String> what) {
       JSONArray array = new JSONArray();
@@ -374,10 +416,14 @@ public class RemoteServer implements Server
    public void setUiPrefs(JavaScriptObject uiPrefs,
                           ServerRequestCallback<Void> requestCallback)
    {
-      sendRequest(RPC_SCOPE,
-                  SET_UI_PREFS,
-                  uiPrefs,
-                  requestCallback);
+      JSONArray params = new JSONArray();
+      params.set(0, uiPrefs != null ? new JSONObject(uiPrefs) :
+                                      JSONNull.getInstance());
+      sendQueueableRequest(SET_UI_PREFS,
+                           SET_UI_PREFS,
+                           params,
+                           false,
+                           requestCallback);
    }
 
    public void getRPrefs(ServerRequestCallback<RPrefs> requestCallback)
@@ -396,10 +442,11 @@ public class RemoteServer implements Server
       params.set(0, new JSONObject(temporary));
       params.set(1, new JSONObject(persistent));
       params.set(2, new JSONObject(projectPersistent));
-      sendRequest(RPC_SCOPE,
-                  SET_CLIENT_STATE,
-                  params,
-                  requestCallback);
+      sendQueueableRequest(SET_CLIENT_STATE,
+                           SET_CLIENT_STATE,
+                           params,
+                           true,
+                           requestCallback);
    }
    
    public void userPromptCompleted(int response, 
@@ -597,6 +644,16 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, "get_cpp_diagnostics", docPath, requestCallback);
    }
    
+   public void primeCppTranslationUnit(
+                 String docPath,
+                 ServerRequestCallback<Void> requestCallback)
+   {
+      sendRequest(RPC_SCOPE, 
+                  "prime_cpp_translation_unit", 
+                  docPath, 
+                  requestCallback);
+   }
+   
    public void printCppCompletions(String docId, 
                                    String docPath, 
                                    String docContents,
@@ -877,6 +934,13 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, "suggest_topics", prefix, requestCallback);
    }
 
+   public void getHelpTopicIndex(
+                  String version,
+                  ServerRequestCallback<HelpTopicIndexInfo> requestCallback)
+   {
+      sendRequest(RPC_SCOPE, "get_help_topic_index", version, requestCallback);
+   }
+
    public void getHelp(String topic,
                        String packageName,
                        int options,
@@ -1272,6 +1336,15 @@ public class RemoteServer implements Server
       params.set(0,  new JSONString(code));
       sendRequest(RPC_SCOPE, EXECUTE_R_CODE, params, requestCallback);
    }
+
+   public void lintRExpressions(
+                  List<String> expressions,
+                  ServerRequestCallback<JsArray<JsArray<LintItem>>> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      setArrayString(params, 0, expressions);
+      sendRequest(RPC_SCOPE, "lint_r_expressions", params, requestCallback);
+   }
    
    public void createProject(String projectFile,
                              NewPackageOptions newPackageOptions,
@@ -1384,7 +1457,21 @@ public class RemoteServer implements Server
       params.set(6, new JSONNumber(offset));
       params.set(7, new JSONNumber(length));
       params.set(8, new JSONString(hash));
-      sendRequest(RPC_SCOPE, SAVE_DOCUMENT_DIFF, params, requestCallback);
+      
+      // only background saves of the contents are queued while the session
+      // can't be reached (explicit saves report the error to the user)
+      if (path == null && fileType == null && encoding == null)
+      {
+         sendQueueableRequest(SAVE_DOCUMENT_DIFF + ":" + id,
+                              SAVE_DOCUMENT_DIFF,
+                              params,
+                              false,
+                              requestCallback);
+      }
+      else
+      {
+         sendRequest(RPC_SCOPE, SAVE_DOCUMENT_DIFF, params, requestCallback);
+      }
    }
 
    public void checkForExternalEdit(
@@ -2280,31 +2367,127 @@ public class RemoteServer implements Server
             method,
             params,
             redactLog,
-            new RpcResponseHandler() 
+            createResponseHandler(requestCallback),
+            retryHandler);
+
+   }
+   
+   private <T> RpcResponseHandler createResponseHandler(
+                              final ServerRequestCallback<T> requestCallback)
+   {
+      return new RpcResponseHandler() 
+      {
+         @Override
+         public void onResponseReceived(RpcResponse response)
+         {
+            // ignore response if no request callback or
+            // if it was cancelled
+            if (requestCallback == null ||
+                requestCallback.cancelled())
+               return;
+            
+            if (response.getError() != null)
             {
-               @Override
-               public void onResponseReceived(RpcResponse response)
-               {
-                  // ignore response if no request callback or
-                  // if it was cancelled
-                  if (requestCallback == null ||
-                      requestCallback.cancelled())
-                     return;
-                  
-                  if (response.getError() != null)
-                  {
-                     requestCallback.onError(
-                      new RemoteServerError(response.getError()));
-                  }
-                  else
-                  {
-                     T result = response.<T> getResult();
-                     requestCallback.onResponseReceived(result);
-                  }
-               }
-             },
-             retryHandler);
+               requestCallback.onError(
+                new RemoteServerError(response.getError()));
+            }
+            else
+            {
+               T result = response.<T> getResult();
+               requestCallback.onResponseReceived(result);
+            }
+         }
+      };
+   }
+   
+   // sends a request which writes state that can be safely replayed later
+   // if the session can't be reached (see OfflineRequestQueue). the key
+   // identifies the state written, so that later requests with the same key
+   // supersede this one while it's queued.
+   private <T> void sendQueueableRequest(
+                              final String key,
+                              final String method,
+                              final JSONArray params,
+                              final boolean mergeable,
+                              final ServerRequestCallback<T> requestCallback)
+   {
+      // satellites proxy their requests through the main workbench
+      if (satellite_.isCurrentWindowSatellite())
+      {
+         sendRequest(RPC_SCOPE, method, params, requestCallback);
+         return;
+      }
+      
+      final RpcResponseHandler responseHandler = 
+                                    createResponseHandler(requestCallback);
+      
+      // keep requests in order while there are any waiting to be replayed
+      if (offlineQueue_.hasPendingRequests())
+      {
+         offlineQueue_.enqueue(key, method, params, mergeable, 
+                               clientId_, clientVersion_, responseHandler);
+         return;
+      }
+      
+      // queue the request if it can't reach the session
+      final String clientId = clientId_;
+      final double clientVersion = clientVersion_;
+      final RpcResponseHandler queueingHandler = new RpcResponseHandler()
+      {
+         @Override
+         public void onResponseReceived(RpcResponse response)
+         {
+            RpcError error = response.getError();
+            if (error != null && 
+                OfflineRequestQueue.isConnectionError(error))
+            {
+               offlineQueue_.enqueue(key, 
+                                     method, 
+                                     params, 
+                                     mergeable,
+                                     clientId,
+                                     clientVersion,
+                                     responseHandler);
+            }
+            else
+            {
+               responseHandler.onResponseReceived(response);
+            }
+         }
+      };
+      
+      // retry one time after resolving errors (as sendRequestWithRetry does)
+      RetryHandler retryHandler = new RetryHandler() {
+
+         public void onRetry()
+         {
+            sendRequest(null,
+                        RPC_SCOPE,
+                        method,
+                        params,
+                        false,
+                        queueingHandler,
+                        null);
+         }   
 
+         public void onError(RpcError error)
+         {
+            responseHandler.onResponseReceived(RpcResponse.create(error));
+         }
+      };
+      
+      sendRequest(null,
+                  RPC_SCOPE,
+                  method,
+                  params,
+                  false,
+                  queueingHandler,
+                  retryHandler);
+   }
+   
+   String getRpcUrl(String method)
+   {
+      return getApplicationURL(RPC_SCOPE) + "/" + method;
    }
       
    // lowest level sendRequest method -- called from the main workbench
@@ -2395,6 +2578,11 @@ public class RemoteServer implements Server
                // no error, forward to caller
                responseHandler.onResponseReceived(response);
                
+               // the session is reachable again; send anything which was
+               // queued while it wasn't
+               if (offlineQueue_.hasPendingRequests())
+                  offlineQueue_.replay();
+               
                // always ensure that the event source receives events unless 
                // the server specifically flags us that no events are likely
                // to be pending (e.g. an rpc call where no events were added
@@ -3262,6 +3450,20 @@ public class RemoteServer implements Server
       sendRequest(RPC_SCOPE, STOP_FIND, findOperationHandle, requestCallback);
    }
 
+   @Override
+   public void getFindResults(
+                  String findOperationHandle,
+                  int offset,
+                  int count,
+                  ServerRequestCallback<FindInFilesState> requestCallback)
+   {
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONString(findOperationHandle));
+      params.set(1, new JSONNumber(offset));
+      params.set(2, new JSONNumber(count));
+      sendRequest(RPC_SCOPE, GET_FIND_RESULTS, params, requestCallback);
+   }
+
    @Override
    public void clearFindResults(ServerRequestCallback<Void> requestCallback)
    {
@@ -3431,6 +3633,43 @@ public class RemoteServer implements Server
                   requestCallback);
    }
    
+   @Override
+   public void setFunctionsBreakpoints(
+         ArrayList<FunctionBreakpoints> functions,
+         ServerRequestCallback<JsArrayBoolean> requestCallback)
+   {
+      JSONArray functionArray = new JSONArray();
+      for (int idx = 0; idx < functions.size(); idx++)
+      {
+         functionArray.set(idx, new JSONObject(functions.get(idx)));
+      }
+      JSONArray params = new JSONArray();
+      params.set(0, functionArray);
+      sendRequest(RPC_SCOPE,
+                  SET_FUNCTIONS_BREAKPOINTS,
+                  params,
+                  requestCallback);
+   }
+   
+   @Override
+   public void resolveAndSetFunctionsBreakpoints(
+         ArrayList<FunctionBreakpoints> functions,
+         ServerRequestCallback<JsArray<FunctionBreakpointsResult>> 
+                                                         requestCallback)
+   {
+      JSONArray functionArray = new JSONArray();
+      for (int idx = 0; idx < functions.size(); idx++)
+      {
+         functionArray.set(idx, new JSONObject(functions.get(idx)));
+      }
+      JSONArray params = new JSONArray();
+      params.set(0, functionArray);
+      sendRequest(RPC_SCOPE,
+                  RESOLVE_AND_SET_FUNCTIONS_BREAKPOINTS,
+                  params,
+                  requestCallback);
+   }
+   
    @Override
    public void getFunctionState(
          String functionName,
@@ -3949,6 +4188,7 @@ public class RemoteServer implements Server
    
    private String clientId_;
    private double clientVersion_ = 0;
+   private final OfflineRequestQueue offlineQueue_;
    private boolean listeningForEvents_;
    private boolean disconnected_;
 
@@ -3975,6 +4215,7 @@ public class RemoteServer implements Server
 
    // session methods
    private static final String CLIENT_INIT = "client_init";
+   private static final String CLIENT_INIT_DEFERRED = "client_init_deferred";
    private static final String ACCEPT_AGREEMENT = "accept_agreement";
    private static final String SUSPEND_SESSION = "suspend_session";
    private static final String HANDLE_UNSAVED_CHANGES_COMPLETED = "handle_unsaved_changes_completed";
@@ -4202,6 +4443,7 @@ public class RemoteServer implements Server
    private static final String INSTALL_ALL_DICTIONARIES = "install_all_dictionaries";
 
    private static final String BEGIN_FIND = "begin_find";
+   private static final String GET_FIND_RESULTS = "get_find_results";
    private static final String STOP_FIND = "stop_find";
    
    private static final String GET_CPP_CAPABILITIES = "get_cpp_capabilities";
@@ -4221,6 +4463,8 @@ public class RemoteServer implements Server
    
    private static final String GET_FUNCTION_STEPS = "get_function_steps";
    private static final String SET_FUNCTION_BREAKPOINTS = "set_function_breakpoints";
+   private static final String SET_FUNCTIONS_BREAKPOINTS = "set_functions_breakpoints";
+   private static final String RESOLVE_AND_SET_FUNCTIONS_BREAKPOINTS = "resolve_and_set_functions_breakpoints";
    private static final String GET_FUNCTION_STATE = "get_function_state";
    private static final String EXECUTE_DEBUG_SOURCE = "execute_debug_source";
    private static final String SET_ERROR_MANAGEMENT_TYPE = "set_error_management_type";
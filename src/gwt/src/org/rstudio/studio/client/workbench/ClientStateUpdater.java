@@ -14,6 +14,11 @@
  */
 package org.rstudio.studio.client.workbench;
 
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
 import com.google.inject.Inject;
 
 import org.rstudio.core.client.Barrier.Token;
@@ -45,6 +50,12 @@ public class ClientStateUpdater extends TimeBufferedCommand
     * (on request [though in fact also on a timer, just a shorter one]). Any
     * component can request that SaveClientStateEvent be fired: simply fire
     * PushClientStateEvent on the EventBus.
+    *
+    * Components with many values (or values that are expensive to compute)
+    * should instead register a Participant via addParticipant. Participants
+    * are only collected when they report themselves dirty, and collection
+    * is spread across several scheduler slices so that a large number of
+    * participants doesn't stall the UI thread on each tick.
     */
    @Inject
    public ClientStateUpdater(EventBus events,
@@ -85,12 +96,34 @@ public class ClientStateUpdater extends TimeBufferedCommand
             }
          }
       });
+
+      exportStats();
+   }
+
+   public interface Participant
+   {
+      // return false if nothing has changed since the last collection (in
+      // which case collectClientState won't be called)
+      boolean isClientStateDirty();
+
+      // add any changed values to the given state
+      void collectClientState(ClientState state);
+   }
+
+   public void addParticipant(Participant participant)
+   {
+      participants_.add(participant);
+   }
+
+   public void removeParticipant(Participant participant)
+   {
+      participants_.remove(participant);
    }
 
    @Override
    protected void performAction(final boolean shouldSchedulePassive)
    {
-      ClientState state = ClientState.create();
+      final ClientState state = ClientState.create();
       try
       {
          events_.fireEvent(new SaveClientStateEvent(state));
@@ -101,6 +134,68 @@ public class ClientStateUpdater extends TimeBufferedCommand
          return;
       }
 
+      // snapshot the participants so registrations made while we're
+      // collecting don't disturb the iteration
+      final ArrayList<Participant> participants =
+            new ArrayList<Participant>(participants_);
+
+      // when we're saving for shutdown there won't be another event loop
+      // turn to finish collecting in, so do everything synchronously
+      if (barrierToken_ != null || participants.size() <= SLICE_MIN_PARTICIPANTS)
+      {
+         collect(participants, 0, participants.size(), state);
+         upload(state, shouldSchedulePassive);
+         return;
+      }
+
+      Scheduler.get().scheduleIncremental(new RepeatingCommand()
+      {
+         @Override
+         public boolean execute()
+         {
+            long deadline = System.currentTimeMillis() + SLICE_MILLIS;
+            while (index_ < participants.size())
+            {
+               int end = Math.min(index_ + SLICE_BATCH, participants.size());
+               collect(participants, index_, end, state);
+               index_ = end;
+               if (System.currentTimeMillis() >= deadline)
+                  break;
+            }
+
+            if (index_ < participants.size())
+               return true;
+
+            upload(state, shouldSchedulePassive);
+            return false;
+         }
+
+         private int index_ = 0;
+      });
+   }
+
+   private void collect(ArrayList<Participant> participants,
+                        int begin,
+                        int end,
+                        ClientState state)
+   {
+      for (int i = begin; i < end; i++)
+      {
+         Participant participant = participants.get(i);
+         try
+         {
+            if (participant.isClientStateDirty())
+               participant.collectClientState(state);
+         }
+         catch (Exception e)
+         {
+            Debug.log(e.toString());
+         }
+      }
+   }
+
+   private void upload(ClientState state, final boolean shouldSchedulePassive)
+   {
       if (state.isEmpty())
       {
          onComplete(shouldSchedulePassive);
@@ -109,6 +204,7 @@ public class ClientStateUpdater extends TimeBufferedCommand
 
       try
       {
+         recordUpload(state);
          server_.updateClientState(
                state.getTemporaryData(),
                state.getPersistentData(),
@@ -145,6 +241,36 @@ public class ClientStateUpdater extends TimeBufferedCommand
          schedulePassive();
    }
 
+   private void recordUpload(ClientState state)
+   {
+      uploadCount_++;
+      temporaryBytes_ += jsonLength(state.getTemporaryData());
+      persistentBytes_ += jsonLength(state.getPersistentData());
+      projectPersistentBytes_ += jsonLength(state.getProjectPersistentData());
+   }
+
+   private String getStats()
+   {
+      return "Client state uploads: " + uploadCount_ +
+             " (participants: " + participants_.size() + ")\n" +
+             "  temporary: " + temporaryBytes_ + " bytes\n" +
+             "  persistent: " + persistentBytes_ + " bytes\n" +
+             "  project persistent: " + projectPersistentBytes_ + " bytes";
+   }
+
+   private static native int jsonLength(JavaScriptObject object) /*-{
+      return JSON.stringify(object).length;
+   }-*/;
+
+   // exposes upload statistics for diagnostics (call
+   // getClientStateStats() from the browser console)
+   private native void exportStats() /*-{
+      var thiz = this;
+      $wnd.getClientStateStats = $entry(function() {
+         return thiz.@org.rstudio.studio.client.workbench.ClientStateUpdater::getStats()();
+      });
+   }-*/;
+
    private static final int INITIAL_INTERVAL_MILLIS = 2000;
    private static final int PASSIVE_INTERVAL_MILLIS = 5000;
    private static final int ACTIVE_INTERVAL_MILLIS = Desktop.isDesktop()
@@ -153,4 +279,16 @@ public class ClientStateUpdater extends TimeBufferedCommand
    private final EventBus events_;
    private final WorkbenchServerOperations server_;
    private Token barrierToken_;
+
+   private final ArrayList<Participant> participants_ =
+         new ArrayList<Participant>();
+
+   private int uploadCount_ = 0;
+   private long temporaryBytes_ = 0;
+   private long persistentBytes_ = 0;
+   private long projectPersistentBytes_ = 0;
+
+   private static final int SLICE_MIN_PARTICIPANTS = 25;
+   private static final int SLICE_BATCH = 10;
+   private static final int SLICE_MILLIS = 10;
 }
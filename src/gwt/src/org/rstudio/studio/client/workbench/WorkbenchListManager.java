@@ -19,11 +19,9 @@ import java.util.HashMap;
 
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.server.VoidServerRequestCallback;
+import org.rstudio.studio.client.workbench.events.DeferredSessionInfoEvent;
 import org.rstudio.studio.client.workbench.events.ListChangedEvent;
 import org.rstudio.studio.client.workbench.events.ListChangedHandler;
-import org.rstudio.studio.client.workbench.events.SessionInitEvent;
-import org.rstudio.studio.client.workbench.events.SessionInitHandler;
-import org.rstudio.studio.client.workbench.model.Session;
 import org.rstudio.studio.client.workbench.model.WorkbenchLists;
 import org.rstudio.studio.client.workbench.model.WorkbenchListsServerOperations;
 
@@ -37,10 +35,8 @@ public class WorkbenchListManager
   
    @Inject
    public WorkbenchListManager(EventBus events,
-                               Session session,
                                WorkbenchListsServerOperations server)
    {
-      session_ = session;
       server_ = server;
       
       listContexts_.put(FILE_MRU, new ListContext(FILE_MRU));
@@ -48,11 +44,12 @@ public class WorkbenchListManager
       listContexts_.put(HELP_HISTORY, new ListContext(HELP_HISTORY));
       listContexts_.put(USER_DICTIONARY, new ListContext(USER_DICTIONARY));
       
-      events.addHandler(SessionInitEvent.TYPE, new SessionInitHandler() {
+      events.addHandler(DeferredSessionInfoEvent.TYPE, 
+                        new DeferredSessionInfoEvent.Handler() {
          @Override
-         public void onSessionInit(SessionInitEvent sie)
+         public void onDeferredSessionInfo(DeferredSessionInfoEvent event)
          {
-            WorkbenchLists lists = session_.getSessionInfo().getLists();
+            WorkbenchLists lists = event.getInfo().getLists();
             updateList(FILE_MRU, lists);
             updateList(PROJECT_MRU, lists);
             updateList(HELP_HISTORY, lists);
@@ -171,7 +168,6 @@ public class WorkbenchListManager
    private HashMap<String,ListContext> listContexts_ = 
                                        new HashMap<String,ListContext>();
 
-   private final Session session_;
    private final WorkbenchListsServerOperations server_;
    
    private static final String FILE_MRU = "file_mru";
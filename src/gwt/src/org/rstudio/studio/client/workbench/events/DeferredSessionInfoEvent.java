@@ -0,0 +1,55 @@
+/*
+ * DeferredSessionInfoEvent.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.events;
+
+import org.rstudio.studio.client.workbench.model.DeferredSessionInfo;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+
+public class DeferredSessionInfoEvent 
+             extends GwtEvent<DeferredSessionInfoEvent.Handler>
+{
+   public interface Handler extends EventHandler
+   {
+      void onDeferredSessionInfo(DeferredSessionInfoEvent event);
+   }
+
+   public DeferredSessionInfoEvent(DeferredSessionInfo info)
+   {
+      info_ = info;
+   }
+
+   public DeferredSessionInfo getInfo()
+   {
+      return info_;
+   }
+
+   @Override
+   public Type<Handler> getAssociatedType()
+   {
+      return TYPE;
+   }
+
+   @Override
+   protected void dispatch(Handler handler)
+   {
+      handler.onDeferredSessionInfo(this);
+   }
+
+   private final DeferredSessionInfo info_;
+
+   public static final Type<Handler> TYPE = new Type<Handler>();
+}
@@ -0,0 +1,42 @@
+/*
+ * DeferredSessionInfo.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.model;
+
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+// Session info which isn't required to paint the workbench. It is
+// requested separately once the workbench has been initialized.
+public class DeferredSessionInfo extends JavaScriptObject
+{
+   protected DeferredSessionInfo()
+   {
+   }
+
+   public final native JsArrayString getConsoleHistory() /*-{
+      return this.console_history;
+   }-*/;
+
+   public final native WorkbenchLists getLists() /*-{
+      return this.lists;
+   }-*/;
+
+   public final native JsArray<SourceDocument> getSourceDocuments() /*-{
+      return this.source_documents;
+   }-*/;
+}
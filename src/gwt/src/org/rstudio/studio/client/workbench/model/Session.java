@@ -36,11 +36,24 @@ public class Session
       sessionInfo_ = sessionInfo;
    }
 
+   // null until the deferred session info has been received (see
+   // DeferredSessionInfoEvent)
+   public DeferredSessionInfo getDeferredSessionInfo()
+   {
+      return deferredSessionInfo_;
+   }
+
+   public void setDeferredSessionInfo(DeferredSessionInfo info)
+   {
+      deferredSessionInfo_ = info;
+   }
+
    public void persistClientState()
    {
       events_.fireEvent(new PushClientStateEvent());
    }
 
    private SessionInfo sessionInfo_;
+   private DeferredSessionInfo deferredSessionInfo_;
    private final EventBus events_;
 }
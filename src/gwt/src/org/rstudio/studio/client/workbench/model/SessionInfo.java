@@ -27,7 +27,6 @@ import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentCo
 import org.rstudio.studio.client.workbench.views.output.find.model.FindInFilesState;
 import org.rstudio.studio.client.workbench.views.output.markers.model.MarkersState;
 import org.rstudio.studio.client.workbench.views.presentation.model.PresentationState;
-import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
@@ -108,10 +107,6 @@ public class SessionInfo extends JavaScriptObject
       return this.prompt;
    }-*/;
    
-   public final native JsArrayString getConsoleHistory() /*-{
-      return this.console_history;
-   }-*/;
-   
    public final native int getConsoleHistoryCapacity() /*-{
       return this.console_history_capacity;
    }-*/;
@@ -128,14 +123,6 @@ public class SessionInfo extends JavaScriptObject
       return this.client_state;
    }-*/;
    
-   public final native JsArray<SourceDocument> getSourceDocuments() /*-{
-      return this.source_documents;
-   }-*/;
-   
-   public final native WorkbenchLists getLists() /*-{
-      return this.lists;
-   }-*/;
-
    public final native boolean hasAgreement() /*-{
       return this.hasAgreement;
    }-*/;
@@ -371,4 +358,28 @@ public class SessionInfo extends JavaScriptObject
    public final native boolean getShowHelpHome() /*-{
       return this.show_help_home;
    }-*/;
+
+   // hashes of the sections of the session info which can be cached by
+   // the client (see ClientInitCache)
+   public final native JavaScriptObject getSectionHashes() /*-{
+      return this.section_hashes || {};
+   }-*/;
+
+   // names of sections omitted because the client's cached copy is current
+   public final native JsArrayString getCachedSections() /*-{
+      return this.cached_sections || [];
+   }-*/;
+
+   public final native boolean hasSection(String name) /*-{
+      return this.hasOwnProperty(name);
+   }-*/;
+
+   public final native JavaScriptObject getSection(String name) /*-{
+      return this[name];
+   }-*/;
+
+   public final native void setSection(String name,
+                                       JavaScriptObject value) /*-{
+      this[name] = value;
+   }-*/;
 }
@@ -17,9 +17,7 @@ package org.rstudio.studio.client.workbench.model.helper;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.studio.client.RStudioGinjector;
-import org.rstudio.studio.client.application.events.EventBus;
-import org.rstudio.studio.client.workbench.events.SaveClientStateEvent;
-import org.rstudio.studio.client.workbench.events.SaveClientStateHandler;
+import org.rstudio.studio.client.workbench.ClientStateUpdater;
 import org.rstudio.studio.client.workbench.model.ClientInitState;
 import org.rstudio.studio.client.workbench.model.ClientState;
 import org.rstudio.studio.client.workbench.model.ValueChangeTracker;
@@ -29,14 +27,18 @@ import org.rstudio.studio.client.workbench.model.ValueChangeTracker;
  * system. Subclass one of the type-specific abstract subclasses, and provide
  * implementations for onInit(T) and getValue().
  *
- * By default, getValue() will be called periodically to check for changes.
- * This will be called quite often so if it will be expensive and there's a
- * cheaper way to determine if the value changed, you can override hasChanged()
- * and have different logic. 
+ * Call markDirty() whenever the value changes; values which haven't been
+ * marked are skipped entirely when client state is collected. Values that
+ * can change without their owner knowing (e.g. the contents of a text box)
+ * can instead override pollForChanges() to return true, in which case
+ * getValue() will be called on every update to check for changes. If that
+ * would be expensive and there's a cheaper way to determine if the value
+ * changed, you can override hasChanged() and have different logic.
  *
  * @param <T>
  */
-public abstract class ClientStateValue<T> implements SaveClientStateHandler
+public abstract class ClientStateValue<T>
+   implements ClientStateUpdater.Participant
 {
    protected ClientStateValue(String group,
                               String name,
@@ -71,8 +73,7 @@ public abstract class ClientStateValue<T> implements SaveClientStateHandler
       valueTracker_ = new ValueChangeTracker<T>(obj);
       onInit(obj);
 
-      EventBus evt = RStudioGinjector.INSTANCE.getEventBus();
-      evt.addHandler(SaveClientStateEvent.TYPE, this);
+      RStudioGinjector.INSTANCE.getClientStateUpdater().addParticipant(this);
    }
 
    protected abstract T doGet(JsObject group, String name);
@@ -85,15 +86,18 @@ public abstract class ClientStateValue<T> implements SaveClientStateHandler
    protected abstract void onInit(T value);
    protected abstract T getValue();
 
-   public final void onSaveClientState(SaveClientStateEvent event)
+   public final boolean isClientStateDirty()
    {
+      return pollForChanges() || dirty_;
+   }
+
+   public final void collectClientState(ClientState clientState)
+   {
+      dirty_ = false;
       try
       {
          if (hasChanged())
-         {
-            ClientState clientState = event.getState();
             put(clientState, getValue());
-         }
       }
       catch (Exception e)
       {
@@ -101,6 +105,16 @@ public abstract class ClientStateValue<T> implements SaveClientStateHandler
       }
    }
 
+   protected boolean pollForChanges()
+   {
+      return false;
+   }
+
+   public void markDirty()
+   {
+      dirty_ = true;
+   }
+
    protected boolean hasChanged()
    {
       return valueTracker_.checkForChange(getValue());
@@ -112,6 +126,7 @@ public abstract class ClientStateValue<T> implements SaveClientStateHandler
    }
 
    private ValueChangeTracker<T> valueTracker_;
+   private boolean dirty_ = false;
    private String group_;
    private String name_;
    private int persist_;
@@ -70,28 +70,25 @@ public class AceEditorPreview extends DynamicIFrame
       FontSizer.injectStylesIntoDocument(doc);
       FontSizer.applyNormalFontSize(div);
 
-      new ExternalJavaScriptLoader(doc, AceResources.INSTANCE.acejs().getSafeUri().asString())
-            .addCallback(new Callback()
+      ExternalJavaScriptLoader.loadInParallel(
+            new ExternalJavaScriptLoader[] {
+               new ExternalJavaScriptLoader(doc, AceResources.INSTANCE.acejs().getSafeUri().asString()),
+               new ExternalJavaScriptLoader(doc, AceResources.INSTANCE.acesupportjs().getSafeUri().asString())
+            },
+            new Callback()
       {
          public void onLoaded()
          {
-            new ExternalJavaScriptLoader(doc, AceResources.INSTANCE.acesupportjs().getSafeUri().asString())
-                  .addCallback(new Callback()
-                  {
-                     public void onLoaded()
-                     {
-                        body.appendChild(doc.createScriptElement(
-                              "var editor = ace.edit('editor');\n" +
-                              "editor.renderer.setHScrollBarAlwaysVisible(false);\n" +
-                              "editor.renderer.setTheme({});\n" +
-                              "editor.setHighlightActiveLine(false);\n" +
-                              "editor.setReadOnly(true);\n" +
-                              "editor.renderer.setShowGutter(false);\n" +
-                              "editor.renderer.setDisplayIndentGuides(false);\n" +
-                              "var RMode = require('mode/r').Mode;\n" +
-                              "editor.getSession().setMode(new RMode(false, editor.getSession()));"));
-                     }
-                  });
+            body.appendChild(doc.createScriptElement(
+                  "var editor = ace.edit('editor');\n" +
+                  "editor.renderer.setHScrollBarAlwaysVisible(false);\n" +
+                  "editor.renderer.setTheme({});\n" +
+                  "editor.setHighlightActiveLine(false);\n" +
+                  "editor.setReadOnly(true);\n" +
+                  "editor.renderer.setShowGutter(false);\n" +
+                  "editor.renderer.setDisplayIndentGuides(false);\n" +
+                  "var RMode = require('mode/r').Mode;\n" +
+                  "editor.getSession().setMode(new RMode(false, editor.getSession()));"));
          }
       });
    }
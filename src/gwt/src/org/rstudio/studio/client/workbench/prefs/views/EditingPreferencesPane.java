@@ -121,6 +121,7 @@ public class EditingPreferencesPane extends PreferencesPane
       
       VerticalPanel diagnosticsPanel = new VerticalPanel();
       diagnosticsPanel.add(checkboxPref("Show inline diagnostics for R and C/C++ code", prefs.showDiagnostics()));
+      diagnosticsPanel.add(checkboxPref("Check R code for problems while typing", prefs.diagnosticsOnType()));
       
       
       DialogTabLayoutPanel tabPanel = new DialogTabLayoutPanel();
@@ -153,6 +153,12 @@ public class MainSplitPanel extends NotifyingSplitLayoutPanel
             });
          }
 
+         @Override
+         protected boolean pollForChanges()
+         {
+            return true;
+         }
+
          @Override
          protected JsObject getValue()
          {
@@ -29,6 +29,8 @@ import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.Triad;
 import org.rstudio.core.client.command.CommandBinder;
 import org.rstudio.core.client.command.Handler;
+import org.rstudio.core.client.events.EnsureVisibleEvent;
+import org.rstudio.core.client.events.EnsureVisibleHandler;
 import org.rstudio.core.client.events.WindowStateChangeEvent;
 import org.rstudio.core.client.layout.DualWindowLayoutPanel;
 import org.rstudio.core.client.layout.LogicalWindow;
@@ -41,6 +43,7 @@ import org.rstudio.core.client.theme.res.ThemeResources;
 import org.rstudio.core.client.widget.ToolbarButton;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.workbench.commands.Commands;
+import org.rstudio.studio.client.workbench.events.DeferredSessionInfoEvent;
 import org.rstudio.studio.client.workbench.model.ClientState;
 import org.rstudio.studio.client.workbench.model.Session;
 import org.rstudio.studio.client.workbench.model.WorkbenchServerOperations;
@@ -77,6 +80,14 @@ public class PaneManager
                session_.getSessionInfo().getClientState(), true);
          tabPanel_ = tabPanel;
          finishInit(session_.getSessionInfo().getClientState());
+         tabPanel_.addSelectionHandler(new SelectionHandler<Integer>()
+         {
+            @Override
+            public void onSelection(SelectionEvent<Integer> event)
+            {
+               markDirty();
+            }
+         });
       }
 
       @Override
@@ -155,18 +166,37 @@ public class PaneManager
       panel_ = pSplitPanel.get();
       panel_.initialize(left_, right_);
 
-      if (session_.getSessionInfo().getSourceDocuments().length() == 0
-            && sourceLogicalWindow_.getState() != WindowState.HIDE)
+      // show the source pane only if there are documents to restore (these
+      // arrive with the deferred session info); if documents were opened
+      // in the meantime the pane stays as it is
+      source_.addEnsureVisibleHandler(new EnsureVisibleHandler()
       {
-         sourceLogicalWindow_.onWindowStateChange(
-               new WindowStateChangeEvent(WindowState.HIDE));
-      }
-      else if (session_.getSessionInfo().getSourceDocuments().length() > 0
-               && sourceLogicalWindow_.getState() == WindowState.HIDE)
+         @Override
+         public void onEnsureVisible(EnsureVisibleEvent event)
+         {
+            sourceShown_ = true;
+         }
+      });
+      eventBus_.addHandler(DeferredSessionInfoEvent.TYPE, 
+                           new DeferredSessionInfoEvent.Handler()
       {
-         sourceLogicalWindow_.onWindowStateChange(
-               new WindowStateChangeEvent(WindowState.NORMAL));
-      }
+         @Override
+         public void onDeferredSessionInfo(DeferredSessionInfoEvent event)
+         {
+            int docs = event.getInfo().getSourceDocuments().length();
+            if (docs == 0 && !sourceShown_ &&
+                sourceLogicalWindow_.getState() != WindowState.HIDE)
+            {
+               sourceLogicalWindow_.onWindowStateChange(
+                     new WindowStateChangeEvent(WindowState.HIDE));
+            }
+            else if (docs > 0 && sourceLogicalWindow_.getState() == WindowState.HIDE)
+            {
+               sourceLogicalWindow_.onWindowStateChange(
+                     new WindowStateChangeEvent(WindowState.NORMAL));
+            }
+         }
+      });
 
       uiPrefs.paneConfig().addValueChangeHandler(new ValueChangeHandler<PaneConfig>()
       {
@@ -492,6 +522,7 @@ public class PaneManager
    private final ConsolePane consolePane_;
    private final ConsoleInterruptButton consoleInterrupt_;
    private final SourceShim source_;
+   private boolean sourceShown_ = false;
    private final WorkbenchTab historyTab_;
    private final WorkbenchTab filesTab_;
    private final WorkbenchTab plotsTab_;
@@ -41,6 +41,7 @@ import org.rstudio.studio.client.server.ServerRequestCallback;
 import org.rstudio.studio.client.server.Void;
 import org.rstudio.studio.client.server.VoidServerRequestCallback;
 import org.rstudio.studio.client.workbench.commands.Commands;
+import org.rstudio.studio.client.workbench.events.DeferredSessionInfoEvent;
 import org.rstudio.studio.client.workbench.model.ClientInitState;
 import org.rstudio.studio.client.workbench.model.ClientState;
 import org.rstudio.studio.client.workbench.model.ConsoleAction;
@@ -56,6 +57,7 @@ import org.rstudio.studio.client.workbench.views.console.shell.assist.HistoryCom
 import org.rstudio.studio.client.workbench.views.console.shell.assist.RCompletionManager;
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorDisplay;
 import org.rstudio.studio.client.workbench.views.environment.events.DebugModeChangedEvent;
+import org.rstudio.studio.client.workbench.views.history.model.HistoryArchiveIndex;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceEditorNative;
 
@@ -93,7 +95,8 @@ public class Shell implements ConsoleInputHandler,
                 Session session,
                 Commands commands,
                 UIPrefs uiPrefs, 
-                ErrorManager errorManager)
+                ErrorManager errorManager,
+                HistoryArchiveIndex historyIndex)
    {
       super() ;
 
@@ -150,7 +153,7 @@ public class Shell implements ConsoleInputHandler,
       addKeyPressPreviewHandler(completionManager) ;
       
       addKeyDownPreviewHandler(new HistoryCompletionManager(
-            view_.getInputEditorDisplay(), server));
+            view_.getInputEditorDisplay(), server, historyIndex));
 
       uiPrefs.insertMatching().bind(new CommandWithArg<Boolean>() {
          public void execute(Boolean arg) {
@@ -171,6 +174,12 @@ public class Shell implements ConsoleInputHandler,
          {
             initialInput_ = value;
          }
+         @Override
+         protected boolean pollForChanges()
+         {
+            return true;
+         }
+
          @Override
          protected String getValue()
          {
@@ -178,9 +187,19 @@ public class Shell implements ConsoleInputHandler,
          }
       };
 
-      JsArrayString history = sessionInfo.getConsoleHistory();
-      if (history != null)
-         setHistory(history);
+      // console history arrives with the deferred session info
+      eventBus_.addHandler(DeferredSessionInfoEvent.TYPE, 
+                           new DeferredSessionInfoEvent.Handler()
+      {
+         @Override
+         public void onDeferredSessionInfo(DeferredSessionInfoEvent event)
+         {
+            // commands entered before it arrived come after it
+            JsArrayString history = event.getInfo().getConsoleHistory();
+            if (history != null)
+               historyManager_.prependHistory(toList(history));
+         }
+      });
 
       RpcObjectList<ConsoleAction> actions = sessionInfo.getConsoleActions();
       if (actions != null)
@@ -603,12 +622,17 @@ public class Shell implements ConsoleInputHandler,
    }
    
    private void setHistory(JsArrayString history)
+   {
+      historyManager_.setHistory(toList(history));
+      browseHistoryManager_.resetPosition();
+   }
+
+   private static ArrayList<String> toList(JsArrayString history)
    {
       ArrayList<String> historyList = new ArrayList<String>(history.length());
       for (int i = 0; i < history.length(); i++)
          historyList.add(history.get(i));
-      historyManager_.setHistory(historyList);
-      browseHistoryManager_.resetPosition();
+      return historyList;
    }
 
    public void onBeforeUnselected()
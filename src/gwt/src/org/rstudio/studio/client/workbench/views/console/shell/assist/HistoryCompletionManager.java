@@ -20,6 +20,9 @@ import com.google.gwt.event.logical.shared.CloseEvent;
 import com.google.gwt.event.logical.shared.CloseHandler;
 import com.google.gwt.user.client.ui.PopupPanel;
 import com.google.gwt.user.client.ui.PopupPanel.PositionCallback;
+
+import java.util.ArrayList;
+
 import org.rstudio.core.client.Invalidation;
 import org.rstudio.core.client.Invalidation.Token;
 import org.rstudio.core.client.Rectangle;
@@ -30,6 +33,7 @@ import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.workbench.views.console.shell.KeyDownPreviewHandler;
 import org.rstudio.studio.client.workbench.views.console.shell.KeyPressPreviewHandler;
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorDisplay;
+import org.rstudio.studio.client.workbench.views.history.model.HistoryArchiveIndex;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryServerOperations;
 
@@ -37,10 +41,12 @@ public class HistoryCompletionManager implements KeyDownPreviewHandler,
                                                  KeyPressPreviewHandler
 {
    public HistoryCompletionManager(InputEditorDisplay input,
-                                   HistoryServerOperations server)
+                                   HistoryServerOperations server,
+                                   HistoryArchiveIndex index)
    {
       input_ = input;
       server_ = server;
+      index_ = index;
    }
 
    public boolean previewKeyDown(NativeEvent event)
@@ -125,8 +131,21 @@ public class HistoryCompletionManager implements KeyDownPreviewHandler,
       final Token token = historyRequestInvalidation_.getInvalidationToken();
 
       String value = input_.getText();
+
+      // use the local copy of the archive if it has been loaded
+      if (index_.ensureLoaded())
+      {
+         ArrayList<HistoryEntry> matches =
+               index_.searchByPrefix(value, MAX_SUGGESTIONS);
+         String[] entries = new String[matches.size()];
+         for (int i = 0; i < entries.length; i++)
+            entries[i] = matches.get(entries.length - i - 1).getCommand();
+         showSuggestions(entries);
+         return;
+      }
+
       server_.searchHistoryArchiveByPrefix(
-            value, 20, true,
+            value, MAX_SUGGESTIONS, true,
             new SimpleRequestCallback<RpcObjectList<HistoryEntry>>()
             {
                @Override
@@ -135,57 +154,62 @@ public class HistoryCompletionManager implements KeyDownPreviewHandler,
                   if (token.isInvalid())
                      return;
 
-                  if (resp.length() == 0)
-                  {
-                     popup_ = new CompletionListPopupPanel(new String[0]);
-                     popup_.setText("(No matching commands)");
-                  }
-                  else
-                  {
-                     String[] entries = new String[resp.length()];
-                     for (int i = 0; i < entries.length; i++)
-                        entries[i] = resp.get(entries.length - i - 1).getCommand();
-                     popup_ = new CompletionListPopupPanel(entries);
-                  }
-
-                  popup_.setMaxWidth(input_.getBounds().getWidth());
-                  popup_.setPopupPositionAndShow(new PositionCallback()
-                  {
-                     public void setPosition(int offsetWidth, int offsetHeight)
-                     {
-                        Rectangle bounds = input_.getBounds();
-
-                        int top = bounds.getTop() - offsetHeight;
-                        if (top < 20)
-                           top = bounds.getBottom();
-
-                        popup_.selectLast();
-                        popup_.setPopupPosition(bounds.getLeft() - 6, top);
-                     }
-                  });
-
-                  popup_.addSelectionCommitHandler(new SelectionCommitHandler<String>()
-                  {
-                     public void onSelectionCommit(SelectionCommitEvent<String> e)
-                     {
-                        input_.setText(e.getSelectedItem());
-                        dismiss();
-                     }
-                  });
-                  
-                  popup_.addCloseHandler(new CloseHandler<PopupPanel>() {
-
-                     @Override
-                     public void onClose(CloseEvent<PopupPanel> event)
-                     {
-                        popup_ = null;          
-                     }
-                     
-                  });
+                  String[] entries = new String[resp.length()];
+                  for (int i = 0; i < entries.length; i++)
+                     entries[i] = resp.get(entries.length - i - 1).getCommand();
+                  showSuggestions(entries);
                }
             });
    }
 
+   private void showSuggestions(String[] entries)
+   {
+      if (entries.length == 0)
+      {
+         popup_ = new CompletionListPopupPanel(new String[0]);
+         popup_.setText("(No matching commands)");
+      }
+      else
+      {
+         popup_ = new CompletionListPopupPanel(entries);
+      }
+
+      popup_.setMaxWidth(input_.getBounds().getWidth());
+      popup_.setPopupPositionAndShow(new PositionCallback()
+      {
+         public void setPosition(int offsetWidth, int offsetHeight)
+         {
+            Rectangle bounds = input_.getBounds();
+
+            int top = bounds.getTop() - offsetHeight;
+            if (top < 20)
+               top = bounds.getBottom();
+
+            popup_.selectLast();
+            popup_.setPopupPosition(bounds.getLeft() - 6, top);
+         }
+      });
+
+      popup_.addSelectionCommitHandler(new SelectionCommitHandler<String>()
+      {
+         public void onSelectionCommit(SelectionCommitEvent<String> e)
+         {
+            input_.setText(e.getSelectedItem());
+            dismiss();
+         }
+      });
+      
+      popup_.addCloseHandler(new CloseHandler<PopupPanel>() {
+
+         @Override
+         public void onClose(CloseEvent<PopupPanel> event)
+         {
+            popup_ = null;          
+         }
+         
+      });
+   }
+
    public boolean previewKeyPress(char charCode)
    {
       return false;
@@ -194,5 +218,8 @@ public class HistoryCompletionManager implements KeyDownPreviewHandler,
    private CompletionListPopupPanel popup_;
    private final InputEditorDisplay input_;
    private final HistoryServerOperations server_;
+   private final HistoryArchiveIndex index_;
    private final Invalidation historyRequestInvalidation_ = new Invalidation();
+
+   private static final int MAX_SUGGESTIONS = 20;
 }
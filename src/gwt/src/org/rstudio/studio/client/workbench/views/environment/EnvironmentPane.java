@@ -55,6 +55,7 @@ import com.google.gwt.dom.client.Style.Unit;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.resources.client.ImageResource;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.ui.MenuItem;
 import com.google.gwt.user.client.ui.SuggestOracle;
 import com.google.gwt.user.client.ui.Widget;
@@ -483,9 +484,18 @@ public class EnvironmentPane extends WorkbenchPane
       }
    }
    
+   @Override
+   public void setEnvironmentChangingCommand(Command command)
+   {
+      environmentChangingCommand_ = command;
+   }
+   
    // Called to load a new environment into the environment pane. 
    private void loadEnvironmentFrame(final EnvironmentFrame frame)
    {
+      if (environmentChangingCommand_ != null)
+         environmentChangingCommand_.execute();
+      
       ServerRequestCallback<Void> callback = new ServerRequestCallback<Void>()
       {
          @Override
@@ -589,4 +599,5 @@ public class EnvironmentPane extends WorkbenchPane
    private JsArray<EnvironmentFrame> environments_;
    private String environmentName_;
    private boolean environmentIsLocal_;
+   private Command environmentChangingCommand_;
 }
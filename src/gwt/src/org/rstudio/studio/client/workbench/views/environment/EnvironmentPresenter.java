@@ -60,6 +60,7 @@ import org.rstudio.studio.client.workbench.views.console.events.ConsoleWriteInpu
 import org.rstudio.studio.client.workbench.views.console.events.SendToConsoleEvent;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
 import com.google.inject.Inject;
 
@@ -73,6 +74,8 @@ import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentO
 import org.rstudio.studio.client.workbench.views.environment.events.EnvironmentRefreshEvent;
 import org.rstudio.studio.client.workbench.views.environment.model.CallFrame;
 import org.rstudio.studio.client.workbench.views.environment.model.DownloadInfo;
+import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentCache;
+import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentChanges;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentContextData;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentServerOperations;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
@@ -116,6 +119,7 @@ public class EnvironmentPresenter extends BasePresenter
       void resize();
       void setBrowserRange(DebugFilePosition filePosition);
       List<String> getSelectedObjects();
+      void setEnvironmentChangingCommand(Command command);
    }
    
    @Inject
@@ -151,6 +155,19 @@ public class EnvironmentPresenter extends BasePresenter
       sourceShim_ = sourceShim;
       debugCommander_ = debugCommander;
       session_ = session;
+      
+      // object events which arrive after a switch to another environment has
+      // been requested (and before the new environment is sent) don't belong
+      // to the cached environment
+      view_.setEnvironmentChangingCommand(new Command()
+      {
+         @Override
+         public void execute()
+         {
+            environmentCache_.clearCurrent();
+         }
+      });
+      
       requeryContextTimer_ = new Timer()
       {
          @Override
@@ -201,7 +218,9 @@ public class EnvironmentPresenter extends BasePresenter
                   event.getCallFrames(),
                   event.useProvidedSource(),
                   event.getFunctionCode());
-            setViewFromEnvironmentList(event.getEnvironmentList());
+            setViewFromEnvironment(event.getEnvironmentKey(),
+                                   event.getEnvironmentList(),
+                                   event.getEnvironmentChanges());
             requeryContextTimer_.cancel();
          }
       });
@@ -212,6 +231,7 @@ public class EnvironmentPresenter extends BasePresenter
          @Override
          public void onEnvironmentObjectAssigned(EnvironmentObjectAssignedEvent event)
          {
+            environmentCache_.assign(event.getObjectInfo());
             view_.addObject(event.getObjectInfo());
          }
       });
@@ -222,6 +242,7 @@ public class EnvironmentPresenter extends BasePresenter
          @Override
          public void onEnvironmentObjectRemoved(EnvironmentObjectRemovedEvent event)
          {
+            environmentCache_.remove(event.getObjectName());
             view_.removeObject(event.getObjectName());
          }
       });
@@ -282,6 +303,12 @@ public class EnvironmentPresenter extends BasePresenter
             }
          }
 
+         @Override
+         protected boolean pollForChanges()
+         {
+            return true;
+         }
+
          @Override
          protected JsObject getValue()
          {
@@ -317,6 +344,12 @@ public class EnvironmentPresenter extends BasePresenter
                view_.setObjectDisplayType(value);
          }
 
+         @Override
+         protected boolean pollForChanges()
+         {
+            return true;
+         }
+
          @Override
          protected Integer getValue()
          {
@@ -523,7 +556,9 @@ public class EnvironmentPresenter extends BasePresenter
             environmentState.callFrames(),
             environmentState.useProvidedSource(),
             environmentState.functionCode());
-      setViewFromEnvironmentList(environmentState.environmentList());
+      setViewFromEnvironment(environmentState.environmentKey(),
+                             environmentState.environmentList(),
+                             environmentState.environmentChanges());
       initialized_ = true;
    }
    
@@ -715,6 +750,44 @@ public class EnvironmentPresenter extends BasePresenter
       view_.clearObjects();
       view_.addObjects(objects);
    }
+
+   // shows the given environment, which the server sent either in full or
+   // as the changes since it last sent the environment
+   private void setViewFromEnvironment(String key,
+                                       JsArray<RObject> objects,
+                                       EnvironmentChanges changes)
+   {
+      if (changes == null)
+      {
+         environmentCache_.put(key, objects);
+         setViewFromEnvironmentList(objects);
+      }
+      else if (!environmentCache_.contains(key))
+      {
+         // we no longer have a copy of the environment to apply the changes
+         // to, so we need all of it
+         refreshView();
+      }
+      else if (key.equals(environmentCache_.getCurrentKey()) &&
+               changes.getAssigned().length() +
+               changes.getRemoved().length() <= MAX_INCREMENTAL_CHANGES)
+      {
+         // same environment as is displayed; just update the objects that
+         // changed
+         environmentCache_.apply(key, changes);
+         JsArrayString removed = changes.getRemoved();
+         for (int i = 0; i < removed.length(); i++)
+            view_.removeObject(removed.get(i));
+         JsArray<RObject> assigned = changes.getAssigned();
+         for (int i = 0; i < assigned.length(); i++)
+            view_.addObject(assigned.get(i));
+      }
+      else
+      {
+         environmentCache_.apply(key, changes);
+         setViewFromEnvironmentList(environmentCache_.getObjects(key));
+      }
+   }
     
    private void refreshView()
    {
@@ -856,4 +929,8 @@ public class EnvironmentPresenter extends BasePresenter
    private String currentBrowseSource_;
    private String environmentName_;
    private Timer requeryContextTimer_;
+   private final EnvironmentCache environmentCache_ = new EnvironmentCache();
+
+   // beyond this many changes it's cheaper to redraw the whole list
+   private static final int MAX_INCREMENTAL_CHANGES = 50;
 }
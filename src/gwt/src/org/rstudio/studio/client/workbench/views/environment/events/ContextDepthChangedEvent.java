@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.workbench.views.environment.events;
 
 import org.rstudio.studio.client.workbench.views.environment.model.CallFrame;
+import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentChanges;
 import org.rstudio.studio.client.workbench.views.environment.model.EnvironmentContextData;
 import org.rstudio.studio.client.workbench.views.environment.model.RObject;
 
@@ -50,6 +51,16 @@ public class ContextDepthChangedEvent extends
       return contextData_.environmentList();
    }
 
+   public EnvironmentChanges getEnvironmentChanges()
+   {
+      return contextData_.environmentChanges();
+   }
+
+   public String getEnvironmentKey()
+   {
+      return contextData_.environmentKey();
+   }
+
    public JsArray<CallFrame> getCallFrames()
    {
       return contextData_.callFrames();
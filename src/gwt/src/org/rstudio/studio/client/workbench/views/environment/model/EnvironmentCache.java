@@ -0,0 +1,148 @@
+/*
+ * EnvironmentCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.workbench.views.environment.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+// Keeps a copy of the contents of the environments the server has recently
+// sent, keyed by the server's identifier for each environment (typically one
+// per call frame). The server only sends the objects that changed when
+// switching back to an environment it has sent before, so the client needs
+// a copy of each environment to apply those changes to. The server keeps
+// records for a bounded number of environments; so does this cache.
+public class EnvironmentCache
+{
+   // Replaces the contents of the given environment and makes it current
+   public void put(String key, JsArray<RObject> objects)
+   {
+      Contents contents = Contents.create();
+      for (int i = 0; i < objects.length(); i++)
+         contents.put(objects.get(i));
+      environments_.put(key, contents);
+      currentKey_ = key;
+   }
+
+   public boolean contains(String key)
+   {
+      return environments_.containsKey(key);
+   }
+
+   // Applies changes to the given environment (which must be cached) and
+   // makes it current
+   public void apply(String key, EnvironmentChanges changes)
+   {
+      Contents contents = environments_.get(key);
+      JsArrayString removed = changes.getRemoved();
+      for (int i = 0; i < removed.length(); i++)
+         contents.remove(removed.get(i));
+      JsArray<RObject> assigned = changes.getAssigned();
+      for (int i = 0; i < assigned.length(); i++)
+         contents.put(assigned.get(i));
+      currentKey_ = key;
+   }
+
+   public JsArray<RObject> getObjects(String key)
+   {
+      Contents contents = environments_.get(key);
+      return contents == null ? null : contents.toArray();
+   }
+
+   public String getCurrentKey()
+   {
+      return currentKey_;
+   }
+
+   // Called when switching to another environment: until the new one is
+   // put, object events have no environment to apply to. The environment
+   // that was current is dropped, since events for it which were already
+   // on their way won't be applied to it.
+   public void clearCurrent()
+   {
+      if (currentKey_ != null)
+         environments_.remove(currentKey_);
+      currentKey_ = null;
+   }
+
+   // Object assigned/removed events apply to the current environment
+
+   public void assign(RObject object)
+   {
+      Contents contents = currentContents();
+      if (contents != null)
+         contents.put(object);
+   }
+
+   public void remove(String name)
+   {
+      Contents contents = currentContents();
+      if (contents != null)
+         contents.remove(name);
+   }
+
+   private Contents currentContents()
+   {
+      return currentKey_ == null ? null : environments_.get(currentKey_);
+   }
+
+   // the objects in an environment, by name
+   private static class Contents extends JavaScriptObject
+   {
+      protected Contents()
+      {
+      }
+
+      public static final native Contents create() /*-{
+         return {};
+      }-*/;
+
+      public final native void put(RObject object) /*-{
+         this["#" + object.name] = object;
+      }-*/;
+
+      public final native void remove(String name) /*-{
+         delete this["#" + name];
+      }-*/;
+
+      public final native JsArray<RObject> toArray() /*-{
+         var objects = [];
+         for (var key in this)
+            if (this.hasOwnProperty(key))
+               objects.push(this[key]);
+         return objects;
+      }-*/;
+   }
+
+   // least recently used environments are evicted first
+   @SuppressWarnings("serial")
+   private final LinkedHashMap<String, Contents> environments_ =
+         new LinkedHashMap<String, Contents>(MAX_ENVIRONMENTS, 0.75f, true)
+   {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Contents> eldest)
+      {
+         return size() > MAX_ENVIRONMENTS;
+      }
+   };
+
+   private String currentKey_ = null;
+
+   private static final int MAX_ENVIRONMENTS = 20;
+}
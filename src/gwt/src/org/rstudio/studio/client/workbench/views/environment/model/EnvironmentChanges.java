@@ -0,0 +1,37 @@
+/*
+ * EnvironmentChanges.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+
+package org.rstudio.studio.client.workbench.views.environment.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+// The objects in an environment that were assigned or removed since the
+// server last sent the environment's contents to the client
+public class EnvironmentChanges extends JavaScriptObject
+{
+   protected EnvironmentChanges()
+   {
+   }
+
+   public final native JsArray<RObject> getAssigned() /*-{
+      return this.assigned;
+   }-*/;
+
+   public final native JsArrayString getRemoved() /*-{
+      return this.removed;
+   }-*/;
+}
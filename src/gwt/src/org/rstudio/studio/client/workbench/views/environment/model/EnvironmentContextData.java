@@ -41,8 +41,17 @@ public class EnvironmentContextData extends JavaScriptObject
       return this.function_code;
    }-*/;
   
+   // null if the server sent only changes (see environmentChanges)
    public final native JsArray<RObject> environmentList() /*-{
-      return this.environment_list;
+      return this.environment_list || null;
+   }-*/;
+
+   public final native EnvironmentChanges environmentChanges() /*-{
+      return this.environment_changes || null;
+   }-*/;
+
+   public final native String environmentKey() /*-{
+      return this.environment_key;
    }-*/;
 
    public final native String environmentName() /*-{
@@ -157,7 +157,7 @@ public class Files
       ClientInitState state = sessionInfo.getClientState();
 
       // make the column sort order persistent
-      new JSObjectStateValue(MODULE_FILES, KEY_SORT_ORDER, ClientState.PROJECT_PERSISTENT, state, false)
+      sortOrderStateValue_ = new JSObjectStateValue(MODULE_FILES, KEY_SORT_ORDER, ClientState.PROJECT_PERSISTENT, state, false)
       {
          @Override
          protected void onInit(JsObject value)
@@ -200,7 +200,7 @@ public class Files
       
       
       // navigate to previous directory (works for resumed case)
-      new StringStateValue(MODULE_FILES, KEY_PATH, ClientState.PROJECT_PERSISTENT, state) {
+      pathStateValue_ = new StringStateValue(MODULE_FILES, KEY_PATH, ClientState.PROJECT_PERSISTENT, state) {
          @Override
          protected void onInit(final String value)
          {
@@ -291,6 +291,8 @@ public class Files
                                     JsArray<ColumnSortInfo> sortOrder)
       {
          columnSortOrder_ = sortOrder;
+         if (sortOrderStateValue_ != null)
+            sortOrderStateValue_.markDirty();
       }
    };
     
@@ -573,6 +575,8 @@ public class Files
    {
       hasNavigatedToDirectory_ = true;
       currentPath_ = directoryEntry;
+      if (pathStateValue_ != null)
+         pathStateValue_.markDirty();
       view_.listDirectory(currentPath_, currentPathFilesDS_);
       session_.persistClientState();
    }
@@ -650,4 +654,6 @@ public class Files
    private static final String KEY_PATH = "path";
    private static final String KEY_SORT_ORDER = "sortOrder";
    private JsArray<ColumnSortInfo> columnSortOrder_ = null;
+   private JSObjectStateValue sortOrderStateValue_;
+   private StringStateValue pathStateValue_;
 }
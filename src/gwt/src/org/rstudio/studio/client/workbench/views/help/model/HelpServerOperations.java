@@ -22,6 +22,9 @@ public interface HelpServerOperations
    void suggestTopics(String prefix,
                       ServerRequestCallback<JsArrayString> requestCallback);
 
+   void getHelpTopicIndex(String version,
+                          ServerRequestCallback<HelpTopicIndexInfo> requestCallback);
+
    void getHelp(String topic, 
                 String packageName,
                 int options,
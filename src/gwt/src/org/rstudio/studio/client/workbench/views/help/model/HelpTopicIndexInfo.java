@@ -0,0 +1,34 @@
+/*
+ * HelpTopicIndexInfo.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.help.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+public class HelpTopicIndexInfo extends JavaScriptObject
+{
+   protected HelpTopicIndexInfo()
+   {
+   }
+
+   public final native String getVersion() /*-{
+      return this.version;
+   }-*/;
+
+   // null if the index is unchanged from the version the client sent
+   public final native JsArrayString getTopics() /*-{
+      return this.topics || null;
+   }-*/;
+}
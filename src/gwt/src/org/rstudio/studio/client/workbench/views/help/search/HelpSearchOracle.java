@@ -26,14 +26,53 @@ import java.util.ArrayList;
 public class HelpSearchOracle extends SuggestOracle
 {
    @Inject
-   public HelpSearchOracle(HelpServerOperations server)
+   public HelpSearchOracle(HelpServerOperations server, HelpTopicIndex index)
    {
       server_ = server ;
+      index_ = index ;
    }
 
    @Override
    public void requestSuggestions(final Request request, 
                                   final Callback callback)
+   {
+      if (index_.isReady())
+      {
+         respond(request, callback, index_.match(request.getQuery(),
+                                                 request.getLimit())) ;
+         return ;
+      }
+
+      // only the most recent request is answered once the index is ready;
+      // earlier keystrokes are out of date by then
+      boolean waiting = pendingRequest_ != null ;
+      pendingRequest_ = request ;
+      pendingCallback_ = callback ;
+      if (waiting)
+         return ;
+
+      index_.refresh(new HelpTopicIndex.ReadyCallback()
+      {
+         @Override
+         public void onReady(boolean succeeded)
+         {
+            Request request = pendingRequest_ ;
+            Callback callback = pendingCallback_ ;
+            pendingRequest_ = null ;
+            pendingCallback_ = null ;
+
+            if (succeeded)
+               respond(request, callback, index_.match(request.getQuery(),
+                                                       request.getLimit())) ;
+            else
+               requestServerSuggestions(request, callback) ;
+         }
+      }) ;
+   }
+
+   // used only if the topic index couldn't be retrieved
+   private void requestServerSuggestions(final Request request,
+                                         final Callback callback)
    {
       String query = request.getQuery() ;
       server_.suggestTopics(query,
@@ -48,15 +87,26 @@ public class HelpSearchOracle extends SuggestOracle
          {
             int maxCount = Math.min(suggestions.length(), request.getLimit());
 
-            ArrayList<SearchSuggestion> results =
-               new ArrayList<SearchSuggestion>() ;
+            ArrayList<String> results = new ArrayList<String>() ;
             for (int i = 0; i< maxCount; i++)
-               results.add(new SearchSuggestion(suggestions.get(i))) ;
-            
-            callback.onSuggestionsReady(request, new Response(results)) ;
+               results.add(suggestions.get(i)) ;
+
+            respond(request, callback, results) ;
          }
       }); ;
    }
+
+   private void respond(Request request,
+                        Callback callback,
+                        ArrayList<String> topics)
+   {
+      ArrayList<SearchSuggestion> results =
+         new ArrayList<SearchSuggestion>() ;
+      for (String topic : topics)
+         results.add(new SearchSuggestion(topic)) ;
+
+      callback.onSuggestionsReady(request, new Response(results)) ;
+   }
    
    private class SearchSuggestion implements Suggestion
    {
@@ -79,4 +129,7 @@ public class HelpSearchOracle extends SuggestOracle
    }
 
    private final HelpServerOperations server_ ;
+   private final HelpTopicIndex index_ ;
+   private Request pendingRequest_ ;
+   private Callback pendingCallback_ ;
 }
@@ -0,0 +1,216 @@
+/*
+ * HelpTopicIndex.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.help.search;
+
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.JsArrayString;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.help.model.HelpServerOperations;
+import org.rstudio.studio.client.workbench.views.help.model.HelpTopicIndexInfo;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStateChangedEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStateChangedHandler;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedEvent;
+import org.rstudio.studio.client.workbench.views.packages.events.PackageStatusChangedHandler;
+
+// The help topics of the attached packages, downloaded once and matched in
+// the browser. The server identifies each index by a version string derived
+// from the attached package library paths; when packages are attached,
+// detached, installed or removed the index is revalidated against the
+// server, which only resends the topics if the version has changed.
+@Singleton
+public class HelpTopicIndex
+{
+   public interface ReadyCallback
+   {
+      void onReady(boolean succeeded);
+   }
+
+   @Inject
+   public HelpTopicIndex(EventBus events, HelpServerOperations server)
+   {
+      server_ = server;
+
+      events.addHandler(PackageStatusChangedEvent.TYPE,
+                        new PackageStatusChangedHandler()
+      {
+         @Override
+         public void onPackageStatusChanged(PackageStatusChangedEvent event)
+         {
+            stale_ = true;
+         }
+      });
+
+      events.addHandler(PackageStateChangedEvent.TYPE,
+                        new PackageStateChangedHandler()
+      {
+         @Override
+         public void onPackageStateChanged(PackageStateChangedEvent event)
+         {
+            stale_ = true;
+         }
+      });
+   }
+
+   public boolean isReady()
+   {
+      return topics_ != null && !stale_;
+   }
+
+   // Brings the index up to date, invoking the callback once it is (or the
+   // request fails). Concurrent callers share a single request.
+   public void refresh(ReadyCallback callback)
+   {
+      if (isReady())
+      {
+         callback.onReady(true);
+         return;
+      }
+
+      pending_.add(callback);
+      if (refreshing_)
+         return;
+
+      refreshing_ = true;
+      stale_ = false;
+      server_.getHelpTopicIndex(
+            version_,
+            new ServerRequestCallback<HelpTopicIndexInfo>()
+      {
+         @Override
+         public void onResponseReceived(HelpTopicIndexInfo info)
+         {
+            JsArrayString topics = info.getTopics();
+            if (topics != null)
+               setTopics(topics);
+            version_ = info.getVersion();
+            onRefreshed(true);
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            onRefreshed(false);
+         }
+      });
+   }
+
+   // Topics that start with the query (in sorted order), followed by topics
+   // that start with it ignoring case, followed by topics containing the
+   // query's characters in order; at most limit results.
+   public ArrayList<String> match(String query, int limit)
+   {
+      ArrayList<String> results = new ArrayList<String>();
+      if (topics_ == null || query.length() == 0 || limit <= 0)
+         return results;
+
+      int length = topics_.length();
+      for (int i = lowerBound(query); i < length; i++)
+      {
+         String topic = topics_.get(i);
+         if (!topic.startsWith(query))
+            break;
+         results.add(topic);
+         if (results.size() == limit)
+            return results;
+      }
+
+      String lower = query.toLowerCase();
+      for (int pass = 0; pass < 2; pass++)
+      {
+         for (int i = 0; i < length; i++)
+         {
+            String topic = topics_.get(i);
+            String topicLower = lowerTopics_.get(i);
+            if (topic.startsWith(query))
+               continue;
+
+            boolean matches = pass == 0 ?
+                  topicLower.startsWith(lower) :
+                  !topicLower.startsWith(lower) &&
+                  StringUtil.isSubsequence(topicLower, lower);
+
+            if (matches)
+            {
+               results.add(topic);
+               if (results.size() == limit)
+                  return results;
+            }
+         }
+      }
+
+      return results;
+   }
+
+   private void onRefreshed(boolean succeeded)
+   {
+      refreshing_ = false;
+      ArrayList<ReadyCallback> pending = pending_;
+      pending_ = new ArrayList<ReadyCallback>();
+      for (ReadyCallback callback : pending)
+         callback.onReady(succeeded && topics_ != null);
+   }
+
+   private void setTopics(JsArrayString topics)
+   {
+      sortTopics(topics);
+      topics_ = topics;
+      lowerTopics_ = toLowerCase(topics);
+   }
+
+   // index of the first topic not less than the query
+   private int lowerBound(String query)
+   {
+      int lo = 0;
+      int hi = topics_.length();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (topics_.get(mid).compareTo(query) < 0)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   // default JS sort order is by UTF-16 code unit, consistent with
+   // String.compareTo (used by lowerBound)
+   private static native void sortTopics(JsArrayString topics) /*-{
+      topics.sort();
+   }-*/;
+
+   private static native JsArrayString toLowerCase(JsArrayString topics) /*-{
+      var lower = new Array(topics.length);
+      for (var i = 0; i < topics.length; i++)
+         lower[i] = topics[i].toLowerCase();
+      return lower;
+   }-*/;
+
+   private final HelpServerOperations server_;
+
+   private JsArrayString topics_ = null;
+   private JsArrayString lowerTopics_ = null;
+   private String version_ = "";
+   private boolean stale_ = false;
+   private boolean refreshing_ = false;
+   private ArrayList<ReadyCallback> pending_ = new ArrayList<ReadyCallback>();
+}
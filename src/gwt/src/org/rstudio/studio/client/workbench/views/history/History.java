@@ -59,6 +59,7 @@ import org.rstudio.studio.client.workbench.views.history.events.FetchCommandsEve
 import org.rstudio.studio.client.workbench.views.history.events.FetchCommandsHandler;
 import org.rstudio.studio.client.workbench.views.history.events.HistoryEntriesAddedEvent;
 import org.rstudio.studio.client.workbench.views.history.events.HistoryEntriesAddedHandler;
+import org.rstudio.studio.client.workbench.views.history.model.HistoryArchiveIndex;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryEntry;
 import org.rstudio.studio.client.workbench.views.history.model.HistoryServerOperations;
 import org.rstudio.studio.client.workbench.views.source.events.InsertSourceEvent;
@@ -150,10 +151,18 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
       protected void performAction(boolean shouldSchedulePassive)
       {
          final String query = searchQuery_;
-         if (searchQuery_ != null && searchQuery_.length() > 0)
+         if (query == null || query.length() == 0)
+            return;
+         
+         if (historyIndex_.ensureLoaded())
+         {
+            view_.showSearchResults(
+                  query, historyIndex_.search(query, COMMAND_CHUNK_SIZE));
+         }
+         else
          {
             server_.searchHistoryArchive(
-                  searchQuery_, COMMAND_CHUNK_SIZE,
+                  query, COMMAND_CHUNK_SIZE,
                   new SimpleRequestCallback<RpcObjectList<HistoryEntry>>()
                   {
                      @Override
@@ -180,6 +189,9 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
          }
          else
          {
+            // start loading the local copy of the archive (if it isn't
+            // already) so that it can answer the search once buffered
+            historyIndex_.ensureLoaded();
             nudge();
          }
       }
@@ -201,7 +213,8 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
                   EventBus events,
                   final Session session,
                   Commands commands,
-                  Binder binder)
+                  Binder binder,
+                  HistoryArchiveIndex historyIndex)
    {
       super(view);
       view_ = view;
@@ -210,6 +223,7 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
       consoleDispatcher_ = consoleDispatcher;
       searchCommand_ = new SearchCommand(session);
       session_ = session;
+      historyIndex_ = historyIndex;
 
       binder.bind(commands, this);
 
@@ -303,6 +317,12 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
             }
          }
 
+         @Override
+         protected boolean pollForChanges()
+         {
+            return true;
+         }
+
          @Override
          protected String getValue()
          {
@@ -677,6 +697,7 @@ public class History extends BasePresenter implements SelectionCommitHandler<Voi
    private final EventBus events_;
    private final GlobalDisplay globalDisplay_;
    private final SearchCommand searchCommand_;
+   private final HistoryArchiveIndex historyIndex_;
    private HistoryServerOperations server_;
    private final Session session_;
    private final ConsoleDispatcher consoleDispatcher_;
@@ -0,0 +1,455 @@
+/*
+ * HistoryArchiveIndex.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.history.model;
+
+import java.util.ArrayList;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayNumber;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.jsonrpc.RpcObjectList;
+import org.rstudio.studio.client.application.events.EventBus;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.history.events.HistoryEntriesAddedEvent;
+import org.rstudio.studio.client.workbench.views.history.events.HistoryEntriesAddedHandler;
+
+// A copy of the history archive held in the browser, so that history search
+// and prefix completion don't need a server round trip per keystroke. The
+// archive is downloaded in chunks the first time it's needed (callers fall
+// back to the server until it's complete) and is kept current from
+// HistoryEntriesAddedEvent. Entries are placed by their archive index, so
+// events and chunks can arrive in either order; if the archive is rotated
+// on the server (which renumbers it) the copy is discarded and reloaded.
+//
+// Commands are indexed by trigram: each trigram maps to the (ascending)
+// positions of the commands that contain it. A substring search walks the
+// shortest postings list among the query's trigrams, newest first, and
+// verifies each candidate. Commands too long to index, and queries too
+// short to have a trigram, are handled by a linear scan.
+@Singleton
+public class HistoryArchiveIndex
+{
+   @Inject
+   public HistoryArchiveIndex(EventBus events, HistoryServerOperations server)
+   {
+      server_ = server;
+
+      events.addHandler(HistoryEntriesAddedEvent.TYPE,
+                        new HistoryEntriesAddedHandler()
+      {
+         public void onHistoryEntriesAdded(HistoryEntriesAddedEvent event)
+         {
+            // before loading starts there's nothing to keep current
+            if (!loading_ && !loaded_)
+               return;
+
+            RpcObjectList<HistoryEntry> entries = event.getEntries();
+            for (int i = 0; i < entries.length(); i++)
+            {
+               HistoryEntry entry = entries.get(i);
+               int index = entry.getArchiveIndex();
+               double timestamp = entry.getTimestamp().getTime();
+               if (index < 0)
+                  continue;
+
+               if (index < commands_.length() &&
+                   timestamps_.get(index) != timestamp)
+               {
+                  // the archive was rotated out from under us
+                  reload();
+                  return;
+               }
+
+               if (!addAt(index, timestamp, entry.getCommand()))
+               {
+                  // still loading the entries before this one
+                  if (loading_)
+                     pending_.add(entry);
+                  else
+                     reload();
+               }
+            }
+         }
+      });
+   }
+
+   // true once the whole archive is available locally; starts loading it
+   // if that hasn't happened yet
+   public boolean ensureLoaded()
+   {
+      if (!loaded_ && !loading_)
+      {
+         loading_ = true;
+         loadChunk();
+      }
+      return loaded_;
+   }
+
+   // Commands containing every term of the query, newest first (the
+   // semantics of searchHistoryArchive). If there are
+   // fewer than maxEntries of those, commands which contain the query's
+   // characters in order (ignoring case) are appended.
+   public ArrayList<HistoryEntry> search(String query, int maxEntries)
+   {
+      ArrayList<HistoryEntry> results = new ArrayList<HistoryEntry>();
+      String[] terms = searchTerms(query);
+      if (terms.length == 0)
+         return results;
+
+      JsArrayNumber matched = JavaScriptObject.createArray().cast();
+      findMatches(terms, maxEntries, matched);
+      for (int i = 0; i < matched.length(); i++)
+         results.add(entryAt((int) matched.get(i)));
+
+      if (results.size() < maxEntries)
+      {
+         String fuzzy = query.replaceAll("\\s+", "").toLowerCase();
+         boolean[] seen = new boolean[commands_.length()];
+         for (int i = 0; i < matched.length(); i++)
+            seen[(int) matched.get(i)] = true;
+
+         for (int i = commands_.length() - 1;
+              i >= 0 && results.size() < maxEntries;
+              i--)
+         {
+            if (!seen[i] && StringUtil.isSubsequence(
+                                 commands_.get(i).toLowerCase(), fuzzy))
+            {
+               results.add(entryAt(i));
+            }
+         }
+      }
+
+      return results;
+   }
+
+   // Distinct commands starting with the (trimmed) prefix, newest first
+   // (the semantics of searchHistoryArchiveByPrefix with uniqueOnly).
+   public ArrayList<HistoryEntry> searchByPrefix(String prefix, int maxEntries)
+   {
+      prefix = prefix.trim();
+      ArrayList<HistoryEntry> results = new ArrayList<HistoryEntry>();
+      JavaScriptObject seen = JavaScriptObject.createObject();
+
+      int[] candidates = candidatesFor(new String[] { prefix });
+      int count = candidates != null ? candidates.length : commands_.length();
+      for (int i = count - 1; i >= 0 && results.size() < maxEntries; i--)
+      {
+         int pos = candidates != null ? candidates[i] : i;
+         String command = commands_.get(pos);
+         if (command.startsWith(prefix) && markSeen(seen, command))
+            results.add(entryAt(pos));
+      }
+
+      return results;
+   }
+
+   // Splits the query the way the server does (boost's default
+   // char_separator): whitespace separates terms, and each punctuation
+   // character is a term of its own.
+   static String[] searchTerms(String query)
+   {
+      ArrayList<String> terms = new ArrayList<String>();
+      int start = -1;
+      for (int i = 0; i <= query.length(); i++)
+      {
+         char ch = i < query.length() ? query.charAt(i) : ' ';
+         boolean space = isCSpace(ch);
+         boolean punct = isCPunct(ch);
+         if (space || punct)
+         {
+            if (start != -1)
+               terms.add(query.substring(start, i));
+            start = -1;
+            if (punct)
+               terms.add(String.valueOf(ch));
+         }
+         else if (start == -1)
+         {
+            start = i;
+         }
+      }
+      return terms.toArray(new String[terms.size()]);
+   }
+
+   // isspace and ispunct in the C locale
+   private static boolean isCSpace(char ch)
+   {
+      return ch == ' ' || (ch >= '\t' && ch <= '\r');
+   }
+
+   private static boolean isCPunct(char ch)
+   {
+      return ch > ' ' && ch < 127 && !Character.isLetterOrDigit(ch);
+   }
+
+   private void findMatches(String[] terms,
+                            int maxEntries,
+                            JsArrayNumber matched)
+   {
+      int[] candidates = candidatesFor(terms);
+      if (candidates == null)
+      {
+         // no term is long enough to have a trigram; scan everything
+         for (int i = commands_.length() - 1;
+              i >= 0 && matched.length() < maxEntries;
+              i--)
+         {
+            if (containsAll(commands_.get(i), terms))
+               matched.push(i);
+         }
+         return;
+      }
+
+      for (int i = candidates.length - 1;
+           i >= 0 && matched.length() < maxEntries;
+           i--)
+      {
+         if (containsAll(commands_.get(candidates[i]), terms))
+            matched.push(candidates[i]);
+      }
+   }
+
+   // positions of the commands that might contain all of the terms
+   // (ascending), or null if none of the terms has a trigram; this is the
+   // shortest postings list merged with the (unindexed) long commands
+   private int[] candidatesFor(String[] terms)
+   {
+      JsArrayNumber best = null;
+      boolean haveTrigram = false;
+      for (String term : terms)
+      {
+         for (int i = 0; i + 3 <= term.length(); i++)
+         {
+            haveTrigram = true;
+            JsArrayNumber postings = getPostings(postings_, term.substring(i, i + 3));
+            if (postings == null)
+               postings = JavaScriptObject.createArray().cast();
+            if (best == null || postings.length() < best.length())
+               best = postings;
+         }
+      }
+
+      if (!haveTrigram)
+         return null;
+
+      int[] result = new int[best.length() + longCommands_.length()];
+      int b = 0;
+      int l = 0;
+      for (int i = 0; i < result.length; i++)
+      {
+         if (l >= longCommands_.length() ||
+             (b < best.length() && best.get(b) < longCommands_.get(l)))
+         {
+            result[i] = (int) best.get(b++);
+         }
+         else
+         {
+            result[i] = (int) longCommands_.get(l++);
+         }
+      }
+      return result;
+   }
+
+   private static boolean containsAll(String command, String[] terms)
+   {
+      for (String term : terms)
+         if (!command.contains(term))
+            return false;
+      return true;
+   }
+
+   private void loadChunk()
+   {
+      final int generation = generation_;
+      final int start = commands_.length();
+      server_.getHistoryArchiveItems(
+            start,
+            start + LOAD_CHUNK_SIZE,
+            new ServerRequestCallback<RpcObjectList<HistoryEntry>>()
+      {
+         @Override
+         public void onResponseReceived(RpcObjectList<HistoryEntry> response)
+         {
+            // ignore responses for a copy we've since discarded
+            if (generation != generation_)
+               return;
+
+            int count = response.length();
+            for (int i = 0; i < count; i++)
+            {
+               HistoryEntry entry = response.get(i);
+               addAt((int) entry.getIndex(),
+                     entry.getTimestamp().getTime(),
+                     entry.getCommand());
+            }
+            addPending();
+
+            if (count < LOAD_CHUNK_SIZE)
+            {
+               loading_ = false;
+               loaded_ = true;
+               pending_.clear();
+               return;
+            }
+
+            // yield between chunks so indexing doesn't block input
+            Scheduler.get().scheduleDeferred(new ScheduledCommand()
+            {
+               public void execute()
+               {
+                  if (generation == generation_)
+                     loadChunk();
+               }
+            });
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            if (generation != generation_)
+               return;
+
+            // leave what we have; the next ensureLoaded will resume
+            loading_ = false;
+            pending_.clear();
+         }
+      });
+   }
+
+   // adds the entries which arrived ahead of the chunks preceding them
+   private void addPending()
+   {
+      while (!pending_.isEmpty())
+      {
+         HistoryEntry entry = pending_.get(0);
+         if (!addAt(entry.getArchiveIndex(),
+                    entry.getTimestamp().getTime(),
+                    entry.getCommand()))
+         {
+            return;
+         }
+         pending_.remove(0);
+      }
+   }
+
+   // discards the local copy and loads the archive again
+   private void reload()
+   {
+      generation_++;
+      commands_.setLength(0);
+      indexes_.setLength(0);
+      timestamps_.setLength(0);
+      longCommands_.setLength(0);
+      postings_ = JavaScriptObject.createObject();
+      pending_.clear();
+
+      loading_ = false;
+      loaded_ = false;
+      ensureLoaded();
+   }
+
+   // adds the entry at the given archive index unless we already have it;
+   // returns false if earlier entries are still missing
+   private boolean addAt(int index, double timestamp, String command)
+   {
+      if (index > commands_.length())
+         return false;
+      if (index == commands_.length())
+         add(index, timestamp, command);
+      return true;
+   }
+
+   private void add(int index, double timestamp, String command)
+   {
+      int pos = commands_.length();
+      commands_.push(command);
+      indexes_.push(index);
+      timestamps_.push(timestamp);
+
+      if (command.length() > MAX_INDEXED_LENGTH)
+      {
+         longCommands_.push(pos);
+         return;
+      }
+
+      addPostings(postings_, command, pos);
+   }
+
+   private HistoryEntry entryAt(int pos)
+   {
+      return HistoryEntry.create((int) indexes_.get(pos),
+                                 timestamps_.get(pos),
+                                 commands_.get(pos));
+   }
+
+   // appends pos to the postings of each distinct trigram in command
+   private static native void addPostings(JavaScriptObject postings,
+                                          String command,
+                                          int pos) /*-{
+      for (var i = 0; i + 3 <= command.length; i++)
+      {
+         var key = "#" + command.substr(i, 3);
+         var list = postings[key];
+         if (list === undefined)
+            postings[key] = [pos];
+         else if (list[list.length - 1] !== pos)
+            list.push(pos);
+      }
+   }-*/;
+
+   private static native JsArrayNumber getPostings(JavaScriptObject postings,
+                                                   String trigram) /*-{
+      return postings["#" + trigram] || null;
+   }-*/;
+
+   // returns true if command hadn't been seen before
+   private static native boolean markSeen(JavaScriptObject seen,
+                                          String command) /*-{
+      var key = "#" + command;
+      if (seen[key])
+         return false;
+      seen[key] = true;
+      return true;
+   }-*/;
+
+   private final HistoryServerOperations server_;
+
+   private final JsArrayString commands_ =
+         JavaScriptObject.createArray().<JsArrayString>cast();
+   private final JsArrayNumber indexes_ =
+         JavaScriptObject.createArray().<JsArrayNumber>cast();
+   private final JsArrayNumber timestamps_ =
+         JavaScriptObject.createArray().<JsArrayNumber>cast();
+   private final JsArrayNumber longCommands_ =
+         JavaScriptObject.createArray().<JsArrayNumber>cast();
+   private JavaScriptObject postings_ = JavaScriptObject.createObject();
+   private final ArrayList<HistoryEntry> pending_ =
+         new ArrayList<HistoryEntry>();
+
+   private int generation_ = 0;
+   private boolean loading_ = false;
+   private boolean loaded_ = false;
+
+   private static final int LOAD_CHUNK_SIZE = 5000;
+   private static final int MAX_INDEXED_LENGTH = 500;
+}
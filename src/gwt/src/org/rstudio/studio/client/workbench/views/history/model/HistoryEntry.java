@@ -32,6 +32,16 @@ public class HistoryEntry extends JavaScriptObject
       return entry;
    }-*/;
    
+   public static final native HistoryEntry create(int index,
+                                                  double timestamp,
+                                                  String command) /*-{
+      var entry = new Object();
+      entry.index = index;
+      entry.timestamp = timestamp;
+      entry.command = command;
+      return entry;
+   }-*/;
+   
    public final long getIndex()
    { 
       return new Double(getIndexNative()).longValue();
@@ -43,6 +53,13 @@ public class HistoryEntry extends JavaScriptObject
       return new Date(lastModified.longValue());
    }
    
+   // position of the entry in the history archive, for entries delivered
+   // by HistoryEntriesAddedEvent (whose index is the console history's);
+   // -1 if it's unknown
+   public final native int getArchiveIndex() /*-{
+      return this.archive_index === undefined ? -1 : this.archive_index;
+   }-*/;
+   
    public final native String getCommand() /*-{
       return this.command;
    }-*/;
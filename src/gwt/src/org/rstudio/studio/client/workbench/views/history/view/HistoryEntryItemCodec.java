@@ -111,6 +111,22 @@ public class HistoryEntryItemCodec extends HeaderBreaksItemCodec<HistoryEntry, S
       return Long.parseLong(row.getAttribute("data-entry-id"));
    }
 
+   public String getOutputForItem(HistoryEntry entry)
+   {
+      return entry.getCommand();
+   }
+
+   public Long getOutputForItem2(HistoryEntry entry)
+   {
+      return entry.getIndex();
+   }
+
+   public boolean isValueItem(HistoryEntry entry)
+   {
+      // timestamp rows are breaks between items rather than items
+      return true;
+   }
+
    private long getTimestampForRow(TableRowElement row)
    {
       return Long.parseLong(row.getAttribute("data-timestamp"));
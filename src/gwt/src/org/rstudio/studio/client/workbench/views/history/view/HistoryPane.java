@@ -19,7 +19,6 @@ import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style.Unit;
-import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.GwtEvent;
@@ -65,6 +64,7 @@ public class HistoryPane extends WorkbenchPane
       String selected();
       String loadMore();
       String historyTable();
+      String virtualized();
 
       String command();
       String timestamp();
@@ -156,6 +156,11 @@ public class HistoryPane extends WorkbenchPane
       recentScrollPanel_.setWidget(vpanel);
       commandList_.setOwningScrollPanel(recentScrollPanel_);
 
+      // the recent commands list can grow to the size of the history, so
+      // only the visible rows are kept in the DOM
+      commandList_.setVirtualized();
+      commandList_.addStyleName(styles_.virtualized());
+
       mainPanel_.add(recentScrollPanel_);
       mainPanel_.setWidgetTopBottom(recentScrollPanel_, 0, Unit.PX, 0, Unit.PX);
       mainPanel_.setWidgetLeftRight(recentScrollPanel_, 0, Unit.PX, 0, Unit.PX);
@@ -409,18 +414,16 @@ public class HistoryPane extends WorkbenchPane
 
    public void addRecentCommands(ArrayList<HistoryEntry> entries, boolean top)
    {
-      TableRowElement topRow = null;
-      if (top)
-         topRow = commandList_.getTopRow();
+      boolean wasEmpty = commandList_.getRowCount() == 0;
 
+      // (the virtualized table keeps the current rows in view when items
+      // are added at the top)
       commandList_.addItems(entries, top);
 
       if (top)
       {
-         if (topRow == null)
+         if (wasEmpty)
             recentScrollPanel_.scrollToBottom();
-         else
-            recentScrollPanel_.setVerticalScrollPosition(topRow.getOffsetTop());
       }
       else
          recentScrollPanel_.onContentSizeChanged();
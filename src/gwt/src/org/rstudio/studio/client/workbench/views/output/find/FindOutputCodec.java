@@ -16,15 +16,21 @@ package org.rstudio.studio.client.workbench.views.output.find;
 
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.TableCellElement;
+import com.google.gwt.dom.client.TableElement;
 import com.google.gwt.dom.client.TableRowElement;
+import com.google.gwt.dom.client.TableSectionElement;
 import org.rstudio.core.client.CodeNavigationTarget;
 import org.rstudio.core.client.FilePosition;
-import org.rstudio.core.client.widget.HeaderBreaksItemCodec;
+import org.rstudio.core.client.widget.FastSelectTable.ItemCodec;
 import org.rstudio.studio.client.workbench.views.output.find.FindOutputResources.Styles;
 import org.rstudio.studio.client.workbench.views.output.find.model.FindResult;
 
+// The table of results is virtualized (so that there's no limit on the
+// number of results which can be shown), so the file headers are items of
+// their own (see FindResult.createFileHeader) rather than rows inserted by
+// the codec.
 public class FindOutputCodec
-      extends HeaderBreaksItemCodec<FindResult, CodeNavigationTarget, Object>
+      implements ItemCodec<FindResult, CodeNavigationTarget, Object>
 {
    public FindOutputCodec(FindOutputResources resources)
    {
@@ -34,15 +40,14 @@ public class FindOutputCodec
    @Override
    public TableRowElement getRowForItem(FindResult entry)
    {
-      if (entry == null)
+      if (entry.isFileHeader())
       {
-         // Overflow message
          TableRowElement tr = Document.get().createTRElement();
+         tr.setClassName(styles_.headerRow());
+
          TableCellElement td = Document.get().createTDElement();
-         td.setClassName(styles_.overflowWarning());
          td.setColSpan(2);
-         td.setInnerText("More than 1000 matching lines were found. " +
-                         "Only the first 1000 lines are shown.");
+         td.setInnerText(entry.getFile());
          tr.appendChild(td);
          return tr;
       }
@@ -65,28 +70,8 @@ public class FindOutputCodec
    }
 
    @Override
-   protected boolean needsBreak(TableRowElement prevRow, TableRowElement row)
+   public void onRowsChanged(TableSectionElement tbody)
    {
-      if (!row.hasAttribute(DATA_FILE))
-         return false;
-
-      return prevRow == null ||
-             !prevRow.getAttribute(DATA_FILE).equals(row.getAttribute(DATA_FILE));
-   }
-
-   @Override
-   protected int addBreak(TableRowElement row)
-   {
-      TableRowElement tr = Document.get().createTRElement();
-      tr.setClassName(styles_.headerRow());
-
-      TableCellElement td = Document.get().createTDElement();
-      td.setColSpan(2);
-      td.setInnerText(row.getAttribute(DATA_FILE));
-      tr.appendChild(td);
-
-      row.getParentElement().insertBefore(tr, row);
-      return 1;
    }
 
    @Override
@@ -110,10 +95,47 @@ public class FindOutputCodec
       return row.hasAttribute(DATA_FILE);
    }
 
+   @Override
+   public CodeNavigationTarget getOutputForItem(FindResult entry)
+   {
+      return new CodeNavigationTarget(entry.getFile(),
+                                      FilePosition.create(entry.getLine(), 1));
+   }
+
+   @Override
+   public Object getOutputForItem2(FindResult entry)
+   {
+      return null;
+   }
+
+   @Override
+   public boolean isValueItem(FindResult entry)
+   {
+      return !entry.isFileHeader();
+   }
+
    @Override
    public boolean hasNonValueRows()
    {
-      return true;
+      return false;
+   }
+
+   @Override
+   public Integer logicalOffsetToPhysicalOffset(TableElement table, int offset)
+   {
+      return offset;
+   }
+
+   @Override
+   public Integer physicalOffsetToLogicalOffset(TableElement table, int offset)
+   {
+      return offset;
+   }
+
+   @Override
+   public int getLogicalRowCount(TableElement table)
+   {
+      return table.getRows().getLength();
    }
 
    private Styles styles_;
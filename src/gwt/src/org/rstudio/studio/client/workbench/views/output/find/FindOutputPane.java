@@ -16,7 +16,6 @@ package org.rstudio.studio.client.workbench.views.output.find;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.dom.client.NativeEvent;
-import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
@@ -26,7 +25,6 @@ import com.google.gwt.user.client.ui.SimplePanel;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
 import org.rstudio.core.client.CodeNavigationTarget;
-import org.rstudio.core.client.dom.DomUtils;
 import org.rstudio.core.client.events.EnsureVisibleEvent;
 import org.rstudio.core.client.events.HasSelectionCommitHandlers;
 import org.rstudio.core.client.events.SelectionCommitEvent;
@@ -120,6 +118,11 @@ public class FindOutputPane extends WorkbenchPane
       scrollPanel_ = new ScrollPanel(table_);
       scrollPanel_.setSize("100%", "100%");
       container_.setWidget(scrollPanel_);
+
+      // there's no limit on the number of results, so only the visible
+      // rows are rendered
+      table_.setOwningScrollPanel(scrollPanel_);
+      table_.setVirtualized();
       return container_;
    }
 
@@ -133,20 +136,26 @@ public class FindOutputPane extends WorkbenchPane
    @Override
    public void addMatches(ArrayList<FindResult> findResults)
    {
-      int matchesToAdd = Math.min(findResults.size(), MAX_COUNT - matchCount_);
+      if (findResults.isEmpty())
+         return;
+
+      if (container_.getWidget() != scrollPanel_)
+         container_.setWidget(scrollPanel_);
 
-      if (matchesToAdd > 0)
+      // results arrive grouped by file; each file gets a header item
+      ArrayList<FindResult> items = new ArrayList<FindResult>();
+      for (FindResult result : findResults)
       {
-         matchCount_ += matchesToAdd;
-         
-         if (matchCount_ > 0 && container_.getWidget() != scrollPanel_)
-            container_.setWidget(scrollPanel_);
-            
-         table_.addItems(findResults.subList(0, matchesToAdd), false);
+         if (!result.getFile().equals(lastFile_))
+         {
+            lastFile_ = result.getFile();
+            items.add(FindResult.createFileHeader(lastFile_));
+         }
+         items.add(result);
       }
-      
-      if (matchesToAdd != findResults.size())
-         showOverflow();
+
+      matchCount_ += findResults.size();
+      table_.addItems(items, false);
    }
 
    @Override
@@ -154,7 +163,7 @@ public class FindOutputPane extends WorkbenchPane
    {
       context_.reset();
       table_.clear();
-      overflow_ = false;
+      lastFile_ = null;
       matchCount_ = 0;
       statusPanel_.setStatusText("");
       container_.setWidget(statusPanel_);
@@ -188,13 +197,7 @@ public class FindOutputPane extends WorkbenchPane
    @Override
    public void ensureSelectedRowIsVisible()
    {
-      ArrayList<TableRowElement> rows = table_.getSelectedRows();
-      if (rows.size() > 0)
-      {
-         DomUtils.ensureVisibleVert(scrollPanel_.getElement(),
-                                    rows.get(0),
-                                    20);
-      }
+      table_.ensureSelectionVisible();
    }
 
    @Override
@@ -204,18 +207,7 @@ public class FindOutputPane extends WorkbenchPane
    }
 
    @Override
-   public void showOverflow()
-   {
-      if (overflow_)
-         return;
-      overflow_ = true;
-      ArrayList<FindResult> items = new ArrayList<FindResult>();
-      items.add(null);
-      table_.addItems(items, false);
-   }
-
-   @Override
-   public void updateSearchLabel(String query, String path)
+   public void updateSearchLabel(String query, String path, boolean truncated)
    {
       SafeHtmlBuilder builder = new SafeHtmlBuilder();
       builder.appendEscaped("Results for ")
@@ -224,6 +216,9 @@ public class FindOutputPane extends WorkbenchPane
             .appendHtmlConstant("</strong>")
             .appendEscaped(" in ")
             .appendEscaped(path);
+      if (truncated)
+         builder.appendEscaped(" (some results were dropped when the " +
+                               "session was suspended)");
       searchLabel_.getElement().setInnerHTML(builder.toSafeHtml().asString());
    }
 
@@ -266,9 +261,6 @@ public class FindOutputPane extends WorkbenchPane
    private SimplePanel container_;
    private ScrollPanel scrollPanel_;
    private StatusPanel statusPanel_;
-   private boolean overflow_ = false;
+   private String lastFile_;
    private int matchCount_;
-
-   // This must be the same as MAX_COUNT in SessionFind.cpp
-   private static final int MAX_COUNT = 1000;
 }
@@ -34,6 +34,7 @@ import org.rstudio.core.client.widget.events.SelectionChangedHandler;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
+import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.VoidServerRequestCallback;
 import org.rstudio.studio.client.workbench.WorkbenchContext;
 import org.rstudio.studio.client.workbench.WorkbenchView;
@@ -67,11 +68,9 @@ public class FindOutputPresenter extends BasePresenter
 
       HandlerRegistration addSelectionChangedHandler(SelectionChangedHandler handler);
 
-      void showOverflow();
-      
       void showSearchCompleted();
 
-      void updateSearchLabel(String query, String path);
+      void updateSearchLabel(String query, String path, boolean truncated);
       void clearSearchLabel();
    }
 
@@ -129,6 +128,14 @@ public class FindOutputPresenter extends BasePresenter
          {
             if (!event.getHandle().equals(currentFindHandle_))
                return;
+            
+            // keep results in order while earlier ones are being fetched
+            if (pendingResults_ != null)
+            {
+               pendingResults_.addAll(event.getResults());
+               return;
+            }
+            
             view_.addMatches(event.getResults());
             
             view_.ensureVisible(true);
@@ -150,7 +157,9 @@ public class FindOutputPresenter extends BasePresenter
          }
       });
 
-      new JSObjectStateValue(GROUP_FIND_IN_FILES, KEY_DIALOG_STATE,
+      dialogStateValue_ = new JSObjectStateValue(
+                             GROUP_FIND_IN_FILES,
+                             KEY_DIALOG_STATE,
                              ClientState.PROJECT_PERSISTENT,
                              session.getSessionInfo().getClientState(),
                              false)
@@ -176,8 +185,19 @@ public class FindOutputPresenter extends BasePresenter
       view_.ensureVisible(false);
 
       currentFindHandle_ = state.getHandle();
+      int count = state.getResults().length();
       view_.addMatches(state.getResults().toArrayList());
-      updateSearchLabel(state.getInput(), state.getPath(), state.isRegex());
+      updateSearchLabel(state.getInput(), 
+                        state.getPath(), 
+                        state.isRegex(),
+                        state.isTruncated());
+      
+      // fetch the rest of the results a page at a time
+      if (count < state.getTotal())
+      {
+         pendingResults_ = new ArrayList<FindResult>();
+         fetchResults(state.getHandle(), count, state.getTotal());
+      }
 
       if (state.isRunning())
          view_.setStopSearchButtonVisible(true);
@@ -193,6 +213,7 @@ public class FindOutputPresenter extends BasePresenter
          public void execute(final FindInFilesDialog.State input)
          {
             dialogState_ = input;
+            dialogStateValue_.markDirty();
 
             stopAndClear();
 
@@ -216,7 +237,8 @@ public class FindOutputPresenter extends BasePresenter
                                     currentFindHandle_ = handle;
                                     updateSearchLabel(input.getQuery(),
                                                       input.getPath(),
-                                                      input.isRegex());
+                                                      input.isRegex(),
+                                                      false);
                                     view_.setStopSearchButtonVisible(true);
 
                                     super.onResponseReceived(handle);
@@ -251,19 +273,69 @@ public class FindOutputPresenter extends BasePresenter
       server_.clearFindResults(new VoidServerRequestCallback());
    }
 
-   private void updateSearchLabel(String query, String path, boolean regex)
+   private void fetchResults(final String handle,
+                             final int offset,
+                             final int total)
+   {
+      pagingHandle_ = handle;
+      server_.getFindResults(
+            handle,
+            offset,
+            Math.min(RESULT_PAGE_SIZE, total - offset),
+            new SimpleRequestCallback<FindInFilesState>()
+            {
+               @Override
+               public void onResponseReceived(FindInFilesState page)
+               {
+                  // ignore if the results have been cleared since
+                  if (pendingResults_ == null || 
+                      !handle.equals(pagingHandle_))
+                     return;
+                  
+                  int count = page.getResults().length();
+                  view_.addMatches(page.getResults().toArrayList());
+                  if (count > 0 && offset + count < total)
+                     fetchResults(handle, offset + count, total);
+                  else
+                     onFetchCompleted();
+               }
+               
+               @Override
+               public void onError(ServerError error)
+               {
+                  onFetchCompleted();
+                  super.onError(error);
+               }
+            });
+   }
+   
+   private void onFetchCompleted()
+   {
+      ArrayList<FindResult> results = pendingResults_;
+      pendingResults_ = null;
+      pagingHandle_ = null;
+      if (results != null && !results.isEmpty())
+         view_.addMatches(results);
+   }
+
+   private void updateSearchLabel(String query, 
+                                  String path, 
+                                  boolean regex,
+                                  boolean truncated)
    {
       if (regex)
          query = "/" + query + "/";
       else
          query = "\"" + query + "\"";
 
-      view_.updateSearchLabel(query, path);
+      view_.updateSearchLabel(query, path, truncated);
    }
 
    private void stopAndClear()
    {
       stop();
+      pendingResults_ = null;
+      pagingHandle_ = null;
       view_.clearMatches();
       view_.clearSearchLabel();
    }
@@ -280,8 +352,13 @@ public class FindOutputPresenter extends BasePresenter
    }
 
    private String currentFindHandle_;
+   
+   // results received while earlier ones are being fetched (null if not)
+   private ArrayList<FindResult> pendingResults_;
+   private String pagingHandle_;
 
    private FindInFilesDialog.State dialogState_;
+   private JSObjectStateValue dialogStateValue_;
 
    private final Display view_;
    private final FindInFilesServerOperations server_;
@@ -290,5 +367,6 @@ public class FindOutputPresenter extends BasePresenter
    private EventBus events_;
 
    private static final String GROUP_FIND_IN_FILES = "find-in-files";
+   private static final int RESULT_PAGE_SIZE = 1000;
    private static final String KEY_DIALOG_STATE = "dialog-state";
 }
@@ -26,7 +26,6 @@ public interface FindOutputResources extends ClientBundle
       String line();
       String lineValue();
       String selectedRow();
-      String overflowWarning();
    }
 
    @Source("FindOutput.css")
@@ -31,5 +31,12 @@ public interface FindInFilesServerOperations
    void stopFind(String findOperationHandle,
                  ServerRequestCallback<Void> requestCallback);
 
+   // fetches count results starting from offset (only the first results
+   // are included in the state sent at startup)
+   void getFindResults(String findOperationHandle,
+                       int offset,
+                       int count,
+                       ServerRequestCallback<FindInFilesState> requestCallback);
+
    void clearFindResults(ServerRequestCallback<Void> requestCallback);
 }
@@ -38,6 +38,17 @@ public class FindInFilesState extends JavaScriptObject
       return this.results;
    }-*/;
 
+   // the number of results when the state was sent (only the first of
+   // which are included in it)
+   public native final int getTotal() /*-{
+      return this.total || 0;
+   }-*/;
+
+   // true if results were dropped when the session was suspended
+   public native final boolean isTruncated() /*-{
+      return !!this.truncated;
+   }-*/;
+
    public native final boolean isRunning() /*-{
       return this.running;
    }-*/;
@@ -34,8 +34,22 @@ public class FindResult extends JavaScriptObject
       });
    }-*/;
 
+   // placeholder item for the header shown above the results for a file
+   public static native FindResult createFileHeader(String file) /*-{
+      return ({
+         file: file,
+         line: -1,
+         lineValue: "",
+         file_header: true
+      });
+   }-*/;
+
    protected FindResult() {}
 
+   public native final boolean isFileHeader() /*-{
+      return !!this.file_header;
+   }-*/;
+
    public native final String getFile() /*-{
       return this.file;
    }-*/;
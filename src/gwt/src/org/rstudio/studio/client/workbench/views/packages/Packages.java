@@ -14,10 +14,13 @@
  */
 package org.rstudio.studio.client.workbench.views.packages;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.RunAsyncCallback;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.Window;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
@@ -153,7 +156,8 @@ public class Packages
       events.addHandler(PackageStatusChangedEvent.TYPE, this);
       
       // make the install options persistent
-      new JSObjectStateValue("packages-pane", "installOptions", ClientState.PROJECT_PERSISTENT,
+      installOptionsStateValue_ = new JSObjectStateValue(
+            "packages-pane", "installOptions", ClientState.PROJECT_PERSISTENT,
             session.getSessionInfo().getClientState(), false)
       {
          @Override
@@ -295,6 +299,7 @@ public class Packages
                                  installOptions_.getInstallFromRepository(),
                                  installContext.getDefaultLibraryPath(), 
                                  installOptions_.getInstallDependencies());
+         installOptionsStateValue_.markDirty();
       }
       
       view_.installPackage(
@@ -307,6 +312,7 @@ public class Packages
             public void execute(PackageInstallRequest request)
             {
                installOptions_ = request.getOptions();
+               installOptionsStateValue_.markDirty();
                
                boolean usingDefaultLibrary = 
                   request.getOptions().getLibraryPath().equals(
@@ -988,45 +994,73 @@ public class Packages
       private final Command onExecute_;
    }
    
-   private void confirmPackratActions(JsArray<PackratPackageAction> actions, 
-                                      String actionTitle, 
-                                      final String packratFunction)
+   private void confirmPackratActions(
+                                 final JsArray<PackratPackageAction> actions, 
+                                 final String actionTitle, 
+                                 final String packratFunction)
    {
-      new PackratActionDialog(actionTitle, actions, 
-            new OperationWithInput<Void>()
-            {
-               @Override
-               public void execute(Void input)
-               {
-                  packratUtil_.executePackratFunction(packratFunction, 
-                        "prompt = FALSE");
-               }
-            }).showModal();
+      // the packrat dialogs are in their own fragment
+      GWT.runAsync(PackratActionDialog.class, new RunAsyncCallback()
+      {
+         @Override
+         public void onFailure(Throwable reason)
+         {
+            Window.alert("Error: " + reason.getMessage());
+         }
+
+         @Override
+         public void onSuccess()
+         {
+            new PackratActionDialog(actionTitle, actions, 
+                  new OperationWithInput<Void>()
+                  {
+                     @Override
+                     public void execute(Void input)
+                     {
+                        packratUtil_.executePackratFunction(packratFunction, 
+                              "prompt = FALSE");
+                     }
+                  }).showModal();
+         }
+      });
    }
    
    private void resolvePackratConflicts(
-         JsArray<PackratPackageAction> restoreActions,
-         JsArray<PackratPackageAction> snapshotActions)
+         final JsArray<PackratPackageAction> restoreActions,
+         final JsArray<PackratPackageAction> snapshotActions)
    {
-      new PackratResolveConflictDialog(
-            createConflictsFromActions(restoreActions, snapshotActions), 
-            new OperationWithInput<PackratConflictResolution>()
-            {
-               @Override
-               public void execute(PackratConflictResolution input)
-               {
-                  if (input == PackratConflictResolution.Library)
-                  {
-                     packratUtil_.executePackratFunction("restore", 
-                           "prompt = FALSE");
-                  }
-                  else if (input == PackratConflictResolution.Snapshot)
+      GWT.runAsync(PackratResolveConflictDialog.class, new RunAsyncCallback()
+      {
+         @Override
+         public void onFailure(Throwable reason)
+         {
+            Window.alert("Error: " + reason.getMessage());
+         }
+
+         @Override
+         public void onSuccess()
+         {
+            new PackratResolveConflictDialog(
+                  createConflictsFromActions(restoreActions, snapshotActions), 
+                  new OperationWithInput<PackratConflictResolution>()
                   {
-                     packratUtil_.executePackratFunction("snapshot",
-                           "prompt = FALSE");
-                  }
-               }
-            }).showModal();
+                     @Override
+                     public void execute(PackratConflictResolution input)
+                     {
+                        if (input == PackratConflictResolution.Library)
+                        {
+                           packratUtil_.executePackratFunction("restore", 
+                                 "prompt = FALSE");
+                        }
+                        else if (input == PackratConflictResolution.Snapshot)
+                        {
+                           packratUtil_.executePackratFunction("snapshot",
+                                 "prompt = FALSE");
+                        }
+                     }
+                  }).showModal();
+         }
+      });
    }
    
    private void setViewActions(final PackageState packageState)
@@ -1293,4 +1327,5 @@ public class Packages
    private final Session session_;
    private PackageInstallOptions installOptions_ = 
                                   PackageInstallOptions.create(true, "", true);
+   private JSObjectStateValue installOptionsStateValue_;
 }
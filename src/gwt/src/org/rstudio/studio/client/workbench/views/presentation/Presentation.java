@@ -85,6 +85,7 @@ public class Presentation extends BasePresenter
    public interface Display extends WorkbenchView
    {  
       void load(String url);
+      void refresh(String url, int slideIndex);
       void zoom(String title, String url, Command onClosed);
       void clear();
       boolean hasSlides();
@@ -411,7 +412,7 @@ public class Presentation extends BasePresenter
    private void refreshPresentation()
    {
       view_.showBusy();
-      view_.load(buildPresentationUrl());
+      view_.refresh(buildPresentationUrl(), currentState_.getSlideIndex());
    }
    
    @Handler
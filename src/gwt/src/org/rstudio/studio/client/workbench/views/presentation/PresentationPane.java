@@ -30,6 +30,7 @@ import com.google.inject.Inject;
 
 
 import org.rstudio.core.client.command.ShortcutManager;
+import org.rstudio.core.client.dom.HtmlDocumentPatcher;
 import org.rstudio.core.client.dom.WindowEx;
 import org.rstudio.core.client.events.NativeKeyDownEvent;
 import org.rstudio.core.client.resources.CoreResources;
@@ -129,6 +130,39 @@ public class PresentationPane extends WorkbenchPane implements Presentation.Disp
    public void load(String url)
    {   
       frame_.navigate(url);
+      
+      // remember the source of the deck so its first refresh can be patched
+      patcher_.capture(getDocumentKey(url), url);
+   }
+   
+   @Override
+   public void refresh(final String url, final int slideIndex)
+   {
+      // patch changed slides into the deck that's showing if we can, 
+      // otherwise reload it
+      if (!hasSlides())
+      {
+         load(url);
+         return;
+      }
+      
+      patcher_.patch(frame_.getWindow().getDocument(), 
+                     getDocumentKey(url),
+                     url,
+                     new Command() {
+                        @Override
+                        public void execute()
+                        {
+                           navigate(slideIndex);
+                        }
+                     },
+                     new Command() {
+                        @Override
+                        public void execute()
+                        {
+                           frame_.navigate(url);
+                        }
+                     });
    }
    
    @Override
@@ -292,6 +326,16 @@ public class PresentationPane extends WorkbenchPane implements Presentation.Disp
    private ToolbarButton progressButton_;
    private boolean busyPending_ = false;
    private PresentationFrame frame_ ;
+   // the deck is always served from the same URL (the anchor just selects
+   // the slide)
+   private static String getDocumentKey(String url)
+   {
+      int anchorPos = url.indexOf('#');
+      return anchorPos >= 0 ? url.substring(0, anchorPos) : url;
+   }
+   
+   private final HtmlDocumentPatcher patcher_ = 
+                              new HtmlDocumentPatcher(".reveal > .slides");
    private final Commands commands_;
    private final Session session_;
    
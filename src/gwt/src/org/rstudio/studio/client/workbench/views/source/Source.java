@@ -14,8 +14,10 @@
  */
 package org.rstudio.studio.client.workbench.views.source;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.core.client.RunAsyncCallback;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.event.dom.client.ChangeEvent;
@@ -28,6 +30,7 @@ import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.resources.client.ImageResource;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.IsWidget;
 import com.google.gwt.user.client.ui.Widget;
 import com.google.inject.Inject;
@@ -74,7 +77,9 @@ import org.rstudio.studio.client.server.VoidServerRequestCallback;
 import org.rstudio.studio.client.workbench.FileMRUList;
 import org.rstudio.studio.client.workbench.WorkbenchContext;
 import org.rstudio.studio.client.workbench.commands.Commands;
+import org.rstudio.studio.client.workbench.events.DeferredSessionInfoEvent;
 import org.rstudio.studio.client.workbench.model.ClientState;
+import org.rstudio.studio.client.workbench.model.DeferredSessionInfo;
 import org.rstudio.studio.client.workbench.model.RemoteFileSystemContext;
 import org.rstudio.studio.client.workbench.model.Session;
 import org.rstudio.studio.client.workbench.model.SessionInfo;
@@ -114,6 +119,7 @@ import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
 import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 public class Source implements InsertSourceHandler,
@@ -399,7 +405,56 @@ public class Source implements InsertSourceHandler,
          }
       });
 
-      restoreDocuments(session);
+      uiPrefs_.verticallyAlignArgumentIndent().bind(new CommandWithArg<Boolean>()
+      {
+         @Override
+         public void execute(Boolean arg)
+         {
+            AceEditorNative.setVerticallyAlignFunctionArgs(arg);
+         }
+      });
+       
+      initialized_ = true;
+      manageCommands();
+      
+      // the open documents are sent with the deferred session info (which
+      // may have arrived before this code was loaded)
+      if (session.getDeferredSessionInfo() != null)
+      {
+         restoreDocuments(session, session.getDeferredSessionInfo());
+      }
+      else
+      {
+         deferredInfoReg_ = events.addHandler(DeferredSessionInfoEvent.TYPE,
+                                        new DeferredSessionInfoEvent.Handler()
+         {
+            @Override
+            public void onDeferredSessionInfo(DeferredSessionInfoEvent event)
+            {
+               deferredInfoReg_.removeHandler();
+               restoreDocuments(session, event.getInfo());
+            }
+         });
+      }
+      
+      // add vim commands
+      initVimCommands();
+   }
+   
+   private void restoreDocuments(final Session session,
+                                 DeferredSessionInfo info)
+   {
+      // documents opened before the session's documents arrived stay where
+      // they are, and keep the selection
+      final boolean hadTabs = view_.getTabCount() > 0;
+      
+      // commands aren't managed (and tabs aren't focused) while restoring
+      initialized_ = false;
+      JsArray<SourceDocument> docs = info.getSourceDocuments();
+      for (int i = 0; i < docs.length(); i++)
+      {
+         addTab(docs.get(i));
+      }
 
       new IntStateValue(MODULE_SOURCE, KEY_ACTIVETAB, ClientState.PROJECT_PERSISTENT,
                         session.getSessionInfo().getClientState())
@@ -407,7 +462,7 @@ public class Source implements InsertSourceHandler,
          @Override
          protected void onInit(Integer value)
          {
-            if (value == null)
+            if (value == null || hadTabs)
                return;
             if (value >= 0 && view_.getTabCount() > value)
                view_.selectTab(value);
@@ -422,33 +477,24 @@ public class Source implements InsertSourceHandler,
          }
 
          @Override
-         protected Integer getValue()
+         protected boolean pollForChanges()
          {
-            return getPhysicalTabIndex();
+            return true;
          }
-      };
 
-      uiPrefs_.verticallyAlignArgumentIndent().bind(new CommandWithArg<Boolean>()
-      {
          @Override
-         public void execute(Boolean arg)
+         protected Integer getValue()
          {
-            AceEditorNative.setVerticallyAlignFunctionArgs(arg);
+            return getPhysicalTabIndex();
          }
-      });
-       
+      };
+
       initialized_ = true;
-      // As tabs were added before, manageCommands() was suppressed due to
-      // initialized_ being false, so we need to run it explicitly
       manageCommands();
-      // Same with this event
       fireDocTabsChanged();
       
       // open project docs
       openProjectDocs(session);    
-      
-      // add vim commands
-      initVimCommands();
    }
    
    private void initVimCommands()
@@ -549,17 +595,6 @@ public class Source implements InsertSourceHandler,
       return view_.asWidget();
    }
 
-   private void restoreDocuments(final Session session)
-   {
-      final JsArray<SourceDocument> docs =
-            session.getSessionInfo().getSourceDocuments();
-
-      for (int i = 0; i < docs.length(); i++)
-      {
-         addTab(docs.get(i));
-      }
-   }
-   
    private void openProjectDocs(final Session session)
    {
       JsArrayString openDocs = session.getSessionInfo().getProjectOpenDocs();
@@ -940,36 +975,50 @@ public class Source implements InsertSourceHandler,
          new CommandWithArg<RMarkdownContext>(){
 
             @Override
-            public void execute(RMarkdownContext context)
+            public void execute(final RMarkdownContext context)
             {
-               new NewRMarkdownDialog(
-                  context,
-                  workbenchContext_,
-                  uiPrefs_.documentAuthor().getGlobalValue(),
-                  new OperationWithInput<NewRMarkdownDialog.Result>()
+               // the template wizard is in its own fragment
+               GWT.runAsync(NewRMarkdownDialog.class, new RunAsyncCallback()
+               {
+                  @Override
+                  public void onFailure(Throwable reason)
                   {
-                     @Override
-                     public void execute(final NewRMarkdownDialog.Result result)
-                     {
-                        if (result.isNewDocument())
+                     Window.alert("Error: " + reason.getMessage());
+                  }
+
+                  @Override
+                  public void onSuccess()
+                  {
+                     new NewRMarkdownDialog(
+                        context,
+                        workbenchContext_,
+                        uiPrefs_.documentAuthor().getGlobalValue(),
+                        new OperationWithInput<NewRMarkdownDialog.Result>()
                         {
-                           NewRMarkdownDialog.RmdNewDocument doc = 
-                                 result.getNewDocument();
-                           String author = doc.getAuthor();
-                           if (author.length() > 0)
+                           @Override
+                           public void execute(final NewRMarkdownDialog.Result result)
                            {
-                              uiPrefs_.documentAuthor().setGlobalValue(author);
-                              uiPrefs_.writeUIPrefs();
+                              if (result.isNewDocument())
+                              {
+                                 NewRMarkdownDialog.RmdNewDocument doc = 
+                                       result.getNewDocument();
+                                 String author = doc.getAuthor();
+                                 if (author.length() > 0)
+                                 {
+                                    uiPrefs_.documentAuthor().setGlobalValue(author);
+                                    uiPrefs_.writeUIPrefs();
+                                 }
+                                 newRMarkdownV2Doc(doc);
+                              }
+                              else
+                              {
+                                 newDocFromRmdTemplate(result);
+                              }
                            }
-                           newRMarkdownV2Doc(doc);
                         }
-                        else
-                        {
-                           newDocFromRmdTemplate(result);
-                        }
-                     }
+                     ).showModal();
                   }
-               ).showModal();
+               });
             }
          }
       );
@@ -1422,11 +1471,7 @@ public class Source implements InsertSourceHandler,
    
    private EditingTarget getEditingTargetForId(String id)
    {
-      for (EditingTarget target : editors_)
-         if (id.equals(target.getId()))
-            return target;
-
-      return null;
+      return editorsById_.get(id);
    }
    
    @Handler
@@ -2006,6 +2051,7 @@ public class Source implements InsertSourceHandler,
       final Widget widget = target.asWidget();
 
       editors_.add(target);
+      editorsById_.put(target.getId(), target);
       view_.addTab(widget,
                    target.getIcon(),
                    target.getName().getValue(),
@@ -2133,14 +2179,10 @@ public class Source implements InsertSourceHandler,
          // tab -- if it does then set this on the event
          if (srcNav != null)
          {
-            for (int i=0; i<editors_.size(); i++)
-            {
-               if (srcNav.getDocumentId().equals(editors_.get(i).getId()))
-               {
-                  view_.selectTab(i);
-                  break;
-               }
-            }
+            EditingTarget target = 
+                  getEditingTargetForId(srcNav.getDocumentId());
+            if (target != null)
+               view_.selectTab(editors_.indexOf(target));
          }
       }
    }
@@ -2148,6 +2190,7 @@ public class Source implements InsertSourceHandler,
    public void onTabClosed(TabClosedEvent event)
    {
       EditingTarget target = editors_.remove(event.getTabIndex());
+      editorsById_.remove(target.getId());
 
       tabOrder_.remove(new Integer(event.getTabIndex()));
       for (int i = 0; i < tabOrder_.size(); i++)
@@ -2244,6 +2287,7 @@ public class Source implements InsertSourceHandler,
       }
 
       events_.fireEvent(new DocTabsChangedEvent(ids, icons, names, paths));
+      events_.checkpoint("source documents open: " + ids.length);
 
       view_.manageChevronVisibility();
    }
@@ -2855,14 +2899,9 @@ public class Source implements InsertSourceHandler,
    public void onSourceExtendedTypeDetected(SourceExtendedTypeDetectedEvent e)
    {
       // set the extended type of the specified source file
-      for (EditingTarget editor : editors_)
-      {
-         if (editor.getId().equals(e.getDocId()))
-         {
-            editor.adaptToExtendedFileType(e.getExtendedType());
-            break;
-         }
-      }
+      EditingTarget editor = getEditingTargetForId(e.getDocId());
+      if (editor != null)
+         editor.adaptToExtendedFileType(e.getExtendedType());
    }
    
    // when tabs have been reordered in the session, the physical layout of the
@@ -2893,6 +2932,9 @@ public class Source implements InsertSourceHandler,
    }
 
    ArrayList<EditingTarget> editors_ = new ArrayList<EditingTarget>();
+   // the same editors, by document id
+   private final HashMap<String, EditingTarget> editorsById_ =
+         new HashMap<String, EditingTarget>();
    ArrayList<Integer> tabOrder_ = new ArrayList<Integer>();
    private EditingTarget activeEditor_;
    private final Commands commands_;
@@ -2922,6 +2964,7 @@ public class Source implements InsertSourceHandler,
    private static final String MODULE_SOURCE = "source-pane";
    private static final String KEY_ACTIVETAB = "activeTab";
    private boolean initialized_;
+   private HandlerRegistration deferredInfoReg_;
    private Timer debugSelectionTimer_ = null;
 
    // If positive, a new tab is about to be created
@@ -195,30 +195,17 @@ public class AceEditor implements DocDisplay,
 
    public static void load(final Command command)
    {
-      aceLoader_.addCallback(new Callback()
+      // fetch the scripts concurrently; they are still executed in order
+      ExternalJavaScriptLoader.loadInParallel(
+            new ExternalJavaScriptLoader[] {
+               aceLoader_, aceSupportLoader_, vimLoader_, emacsLoader_
+            },
+            new Callback()
       {
          public void onLoaded()
          {
-            aceSupportLoader_.addCallback(new Callback()
-            {
-               public void onLoaded()
-               {
-                  vimLoader_.addCallback(new Callback()
-                  {
-                     public void onLoaded()
-                     {
-                        emacsLoader_.addCallback(new Callback()
-                        {
-                           public void onLoaded()
-                           {
-                              if (command != null)
-                                 command.execute();
-                           }
-                        });
-                     }
-                  });
-               }
-            });
+            if (command != null)
+               command.execute();
          }
       });
    }
@@ -1423,6 +1410,12 @@ public class AceEditor implements DocDisplay,
       return widget_.addCursorChangedHandler(handler);
    }
    
+   public HandlerRegistration addDocumentChangedHandler(
+                                    DocumentChangedEvent.Handler handler)
+   {
+      return widget_.addDocumentChangedHandler(handler);
+   }
+   
    public HandlerRegistration addEditorFocusHandler(FocusHandler handler)
    {
       return widget_.addFocusHandler(handler);
@@ -1551,6 +1544,11 @@ public class AceEditor implements DocDisplay,
       return getSession().getMode().getCodeModel().getScopeTree();
    }
 
+   public JsArray<Scope> getFlattenedScopeList()
+   {
+      return getSession().getMode().getCodeModel().getFlattenedScopeList();
+   }
+
    @Override
    public InsertChunkInfo getInsertChunkInfo()
    {
@@ -1714,6 +1712,12 @@ public class AceEditor implements DocDisplay,
    {
       return widget_.hasBreakpoints();
    }
+
+   @Override
+   public void setAnnotations(JsArray<AceAnnotation> annotations)
+   {
+      getSession().setAnnotations(annotations);
+   }
    
    private void navigate(SourcePosition srcPosition, boolean addToHistory)
    {
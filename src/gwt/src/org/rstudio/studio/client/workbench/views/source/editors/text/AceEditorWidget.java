@@ -92,7 +92,11 @@ public class AceEditorWidget extends Composite
             inOnChangeHandler_ = true;
             try
             {
-               ValueChangeEvent.fire(AceEditorWidget.this, null);            
+               // document changed handlers (e.g. the metadata cache) need
+               // to see the change before value change handlers read state
+               // derived from the document
+               fireEvent(new DocumentChangedEvent(changeEvent));
+               ValueChangeEvent.fire(AceEditorWidget.this, null);
                updateBreakpoints(changeEvent);
             }
             catch (Exception ex)
@@ -206,6 +210,12 @@ public class AceEditorWidget extends Composite
       return addHandler(handler, FoldChangeEvent.TYPE);
    }
    
+   public HandlerRegistration addDocumentChangedHandler(
+         DocumentChangedEvent.Handler handler)
+   {
+      return addHandler(handler, DocumentChangedEvent.TYPE);
+   }
+   
    public HandlerRegistration addBreakpointSetHandler
       (BreakpointSetEvent.Handler handler)
    {
@@ -22,6 +22,7 @@ import org.rstudio.studio.client.workbench.views.console.shell.assist.Completion
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorDisplay;
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorPosition;
 import org.rstudio.studio.client.workbench.views.console.shell.editor.InputEditorSelection;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceAnnotation;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceFold;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Anchor;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Mode.InsertChunkInfo;
@@ -34,6 +35,7 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.events.Brea
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.BreakpointSetEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CommandClickEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.CursorChangedHandler;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.FindRequestedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.HasFoldChangeHandlers;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.UndoRedoHandler;
@@ -89,6 +91,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    // "TeX". Use SweaveFileType constants to test for these values.
    String getLanguageMode(Position position);
    void replaceSelection(String code);
+   void replaceRange(Range range, String text);
    boolean moveSelectionToNextLine(boolean skipBlankLines);
    boolean moveSelectionToBlankLine(); 
    void reindent();
@@ -143,6 +146,9 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    HandlerRegistration addFindRequestedHandler(FindRequestedEvent.Handler handler);
    
    HandlerRegistration addCursorChangedHandler(CursorChangedHandler handler);
+
+   HandlerRegistration addDocumentChangedHandler(
+                                    DocumentChangedEvent.Handler handler);
    
    Position getCursorPosition();
    void setCursorPosition(Position position);
@@ -177,6 +183,7 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    Scope getSectionAtPosition(Position position);
    boolean hasScopeTree();
    JsArray<Scope> getScopeTree();
+   JsArray<Scope> getFlattenedScopeList();
    InsertChunkInfo getInsertChunkInfo();
 
    void foldAll();
@@ -236,6 +243,8 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    void removeAllBreakpoints();
    void toggleBreakpointAtCursor();
    boolean hasBreakpoints();
+
+   void setAnnotations(JsArray<AceAnnotation> annotations);
    
    void setPopupVisible(boolean visible);
    boolean isPopupVisible();
@@ -0,0 +1,133 @@
+/*
+ * RExpressionSplitter.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+
+// Splits R code into top-level expressions (each of which spans whole
+// lines). A line ends an expression unless it's inside a string or
+// brackets, or ends with a binary operator or comma. This is only an
+// approximation of the R grammar, but a wrong split just means the
+// linter sees slightly different chunks of code; unbalanced closing
+// brackets end the expression so that a single error can't merge the
+// rest of the document into one expression.
+public class RExpressionSplitter
+{
+   public static class Expression
+   {
+      public Expression(int startRow, String code)
+      {
+         this.startRow = startRow;
+         this.code = code;
+      }
+
+      public final int startRow;
+      public final String code;
+   }
+
+   public static ArrayList<Expression> split(String code)
+   {
+      ArrayList<Expression> expressions = new ArrayList<Expression>();
+      String[] lines = code.split("\n", -1);
+
+      StringBuilder current = new StringBuilder();
+      int startRow = -1;
+      int depth = 0;
+      char quote = 0;
+
+      for (int row = 0; row < lines.length; row++)
+      {
+         String line = lines[row];
+         boolean blank = quote == 0;
+         char last = 0;
+
+         for (int i = 0; i < line.length(); i++)
+         {
+            char ch = line.charAt(i);
+            if (quote != 0)
+            {
+               if (ch == '\\')
+                  i++;
+               else if (ch == quote)
+                  quote = 0;
+               last = ch;
+               continue;
+            }
+
+            if (ch == '#')
+               break;
+            if (Character.isWhitespace(ch))
+               continue;
+
+            blank = false;
+            last = ch;
+            if (ch == '"' || ch == '\'' || ch == '`')
+               quote = ch;
+            else if (ch == '(' || ch == '[' || ch == '{')
+               depth++;
+            else if (ch == ')' || ch == ']' || ch == '}')
+               depth--;
+         }
+
+         if (startRow == -1)
+         {
+            if (blank)
+               continue;
+            startRow = row;
+         }
+         current.append(line).append('\n');
+
+         boolean continued;
+         if (depth < 0)
+         {
+            depth = 0;
+            continued = false;
+         }
+         else
+         {
+            continued = quote != 0 ||
+                        depth > 0 ||
+                        CONTINUATION_CHARS.indexOf(last) != -1;
+         }
+
+         if (!continued || row == lines.length - 1)
+         {
+            expressions.add(new Expression(startRow, current.toString()));
+            current.setLength(0);
+            startRow = -1;
+         }
+      }
+
+      return expressions;
+   }
+
+   // the distinct code of the expressions which aren't keys of the cache
+   public static ArrayList<String> uncached(ArrayList<Expression> expressions,
+                                            Map<String, ?> cache)
+   {
+      ArrayList<String> uncached = new ArrayList<String>();
+      HashSet<String> seen = new HashSet<String>();
+      for (Expression expression : expressions)
+      {
+         if (!cache.containsKey(expression.code) && seen.add(expression.code))
+            uncached.add(expression.code);
+      }
+      return uncached;
+   }
+
+   private static final String CONTINUATION_CHARS = "+-*/^&|~,=<>!%:$@";
+}
@@ -0,0 +1,129 @@
+/*
+ * ReformatEdits.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.patch.SubstringDiff;
+
+// The edits which turn a run of text into its reformatted version, given as
+// consecutive chunks (e.g. top-level expressions) of original and
+// reformatted text. Only the part of a chunk between its common prefix and
+// suffix is edited. Edit ranges are rows and columns of the original
+// document, in order, so they should be applied from the last to the first.
+public class ReformatEdits
+{
+   public static class Edit
+   {
+      public Edit(int startRow,
+                  int startColumn,
+                  int endRow,
+                  int endColumn,
+                  String text)
+      {
+         this.startRow = startRow;
+         this.startColumn = startColumn;
+         this.endRow = endRow;
+         this.endColumn = endColumn;
+         this.text = text;
+      }
+
+      public final int startRow;
+      public final int startColumn;
+      public final int endRow;
+      public final int endColumn;
+      public final String text;
+   }
+
+   // the text starts at the given position of the document
+   public ReformatEdits(int startRow, int startColumn)
+   {
+      row_ = newRow_ = startRow;
+      column_ = newColumn_ = startColumn;
+   }
+
+   public void add(String original, String replacement)
+   {
+      if (!original.equals(replacement))
+      {
+         SubstringDiff diff = new SubstringDiff(original, replacement);
+         int offset = diff.getOffset();
+         advance(original, 0, offset);
+         int startRow = row_;
+         int startColumn = column_;
+         advance(original, offset, offset + diff.getLength());
+         edits_.add(new Edit(startRow,
+                             startColumn,
+                             row_,
+                             column_,
+                             diff.getReplacement()));
+         advance(original, offset + diff.getLength(), original.length());
+      }
+      else
+      {
+         advance(original, 0, original.length());
+      }
+
+      for (int i = 0; i < replacement.length(); i++)
+      {
+         if (replacement.charAt(i) == '\n')
+         {
+            newRow_++;
+            newColumn_ = 0;
+         }
+         else
+            newColumn_++;
+      }
+   }
+
+   public ArrayList<Edit> getEdits()
+   {
+      return edits_;
+   }
+
+   // the position at which the reformatted text ends, once the edits have
+   // been applied
+   public int getEndRow()
+   {
+      return newRow_;
+   }
+
+   public int getEndColumn()
+   {
+      return newColumn_;
+   }
+
+   private void advance(String text, int begin, int end)
+   {
+      for (int i = begin; i < end; i++)
+      {
+         if (text.charAt(i) == '\n')
+         {
+            row_++;
+            column_ = 0;
+         }
+         else
+            column_++;
+      }
+   }
+
+   private final ArrayList<Edit> edits_ = new ArrayList<Edit>();
+
+   // the end of the original and reformatted text added so far
+   private int row_;
+   private int column_;
+   private int newRow_;
+   private int newColumn_;
+}
@@ -16,16 +16,17 @@ package org.rstudio.studio.client.workbench.views.source.editors.text;
 
 import com.google.gwt.core.client.JsArray;
 import org.rstudio.core.client.StringUtil;
-import org.rstudio.core.client.js.JsUtil;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 
 /**
- * Represents a flattened list of scopes in the given DocDisplay. It takes a
- * snapshot at the time of construction, so don't hold onto a ScopeList whose
- * document is changing.
+ * Represents a flattened list of scopes in the given DocDisplay. The
+ * flattened list is maintained (and cached between edits) by the code model
+ * and is only copied if the ScopeList is filtered, so constructing one is
+ * cheap; however, the list is still a snapshot, so don't hold onto a
+ * ScopeList whose document is changing.
  */
 public class ScopeList implements Iterable<Scope>
 {
@@ -91,58 +92,82 @@ public class ScopeList implements Iterable<Scope>
 
    public ScopeList(DocDisplay docDisplay)
    {
-      addScopes(docDisplay.getScopeTree());
+      // shared with the code model, so never modified
+      allScopes_ = docDisplay.getFlattenedScopeList();
    }
 
    @Override
    public Iterator<Scope> iterator()
    {
-      return scopes_.iterator();
+      return asList().iterator();
    }
 
    public Scope[] getScopes()
    {
-      return scopes_.toArray(new Scope[scopes_.size()]);
+      Scope[] scopes = new Scope[size()];
+      for (int i = 0; i < scopes.length; i++)
+         scopes[i] = get(i);
+      return scopes;
    }
 
    public void removeAll(ScopePredicate shouldRemove)
    {
-      for (int i = 0; i < scopes_.size(); i++)
-         if (shouldRemove.test(scopes_.get(i)))
-            scopes_.remove(i--);
+      filter(shouldRemove, false);
    }
 
    public void selectAll(ScopePredicate shouldRetain)
    {
-      for (int i = 0; i < scopes_.size(); i++)
-         if (!shouldRetain.test(scopes_.get(i)))
-            scopes_.remove(i--);
+      filter(shouldRetain, true);
    }
 
    public Scope findFirst(ScopePredicate predicate)
    {
-      for (Scope scope : scopes_)
-         if (predicate.test(scope))
-            return scope;
+      for (int i = 0; i < size(); i++)
+         if (predicate.test(get(i)))
+            return get(i);
       return null;
    }
 
    public Scope findLast(ScopePredicate predicate)
    {
-      for (int i = scopes_.size() - 1; i >= 0; i--)
-         if (predicate.test(scopes_.get(i)))
-            return scopes_.get(i);
+      for (int i = size() - 1; i >= 0; i--)
+         if (predicate.test(get(i)))
+            return get(i);
       return null;
    }
 
-   private void addScopes(JsArray<Scope> scopes)
+   private void filter(ScopePredicate predicate, boolean retainMatches)
    {
-      for (Scope scope : JsUtil.asIterable(scopes))
-      {
-         scopes_.add(scope);
-         addScopes(scope.getChildren());
-      }
+      ArrayList<Scope> scopes = new ArrayList<Scope>();
+      for (int i = 0; i < size(); i++)
+         if (predicate.test(get(i)) == retainMatches)
+            scopes.add(get(i));
+      scopes_ = scopes;
    }
 
-   private final ArrayList<Scope> scopes_ = new ArrayList<Scope>();
+   private int size()
+   {
+      return scopes_ != null ? scopes_.size() : allScopes_.length();
+   }
+
+   private Scope get(int index)
+   {
+      return scopes_ != null ? scopes_.get(index) : allScopes_.get(index);
+   }
+
+   private ArrayList<Scope> asList()
+   {
+      if (scopes_ != null)
+         return scopes_;
+
+      ArrayList<Scope> scopes = new ArrayList<Scope>(allScopes_.length());
+      for (int i = 0; i < allScopes_.length(); i++)
+         scopes.add(allScopes_.get(i));
+      return scopes;
+   }
+
+   private final JsArray<Scope> allScopes_;
+
+   // the scopes that remain once the list has been filtered
+   private ArrayList<Scope> scopes_ = null;
 }
@@ -85,6 +85,7 @@ import org.rstudio.studio.client.rmarkdown.model.RmdOutputFormat;
 import org.rstudio.studio.client.rmarkdown.model.RmdTemplateFormat;
 import org.rstudio.studio.client.rmarkdown.model.RmdYamlData;
 import org.rstudio.studio.client.rmarkdown.model.YamlFrontMatter;
+import org.rstudio.studio.client.rmarkdown.model.YamlTree;
 import org.rstudio.studio.client.rmarkdown.ui.RmdTemplateOptionsDialog;
 import org.rstudio.studio.client.rsconnect.events.RSConnectActionEvent;
 import org.rstudio.studio.client.server.ServerError;
@@ -247,6 +248,7 @@ public class TextEditingTarget implements
             name_.fireChangeEvent();
             updateStatusBarLanguage();
             view_.adaptToFileType(newFileType_);
+            updateDiagnosticsEnabled();
             events_.fireEvent(new FileTypeChangedEvent());
             if (!fileType_.canSourceOnSave() && docUpdateSentinel_.sourceOnSave())
             {
@@ -369,7 +371,10 @@ public class TextEditingTarget implements
       dirtyState_ = new DirtyState(docDisplay_, false);
       prefs_ = prefs;
       codeExecution_ = new EditingTargetCodeExecution(docDisplay_, this);
-      compilePdfHelper_ = new TextEditingTargetCompilePdfHelper(docDisplay_);
+      metadataCache_ = new TextEditingTargetMetadataCache(docDisplay_);
+      diagnostics_ = new TextEditingTargetDiagnostics(docDisplay_, server_);
+      compilePdfHelper_ = new TextEditingTargetCompilePdfHelper(docDisplay_,
+                                                                metadataCache_);
       rmarkdownHelper_ = new TextEditingTargetRMarkdownHelper();
       cppHelper_ = new TextEditingTargetCppHelper(cppCompletionContext_, 
                                                   docDisplay_);
@@ -837,6 +842,8 @@ public class TextEditingTarget implements
          }
       });
 
+      updateDiagnosticsEnabled();
+
       if (fileType_.isR())
       {
          docDisplay_.addBreakpointSetHandler(new BreakpointSetEvent.Handler()
@@ -927,6 +934,19 @@ public class TextEditingTarget implements
      
 
       final String rTypeId = FileTypeRegistry.R.getTypeId();
+      ValueChangeHandler<Boolean> diagnosticsPrefHandler =
+            new ValueChangeHandler<Boolean>()
+            {
+               public void onValueChange(ValueChangeEvent<Boolean> evt)
+               {
+                  updateDiagnosticsEnabled();
+               }
+            };
+      releaseOnDismiss_.add(prefs_.showDiagnostics().addValueChangeHandler(
+            diagnosticsPrefHandler));
+      releaseOnDismiss_.add(prefs_.diagnosticsOnType().addValueChangeHandler(
+            diagnosticsPrefHandler));
+
       releaseOnDismiss_.add(prefs_.softWrapRFiles().addValueChangeHandler(
             new ValueChangeHandler<Boolean>()
             {
@@ -1510,6 +1530,9 @@ public class TextEditingTarget implements
       });
 
       view_.onActivate();
+      
+      // NOTE: will be a no-op for non-c/c++ file types
+      cppHelper_.primeTranslationUnit();
    }
 
    public void onDeactivate()
@@ -1902,6 +1925,14 @@ public class TextEditingTarget implements
          releaseOnDismiss_.remove(0).removeHandler();
 
       codeExecution_.detachLastExecuted();
+      diagnostics_.onDismiss();
+   }
+
+   private void updateDiagnosticsEnabled()
+   {
+      diagnostics_.setEnabled(fileType_.isR() &&
+                              prefs_.showDiagnostics().getValue() &&
+                              prefs_.diagnosticsOnType().getValue());
    }
 
    public ReadOnlyValue<Boolean> dirtyState()
@@ -2601,20 +2632,39 @@ public class TextEditingTarget implements
    
    private String getRmdFrontMatter()
    {
-      return YamlFrontMatter.getFrontMatter(docDisplay_.getCode());
+      return metadataCache_.getFrontMatter();
    }
    
    private void applyRmdFrontMatter(String yaml)
    {
+      // replace only the part of the front matter that changed, rather than
+      // resetting the whole document
       String code = docDisplay_.getCode();
-      String newCode = YamlFrontMatter.applyFrontMatter(code, yaml);
-      if (!code.equals(newCode)) 
+      YamlFrontMatter.Edit edit = YamlFrontMatter.getFrontMatterEdit(code, yaml);
+      if (edit != null) 
       {
-         docDisplay_.setCode(newCode, true);
+         docDisplay_.replaceRange(
+               Range.fromPoints(positionForOffset(code, edit.start),
+                                positionForOffset(code, edit.end)),
+               edit.text);
          updateRmdFormatList();
       }
    }
 
+   private static Position positionForOffset(String code, int offset)
+   {
+      int row = 0;
+      int rowStart = 0;
+      for (int i = code.indexOf('\n');
+           i >= 0 && i < offset;
+           i = code.indexOf('\n', i + 1))
+      {
+         row++;
+         rowStart = i + 1;
+      }
+      return Position.create(row, offset - rowStart);
+   }
+
    private void applyRmdFrontMatter(RmdTemplateOptionsDialog.Result result)
    {
       rmarkdownHelper_.frontMatterToYAML(result.frontMatter, 
@@ -2633,10 +2683,12 @@ public class TextEditingTarget implements
    {
       // try to extract the front matter and ascertain the template to which
       // it refers
-      String yaml = getRmdFrontMatter();
-      if (yaml == null)
+      if (getRmdFrontMatter() == null)
+         return null;
+      YamlTree tree = metadataCache_.getFrontMatterTree();
+      if (tree == null)
          return null;
-      return rmarkdownHelper_.getTemplateFormat(yaml);
+      return rmarkdownHelper_.getTemplateFormat(tree);
    }
    
    private void updateRmdFormatList()
@@ -3511,9 +3563,10 @@ public class TextEditingTarget implements
    {
       // last ditch extended type detection
       String extendedType = extendedType_;
-      extendedType = rmarkdownHelper_.detectExtendedType(docDisplay_.getCode(),
-                                                         extendedType, 
-                                                         fileType_);
+      extendedType = rmarkdownHelper_.detectExtendedType(
+                                       metadataCache_.hasRMarkdownV1Marker(),
+                                       extendedType, 
+                                       fileType_);
       
       if (extendedType == "rmarkdown")
          renderRmd();
@@ -4577,6 +4630,8 @@ public class TextEditingTarget implements
    private final DirtyState dirtyState_;
    private HandlerManager handlers_ = new HandlerManager(this);
    private FileSystemContext fileContext_;
+   private final TextEditingTargetMetadataCache metadataCache_;
+   private final TextEditingTargetDiagnostics diagnostics_;
    private final TextEditingTargetCompilePdfHelper compilePdfHelper_;
    private final TextEditingTargetRMarkdownHelper rmarkdownHelper_;
    private final TextEditingTargetCppHelper cppHelper_;
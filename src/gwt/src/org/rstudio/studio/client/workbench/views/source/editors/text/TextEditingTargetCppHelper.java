@@ -126,6 +126,25 @@ public class TextEditingTargetCppHelper
       });
    }
    
+   // ask the server to build the translation unit for the document in the
+   // background (the first completion request for a file otherwise pays
+   // for a full parse); only done once per document
+   public void primeTranslationUnit()
+   {
+      if (primed_ || !completionContext_.isCompletionEnabled())
+         return;
+      
+      primed_ = true;
+      completionContext_.withUpdatedDoc(new CommandWithArg<String>() {
+         @Override
+         public void execute(String docPath)
+         {
+            server_.primeCppTranslationUnit(docPath, 
+                                            new VoidServerRequestCallback());
+         }
+      });
+   }
+   
    private interface CppCompletionOperation
    {
       void execute(String docPath, int line, int column);
@@ -180,6 +199,7 @@ public class TextEditingTargetCppHelper
    private CppServerOperations server_;
    private final CppCompletionContext completionContext_;
    private final DocDisplay docDisplay_;
+   private boolean primed_ = false;
    
    // cache the value statically -- once we get an affirmative response
    // we never check again
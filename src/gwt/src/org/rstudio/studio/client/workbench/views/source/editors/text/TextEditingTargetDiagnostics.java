@@ -0,0 +1,210 @@
+/*
+ * TextEditingTargetDiagnostics.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.source.editors.text.RExpressionSplitter.Expression;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceAnnotation;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.model.LintItem;
+import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.user.client.Timer;
+
+// Shows live diagnostics for an R document as editor annotations. The
+// document is split into top-level expressions (see RExpressionSplitter)
+// and each expression is linted on its own, with the lint cached by the
+// expression's text; after an edit only the expressions which changed need
+// to go to the server, so the cost of a pass doesn't grow with the size of
+// the document. Passes are debounced while typing, and the results of a
+// pass are dropped (though still cached) if the document changed while the
+// pass was running.
+public class TextEditingTargetDiagnostics
+{
+   public TextEditingTargetDiagnostics(DocDisplay docDisplay,
+                                       SourceServerOperations server)
+   {
+      docDisplay_ = docDisplay;
+      server_ = server;
+      docDisplay_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            version_++;
+            if (enabled_)
+               timer_.schedule(DELAY_MILLIS);
+         }
+      });
+   }
+
+   public void setEnabled(boolean enabled)
+   {
+      if (enabled == enabled_)
+         return;
+
+      enabled_ = enabled;
+      if (enabled_)
+      {
+         timer_.schedule(0);
+      }
+      else
+      {
+         timer_.cancel();
+         JsArray<AceAnnotation> none = JavaScriptObject.createArray().cast();
+         docDisplay_.setAnnotations(none);
+      }
+   }
+
+   public void onDismiss()
+   {
+      enabled_ = false;
+      timer_.cancel();
+   }
+
+   private void runDiagnostics()
+   {
+      if (!enabled_)
+         return;
+
+      // only one request at a time; the pass is rerun with the latest
+      // document when the outstanding request completes
+      if (requestPending_)
+      {
+         rerunPending_ = true;
+         return;
+      }
+
+      final int version = version_;
+      final ArrayList<Expression> expressions =
+                        RExpressionSplitter.split(docDisplay_.getCode());
+      final ArrayList<String> uncached =
+                        RExpressionSplitter.uncached(expressions, cache_);
+
+      if (uncached.isEmpty())
+      {
+         showDiagnostics(expressions);
+         return;
+      }
+
+      requestPending_ = true;
+      server_.lintRExpressions(uncached,
+            new ServerRequestCallback<JsArray<JsArray<LintItem>>>()
+      {
+         @Override
+         public void onResponseReceived(JsArray<JsArray<LintItem>> lint)
+         {
+            requestPending_ = false;
+
+            for (int i = 0; i < lint.length() && i < uncached.size(); i++)
+               cache_.put(uncached.get(i), lint.get(i));
+
+            if (rerunPending_)
+            {
+               rerunPending_ = false;
+               runDiagnostics();
+            }
+            else if (enabled_ && version == version_)
+            {
+               showDiagnostics(expressions);
+            }
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            requestPending_ = false;
+            rerunPending_ = false;
+            Debug.logError(error);
+         }
+      });
+   }
+
+   private void showDiagnostics(ArrayList<Expression> expressions)
+   {
+      JsArray<AceAnnotation> annotations =
+                     JavaScriptObject.createArray().cast();
+      for (Expression expression : expressions)
+      {
+         JsArray<LintItem> lint = cache_.get(expression.code);
+         if (lint == null)
+            continue;
+
+         for (int i = 0; i < lint.length(); i++)
+         {
+            LintItem item = lint.get(i);
+            annotations.push(AceAnnotation.create(
+                  expression.startRow + item.getStartRow(),
+                  item.getStartColumn(),
+                  item.getMessage(),
+                  asAnnotationType(item.getType())));
+         }
+      }
+      docDisplay_.setAnnotations(annotations);
+   }
+
+   private static String asAnnotationType(String lintType)
+   {
+      if (LintItem.ERROR.equals(lintType))
+         return "error";
+      else if (LintItem.WARNING.equals(lintType))
+         return "warning";
+      else
+         return "info";
+   }
+
+   private final Timer timer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         runDiagnostics();
+      }
+   };
+
+   // lint keyed by expression text, shared by all documents; expressions
+   // are usually small so a generous number of them can be kept
+   private static final LinkedHashMap<String, JsArray<LintItem>> cache_ =
+      new LinkedHashMap<String, JsArray<LintItem>>(16, 0.75f, true)
+      {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(
+                           Map.Entry<String, JsArray<LintItem>> eldest)
+         {
+            return size() > MAX_CACHED_EXPRESSIONS;
+         }
+      };
+
+   private final DocDisplay docDisplay_;
+   private final SourceServerOperations server_;
+
+   private boolean enabled_ = false;
+   private int version_ = 0;
+   private boolean requestPending_ = false;
+   private boolean rerunPending_ = false;
+
+   private static final int DELAY_MILLIS = 1000;
+   private static final int MAX_CACHED_EXPRESSIONS = 2000;
+}
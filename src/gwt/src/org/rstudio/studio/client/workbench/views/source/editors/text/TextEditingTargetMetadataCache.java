@@ -0,0 +1,245 @@
+/*
+ * TextEditingTargetMetadataCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text;
+
+import java.util.ArrayList;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.regex.Pattern;
+import org.rstudio.core.client.tex.TexMagicComment;
+import org.rstudio.studio.client.rmarkdown.model.YamlFrontMatter;
+import org.rstudio.studio.client.rmarkdown.model.YamlTree;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+
+// Caches metadata that is otherwise extracted by scanning the full text of
+// the document (YAML front matter, TeX magic comments, Sweave concordance
+// directives, the R Markdown v1 marker). Each entry remembers which rows it
+// depends on and is only discarded when a change touches those rows, so
+// repeated compile/preview/knit commands on large documents don't pay for
+// a full-text scan each time.
+public class TextEditingTargetMetadataCache
+{
+   public TextEditingTargetMetadataCache(DocDisplay docDisplay)
+   {
+      docDisplay_ = docDisplay;
+      docDisplay_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            onChange(event.getEvent());
+         }
+      });
+   }
+
+   public String getFrontMatter()
+   {
+      if (frontMatter_ == null)
+      {
+         String code = docDisplay_.getCode();
+         int[] range = YamlFrontMatter.getFrontMatterRange(code);
+         frontMatter_ = YamlFrontMatter.getFrontMatter(code, range);
+
+         // the front matter can only change if rows up to and including the
+         // closing separator change (if there's no closing separator then
+         // any change may introduce one)
+         frontMatterLastRow_ = range == null ?
+               ALL_ROWS : countRows(code, range[1]);
+      }
+      return frontMatter_;
+   }
+
+   // The parsed front matter, or null if it can't be parsed; shared, so
+   // callers must not modify it
+   public YamlTree getFrontMatterTree()
+   {
+      String frontMatter = getFrontMatter();
+      if (!frontMatterTreeParsed_)
+      {
+         // This is in the editor load path, so log any exception rather
+         // than bringing down the editor
+         try
+         {
+            frontMatterTree_ = new YamlTree(frontMatter);
+         }
+         catch (Exception e)
+         {
+            Debug.log("Warning: Exception thrown while parsing YAML:\n" + 
+                      frontMatter);
+            frontMatterTree_ = null;
+         }
+         frontMatterTreeParsed_ = true;
+      }
+      return frontMatterTree_;
+   }
+
+   public ArrayList<TexMagicComment> getTexMagicComments()
+   {
+      if (magicComments_ == null)
+      {
+         // magic comments are only parsed from the leading block of comment
+         // (and blank) lines, so only read the document up to the first line
+         // that ends that block
+         StringBuilder header = new StringBuilder();
+         int rowCount = docDisplay_.getRowCount();
+         int row = 0;
+         for (; row < rowCount; row++)
+         {
+            String line = docDisplay_.getLine(row);
+            String trimmed = line.trim();
+            if (trimmed.length() > 0 && !trimmed.startsWith("%"))
+               break;
+            header.append(line).append('\n');
+         }
+         magicComments_ = TexMagicComment.parseComments(header.toString());
+         magicCommentsLastRow_ = row;
+      }
+      return new ArrayList<TexMagicComment>(magicComments_);
+   }
+
+   public boolean hasConcordanceDirective()
+   {
+      return concordance_.matches();
+   }
+
+   public boolean hasRMarkdownV1Marker()
+   {
+      return rmarkdownV1_.matches();
+   }
+
+   private void onChange(AceDocumentChangeEventNative event)
+   {
+      int startRow = event.getRange().getStart().getRow();
+
+      if (frontMatter_ != null &&
+          (frontMatterLastRow_ == ALL_ROWS || startRow <= frontMatterLastRow_))
+      {
+         frontMatter_ = null;
+         frontMatterTree_ = null;
+         frontMatterTreeParsed_ = false;
+      }
+
+      if (magicComments_ != null && startRow <= magicCommentsLastRow_)
+         magicComments_ = null;
+
+      concordance_.onChange(event);
+      rmarkdownV1_.onChange(event);
+   }
+
+   private static int countRows(String code, int endPos)
+   {
+      int rows = 0;
+      for (int i = 0; i < endPos; i++)
+         if (code.charAt(i) == '\n')
+            rows++;
+      return rows;
+   }
+
+   // Tracks whether any single line of the document matches a predicate.
+   // Remembers the row of a matching line; edits after that row can't
+   // affect the result, and when there's no match only the rows touched by
+   // an edit need to be checked.
+   private abstract class LineMatchCache
+   {
+      protected abstract boolean matchesLine(String line);
+
+      public boolean matches()
+      {
+         if (matchRow_ == UNKNOWN)
+         {
+            matchRow_ = NO_MATCH;
+            int rowCount = docDisplay_.getRowCount();
+            for (int row = 0; row < rowCount; row++)
+            {
+               if (matchesLine(docDisplay_.getLine(row)))
+               {
+                  matchRow_ = row;
+                  break;
+               }
+            }
+         }
+         return matchRow_ != NO_MATCH;
+      }
+
+      public void onChange(AceDocumentChangeEventNative event)
+      {
+         if (matchRow_ == UNKNOWN)
+            return;
+
+         int startRow = event.getRange().getStart().getRow();
+         if (matchRow_ != NO_MATCH)
+         {
+            if (startRow <= matchRow_)
+               matchRow_ = UNKNOWN;
+            return;
+         }
+
+         // no match before the change; look for one in the rows it touched
+         int endRow = event.getAction().startsWith("insert") ?
+               event.getRange().getEnd().getRow() : startRow;
+         endRow = Math.min(endRow, docDisplay_.getRowCount() - 1);
+         for (int row = startRow; row <= endRow; row++)
+         {
+            if (matchesLine(docDisplay_.getLine(row)))
+            {
+               matchRow_ = row;
+               return;
+            }
+         }
+      }
+
+      private int matchRow_ = UNKNOWN;
+
+      private static final int UNKNOWN = -2;
+      private static final int NO_MATCH = -1;
+   }
+
+   private final LineMatchCache concordance_ = new LineMatchCache()
+   {
+      @Override
+      protected boolean matchesLine(String line)
+      {
+         line = line.trim();
+         return line.startsWith("\\SweaveOpts") &&
+                concordancePattern_.match(line, 0) != null;
+      }
+   };
+
+   private final LineMatchCache rmarkdownV1_ = new LineMatchCache()
+   {
+      @Override
+      protected boolean matchesLine(String line)
+      {
+         return line.contains(
+               TextEditingTargetRMarkdownHelper.RMARKDOWN_V1_MARKER);
+      }
+   };
+
+   private final DocDisplay docDisplay_;
+
+   private String frontMatter_ = null;
+   private YamlTree frontMatterTree_ = null;
+   private boolean frontMatterTreeParsed_ = false;
+   private int frontMatterLastRow_ = ALL_ROWS;
+
+   private ArrayList<TexMagicComment> magicComments_ = null;
+   private int magicCommentsLastRow_ = 0;
+
+   private static final int ALL_ROWS = -1;
+
+   private static final Pattern concordancePattern_ = Pattern.create(
+                     "\\\\[\\s]*SweaveOpts[\\s]*{.*concordance[\\s]*=.*}");
+}
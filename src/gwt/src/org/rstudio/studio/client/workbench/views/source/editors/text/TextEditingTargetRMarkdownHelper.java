@@ -114,10 +114,19 @@ public class TextEditingTargetRMarkdownHelper
    public String detectExtendedType(String contents,
                                     String extendedType,
                                     TextFileType fileType)
+   {
+      return detectExtendedType(contents.contains(RMARKDOWN_V1_MARKER), 
+                                extendedType, 
+                                fileType);
+   }
+   
+   public String detectExtendedType(boolean hasRMarkdownV1Marker,
+                                    String extendedType,
+                                    TextFileType fileType)
    {
       if (extendedType.length() == 0 && 
           fileType.isMarkdown() &&
-          !contents.contains("<!-- rmarkdown v1 -->") && 
+          !hasRMarkdownV1Marker && 
           session_.getSessionInfo().getRMarkdownPackageAvailable())
       {
          return "rmarkdown";
@@ -408,13 +417,27 @@ public class TextEditingTargetRMarkdownHelper
 
    // Return the selected template and format given the YAML front matter
    public RmdSelectedTemplate getTemplateFormat(String yaml)
+   {
+      try
+      {
+         return getTemplateFormat(new YamlTree(yaml));
+      }
+      catch (Exception e)
+      {
+         Debug.log("Warning: Exception thrown while parsing YAML:\n" + yaml);
+      }
+      return null;
+   }
+
+   // As above, for front matter that has already been parsed (the tree is
+   // not modified)
+   public RmdSelectedTemplate getTemplateFormat(YamlTree tree)
    {
       // This is in the editor load path, so guard against exceptions and log
       // any we find without bringing down the editor. Failing to find a 
       // template here just turns off the template-specific UI format editor.
       try
       {
-         YamlTree tree = new YamlTree(yaml);
          boolean isShiny = false;
          
          if (tree.getKeyValue(RmdFrontMatter.KNIT_KEY).length() > 0)
@@ -445,7 +468,8 @@ public class TextEditingTargetRMarkdownHelper
       }
       catch (Exception e)
       {
-         Debug.log("Warning: Exception thrown while parsing YAML:\n" + yaml);
+         Debug.log("Warning: Exception thrown while parsing YAML:\n" + 
+                   tree.toString());
       }
       return null;
    }
@@ -679,4 +703,6 @@ public class TextEditingTargetRMarkdownHelper
    private DependencyManager dependencyManager_;
    private RMarkdownServerOperations server_;
    private FilesServerOperations fileServer_;
+   
+   public static final String RMARKDOWN_V1_MARKER = "<!-- rmarkdown v1 -->";
 }
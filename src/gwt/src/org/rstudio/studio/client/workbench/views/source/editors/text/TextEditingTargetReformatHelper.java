@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.workbench.views.source.editors.text;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Stack;
 
@@ -27,6 +28,11 @@ import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Positio
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Token;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Tokenizer;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.event.shared.HandlerRegistration;
 
 public class TextEditingTargetReformatHelper
 {
@@ -1049,6 +1055,17 @@ public class TextEditingTargetReformatHelper
    
    void insertPrettyNewlines()
    {
+      // Large selections are reformatted one top-level expression at a
+      // time so that the UI doesn't block
+      Range range = docDisplay_.getSelectionRange();
+      int startRow = range.getStart().getRow();
+      int endRow = range.getEnd().getRow();
+      if (endRow - startRow >= INCREMENTAL_REFORMAT_MIN_ROWS)
+      {
+         new IncrementalReformat(range).start();
+         return;
+      }
+      
       AceEditor editor = (AceEditor) docDisplay_;
       if (editor != null)
       {
@@ -1091,6 +1108,269 @@ public class TextEditingTargetReformatHelper
       }
    }
    
+   // Reformats a range of the document expression by expression on the
+   // incremental scheduler: the range is tokenized a few rows at a time, and
+   // then each top-level expression is formatted as its own token stream and
+   // diffed against its original text, so only the ranges that actually
+   // change are edited. Edits are collected while formatting and applied
+   // (bottom-up, as a single undo step) once every expression has been
+   // processed; if the document is modified in the meantime the reformat is
+   // abandoned.
+   private class IncrementalReformat
+   {
+      public IncrementalReformat(Range range)
+      {
+         // The tokenizer doesn't faithfully reproduce a leading empty line,
+         // so start on the first non-empty row
+         Position start = range.getStart();
+         Position end = range.getEnd();
+         while (start.getRow() < end.getRow() &&
+                docDisplay_.getLine(start.getRow()).length() ==
+                                                      start.getColumn())
+         {
+            start = Position.create(start.getRow() + 1, 0);
+         }
+         
+         start_ = start;
+         end_ = end;
+      }
+      
+      public void start()
+      {
+         tokenizer_ = Tokenizer.createRTokenizer();
+         tokenizeJob_ = tokenizer_.startTokenize(
+               docDisplay_.getCode(start_, end_));
+         edits_ = new ReformatEdits(start_.getRow(), start_.getColumn());
+         
+         changeHandler_ = docDisplay_.addDocumentChangedHandler(
+               new DocumentChangedEvent.Handler()
+         {
+            @Override
+            public void onDocumentChanged(DocumentChangedEvent event)
+            {
+               cancelled_ = true;
+            }
+         });
+         
+         Scheduler.get().scheduleIncremental(new RepeatingCommand()
+         {
+            @Override
+            public boolean execute()
+            {
+               if (cancelled_)
+               {
+                  changeHandler_.removeHandler();
+                  return false;
+               }
+               
+               long deadline = System.currentTimeMillis() + SLICE_MILLIS;
+               while (!tokenizeJob_.isComplete() &&
+                      System.currentTimeMillis() < deadline)
+               {
+                  tokenizer_.continueTokenize(tokenizeJob_, TOKENIZE_ROWS);
+               }
+               
+               if (!tokenizeJob_.isComplete())
+                  return true;
+               
+               if (expressions_ == null)
+               {
+                  expressions_ = new ArrayList<ArrayList<Token>>();
+                  splitExpressions(tokenizeJob_.getTokens());
+                  return true;
+               }
+               
+               while (index_ < expressions_.size() &&
+                      System.currentTimeMillis() < deadline)
+               {
+                  reformatExpression(index_);
+                  index_++;
+               }
+               
+               if (index_ < expressions_.size())
+                  return true;
+               
+               changeHandler_.removeHandler();
+               applyEdits();
+               return false;
+            }
+         });
+      }
+      
+      // Splits the token stream at newlines that end a top-level
+      // expression.
+      private void splitExpressions(ArrayList<Token> tokens)
+      {
+         int depth = 0;
+         int exprStart = 0;
+         
+         // the last significant token seen, and whether the parenthesized
+         // expression just closed was the header of a control flow
+         // statement or function definition (whose body follows)
+         Token lastSignificant = null;
+         boolean awaitingBody = false;
+         Stack<Boolean> headerParens = new Stack<Boolean>();
+         
+         for (int i = 0; i < tokens.size(); i++)
+         {
+            Token token = tokens.get(i);
+            String value = token.getValue();
+            
+            boolean whitespace = token.getType().equals("text") &&
+                                 value.trim().length() == 0;
+            boolean comment = token.getType().indexOf("comment") != -1;
+            
+            if (!whitespace && !comment)
+            {
+               if (OPENERS.contains(value))
+               {
+                  headerParens.push(value.equals("(") &&
+                        lastSignificant != null &&
+                        isHeaderKeyword(lastSignificant.getValue()));
+                  depth++;
+                  awaitingBody = false;
+               }
+               else if (CLOSERS.contains(value) && depth > 0)
+               {
+                  depth--;
+                  awaitingBody = !headerParens.isEmpty() && headerParens.pop();
+               }
+               else
+               {
+                  awaitingBody = isHeaderKeyword(value) &&
+                                 !value.equals("function");
+               }
+               lastSignificant = token;
+            }
+            
+            if (whitespace && depth == 0 && value.indexOf('\n') != -1 &&
+                lastSignificant != null && !awaitingBody &&
+                !continuesExpression(lastSignificant) &&
+                !nextSignificantValue(tokens, i).equals("else"))
+            {
+               addExpression(tokens, exprStart, i + 1);
+               exprStart = i + 1;
+               lastSignificant = null;
+            }
+         }
+         
+         if (exprStart < tokens.size())
+            addExpression(tokens, exprStart, tokens.size());
+      }
+      
+      private void addExpression(ArrayList<Token> tokens, int begin, int end)
+      {
+         ArrayList<Token> expression = 
+               new ArrayList<Token>(tokens.subList(begin, end));
+         StringBuilder builder = new StringBuilder();
+         for (int i = 0; i < expression.size(); i++)
+            builder.append(expression.get(i).getValue());
+         
+         expressions_.add(expression);
+         originals_.add(builder.toString());
+      }
+      
+      private void reformatExpression(int index)
+      {
+         ArrayList<Token> tokens = expressions_.get(index);
+         SimpleTokenCursor cursor = new SimpleTokenCursor(tokens);
+         
+         String lhs = "";
+         String rhs = "";
+         if (cursor.isLeftBrace())
+         {
+            lhs = cursor.currentValue();
+            rhs = cursor.getComplement(lhs);
+         }
+         
+         doInsertPrettyNewlines(cursor, lhs, rhs, 0, 0, true);
+         
+         StringBuilder builder = new StringBuilder();
+         for (int i = 0; i < tokens.size(); i++)
+            builder.append(tokens.get(i).getValue());
+         String replacement = builder.toString();
+         
+         // Trim off trailing whitespace
+         replacement = replacement.replaceAll("[ \\t]*\\n", "\n");
+         if (index == expressions_.size() - 1)
+            replacement = replacement.replaceAll("\\n+$", "\n");
+         
+         edits_.add(originals_.get(index), replacement);
+      }
+      
+      private void applyEdits()
+      {
+         ArrayList<ReformatEdits.Edit> edits = edits_.getEdits();
+         if (edits.isEmpty())
+            return;
+         
+         // Apply from the bottom up so the ranges of earlier edits stay valid
+         for (int i = edits.size() - 1; i >= 0; i--)
+         {
+            ReformatEdits.Edit edit = edits.get(i);
+            docDisplay_.replaceRange(
+                  Range.fromPoints(
+                        Position.create(edit.startRow, edit.startColumn),
+                        Position.create(edit.endRow, edit.endColumn)),
+                  edit.text);
+         }
+         
+         Range range = Range.fromPoints(
+               start_,
+               Position.create(edits_.getEndRow(), edits_.getEndColumn()));
+         docDisplay_.setSelectionRange(range);
+         docDisplay_.reindent(range);
+      }
+      
+      private boolean isHeaderKeyword(String value)
+      {
+         return value.equals("if") ||
+                value.equals("for") ||
+                value.equals("while") ||
+                value.equals("function") ||
+                value.equals("else") ||
+                value.equals("repeat");
+      }
+      
+      private boolean continuesExpression(Token token)
+      {
+         String type = token.getType();
+         return type.equals("keyword.operator") ||
+                type.equals("keyword.operator.infix") ||
+                token.getValue().equals(",");
+      }
+      
+      private String nextSignificantValue(ArrayList<Token> tokens, int index)
+      {
+         for (int i = index + 1; i < tokens.size(); i++)
+         {
+            Token token = tokens.get(i);
+            if (token.getType().indexOf("comment") != -1)
+               continue;
+            String value = token.getValue().trim();
+            if (value.length() > 0)
+               return value;
+         }
+         return "";
+      }
+      
+      private final Position start_;
+      private final Position end_;
+      
+      private Tokenizer tokenizer_;
+      private Tokenizer.Job tokenizeJob_;
+      private ArrayList<ArrayList<Token>> expressions_;
+      private final ArrayList<String> originals_ = new ArrayList<String>();
+      private ReformatEdits edits_;
+      
+      private int index_ = 0;
+      private boolean cancelled_ = false;
+      private HandlerRegistration changeHandler_;
+      
+      private static final int SLICE_MILLIS = 20;
+      private static final int TOKENIZE_ROWS = 100;
+   }
+   
    void alignAssignment()
    {
       InputEditorSelection initialSelection =
@@ -1279,5 +1559,12 @@ public class TextEditingTargetReformatHelper
    
    
    private final DocDisplay docDisplay_;
+   
+   private static final int INCREMENTAL_REFORMAT_MIN_ROWS = 200;
+   
+   private static final ArrayList<String> OPENERS =
+         new ArrayList<String>(Arrays.asList("(", "[", "[[", "{"));
+   private static final ArrayList<String> CLOSERS =
+         new ArrayList<String>(Arrays.asList(")", "]", "]]", "}"));
 
 }
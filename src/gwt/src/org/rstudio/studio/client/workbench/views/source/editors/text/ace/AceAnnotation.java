@@ -0,0 +1,52 @@
+/*
+ * AceAnnotation.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.ace;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+// An annotation shown in the editor gutter (see EditSession.setAnnotations)
+public class AceAnnotation extends JavaScriptObject
+{
+   protected AceAnnotation() {}
+
+   // type is one of "error", "warning" or "info"
+   public static native final AceAnnotation create(int row,
+                                                   int column,
+                                                   String text,
+                                                   String type) /*-{
+      return {
+         row: row,
+         column: column,
+         text: text,
+         type: type
+      };
+   }-*/;
+
+   public native final int getRow() /*-{
+      return this.row;
+   }-*/;
+
+   public native final int getColumn() /*-{
+      return this.column;
+   }-*/;
+
+   public native final String getText() /*-{
+      return this.text;
+   }-*/;
+
+   public native final String getType() /*-{
+      return this.type;
+   }-*/;
+}
@@ -27,4 +27,9 @@ public class AceDocumentChangeEventNative extends JavaScriptObject
    public final native Range getRange() /*-{
       return this.data.range;
    }-*/;
+
+   // the inserted or removed text (null for line based actions)
+   public final native String getText() /*-{
+      return this.data.text === undefined ? null : this.data.text;
+   }-*/;
 }
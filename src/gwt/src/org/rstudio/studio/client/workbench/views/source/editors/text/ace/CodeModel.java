@@ -65,6 +65,22 @@ public class CodeModel extends JavaScriptObject
       return this.getScopeTree ? this.getScopeTree() : [];
    }-*/;
 
+   public native final JsArray<Scope> getFlattenedScopeList() /*-{
+      if (this.getFlattenedScopeList)
+         return this.getFlattenedScopeList();
+      
+      // Code models that don't maintain a flattened list get walked here
+      var result = [];
+      var flatten = function(scopes) {
+         for (var i = 0; i < scopes.length; i++) {
+            result.push(scopes[i]);
+            flatten(scopes[i].$children);
+         }
+      };
+      flatten(this.getScopeTree ? this.getScopeTree() : []);
+      return result;
+   }-*/;
+
    public native final Scope findFunctionDefinitionFromUsage(
          Position usagePos, String functionName) /*-{
       if (this.findFunctionDefinitionFromUsage != null)
@@ -186,4 +186,12 @@ public class EditSession extends JavaScriptObject
    public native final void clearBreakpoints(int[] lines) /*-{
       this.clearBreakpoints(lines);
    }-*/;
+   
+   public native final void setAnnotations(JsArray<AceAnnotation> annotations) /*-{
+      this.setAnnotations(annotations);
+   }-*/;
+
+   public native final void clearAnnotations() /*-{
+      this.clearAnnotations();
+   }-*/;
 }
@@ -31,36 +31,50 @@ public class Tokenizer extends JavaScriptObject
       return new Tokenizer(new RHighlightRules().getRules());
    }-*/;
    
-   // This is a wrapper function that takes a line (that may have
-   // new lines) and properly tokenizes it as a flat token array, which
-   // makes it very easy to iterate and munge. This will work for any
-   // generic tokenizer (not just R)
-   private final native Token[] doTokenize(String line) /*-{
-      
-      var currentToken;
-      var tokens = [];
-      var state = "start";
-      var splat = line.split("\n");
+   // Tokenizing can be done a few lines at a time (so that large documents
+   // can be tokenized incrementally): begin with startTokenize, call
+   // continueTokenize until the job is complete, and then take its tokens.
+   public static class Job extends JavaScriptObject
+   {
+      protected Job()
+      {
+      }
       
-      // Add the first line.
-      var tokenizedLine = this.getLineTokens(splat[0], state);
-      tokens = tokenizedLine.tokens;
-      state = tokenizedLine.state;
+      public final native boolean isComplete() /*-{
+         return this.row >= this.lines.length;
+      }-*/;
       
-      // If there were no tokens on this line, add a newline token.
-      if (tokens.length === 0)
+      public final ArrayList<Token> getTokens()
       {
-         tokens.push({
-            type: "text",
-            value: "\n"
-         });
+         return new ArrayList<Token>(Arrays.asList(getTokensNative()));
       }
       
-      // Cache the final token. We may need to munge it.
-      var lastToken = tokens[tokens.length - 1];
+      private final native Token[] getTokensNative() /*-{
+         return this.tokens;
+      }-*/;
+   }
+   
+   public final native Job startTokenize(String text) /*-{
+      return {
+         lines: text.split("\n"),
+         row: 0,
+         state: "start",
+         tokens: []
+      };
+   }-*/;
+   
+   // This takes the next (up to) maxLines lines of the job's text and
+   // tokenizes them, adding them to its flat token array, which makes it
+   // very easy to iterate and munge. This will work for any generic
+   // tokenizer (not just R)
+   public final native void continueTokenize(Job job, int maxLines) /*-{
+      
+      var tokens = job.tokens;
+      var state = job.state;
+      var splat = job.lines;
+      var end = Math.min(job.row + maxLines, splat.length);
       
-      // Iterate through the rest of the lines.
-      for (var i = 1; i < splat.length; i++) {
+      for (var i = job.row; i < end; i++) {
          
          var tokenizedLine = this.getLineTokens(splat[i], state);
          var lineTokens = tokenizedLine.tokens;
@@ -68,6 +82,26 @@ public class Tokenizer extends JavaScriptObject
          
          state = tokenizedLine.state;
          
+         // Add the first line.
+         if (i === 0)
+         {
+            for (var j = 0; j < n; j++)
+               tokens.push(lineTokens[j]);
+            
+            // If there were no tokens on this line, add a newline token.
+            if (tokens.length === 0)
+            {
+               tokens.push({
+                  type: "text",
+                  value: "\n"
+               });
+            }
+            continue;
+         }
+         
+         // The final token of the previous line. We may need to munge it.
+         var lastToken = tokens[tokens.length - 1];
+         
          // We may skip the first token if it is text.
          var start = 0;
          
@@ -91,7 +125,6 @@ public class Tokenizer extends JavaScriptObject
                   type: "text",
                   value: "\n"
                });
-               lastToken = tokens[tokens.length - 1];
                continue;
             }
          }
@@ -136,29 +169,26 @@ public class Tokenizer extends JavaScriptObject
                   type: "text",
                   value: "\n"
                });
-               lastToken = tokens[tokens.length - 1];
             }
          }
          
          // Push back the rest of the tokens.
-         var n = lineTokens.length;
          for (var j = start; j < n; j++)
             tokens.push(lineTokens[j]);
-         
-         // Update the last token.
-         lastToken = tokens[tokens.length - 1];
-         
       }
       
-      return tokens;
+      job.row = end;
+      job.state = state;
       
    }-*/;
    
+   // Takes a line (that may have new lines) and tokenizes it as a flat
+   // token array
    public final ArrayList<Token> tokenize(String line)
    {
-      ArrayList<Token> tokens =
-            new ArrayList<Token>(Arrays.asList(doTokenize(line)));
-      
-      return tokens;
+      Job job = startTokenize(line);
+      while (!job.isComplete())
+         continueTokenize(job, Integer.MAX_VALUE);
+      return job.getTokens();
    }
 }
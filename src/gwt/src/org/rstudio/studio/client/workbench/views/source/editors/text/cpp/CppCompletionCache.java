@@ -0,0 +1,209 @@
+/*
+ * CppCompletionCache.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.cpp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+import org.rstudio.studio.client.workbench.views.source.model.CppCompletion;
+
+import com.google.gwt.core.client.JsArray;
+
+// Caches the completions returned by the server for a document, keyed by
+// the start of the completion scope (e.g. the position just after a '.' or
+// '::'). An entry is kept while the translation unit it was computed from is
+// unchanged, with the exception of edits to the identifier being completed
+// (i.e. typing or deleting identifier characters after the scope start on
+// the same line), which can't change the completions which are available
+// there. Filtering on the text the user has typed is done with a sorted
+// index of the completions, so narrowing the list as the user types doesn't
+// require a scan of every completion.
+public class CppCompletionCache
+{
+   public CppCompletionCache(DocDisplay docDisplay)
+   {
+      docDisplay.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            onChange(event.getEvent());
+         }
+      });
+   }
+
+   // returns the cached completions for the position, or null if there are
+   // none (or the cached completions were filtered on the server using user
+   // text that isn't a prefix of the position's user text)
+   public Entry get(String docPath, CompletionPosition position)
+   {
+      for (int i = entries_.size() - 1; i >= 0; i--)
+      {
+         Entry entry = entries_.get(i);
+         if (entry.docPath_.equals(docPath) &&
+             entry.position_.isSupersetOf(position))
+         {
+            // most recently used entries live at the end of the list
+            entries_.remove(i);
+            entries_.add(entry);
+            return entry;
+         }
+      }
+      return null;
+   }
+
+   public Entry put(String docPath,
+                    CompletionPosition position,
+                    JsArray<CppCompletion> completions)
+   {
+      Entry entry = new Entry(docPath, position, completions);
+      entries_.add(entry);
+      if (entries_.size() > MAX_ENTRIES)
+         entries_.remove(0);
+      return entry;
+   }
+
+   public static class Entry
+   {
+      private Entry(String docPath,
+                    CompletionPosition position,
+                    JsArray<CppCompletion> completions)
+      {
+         docPath_ = docPath;
+         position_ = position;
+         completions_ = completions;
+
+         // be more picky for member scope completions because clang
+         // returns a bunch of noise like constructors, destructors,
+         // compiler generated assignments, etc.
+         boolean member =
+               position.getScope() == CompletionPosition.Scope.Member;
+         ArrayList<Integer> indexes = new ArrayList<Integer>();
+         for (int i = 0; i < completions.length(); i++)
+         {
+            CppCompletion completion = completions.get(i);
+            if (!member ||
+                completion.getType() == CppCompletion.VARIABLE ||
+                (completion.getType() == CppCompletion.FUNCTION &&
+                 !completion.getTypedText().startsWith("operator=")))
+            {
+               indexes.add(i);
+            }
+         }
+
+         // index of the completions sorted by typed text
+         sorted_ = indexes.toArray(new Integer[indexes.size()]);
+         typedText_ = new String[sorted_.length];
+         Arrays.sort(sorted_, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+               return completions_.get(a).getTypedText().compareTo(
+                      completions_.get(b).getTypedText());
+            }
+         });
+         for (int i = 0; i < sorted_.length; i++)
+            typedText_[i] = completions.get(sorted_[i]).getTypedText();
+      }
+
+      public boolean isEmpty()
+      {
+         return completions_.length() == 0;
+      }
+
+      // returns the completions starting with the given text, in the order
+      // they were returned by the server
+      public JsArray<CppCompletion> filter(String prefix)
+      {
+         // find the first typed text >= prefix; everything which starts
+         // with the prefix is in a contiguous run from there
+         int lo = 0;
+         int hi = typedText_.length;
+         while (lo < hi)
+         {
+            int mid = (lo + hi) >>> 1;
+            if (typedText_[mid].compareTo(prefix) < 0)
+               lo = mid + 1;
+            else
+               hi = mid;
+         }
+
+         int end = lo;
+         while (end < typedText_.length && typedText_[end].startsWith(prefix))
+            end++;
+
+         ArrayList<Integer> matches = new ArrayList<Integer>(end - lo);
+         for (int i = lo; i < end; i++)
+            matches.add(sorted_[i]);
+         Collections.sort(matches);
+
+         JsArray<CppCompletion> filtered = JsArray.createArray().cast();
+         for (int i = 0; i < matches.size(); i++)
+            filtered.push(completions_.get(matches.get(i)));
+         return filtered;
+      }
+
+      private final String docPath_;
+      private final CompletionPosition position_;
+      private final JsArray<CppCompletion> completions_;
+      private final Integer[] sorted_;
+      private final String[] typedText_;
+   }
+
+   private void onChange(AceDocumentChangeEventNative event)
+   {
+      if (entries_.isEmpty())
+         return;
+
+      Range range = event.getRange();
+      int row = range.getStart().getRow();
+      boolean identifierEdit =
+            event.getAction().endsWith("Text") &&
+            row == range.getEnd().getRow() &&
+            isIdentifier(event.getText());
+
+      for (int i = entries_.size() - 1; i >= 0; i--)
+      {
+         Entry entry = entries_.get(i);
+         if (!identifierEdit ||
+             row != entry.position_.getPosition().getRow() ||
+             range.getStart().getColumn() <
+                              entry.position_.getPosition().getColumn())
+         {
+            entries_.remove(i);
+         }
+      }
+   }
+
+   private static boolean isIdentifier(String text)
+   {
+      if (text == null)
+         return false;
+      for (int i = 0; i < text.length(); i++)
+         if (!CppCompletionUtils.isCppIdentifierChar(text.charAt(i)))
+            return false;
+      return true;
+   }
+
+   private final ArrayList<Entry> entries_ = new ArrayList<Entry>();
+
+   private static final int MAX_ENTRIES = 20;
+}
@@ -61,6 +61,7 @@ public class CppCompletionManager implements CompletionManager
       initFilter_ = initFilter;
       completionContext_ = completionContext;
       rCompletionManager_ = rCompletionManager; 
+      completionCache_ = new CppCompletionCache(docDisplay);
       docDisplay_.addClickHandler(new ClickHandler()
       {
          public void onClick(ClickEvent event)
@@ -368,6 +369,7 @@ public class CppCompletionManager implements CompletionManager
                   docPath,
                   completionPosition,
                   docDisplay_,
+                  completionCache_,
                   invalidationToken,
                   explicit);
             }
@@ -411,6 +413,7 @@ public class CppCompletionManager implements CompletionManager
    private FileTypeRegistry fileTypeRegistry_;
    private final DocDisplay docDisplay_;
    private final CppCompletionContext completionContext_;
+   private final CppCompletionCache completionCache_;
    private CppCompletionRequest request_;
    private final InitCompletionFilter initFilter_ ;
    private final CompletionManager rCompletionManager_;
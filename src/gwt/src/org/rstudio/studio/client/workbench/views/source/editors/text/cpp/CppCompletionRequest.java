@@ -43,16 +43,27 @@ public class CppCompletionRequest
    public CppCompletionRequest(String docPath,
                                CompletionPosition completionPosition,
                                DocDisplay docDisplay, 
+                               CppCompletionCache cache,
                                Invalidation.Token token,
                                boolean explicit)
    {
       RStudioGinjector.INSTANCE.injectMembers(this);
       
+      docPath_ = docPath;
       docDisplay_ = docDisplay;
+      cache_ = cache;
       completionPosition_ = completionPosition;
       invalidationToken_ = token;
       explicit_ = explicit;
       
+      // use cached completions if we have them for this scope
+      completions_ = cache_.get(docPath_, completionPosition_);
+      if (completions_ != null)
+      {
+         showCompletions();
+         return;
+      }
+      
       Position pos = completionPosition_.getPosition();
       
       server_.getCppCompletions(docPath, 
@@ -98,34 +109,8 @@ public class CppCompletionRequest
          String userTypedText = getUserTypedText();
          
          // build list of entries (filter on text already entered)
-         JsArray<CppCompletion> filtered = JsArray.createArray().cast();
-         for (int i = 0; i < completions_.length(); i++)
-         {
-            CppCompletion completion = completions_.get(i);
-            String typedText = completion.getTypedText();
-            if ((userTypedText.length() == 0) || 
-                 typedText.startsWith(userTypedText))
-            {
-               // be more picky for member scope completions because clang
-               // returns a bunch of noise like constructors, destructors, 
-               // compiler generated assignments, etc.
-               if (completionPosition_.getScope() == 
-                                 CompletionPosition.Scope.Member)
-               {
-                  if (completion.getType() == CppCompletion.VARIABLE ||
-                      (completion.getType() == CppCompletion.FUNCTION &&
-                       !typedText.startsWith("operator=")))
-                  {
-                     filtered.push(completion);
-                  }
-                 
-               }
-               else
-               {
-                  filtered.push(completion);
-               }
-            }
-         }
+         JsArray<CppCompletion> filtered = 
+                                 completions_.filter(userTypedText);
          
          // check for auto-accept
          if ((filtered.length() == 1) && autoAccept && explicit_)
@@ -166,11 +151,25 @@ public class CppCompletionRequest
       if (result == null)
          return;    
        
-      // get the completions
-      completions_ = result.getCompletions();
+      // cache the completions (this also indexes them for filtering)
+      completions_ = cache_.put(docPath_, 
+                                completionPosition_, 
+                                result.getCompletions());
       
+      showCompletions();
+      
+      // show diagnostics
+      /*
+      JsArray<CppDiagnostic> diagnostics = result.getDiagnostics();
+      for (int i = 0; i < diagnostics.length(); i++)
+         Debug.prettyPrint(diagnostics.get(i));
+      */
+   }
+   
+   private void showCompletions()
+   {
       // check for none found condition on explicit completion
-      if ((completions_.length() == 0) && explicit_)
+      if (completions_.isEmpty() && explicit_)
       {
          showCompletionPopup("(No matches)");
       }
@@ -179,13 +178,6 @@ public class CppCompletionRequest
       {
          updateUI(true);
       }
-      
-      // show diagnostics
-      /*
-      JsArray<CppDiagnostic> diagnostics = result.getDiagnostics();
-      for (int i = 0; i < diagnostics.length(); i++)
-         Debug.prettyPrint(diagnostics.get(i));
-      */
    }
    
    private void showCompletionPopup(String message)
@@ -311,14 +303,16 @@ public class CppCompletionRequest
    private CppServerOperations server_;
    private UIPrefs uiPrefs_;
   
+   private final String docPath_;
    private final DocDisplay docDisplay_; 
+   private final CppCompletionCache cache_;
    private final boolean explicit_;
    private final Invalidation.Token invalidationToken_;
    
    private final CompletionPosition completionPosition_;
    
    private CppCompletionPopupMenu popup_;
-   private JsArray<CppCompletion> completions_;
+   private CppCompletionCache.Entry completions_;
    
    private boolean terminated_ = false;
 }
@@ -44,4 +44,8 @@ public interface CppServerOperations extends BuildServerOperations
    void getCppDiagnostics(
                 String docPath,
                 ServerRequestCallback<JsArray<CppDiagnostic>> requestCallback);
+   
+   void primeCppTranslationUnit(
+                String docPath,
+                ServerRequestCallback<Void> requestCallback);
 }
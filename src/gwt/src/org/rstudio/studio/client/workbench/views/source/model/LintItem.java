@@ -0,0 +1,55 @@
+/*
+ * LintItem.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.model;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+// A diagnostic produced by the R linter; rows and columns are 0-based
+public class LintItem extends JavaScriptObject
+{
+   protected LintItem()
+   {
+   }
+
+   // lint types
+   public static final String ERROR = "error";
+   public static final String WARNING = "warning";
+   public static final String INFO = "info";
+   public static final String STYLE = "style";
+
+   public native final int getStartRow() /*-{
+      return this.start_row;
+   }-*/;
+
+   public native final int getStartColumn() /*-{
+      return this.start_column;
+   }-*/;
+
+   public native final int getEndRow() /*-{
+      return this.end_row;
+   }-*/;
+
+   public native final int getEndColumn() /*-{
+      return this.end_column;
+   }-*/;
+
+   public native final String getType() /*-{
+      return this.type;
+   }-*/;
+
+   public native final String getMessage() /*-{
+      return this.message;
+   }-*/;
+}
@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.workbench.views.source.model;
 
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
 
 import org.rstudio.core.client.js.JsObject;
@@ -211,4 +212,10 @@ public interface SourceServerOperations extends FilesServerOperations,
    
    public void executeRCode(String code,
                             ServerRequestCallback<String> requestCallback);
+   
+   // lints each expression independently; the lint for each expression is
+   // returned in the same order, positioned relative to the expression
+   public void lintRExpressions(
+                  List<String> expressions,
+                  ServerRequestCallback<JsArray<JsArray<LintItem>>> requestCallback);
 }
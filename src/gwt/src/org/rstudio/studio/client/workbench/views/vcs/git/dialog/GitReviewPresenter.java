@@ -489,7 +489,8 @@ public class GitReviewPresenter implements ReviewPresenter
       view_.getLineTableDisplay().addDiffChunkActionHandler(new ApplyPatchHandler());
       view_.getLineTableDisplay().addDiffLineActionHandler(new ApplyPatchHandler());
 
-      new IntStateValue(MODULE_GIT, KEY_CONTEXT_LINES, ClientState.PERSISTENT,
+      contextLinesStateValue_ = new IntStateValue(
+                        MODULE_GIT, KEY_CONTEXT_LINES, ClientState.PERSISTENT,
                         session.getSessionInfo().getClientState())
       {
          @Override
@@ -511,6 +512,7 @@ public class GitReviewPresenter implements ReviewPresenter
          @Override
          public void onValueChange(ValueChangeEvent<Integer> event)
          {
+            contextLinesStateValue_.markDirty();
             updateDiff(false);
          }
       });
@@ -807,6 +809,7 @@ public class GitReviewPresenter implements ReviewPresenter
    private GitState gitState_;
    private final VCSFileOpener vcsFileOpener_;
    private boolean initialized_;
+   private IntStateValue contextLinesStateValue_;
    private static final String MODULE_GIT = "vcs_git";
    private static final String KEY_CONTEXT_LINES = "context_lines";
 
@@ -145,6 +145,7 @@ public class SVNCommitDialog extends ModalDialogBase
    {
       super.onUnload();
       commitDraft_ = message_.getText();
+      commitDraftStateValue_.markDirty();
       session_.persistClientState();
    }
 
@@ -301,7 +301,8 @@ public class SVNReviewPresenter implements ReviewPresenter
       view_.getLineTableDisplay().addDiffChunkActionHandler(new ApplyPatchHandler());
       view_.getLineTableDisplay().addDiffLineActionHandler(new ApplyPatchHandler());
 
-      new IntStateValue(MODULE_SVN, KEY_CONTEXT_LINES, ClientState.PERSISTENT,
+      contextLinesStateValue_ = new IntStateValue(
+                        MODULE_SVN, KEY_CONTEXT_LINES, ClientState.PERSISTENT,
                         session.getSessionInfo().getClientState())
       {
          @Override
@@ -323,6 +324,7 @@ public class SVNReviewPresenter implements ReviewPresenter
          @Override
          public void onValueChange(ValueChangeEvent<Integer> event)
          {
+            contextLinesStateValue_.markDirty();
             updateDiff();
          }
       });
@@ -515,6 +517,7 @@ public class SVNReviewPresenter implements ReviewPresenter
    private String currentFilename_;
    private SVNState svnState_;
    private boolean initialized_;
+   private IntStateValue contextLinesStateValue_;
    private static final String MODULE_SVN = "vcs_svn";
    private static final String KEY_CONTEXT_LINES = "context_lines";
    
@@ -0,0 +1,460 @@
+/*
+ * ClientBenchmarks.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.rstudio.core.client.CsvReader;
+import org.rstudio.core.client.CsvWriter;
+import org.rstudio.core.client.patch.SubstringDiff;
+import org.rstudio.studio.client.workbench.views.source.editors.text.RExpressionSplitter;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ReformatEdits;
+import org.rstudio.studio.client.workbench.views.source.editors.text.RExpressionSplitter.Expression;
+import org.rstudio.studio.client.workbench.views.vcs.common.diff.DiffChunk;
+import org.rstudio.studio.client.workbench.views.vcs.common.diff.UnifiedParser;
+
+/**
+ * Micro-benchmarks for the client code which runs on a plain JVM (i.e.
+ * doesn't depend on JSNI or GWT.create). Each benchmark is run repeatedly
+ * against a fixture from this package (or R sources from the session
+ * modules, see benchmark.rsources) and its median time per operation is
+ * compared with the stored baseline:
+ *
+ *   ant benchmark                          compare against baseline.txt
+ *   ant benchmark -Dbenchmark.update=true  rewrite baseline.txt
+ *
+ * Absolute timings depend on the machine, so times are compared relative
+ * to a calibration loop (a fixed mix of the string and collection work the
+ * benchmarks do) which is measured in the same run; the baseline stores
+ * these relative times. The run fails if a benchmark is relatively slower
+ * than the baseline by more than the tolerance (benchmark.tolerance,
+ * default 0.5, i.e. 50%).
+ */
+public class ClientBenchmarks
+{
+   public static void main(String[] args) throws Exception
+   {
+      if (args.length != 1)
+      {
+         System.err.println("usage: ClientBenchmarks <baseline file>");
+         System.exit(2);
+      }
+
+      File baselineFile = new File(args[0]);
+      boolean update = Boolean.getBoolean("benchmark.update");
+      double tolerance = Double.parseDouble(
+                           System.getProperty("benchmark.tolerance", "0.5"));
+
+      Map<String, Double> baseline =
+            update ? new LinkedHashMap<String, Double>()
+                   : readBaseline(baselineFile);
+      ArrayList<Benchmark> benchmarks = createBenchmarks();
+
+      // measure everything before calibrating again, so that drift in the
+      // machine's speed over the run shows up in the calibration
+      long before = measure(CALIBRATION);
+      Map<String, Long> times = new LinkedHashMap<String, Long>();
+      for (Benchmark benchmark : benchmarks)
+         times.put(benchmark.name, measure(benchmark));
+      long after = measure(CALIBRATION);
+      double calibration = (before + after) / 2.0;
+      System.out.println(String.format("%-28s %12.0f ns/op",
+                                       CALIBRATION.name,
+                                       calibration));
+
+      Map<String, Double> results = new LinkedHashMap<String, Double>();
+      ArrayList<String> regressions = new ArrayList<String>();
+      for (Map.Entry<String, Long> time : times.entrySet())
+      {
+         String name = time.getKey();
+         double relative = time.getValue() / calibration;
+         results.put(name, relative);
+
+         Double base = baseline.get(name);
+         String change = "";
+         if (base != null)
+         {
+            double delta = (relative - base) / base;
+            change = String.format("%+6.1f%%", delta * 100);
+            if (delta > tolerance)
+            {
+               change += "  REGRESSION";
+               regressions.add(name);
+            }
+         }
+         System.out.println(String.format("%-28s %12d ns/op %10.4f x %10s x  %s",
+               name,
+               time.getValue(),
+               relative,
+               base == null ? "-" : String.format("%.4f", base),
+               change));
+      }
+
+      if (update)
+      {
+         writeBaseline(baselineFile, results);
+         System.out.println("Baseline written to " + baselineFile);
+      }
+      else if (!regressions.isEmpty())
+      {
+         System.err.println("Slower than baseline: " + regressions);
+         System.exit(1);
+      }
+
+      // keep the results of the benchmarks alive
+      if (sink_ == 42)
+         System.out.println();
+   }
+
+   private static abstract class Benchmark
+   {
+      public Benchmark(String name)
+      {
+         this.name = name;
+      }
+
+      // returns a value derived from the work done, so that it can't be
+      // optimized away
+      public abstract int run();
+
+      public final String name;
+   }
+
+   // a fixed mix of scanning characters, building strings and hashing them
+   private static final Benchmark CALIBRATION = new Benchmark("Calibration")
+   {
+      @Override
+      public int run()
+      {
+         StringBuilder builder = new StringBuilder();
+         HashMap<String, Integer> map = new HashMap<String, Integer>();
+         int sum = 0;
+         for (int i = 0; i < 1000; i++)
+         {
+            builder.setLength(0);
+            builder.append("x").append(i).append(" <- f(a, \"b\", c)\n");
+            String line = builder.toString();
+            for (int j = 0; j < line.length(); j++)
+               sum += line.charAt(j);
+            map.put(line, i);
+         }
+         return sum + map.size();
+      }
+   };
+
+   private static ArrayList<Benchmark> createBenchmarks() throws IOException
+   {
+      ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+      // git diff spanning several files (as shown in the review pane)
+      final String diff = readFixture("changes.diff");
+      benchmarks.add(new Benchmark("UnifiedParser.parse")
+      {
+         @Override
+         public int run()
+         {
+            int lines = 0;
+            UnifiedParser parser = new UnifiedParser(diff);
+            while (parser.nextFilePair() != null)
+            {
+               DiffChunk chunk;
+               while (null != (chunk = parser.nextChunk()))
+                  lines += chunk.getLines().size();
+            }
+            return lines;
+         }
+      });
+
+      // exported request log (JSON payloads with quotes and commas)
+      final String csv = readFixture("request-log.csv");
+      final ArrayList<String[]> rows = new ArrayList<String[]>();
+      for (String[] row : new CsvReader(csv))
+         rows.add(row);
+
+      benchmarks.add(new Benchmark("CsvReader.read")
+      {
+         @Override
+         public int run()
+         {
+            int fields = 0;
+            Iterator<String[]> it = new CsvReader(csv).iterator();
+            while (it.hasNext())
+               fields += it.next().length;
+            return fields;
+         }
+      });
+
+      benchmarks.add(new Benchmark("CsvWriter.write")
+      {
+         @Override
+         public int run()
+         {
+            CsvWriter writer = new CsvWriter();
+            for (String[] row : rows)
+            {
+               for (String value : row)
+                  writer.writeValue(value);
+               writer.endLine();
+            }
+            return writer.getValue().length();
+         }
+      });
+
+      // an R source file before and after typing in the middle of it, and
+      // at the end of it (where the whole document is scanned)
+      final String document = readFixture("document.R");
+      int mid = document.indexOf('\n', document.length() / 2) + 1;
+      final String edited = document.substring(0, mid) +
+                            "   x <- 1\n" +
+                            document.substring(mid);
+      final String appended = document + "x <- 1\n";
+
+      benchmarks.add(new Benchmark("SubstringDiff.insert")
+      {
+         @Override
+         public int run()
+         {
+            SubstringDiff d = new SubstringDiff(document, edited);
+            return d.getOffset() + d.patch(document).length();
+         }
+      });
+
+      benchmarks.add(new Benchmark("SubstringDiff.append")
+      {
+         @Override
+         public int run()
+         {
+            SubstringDiff d = new SubstringDiff(document, appended);
+            return d.getOffset() + d.patch(document).length();
+         }
+      });
+
+      // the R sources of a large package (all of the session's modules,
+      // read from the source tree), as seen by live diagnostics: splitting
+      // the whole document, and a pass after an edit (where all but the
+      // edited expression is cached)
+      final String source = readRSources(new File(
+            System.getProperty("benchmark.rsources", RSOURCES_DIR)));
+      int sourceMid = source.indexOf('\n', source.length() / 2) + 1;
+      final String editedSource = source.substring(0, sourceMid) +
+                                  "x <- 1\n" +
+                                  source.substring(sourceMid);
+      final HashMap<String, Boolean> lintCache = new HashMap<String, Boolean>();
+      for (Expression expression : RExpressionSplitter.split(source))
+         lintCache.put(expression.code, Boolean.TRUE);
+
+      benchmarks.add(new Benchmark("RExpressionSplitter.split")
+      {
+         @Override
+         public int run()
+         {
+            return RExpressionSplitter.split(source).size();
+         }
+      });
+
+      benchmarks.add(new Benchmark("Diagnostics.editPass")
+      {
+         @Override
+         public int run()
+         {
+            ArrayList<Expression> expressions =
+                                 RExpressionSplitter.split(editedSource);
+            return expressions.size() +
+                   RExpressionSplitter.uncached(expressions, lintCache).size();
+         }
+      });
+
+      // planning the edits of a reformat of the whole package (the
+      // formatting itself needs Ace's tokenizer, so every other expression
+      // stands in for a reformatted one by breaking lines after commas)
+      final ArrayList<String> originals = new ArrayList<String>();
+      final ArrayList<String> reformatted = new ArrayList<String>();
+      for (Expression expression : RExpressionSplitter.split(source))
+      {
+         originals.add(expression.code);
+         reformatted.add(originals.size() % 2 == 0
+                         ? expression.code.replace(", ", ",\n    ")
+                         : expression.code);
+      }
+
+      benchmarks.add(new Benchmark("ReformatEdits.add")
+      {
+         @Override
+         public int run()
+         {
+            ReformatEdits edits = new ReformatEdits(0, 0);
+            for (int i = 0; i < originals.size(); i++)
+               edits.add(originals.get(i), reformatted.get(i));
+            return edits.getEdits().size() + edits.getEndRow();
+         }
+      });
+
+      return benchmarks;
+   }
+
+   // warms up the benchmark, then takes the median time per operation over
+   // several samples (each long enough to dwarf the timer's resolution)
+   private static long measure(Benchmark benchmark)
+   {
+      runFor(benchmark, WARMUP_MILLIS * 1000000L);
+
+      long[] samples = new long[SAMPLES];
+      for (int i = 0; i < SAMPLES; i++)
+         samples[i] = runFor(benchmark, SAMPLE_MILLIS * 1000000L);
+      Arrays.sort(samples);
+      return samples[SAMPLES / 2];
+   }
+
+   // returns the average nanoseconds per run
+   private static long runFor(Benchmark benchmark, long nanos)
+   {
+      long start = System.nanoTime();
+      long elapsed;
+      int runs = 0;
+      do
+      {
+         sink_ += benchmark.run();
+         runs++;
+         elapsed = System.nanoTime() - start;
+      }
+      while (elapsed < nanos);
+      return elapsed / runs;
+   }
+
+   private static String readFixture(String name) throws IOException
+   {
+      InputStream stream = ClientBenchmarks.class.getResourceAsStream(name);
+      if (stream == null)
+         throw new IOException("Fixture not found: " + name);
+
+      try
+      {
+         return readStream(stream);
+      }
+      finally
+      {
+         stream.close();
+      }
+   }
+
+   private static String readStream(InputStream stream) throws IOException
+   {
+      BufferedReader reader = new BufferedReader(
+                                 new InputStreamReader(stream, "UTF-8"));
+      StringBuilder contents = new StringBuilder();
+      char[] buffer = new char[8192];
+      int n;
+      while (-1 != (n = reader.read(buffer)))
+         contents.append(buffer, 0, n);
+      return contents.toString();
+   }
+
+   // concatenates the R source files in the directory
+   private static String readRSources(File dir) throws IOException
+   {
+      File[] files = dir.listFiles();
+      if (files == null)
+         throw new IOException("R sources not found: " + dir);
+      Arrays.sort(files);
+
+      StringBuilder contents = new StringBuilder();
+      for (File file : files)
+      {
+         if (!file.getName().endsWith(".R"))
+            continue;
+         InputStream stream = new FileInputStream(file);
+         try
+         {
+            contents.append(readStream(stream));
+         }
+         finally
+         {
+            stream.close();
+         }
+      }
+      return contents.toString();
+   }
+
+   private static Map<String, Double> readBaseline(File file)
+                                                            throws IOException
+   {
+      Map<String, Double> baseline = new LinkedHashMap<String, Double>();
+      if (!file.exists())
+         return baseline;
+
+      BufferedReader reader = new BufferedReader(new FileReader(file));
+      try
+      {
+         String line;
+         while (null != (line = reader.readLine()))
+         {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#"))
+               continue;
+            String[] fields = line.split("\\s+");
+            baseline.put(fields[0], Double.parseDouble(fields[1]));
+         }
+      }
+      finally
+      {
+         reader.close();
+      }
+      return baseline;
+   }
+
+   private static void writeBaseline(File file, Map<String, Double> results)
+                                                            throws IOException
+   {
+      PrintWriter writer = new PrintWriter(new FileWriter(file));
+      try
+      {
+         writer.println("# median time per op relative to the calibration " +
+                        "loop; regenerate with " +
+                        "ant benchmark -Dbenchmark.update=true");
+         for (Map.Entry<String, Double> result : results.entrySet())
+            writer.println(result.getKey() + " " +
+                           String.format(Locale.US, "%.4f",
+                                         result.getValue()));
+      }
+      finally
+      {
+         writer.close();
+      }
+   }
+
+   private static int sink_ = 0;
+
+   // relative to src/gwt, where the benchmarks are run from
+   private static final String RSOURCES_DIR = "../cpp/session/modules";
+
+   private static final int WARMUP_MILLIS = 2000;
+   private static final int SAMPLE_MILLIS = 250;
+   private static final int SAMPLES = 11;
+}
@@ -0,0 +1,144 @@
+/*
+ * RMarkdownPreviewTests.java
+ *
+ * Copyright (C) 2009-15 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.selenium;
+
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+public class RMarkdownPreviewTests
+{
+   @BeforeClass
+   public static void setUpBeforeClass() throws Exception {
+      driver_ = RStudioWebAppDriver.start();
+      mainWindow_ = driver_.getWindowHandle();
+
+      ConsoleTestUtils.beginConsoleInteraction(driver_);
+   }
+
+   @AfterClass
+   public static void tearDownAfterClass() throws Exception {
+      RStudioWebAppDriver.stop();
+   }
+
+   @Test
+   public void reknitPatchesPreview() {
+      // Create an R Markdown document and open it
+      Actions create = new Actions(driver_);
+      create.sendKeys(Keys.ESCAPE + "writeLines(c('---', " +
+            "'output: html_document', '---', '', 'First'), " +
+            "rmd <- file.path(tempdir(), 'patch.Rmd')); " +
+            "file.edit(rmd)" + Keys.ENTER);
+      create.perform();
+
+      final WebElement editor = waitForEditorContaining("First");
+
+      // Knit it and wait for the preview to show it
+      knit();
+      showPreview("First");
+
+      // Mark the preview's window; a full reload would discard the mark
+      ((JavascriptExecutor)driver_).executeScript(
+            "window.patchMarker = true;");
+
+      // Change the document and knit it again
+      driver_.switchTo().window(mainWindow_);
+      editor.click();
+      Actions edit = new Actions(driver_);
+      edit.sendKeys(Keys.chord(Keys.CONTROL, Keys.END));
+      edit.sendKeys(Keys.ENTER + Keys.ENTER + "Second");
+      edit.perform();
+      knit();
+
+      // The new content should have been patched into .main-container of
+      // the document that was already showing
+      WebElement container = showPreview("Second");
+      Assert.assertTrue(container.getText().contains("First"));
+      Assert.assertEquals(Boolean.TRUE,
+            ((JavascriptExecutor)driver_).executeScript(
+                  "return window.patchMarker === true;"));
+
+      driver_.switchTo().window(mainWindow_);
+   }
+
+   private WebElement waitForEditorContaining(final String text) {
+      return (new WebDriverWait(driver_, 10)).until(
+            new ExpectedCondition<WebElement>() {
+         public WebElement apply(WebDriver d) {
+            List<WebElement> editors = driver_.findElements(
+                  By.className("ace_content"));
+            for (WebElement e: editors) {
+               if (e.getText().contains(text))
+                  return e;
+            }
+            return null;
+         }
+      });
+   }
+
+   private void knit() {
+      Actions knit = new Actions(driver_);
+      knit.sendKeys(Keys.chord(Keys.CONTROL, Keys.SHIFT, "k"));
+      knit.perform();
+   }
+
+   // Switches to the document in the preview window and waits for its
+   // .main-container to contain the given text
+   private WebElement showPreview(final String text) {
+      (new WebDriverWait(driver_, 30)).until(new ExpectedCondition<Boolean>() {
+         public Boolean apply(WebDriver d) {
+            return driver_.getWindowHandles().size() > 1;
+         }
+      });
+      for (String handle: driver_.getWindowHandles()) {
+         if (!handle.equals(mainWindow_)) {
+            driver_.switchTo().window(handle);
+            break;
+         }
+      }
+
+      WebElement frame = (new WebDriverWait(driver_, 10))
+        .until(ExpectedConditions.presenceOfElementLocated(
+              By.tagName("iframe")));
+      driver_.switchTo().frame(frame);
+
+      return (new WebDriverWait(driver_, 60)).until(
+            new ExpectedCondition<WebElement>() {
+         public WebElement apply(WebDriver d) {
+            List<WebElement> containers = driver_.findElements(
+                  By.className("main-container"));
+            if (containers.size() > 0 &&
+                containers.get(0).getText().contains(text))
+               return containers.get(0);
+            return null;
+         }
+      });
+   }
+
+   private static WebDriver driver_;
+   private static String mainWindow_;
+}
@@ -23,6 +23,7 @@ import org.junit.runners.Suite.SuiteClasses;
                 RConsoleInteraction.class,
                 SourceInteraction.class,
                 DataImportTests.class,
+                RMarkdownPreviewTests.class,
                 WorkbenchTests.class
                 })
 public class RStudioTestSuite 